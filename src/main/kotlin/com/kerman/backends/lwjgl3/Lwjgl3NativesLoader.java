@@ -9,6 +9,7 @@ public final class Lwjgl3NativesLoader {
     }
 
     static public void load() {
-        GdxNativesLoader.load();
+        // The gdx natives are optional, BufferUtils and ETC1 fall back to JavaBufferUtils and JavaETC1 when they are missing.
+        GdxNativesLoader.tryLoad();
     }
 }
@@ -1,5 +1,6 @@
 package com.kerman.backends.lwjgl3.audio;
 
+import com.kerman.core.audio.SoundData;
 import com.kerman.core.files.FileHandle;
 import com.kerman.core.utils.KermanRuntimeException;
 
@@ -90,6 +91,10 @@ public class Mp3 {
         public Sound(OpenALLwjgl3Audio audio, FileHandle file) {
             super(audio);
             if (audio.noDevice) return;
+            setup(decode(file));
+        }
+
+        static SoundData decode(FileHandle file) {
             ByteArrayOutputStream output = new ByteArrayOutputStream(4096);
 
             Bitstream bitstream = new Bitstream(file.read());
@@ -116,7 +121,7 @@ public class Mp3 {
                     output.write(outputBuffer.getBuffer(), 0, outputBuffer.reset());
                 }
                 bitstream.close();
-                setup(output.toByteArray(), channels, 16, sampleRate);
+                return soundData(output.toByteArray(), channels, 16, sampleRate);
             } catch (Throwable ex) {
                 throw new KermanRuntimeException("Error reading audio data.", ex);
             }
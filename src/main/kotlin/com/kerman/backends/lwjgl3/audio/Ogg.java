@@ -1,5 +1,6 @@
 package com.kerman.backends.lwjgl3.audio;
 
+import com.kerman.core.audio.SoundData;
 import com.kerman.core.files.FileHandle;
 import com.kerman.core.utils.BufferUtils;
 import com.kerman.core.utils.KermanRuntimeException;
@@ -7,8 +8,10 @@ import com.kerman.core.utils.StreamUtils;
 
 import org.lwjgl.stb.STBVorbis;
 import org.lwjgl.system.MemoryStack;
+import org.lwjgl.system.MemoryUtil;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.IntBuffer;
 import java.nio.ShortBuffer;
 
@@ -51,7 +54,13 @@ public class Ogg {
         public Sound(OpenALLwjgl3Audio audio, FileHandle file) {
             super(audio);
             if (audio.noDevice) return;
+            setup(decode(file));
+        }
 
+        /**
+         * @return the samples of the file, in memory allocated by the decoder
+         */
+        static SoundData decode(FileHandle file) {
             // put the encoded audio data in a ByteBuffer
             byte[] streamData = file.readBytes();
             ByteBuffer encodedData = BufferUtils.newByteBuffer(streamData.length);
@@ -70,7 +79,7 @@ public class Ogg {
                     throw new KermanRuntimeException("Error decoding OGG file: " + file);
                 }
 
-                setup(decodedData, channels, 16, sampleRate);
+                return new SoundData(MemoryUtil.memByteBuffer(decodedData).order(ByteOrder.nativeOrder()), channels, 16, sampleRate);
             }
         }
     }
@@ -31,6 +31,7 @@ import static org.lwjgl.openal.EnumerateAllExt.ALC_ALL_DEVICES_SPECIFIER;
 
 import com.kerman.core.audio.AudioDevice;
 import com.kerman.core.audio.AudioRecorder;
+import com.kerman.core.audio.SoundData;
 import com.kerman.core.files.FileHandle;
 import com.kerman.core.math.MathUtils;
 import com.kerman.core.utils.KermanArray;
@@ -59,6 +60,7 @@ import java.nio.IntBuffer;
 import java.util.Arrays;
 import java.util.List;
 import java.util.function.BiFunction;
+import java.util.function.Function;
 
 public class OpenALLwjgl3Audio implements Lwjgl3Audio {
     private final int deviceBufferSize;
@@ -73,6 +75,7 @@ public class OpenALLwjgl3Audio implements Lwjgl3Audio {
     private long nextSoundId = 0;
     private final ObjectMap<String, BiFunction<OpenALLwjgl3Audio, FileHandle, OpenALSound>> extensionToSoundClass = new ObjectMap<>();
     private final ObjectMap<String, BiFunction<OpenALLwjgl3Audio, FileHandle, OpenALMusic>> extensionToMusicClass = new ObjectMap<>();
+    private final ObjectMap<String, Function<FileHandle, SoundData>> extensionToSoundDecoder = new ObjectMap<>();
     private OpenALSound[] recentSounds;
     private int mostRecetSound = -1;
     private String preferredOutputDevice = null;
@@ -88,10 +91,13 @@ public class OpenALLwjgl3Audio implements Lwjgl3Audio {
 
         registerSound("ogg", Ogg.Sound::new);
         registerMusic("ogg", Ogg.Music::new);
+        registerSoundDecoder("ogg", Ogg.Sound::decode);
         registerSound("wav", Wav.Sound::new);
         registerMusic("wav", Wav.Music::new);
+        registerSoundDecoder("wav", Wav.Sound::decode);
         registerSound("mp3", Mp3.Sound::new);
         registerMusic("mp3", Mp3.Music::new);
+        registerSoundDecoder("mp3", Mp3.Sound::decode);
 
         device = alcOpenDevice((ByteBuffer) null);
         if (device == 0L) {
@@ -189,6 +195,16 @@ public class OpenALLwjgl3Audio implements Lwjgl3Audio {
         extensionToSoundClass.put(extension, soundSupplier);
     }
 
+    /**
+     * Registers the function {@link #decodeSound(FileHandle)} uses for files with the extension. Without one, sounds of that
+     * extension are only created with {@link #newSound(FileHandle)}.
+     */
+    public void registerSoundDecoder(String extension, Function<FileHandle, SoundData> decoder) {
+        if (extension == null) throw new IllegalArgumentException("extension cannot be null.");
+        if (decoder == null) throw new IllegalArgumentException("decoder cannot be null.");
+        extensionToSoundDecoder.put(extension, decoder);
+    }
+
     public void registerMusic(String extension, BiFunction<OpenALLwjgl3Audio, FileHandle, OpenALMusic> soundSupplier) {
         if (extension == null) throw new IllegalArgumentException("extension cannot be null.");
         if (soundSupplier == null) throw new IllegalArgumentException("musicClass cannot be null.");
@@ -211,6 +227,25 @@ public class OpenALLwjgl3Audio implements Lwjgl3Audio {
         return sound;
     }
 
+    @Override
+    public OpenALSound newSound(@NotNull SoundData data) {
+        OpenALSound sound = new OpenALSound(this);
+        if (!noDevice) sound.setup(data);
+        return sound;
+    }
+
+    /**
+     * Decodes the file with the decoder registered for its extension, without creating an OpenAL buffer.
+     *
+     * @return null if there is no audio device or no decoder for the extension
+     */
+    @Override
+    public SoundData decodeSound(@NotNull FileHandle file) {
+        if (noDevice) return null;
+        Function<FileHandle, SoundData> decoder = extensionToSoundDecoder.get(file.extension().toLowerCase());
+        return decoder == null ? null : decoder.apply(file);
+    }
+
     public OpenALMusic newMusic(@NotNull FileHandle file) {
         BiFunction<OpenALLwjgl3Audio, FileHandle, OpenALMusic> musicSupplier = extensionToMusicClass
                 .get(file.extension().toLowerCase());
@@ -13,10 +13,12 @@ import static org.lwjgl.openal.AL10.alSourcef;
 import static org.lwjgl.openal.AL10.alSourcei;
 
 import com.kerman.core.audio.Sound;
+import com.kerman.core.audio.SoundData;
 import com.kerman.core.utils.BufferUtils;
 
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.ShortBuffer;
 
 public class OpenALSound implements Sound {
@@ -24,34 +26,46 @@ public class OpenALSound implements Sound {
     private int bufferID = -1;
     private float duration;
     private int sampleRate, channels;
+    private long pcmSize;
     private String type;
 
+    /**
+     * Prepare our sound for playback from samples decoded before.
+     */
+    void setup(SoundData data) {
+        setup(data.getPcm().duplicate().order(ByteOrder.nativeOrder()).asShortBuffer(), data.getChannels(), data.getBitDepth(),
+                data.getSampleRate());
+    }
+
     public OpenALSound(OpenALLwjgl3Audio audio) {
         this.audio = audio;
     }
 
     /**
-     * Prepare our sound for playback!
+     * Wraps raw PCM data for {@link #setup(SoundData)}, dropping an incomplete last sample frame.
      *
      * @param pcm        Byte array of raw PCM data to be played.
      * @param channels   The number of channels for the sound. Most commonly 1 (for mono) or 2 (for stereo).
      * @param bitDepth   The number of bits in each sample. Normally 16. Can also be 8, 32, 64.
      * @param sampleRate The number of samples to be played each second. Commonly 44100; can be anything within reason.
      */
-    void setup(byte[] pcm, int channels, int bitDepth, int sampleRate) {
+    static SoundData soundData(byte[] pcm, int channels, int bitDepth, int sampleRate) {
         int validBytes = pcm.length - (pcm.length % (channels * (bitDepth >> 3)));
         ByteBuffer buffer = BufferUtils.newByteBuffer(validBytes);
         buffer.put(pcm, 0, validBytes);
         ((Buffer) buffer).flip();
-
-        setup(buffer.asShortBuffer(), channels, bitDepth, sampleRate);
+        return new SoundData(buffer, channels, bitDepth, sampleRate);
     }
 
+    /**
+     * Prepare our sound for playback!
+     */
     void setup(ShortBuffer pcm, int channels, int bitDepth, int sampleRate) {
         this.channels = channels;
         this.sampleRate = sampleRate;
         int sampleFrames = (pcm.limit() << 1) / (bitDepth >> 3) / channels;
         duration = sampleFrames / (float) sampleRate;
+        pcmSize = (long) pcm.limit() << 1;
 
         if (bufferID == -1) {
             bufferID = alGenBuffers();
@@ -205,6 +219,11 @@ public class OpenALSound implements Sound {
         return channels;
     }
 
+    @Override
+    public long getPcmSize() {
+        return pcmSize;
+    }
+
     public String getType() {
         return type;
     }
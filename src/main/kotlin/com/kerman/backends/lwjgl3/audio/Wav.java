@@ -1,8 +1,10 @@
 package com.kerman.backends.lwjgl3.audio;
 
+import com.kerman.core.audio.SoundData;
 import com.kerman.core.files.FileHandle;
 import com.kerman.core.utils.KermanRuntimeException;
 import com.kerman.core.utils.StreamUtils;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.EOFException;
 import java.io.FilterInputStream;
@@ -41,15 +43,30 @@ public class Wav {
         public Sound(OpenALLwjgl3Audio audio, FileHandle file) {
             super(audio);
             if (audio.noDevice) return;
+            SoundData data = decodeWav(file);
+            if (data == null)
+                setType("mp3");
+            else
+                setup(data);
+        }
+
+        /**
+         * @return the samples of the file, which may hold mp3 data in a wav container
+         */
+        static SoundData decode(FileHandle file) {
+            SoundData data = decodeWav(file);
+            return data != null ? data : Mp3.Sound.decode(file);
+        }
 
+        /**
+         * @return the samples of the file, or null if it holds mp3 data
+         */
+        static private @Nullable SoundData decodeWav(FileHandle file) {
             WavInputStream input = null;
             try {
                 input = new WavInputStream(file);
-                if (input.type == 0x0055) {
-                    setType("mp3");
-                    return;
-                }
-                setup(StreamUtils.copyStreamToByteArray(input, input.dataRemaining), input.channels, input.bitDepth,
+                if (input.type == 0x0055) return null;
+                return soundData(StreamUtils.copyStreamToByteArray(input, input.dataRemaining), input.channels, input.bitDepth,
                         input.sampleRate);
             } catch (IOException ex) {
                 throw new KermanRuntimeException("Error reading WAV file: " + file, ex);
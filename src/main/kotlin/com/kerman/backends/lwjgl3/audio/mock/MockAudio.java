@@ -4,6 +4,7 @@ import com.kerman.core.audio.AudioDevice;
 import com.kerman.core.audio.AudioRecorder;
 import com.kerman.core.audio.Music;
 import com.kerman.core.audio.Sound;
+import com.kerman.core.audio.SoundData;
 import com.kerman.backends.lwjgl3.audio.Lwjgl3Audio;
 import com.kerman.core.files.FileHandle;
 import org.jetbrains.annotations.NotNull;
@@ -29,6 +30,16 @@ public class MockAudio implements Lwjgl3Audio {
         return new MockSound();
     }
 
+    @Override
+    public Sound newSound(@NotNull SoundData data) {
+        return new MockSound();
+    }
+
+    @Override
+    public SoundData decodeSound(@NotNull FileHandle fileHandle) {
+        return null;
+    }
+
     @Override
     public Music newMusic(@NotNull FileHandle file) {
         return new MockMusic();
@@ -91,4 +91,9 @@ public class MockSound implements Sound {
     public void setPan(long soundId, float pan, float volume) {
 
     }
+
+    @Override
+    public long getPcmSize() {
+        return 0;
+    }
 }
@@ -4,6 +4,7 @@ import com.kerman.core.audio.AudioDevice
 import com.kerman.core.audio.AudioRecorder
 import com.kerman.core.audio.Music
 import com.kerman.core.audio.Sound
+import com.kerman.core.audio.SoundData
 import com.kerman.core.files.FileHandle
 import com.kerman.core.utils.Disposable
 import com.kerman.core.utils.KermanRuntimeException
@@ -56,6 +57,22 @@ interface Audio : Disposable {
      */
     fun newSound(fileHandle: FileHandle): Sound?
 
+    /**
+     * Creates a new [Sound] from samples decoded before with [decodeSound].
+     *
+     * @return the new Sound, or null (in case it could not be created).
+     */
+    fun newSound(data: SoundData): Sound?
+
+    /**
+     * Decodes the audio data of the file specified via the [FileHandle] without creating a [Sound], e.g. to cache the samples
+     * and create sounds from them later with [newSound]. Supports the same formats as [newSound].
+     *
+     * @return the decoded samples, or null (in case there's no audio device to decode for).
+     * @throws KermanRuntimeException in case the sound could not be decoded
+     */
+    fun decodeSound(fileHandle: FileHandle): SoundData?
+
     /**
      * Creates a new [Music] instance which is used to play back a music stream from a file. Currently supported formats are
      * WAV, MP3 and OGG. The Music instance has to be disposed if it is no longer used via the [Music.dispose] method.
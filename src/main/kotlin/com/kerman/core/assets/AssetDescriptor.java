@@ -16,6 +16,15 @@ public class AssetDescriptor<T> {
      * The resolved file. May be null if the fileName has not been resolved yet.
      */
     public FileHandle file;
+    /**
+     * Assets with a higher priority are taken from the load queue of the {@link AssetManager} first, assets with the same
+     * priority in the order they were queued. Defaults to the priority of the parameters, or 0.
+     */
+    public int priority;
+    /**
+     * When the descriptor was added to the load queue, for {@link AssetLoadTracer}. 0 if it wasn't queued.
+     */
+    long queueTime;
 
     public AssetDescriptor(String fileName, Class<T> assetType) {
         this(fileName, assetType, null);
@@ -32,6 +41,7 @@ public class AssetDescriptor<T> {
         this.fileName = fileName;
         this.type = assetType;
         this.params = params;
+        if (params != null) priority = params.priority;
     }
 
     /**
@@ -42,6 +52,7 @@ public class AssetDescriptor<T> {
         this.file = file;
         this.type = assetType;
         this.params = params;
+        if (params != null) priority = params.priority;
     }
 
     @Override
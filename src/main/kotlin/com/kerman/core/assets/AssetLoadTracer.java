@@ -0,0 +1,161 @@
+package com.kerman.core.assets;
+
+import com.kerman.core.files.FileHandle;
+import com.kerman.core.utils.JsonWriter;
+import com.kerman.core.utils.KermanArray;
+import com.kerman.core.utils.KermanRuntimeException;
+import com.kerman.core.utils.LongMap;
+import com.kerman.core.utils.TimeUtils;
+import com.kerman.core.utils.reflect.ClassReflection;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+
+/**
+ * Records the phases of loading each asset in an {@link AssetManager}, see {@link AssetManager#setTracer(AssetLoadTracer)}. Every
+ * phase is recorded with its start and end time, the thread it ran on and the number of bytes involved, and all of them can be
+ * exported as Chrome trace_event JSON with {@link #writeChromeTrace(Writer)}, to be opened in chrome://tracing or Perfetto. Loaders
+ * that run one asset at a time show up as gaps between their phases on the loading threads, slow decoders as long
+ * {@link #LOAD_ASYNC} slices.
+ * <p>
+ * The recorded phases are:
+ * <ul>
+ * <li>{@link #QUEUE}: from {@link AssetManager#load(String, Class)}, or from being injected as a dependency, until loading starts.</li>
+ * <li>{@link #EXECUTOR_WAIT}: from submitting work to the loading threads until a thread picks it up.</li>
+ * <li>{@link #DEPENDENCIES}: resolving the dependencies of the asset.</li>
+ * <li>{@link #LOAD_ASYNC}: the asynchronous part of loading, with the size of the file.</li>
+ * <li>{@link #LOAD_SYNC}: the synchronous part of loading on the rendering thread, once per call if it is spread over several
+ * updates. The last one has the estimated size of the asset, see {@link AssetSizeEstimator}.</li>
+ * </ul>
+ * A tracer may be used by several threads at once.
+ */
+public class AssetLoadTracer {
+    static public final String QUEUE = "queue";
+    static public final String EXECUTOR_WAIT = "executor wait";
+    static public final String DEPENDENCIES = "dependencies";
+    static public final String LOAD_ASYNC = "loadAsync";
+    static public final String LOAD_SYNC = "loadSync";
+
+    private final KermanArray<Event> events = new KermanArray<>();
+    private final LongMap<String> threadNames = new LongMap<>();
+    private final long startTime = TimeUtils.nanoTime();
+
+    /**
+     * Records a phase that ended now on the calling thread.
+     *
+     * @param phase     one of the phase names of this class
+     * @param startTime the start of the phase as returned by {@link TimeUtils#nanoTime()}
+     * @param bytes     the number of bytes involved, or 0 if not known
+     */
+    public void record(String phase, AssetDescriptor assetDesc, long startTime, long bytes) {
+        long endTime = TimeUtils.nanoTime();
+        Thread thread = Thread.currentThread();
+        Event event = new Event();
+        event.phase = phase;
+        event.fileName = assetDesc.fileName;
+        event.type = ClassReflection.getSimpleName(assetDesc.type);
+        event.start = startTime;
+        event.duration = endTime - startTime;
+        event.threadId = thread.getId();
+        event.bytes = bytes;
+        synchronized (this) {
+            events.add(event);
+            if (!threadNames.containsKey(event.threadId)) threadNames.put(event.threadId, thread.getName());
+        }
+    }
+
+    /**
+     * @return the size of the file in bytes, or 0 if it is not known
+     */
+    static long fileSize(FileHandle file) {
+        try {
+            return file == null ? 0 : file.length();
+        } catch (RuntimeException ignored) {
+            return 0;
+        }
+    }
+
+    public synchronized int getEventCount() {
+        return events.size;
+    }
+
+    /**
+     * @return the total time in nanoseconds spent in the given phase over all assets and threads
+     */
+    public synchronized long getTotalTime(String phase) {
+        long total = 0;
+        for (int i = 0; i < events.size; i++) {
+            Event event = events.get(i);
+            if (event.phase.equals(phase)) total += event.duration;
+        }
+        return total;
+    }
+
+    public synchronized void clear() {
+        events.clear();
+        threadNames.clear();
+    }
+
+    /**
+     * Writes all recorded phases as Chrome trace_event JSON. Each phase is a complete ("X") event named after the phase, with the
+     * asset type as category and the file name and byte size as arguments. Times are relative to the creation of this tracer.
+     */
+    public synchronized void writeChromeTrace(Writer writer) throws IOException {
+        JsonWriter json = new JsonWriter(writer);
+        json.object();
+        json.set("displayTimeUnit", "ms");
+        json.array("traceEvents");
+        for (LongMap.Entry<String> entry : threadNames) {
+            json.object();
+            json.set("name", "thread_name");
+            json.set("ph", "M");
+            json.set("pid", 0);
+            json.set("tid", entry.key);
+            json.object("args").set("name", entry.value).pop();
+            json.pop();
+        }
+        for (int i = 0; i < events.size; i++) {
+            Event event = events.get(i);
+            json.object();
+            json.set("name", event.phase);
+            json.set("cat", event.type);
+            json.set("ph", "X");
+            json.set("ts", (event.start - startTime) / 1000.0);
+            json.set("dur", event.duration / 1000.0);
+            json.set("pid", 0);
+            json.set("tid", event.threadId);
+            json.object("args");
+            json.set("file", event.fileName);
+            if (event.bytes > 0) json.set("bytes", event.bytes);
+            json.pop();
+            json.pop();
+        }
+        json.pop();
+        json.pop();
+        json.flush();
+    }
+
+    /**
+     * @return all recorded phases as Chrome trace_event JSON, see {@link #writeChromeTrace(Writer)}
+     */
+    public String toChromeTrace() {
+        StringWriter writer = new StringWriter();
+        try {
+            writeChromeTrace(writer);
+        } catch (IOException ex) {
+            throw new KermanRuntimeException(ex);
+        }
+        return writer.toString();
+    }
+
+    static class Event {
+        String phase;
+        String fileName;
+        String type;
+        long start;
+        long duration;
+        long threadId;
+        long bytes;
+    }
+}
@@ -6,6 +6,11 @@ package com.kerman.core.assets;
 public class AssetLoaderParameters<T> {
 
     public LoadedCallback loadedCallback;
+    /**
+     * Assets with a higher priority are taken from the load queue of the {@link AssetManager} first, see
+     * {@link AssetDescriptor#priority}.
+     */
+    public int priority;
 
     /**
      * Callback interface that will be invoked when the {@link AssetManager} loads an asset.
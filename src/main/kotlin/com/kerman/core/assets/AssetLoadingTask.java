@@ -22,22 +22,47 @@ class AssetLoadingTask implements AsyncTask<Void> {
     final AssetLoader loader;
     final AsyncExecutor executor;
     final long startTime;
+    /**
+     * When the task was queued, see {@link AssetLoadTracer#QUEUE}.
+     */
+    final long queueTime;
+    boolean started;
+    volatile long submitTime;
     AssetManager manager;
     volatile boolean asyncDone;
     volatile boolean dependenciesLoaded;
     volatile KermanArray<AssetDescriptor> dependencies;
+    /**
+     * Whether the dependencies were added to the manager, which happens only once even if getDependencies runs again. Guarded
+     * by the manager.
+     */
+    volatile boolean dependenciesInjected;
     volatile AsyncResult<Void> depsFuture;
     volatile AsyncResult<Void> loadFuture;
     volatile Object asset;
 
     volatile boolean cancel;
 
+    /**
+     * Whether this task was started from the load queue, as opposed to being injected as a dependency of another task.
+     */
+    boolean root;
+    /**
+     * The number of dependency tasks that have to finish before this task can continue. Guarded by the manager.
+     */
+    int pendingDependencies;
+    /**
+     * The tasks waiting for this task to finish. Each of them holds a reference to the loaded asset. Guarded by the manager.
+     */
+    final KermanArray<AssetLoadingTask> dependents = new KermanArray<>(2);
+
     public AssetLoadingTask(AssetManager manager, AssetDescriptor assetDesc, AssetLoader loader, AsyncExecutor threadPool) {
         this.manager = manager;
         this.assetDesc = assetDesc;
         this.loader = loader;
         this.executor = threadPool;
         startTime = manager.log.getLevel() == Logger.DEBUG ? TimeUtils.nanoTime() : 0;
+        queueTime = assetDesc.queueTime != 0 ? assetDesc.queueTime : TimeUtils.nanoTime();
     }
 
     /**
@@ -45,25 +70,53 @@ class AssetLoadingTask implements AsyncTask<Void> {
      */
     @Override
     public Void call() throws Exception {
+        trace(AssetLoadTracer.EXECUTOR_WAIT, submitTime, 0);
         if (cancel) return null;
         AsynchronousAssetLoader asyncLoader = (AsynchronousAssetLoader) loader;
         if (!dependenciesLoaded) {
+            long start = TimeUtils.nanoTime();
             dependencies = asyncLoader.getDependencies(assetDesc.fileName, resolve(loader, assetDesc), assetDesc.params);
+            trace(AssetLoadTracer.DEPENDENCIES, start, 0);
             if (dependencies != null) {
                 removeDuplicates(dependencies);
-                manager.injectDependencies(assetDesc.fileName, dependencies);
+                if (!dependenciesInjected) manager.injectDependencies(this, dependencies);
             } else {
                 // if we have no dependencies, we load the async part of the task immediately.
-                asyncLoader.loadAsync(manager, assetDesc.fileName, resolve(loader, assetDesc), assetDesc.params);
-                asyncDone = true;
+                loadAsync(asyncLoader);
             }
         } else {
-            asyncLoader.loadAsync(manager, assetDesc.fileName, resolve(loader, assetDesc), assetDesc.params);
-            asyncDone = true;
+            loadAsync(asyncLoader);
         }
         return null;
     }
 
+    private void loadAsync(AsynchronousAssetLoader asyncLoader) {
+        long start = TimeUtils.nanoTime();
+        asyncLoader.loadAsync(manager, assetDesc.fileName, resolve(loader, assetDesc), assetDesc.params);
+        asyncDone = true;
+        AssetLoadTracer tracer = manager.tracer;
+        if (tracer != null) tracer.record(AssetLoadTracer.LOAD_ASYNC, assetDesc, start, AssetLoadTracer.fileSize(assetDesc.file));
+    }
+
+    private Object loadSync(AsynchronousAssetLoader asyncLoader) {
+        long start = TimeUtils.nanoTime();
+        Object asset = asyncLoader.loadSync(manager, assetDesc.fileName, resolve(loader, assetDesc), assetDesc.params);
+        AssetLoadTracer tracer = manager.tracer;
+        if (tracer != null)
+            tracer.record(AssetLoadTracer.LOAD_SYNC, assetDesc, start, asset == null ? 0 : manager.estimateSize(assetDesc.type, asset));
+        return asset;
+    }
+
+    private AsyncResult<Void> submit() {
+        submitTime = TimeUtils.nanoTime();
+        return executor.submit(this);
+    }
+
+    private void trace(String phase, long start, long bytes) {
+        AssetLoadTracer tracer = manager.tracer;
+        if (tracer != null) tracer.record(phase, assetDesc, start, bytes);
+    }
+
     /**
      * Updates the loading of the asset. In case the asset is loaded with an {@link AsynchronousAssetLoader}, the loaders
      * {@link AsynchronousAssetLoader#loadAsync(AssetManager, String, FileHandle, AssetLoaderParameters)} method is first called on
@@ -74,6 +127,10 @@ class AssetLoadingTask implements AsyncTask<Void> {
      * @throws KermanRuntimeException for some reason, it might crash.
      */
     public boolean update() {
+        if (!started) {
+            started = true;
+            trace(AssetLoadTracer.QUEUE, queueTime, 0);
+        }
         if (loader instanceof SynchronousAssetLoader)
             handleSyncLoader();
         else
@@ -85,22 +142,31 @@ class AssetLoadingTask implements AsyncTask<Void> {
         SynchronousAssetLoader syncLoader = (SynchronousAssetLoader) loader;
         if (!dependenciesLoaded) {
             dependenciesLoaded = true;
+            long start = TimeUtils.nanoTime();
             dependencies = syncLoader.getDependencies(assetDesc.fileName, resolve(loader, assetDesc), assetDesc.params);
+            trace(AssetLoadTracer.DEPENDENCIES, start, 0);
             if (dependencies == null) {
-                asset = syncLoader.load(manager, assetDesc.fileName, resolve(loader, assetDesc), assetDesc.params);
+                loadSync(syncLoader);
                 return;
             }
             removeDuplicates(dependencies);
-            manager.injectDependencies(assetDesc.fileName, dependencies);
+            if (!dependenciesInjected) manager.injectDependencies(this, dependencies);
         } else
-            asset = syncLoader.load(manager, assetDesc.fileName, resolve(loader, assetDesc), assetDesc.params);
+            loadSync(syncLoader);
+    }
+
+    private void loadSync(SynchronousAssetLoader syncLoader) {
+        long start = TimeUtils.nanoTime();
+        asset = syncLoader.load(manager, assetDesc.fileName, resolve(loader, assetDesc), assetDesc.params);
+        AssetLoadTracer tracer = manager.tracer;
+        if (tracer != null) tracer.record(AssetLoadTracer.LOAD_SYNC, assetDesc, start, manager.estimateSize(assetDesc.type, asset));
     }
 
     private void handleAsyncLoader() {
         AsynchronousAssetLoader asyncLoader = (AsynchronousAssetLoader) loader;
         if (!dependenciesLoaded) {
             if (depsFuture == null)
-                depsFuture = executor.submit(this);
+                depsFuture = submit();
             else if (depsFuture.isDone()) {
                 try {
                     depsFuture.get();
@@ -109,24 +175,34 @@ class AssetLoadingTask implements AsyncTask<Void> {
                 }
                 dependenciesLoaded = true;
                 if (asyncDone)
-                    asset = asyncLoader.loadSync(manager, assetDesc.fileName, resolve(loader, assetDesc), assetDesc.params);
+                    asset = loadSync(asyncLoader);
             }
         } else if (loadFuture == null && !asyncDone)
-            loadFuture = executor.submit(this);
+            loadFuture = submit();
         else if (asyncDone)
-            asset = asyncLoader.loadSync(manager, assetDesc.fileName, resolve(loader, assetDesc), assetDesc.params);
+            asset = loadSync(asyncLoader);
         else if (loadFuture.isDone()) {
             try {
                 loadFuture.get();
             } catch (Exception e) {
                 throw new KermanRuntimeException("Couldn't load asset: " + assetDesc.fileName, e);
             }
-            asset = asyncLoader.loadSync(manager, assetDesc.fileName, resolve(loader, assetDesc), assetDesc.params);
+            asset = loadSync(asyncLoader);
         }
     }
 
     /**
-     * Called when this task is the task that is currently being processed and it is unloaded.
+     * Makes the next update call {@link AssetLoader#getDependencies} again, without injecting the dependencies a second time.
+     * Used when the loader keeps the state of the asset in fields and another task used it while this task waited for its
+     * dependencies.
+     */
+    void repeatDependencies() {
+        dependenciesLoaded = false;
+        depsFuture = null;
+    }
+
+    /**
+     * Called when this task is cancelled while it is being processed because it was unloaded.
      */
     public void unload() {
         if (loader instanceof AsynchronousAssetLoader)
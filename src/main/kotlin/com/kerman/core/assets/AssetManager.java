@@ -22,6 +22,7 @@ import com.kerman.core.graphics.Cubemap;
 import com.kerman.core.graphics.Pixmap;
 import com.kerman.core.graphics.Texture;
 import com.kerman.core.graphics.k2d.BitmapFont;
+import com.kerman.core.graphics.k2d.Kerman2DPixmap;
 import com.kerman.core.graphics.k2d.ParticleEffect;
 import com.kerman.core.graphics.k2d.PolygonRegion;
 import com.kerman.core.graphics.k2d.PolygonRegionLoader;
@@ -30,6 +31,7 @@ import com.kerman.core.graphics.k3d.Model;
 import com.kerman.core.graphics.k3d.loader.K3dModelLoader;
 import com.kerman.core.graphics.k3d.loader.ObjLoader;
 import com.kerman.core.graphics.glutils.ShaderProgram;
+import com.kerman.core.graphics.glutils.UploadBudget;
 import com.kerman.core.scenes.scene2d.ui.Skin;
 import com.kerman.core.utils.KermanArray;
 import com.kerman.core.utils.Disposable;
@@ -41,6 +43,7 @@ import com.kerman.core.utils.ObjectIntMap;
 import com.kerman.core.utils.ObjectMap;
 import com.kerman.core.utils.ObjectMap.Entry;
 import com.kerman.core.utils.ObjectSet;
+import com.kerman.core.utils.OrderedMap;
 import com.kerman.core.utils.TimeUtils;
 import com.kerman.core.utils.UBJsonReader;
 import com.kerman.core.utils.async.AsyncExecutor;
@@ -48,22 +51,68 @@ import com.kerman.core.utils.async.ThreadUtils;
 import com.kerman.core.utils.reflect.ClassReflection;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * Info : This class was inspired by "com.badlogic.gdx.assets.AssetManager".
  * <p>
  * Loads and stores assets like textures, bitmapfonts, tile maps, sounds, music and so on.
+ * <p>
+ * {@link #get(String)}, {@link #isLoaded(String)} and the other lookups of loaded assets don't take the manager's lock, so they
+ * can be called from any thread without waiting for a running {@link #update()}.
+ * <p>
+ * Queued assets are loaded by {@link AssetDescriptor#priority priority}, so assets needed right away can be loaded ahead of
+ * assets {@link #prefetch(String, Class) prefetched} for later.
  */
 public class AssetManager implements Disposable {
+    /**
+     * The priority of assets queued with {@link #prefetch(String, Class)}, lower than any other priority.
+     */
+    static public final int PRIORITY_PREFETCH = Integer.MIN_VALUE;
+    /**
+     * The priority {@link #finishLoadingAsset(String)} promotes the asset it waits for to.
+     */
+    static public final int PRIORITY_HIGHEST = Integer.MAX_VALUE;
+
     final ObjectMap<Class, ObjectMap<String, RefCountedContainer>> assets = new ObjectMap<>();
     final ObjectMap<String, Class> assetTypes = new ObjectMap<>();
     final ObjectMap<String, KermanArray<String>> assetDependencies = new ObjectMap<>();
     final ObjectSet<String> injected = new ObjectSet<>();
+    /**
+     * The loaded assets by file name, readable without holding the manager's lock. Entries are only added or removed while the
+     * lock is held, right after an asset was added to or before it was removed from {@link #assets}.
+     */
+    final ConcurrentHashMap<String, RefCountedContainer> published = new ConcurrentHashMap<>();
+
+    final ObjectMap<Class, AssetSizeEstimator> sizeEstimators = new ObjectMap<>();
+    /**
+     * Assets whose reference count dropped to zero while a memory budget is set, least recently used first.
+     */
+    final OrderedMap<String, RefCountedContainer> unreferenced = new OrderedMap<>();
+    final ObjectSet<String> evicted = new ObjectSet<>();
+    long memoryBudget;
+    long memoryUsage;
+    int cacheHits;
+    int cacheEvictions;
+    int cacheReloads;
 
     final ObjectMap<Class, ObjectMap<String, AssetLoader>> loaders = new ObjectMap<>();
     final KermanArray<AssetDescriptor> loadQueue = new KermanArray<>();
     final AsyncExecutor executor;
+    final int loadingThreads;
 
     final KermanArray<AssetLoadingTask> tasks = new KermanArray<>();
+    final UploadBudget uploadBudget = new UploadBudget(0);
+    volatile AssetLoadTracer tracer;
+    volatile DecodedAssetCache decodedAssetCache;
+    /**
+     * The task each loader that is not {@link AssetLoader#isConcurrent() concurrent} is currently used by.
+     */
+    final ObjectMap<AssetLoader, AssetLoadingTask> loaderOwners = new ObjectMap<>();
+    /**
+     * The task that last used each loader that is not concurrent, see {@link #acquireLoader(AssetLoadingTask)}.
+     */
+    final ObjectMap<AssetLoader, AssetLoadingTask> loaderUsers = new ObjectMap<>();
     final FileHandleResolver resolver;
     AssetErrorListener listener;
     int loaded;
@@ -92,7 +141,22 @@ public class AssetManager implements Disposable {
      * @param defaultLoaders whether to add the default loaders
      */
     public AssetManager(FileHandleResolver resolver, boolean defaultLoaders) {
+        this(resolver, defaultLoaders, 1);
+    }
+
+    /**
+     * Creates a new AssetManager with optionally all default loaders, which runs the asynchronous part of loading on the given
+     * number of threads. Up to that many queued assets are loaded at the same time, and dependencies of an asset are loaded in
+     * parallel as well. An asset only continues loading once all its dependencies are loaded, and the synchronous part of loading
+     * always runs on the thread calling {@link #update()}.
+     *
+     * @param defaultLoaders whether to add the default loaders
+     * @param loadingThreads the number of worker threads, must be at least 1
+     */
+    public AssetManager(FileHandleResolver resolver, boolean defaultLoaders, int loadingThreads) {
+        if (loadingThreads < 1) throw new IllegalArgumentException("loadingThreads must be >= 1: " + loadingThreads);
         this.resolver = resolver;
+        this.loadingThreads = loadingThreads;
         if (defaultLoaders) {
             setLoader(BitmapFont.class, new BitmapFontLoader(resolver));
             setLoader(Music.class, new MusicLoader(resolver));
@@ -112,7 +176,25 @@ public class AssetManager implements Disposable {
             setLoader(ShaderProgram.class, new ShaderProgramLoader(resolver));
             setLoader(Cubemap.class, new CubemapLoader(resolver));
         }
-        executor = new AsyncExecutor(1, "AssetManager");
+        setSizeEstimator(Texture.class, AssetManager::estimateTexture);
+        setSizeEstimator(Pixmap.class, pixmap -> pixmap.getPixels().capacity());
+        setSizeEstimator(Sound.class, Sound::getPcmSize);
+        executor = new AsyncExecutor(loadingThreads, "AssetManager");
+    }
+
+    static private long estimateTexture(Texture texture) {
+        Pixmap.Format format = texture.getTextureData().getFormat();
+        int bytesPerPixel = format == null ? 4 : Kerman2DPixmap.getBytesPerPixel(Pixmap.Format.toKerman2DPixmapFormat(format));
+        long size = (long) texture.getWidth() * texture.getHeight() * bytesPerPixel;
+        // a full mipmap chain adds a third
+        return texture.getTextureData().useMipMaps() ? size * 4 / 3 : size;
+    }
+
+    /**
+     * @return the number of threads the asynchronous part of loading runs on
+     */
+    public int getLoadingThreads() {
+        return loadingThreads;
     }
 
     /**
@@ -129,7 +211,7 @@ public class AssetManager implements Disposable {
      * @return the asset
      * @throws KermanRuntimeException if the asset is not loaded
      */
-    public synchronized <T> T get(String fileName) {
+    public <T> T get(String fileName) {
         return get(fileName, true);
     }
 
@@ -139,7 +221,7 @@ public class AssetManager implements Disposable {
      * @return the asset
      * @throws KermanRuntimeException if the asset is not loaded
      */
-    public synchronized <T> T get(String fileName, Class<T> type) {
+    public <T> T get(String fileName, Class<T> type) {
         return get(fileName, type, true);
     }
 
@@ -148,15 +230,9 @@ public class AssetManager implements Disposable {
      * @param required true to throw KermanRuntimeException if the asset is not loaded, else null is returned
      * @return the asset or null if it is not loaded and required is false
      */
-    public synchronized @Nullable <T> T get(String fileName, boolean required) {
-        Class<T> type = assetTypes.get(fileName);
-        if (type != null) {
-            ObjectMap<String, RefCountedContainer> assetsByType = assets.get(type);
-            if (assetsByType != null) {
-                RefCountedContainer assetContainer = assetsByType.get(fileName);
-                if (assetContainer != null) return (T) assetContainer.object;
-            }
-        }
+    public @Nullable <T> T get(String fileName, boolean required) {
+        RefCountedContainer assetContainer = published.get(fileName);
+        if (assetContainer != null) return (T) assetContainer.object;
         if (required) throw new KermanRuntimeException("Asset not loaded: " + fileName);
         return null;
     }
@@ -167,12 +243,9 @@ public class AssetManager implements Disposable {
      * @param required true to throw KermanRuntimeException if the asset is not loaded, else null is returned
      * @return the asset or null if it is not loaded and required is false
      */
-    public synchronized @Nullable <T> T get(String fileName, Class<T> type, boolean required) {
-        ObjectMap<String, RefCountedContainer> assetsByType = assets.get(type);
-        if (assetsByType != null) {
-            RefCountedContainer assetContainer = assetsByType.get(fileName);
-            if (assetContainer != null) return (T) assetContainer.object;
-        }
+    public @Nullable <T> T get(String fileName, Class<T> type, boolean required) {
+        RefCountedContainer assetContainer = published.get(fileName);
+        if (assetContainer != null && assetContainer.type == type) return (T) assetContainer.object;
         if (required) throw new KermanRuntimeException("Asset not loaded: " + fileName);
         return null;
     }
@@ -182,7 +255,7 @@ public class AssetManager implements Disposable {
      * @return the asset
      * @throws KermanRuntimeException if the asset is not loaded
      */
-    public synchronized <T> T get(AssetDescriptor<T> assetDescriptor) {
+    public <T> T get(AssetDescriptor<T> assetDescriptor) {
         return get(assetDescriptor.fileName, assetDescriptor.type, true);
     }
 
@@ -202,30 +275,38 @@ public class AssetManager implements Disposable {
     /**
      * Returns true if an asset with the specified name is loading, queued to be loaded, or has been loaded.
      */
-    public synchronized boolean contains(String fileName) {
-        if (tasks.size > 0 && tasks.first().assetDesc.fileName.equals(fileName)) return true;
-
-        for (int i = 0; i < loadQueue.size; i++)
-            if (loadQueue.get(i).fileName.equals(fileName)) return true;
-
-        return isLoaded(fileName);
+    public boolean contains(String fileName) {
+        if (isLoaded(fileName)) return true;
+        synchronized (this) {
+            return isLoading(fileName, null);
+        }
     }
 
     /**
      * Returns true if an asset with the specified name and type is loading, queued to be loaded, or has been loaded.
      */
-    public synchronized boolean contains(String fileName, Class type) {
-        if (tasks.size > 0) {
-            AssetDescriptor assetDesc = tasks.first().assetDesc;
-            if (assetDesc.type == type && assetDesc.fileName.equals(fileName)) return true;
+    public boolean contains(String fileName, Class type) {
+        if (isLoaded(fileName, type)) return true;
+        synchronized (this) {
+            return isLoading(fileName, type);
         }
+    }
+
+    /**
+     * @param type the asset type, or null to match any type
+     * @return whether the asset is being loaded or queued to be loaded
+     */
+    private boolean isLoading(String fileName, @Nullable Class type) {
+        AssetLoadingTask task = findTask(fileName);
+        if (task != null && task.root && (type == null || task.assetDesc.type == type)) return true;
 
         for (int i = 0; i < loadQueue.size; i++) {
             AssetDescriptor assetDesc = loadQueue.get(i);
-            if (assetDesc.type == type && assetDesc.fileName.equals(fileName)) return true;
+            if ((type == null || assetDesc.type == type) && assetDesc.fileName.equals(fileName)) return true;
         }
 
-        return isLoaded(fileName, type);
+        // the asset may have finished loading while the lock was acquired
+        return type == null ? isLoaded(fileName) : isLoaded(fileName, type);
     }
 
     /**
@@ -234,15 +315,28 @@ public class AssetManager implements Disposable {
      * @param fileName the file name
      */
     public synchronized void unload(String fileName) {
-        // check if it's currently processed (and the first element in the stack, thus not a dependency) and cancel if necessary
-        if (tasks.size > 0) {
-            AssetLoadingTask currentTask = tasks.first();
-            if (currentTask.assetDesc.fileName.equals(fileName)) {
-                log.info("Unload (from tasks): " + fileName);
-                currentTask.cancel = true;
+        unloadAsset(fileName, true);
+        evictUnreferenced();
+    }
+
+    /**
+     * @param retain whether the asset may be retained for the memory budget, false if a disposed asset depends on it, as
+     *               disposing an asset may dispose its dependencies, like a {@link TextureAtlas} does with its textures
+     */
+    private void unloadAsset(String fileName, boolean retain) {
+        // check if it's currently processed (and was started from the queue, thus not a dependency) and cancel if necessary
+        AssetLoadingTask currentTask = findTask(fileName);
+        if (currentTask != null && currentTask.root) {
+            log.info("Unload (from tasks): " + fileName);
+            if (currentTask.dependents.size > 0) {
+                // other assets still need it, so it keeps loading as a plain dependency.
+                currentTask.root = false;
+                loaded++;
+            } else {
+                cancelTask(currentTask);
                 currentTask.unload();
-                return;
             }
+            return;
         }
 
         Class type = assetTypes.get(fileName);
@@ -272,26 +366,134 @@ public class AssetManager implements Disposable {
 
         // if it is reference counted, decrement ref count and check if we can really get rid of it.
         assetRef.refCount--;
+        boolean retained = false;
         if (assetRef.refCount <= 0) {
-            log.info("Unload (dispose): " + fileName);
-
-            // if it is disposable dispose it
-            if (assetRef.object instanceof Disposable) ((Disposable) assetRef.object).dispose();
-
-            // remove the asset from the manager.
+            // stop handing out the asset and remove it from the manager.
+            published.remove(fileName);
             assetTypes.remove(fileName);
             assets.get(type).remove(fileName);
+
+            retained = retain && shouldRetain(fileName, assetRef);
+            if (retained) {
+                // keep it around until the memory budget is exceeded, it may be loaded again.
+                log.info("Unload (retain): " + fileName);
+                unreferenced.put(fileName, assetRef);
+            } else {
+                log.info("Unload (dispose): " + fileName);
+                disposeAsset(assetRef);
+                evictDependents(fileName);
+            }
         } else
             log.info("Unload (decrement): " + fileName);
 
-        // remove any dependencies (or just decrement their ref count).
+        // remove any dependencies (or just decrement their ref count), only retained along with a retained asset.
         KermanArray<String> dependencies = assetDependencies.get(fileName);
         if (dependencies != null) {
             for (String dependency : dependencies)
-                if (isLoaded(dependency)) unload(dependency);
+                if (isLoaded(dependency)) unloadAsset(dependency, assetRef.refCount > 0 || retained);
+        }
+        // remove dependencies if ref count < 0, retained assets need them when they are loaded again
+        if (assetRef.refCount <= 0 && !unreferenced.containsKey(fileName)) assetDependencies.remove(fileName);
+    }
+
+    private boolean shouldRetain(String fileName, RefCountedContainer assetRef) {
+        if (memoryBudget <= 0) return false;
+        // assets without a size estimate are only retained as long as a retained asset depends on them
+        return assetRef.size > 0 || isRetainedDependency(fileName);
+    }
+
+    private boolean isRetainedDependency(String fileName) {
+        return findRetainedDependent(fileName) != null;
+    }
+
+    /**
+     * @return a retained asset that depends on the given asset, or null
+     */
+    private @Nullable String findRetainedDependent(String fileName) {
+        KermanArray<String> retained = unreferenced.orderedKeys();
+        for (int i = 0; i < retained.size; i++) {
+            KermanArray<String> dependencies = assetDependencies.get(retained.get(i));
+            if (dependencies != null && dependencies.contains(fileName, false)) return retained.get(i);
+        }
+        return null;
+    }
+
+    /**
+     * Evicts the retained assets that depend on a disposed asset, they can't be loaded again without it.
+     */
+    private void evictDependents(String fileName) {
+        String dependent;
+        while ((dependent = findRetainedDependent(fileName)) != null)
+            evict(dependent);
+    }
+
+    /**
+     * Takes a retained asset back into the manager with a reference count of one, along with its dependencies.
+     *
+     * @return false if the asset was not retained.
+     */
+    private boolean revive(String fileName, Class type) {
+        RefCountedContainer assetRef = unreferenced.get(fileName);
+        if (assetRef == null) return false;
+        if (assetRef.type != type) {
+            evict(fileName);
+            return false;
+        }
+        unreferenced.remove(fileName);
+        cacheHits++;
+
+        assetRef.refCount = 1;
+        assetTypes.put(fileName, type);
+        ObjectMap<String, RefCountedContainer> typeToAssets = assets.get(type);
+        if (typeToAssets == null) {
+            typeToAssets = new ObjectMap<>();
+            assets.put(type, typeToAssets);
         }
-        // remove dependencies if ref count < 0
-        if (assetRef.refCount <= 0) assetDependencies.remove(fileName);
+        typeToAssets.put(fileName, assetRef);
+        published.put(fileName, assetRef);
+
+        KermanArray<String> dependencies = assetDependencies.get(fileName);
+        if (dependencies != null) {
+            for (String dependency : dependencies) {
+                RefCountedContainer dependencyRef = unreferenced.get(dependency);
+                if (dependencyRef != null)
+                    revive(dependency, dependencyRef.type);
+                else {
+                    assets.get(assetTypes.get(dependency)).get(dependency).refCount++;
+                    incrementRefCountedDependencies(dependency);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Disposes retained assets, least recently used first, until the memory usage fits the budget again.
+     */
+    private void evictUnreferenced() {
+        while (unreferenced.size > 0 && (memoryBudget <= 0 || memoryUsage > memoryBudget))
+            evict(unreferenced.orderedKeys().first());
+    }
+
+    private void evict(String fileName) {
+        RefCountedContainer assetRef = unreferenced.remove(fileName);
+        log.info("Evict: " + fileName);
+        cacheEvictions++;
+        evicted.add(fileName);
+        disposeAsset(assetRef);
+        evictDependents(fileName);
+
+        // disposing the asset may have disposed its dependencies, so retained ones go with it
+        KermanArray<String> dependencies = assetDependencies.remove(fileName);
+        if (dependencies == null) return;
+        for (String dependency : dependencies)
+            if (unreferenced.containsKey(dependency)) evict(dependency);
+    }
+
+    private void disposeAsset(RefCountedContainer assetRef) {
+        // if it is disposable dispose it
+        if (assetRef.object instanceof Disposable) ((Disposable) assetRef.object).dispose();
+        memoryUsage -= assetRef.size;
     }
 
     /**
@@ -325,7 +527,7 @@ public class AssetManager implements Disposable {
      * @param assetDesc the AssetDescriptor of the asset
      * @return whether the asset is loaded
      */
-    public synchronized boolean isLoaded(AssetDescriptor assetDesc) {
+    public boolean isLoaded(AssetDescriptor assetDesc) {
         return isLoaded(assetDesc.fileName);
     }
 
@@ -333,19 +535,18 @@ public class AssetManager implements Disposable {
      * @param fileName the file name of the asset
      * @return whether the asset is loaded
      */
-    public synchronized boolean isLoaded(String fileName) {
+    public boolean isLoaded(String fileName) {
         if (fileName == null) return false;
-        return assetTypes.containsKey(fileName);
+        return published.containsKey(fileName);
     }
 
     /**
      * @param fileName the file name of the asset
      * @return whether the asset is loaded
      */
-    public synchronized boolean isLoaded(String fileName, Class type) {
-        ObjectMap<String, RefCountedContainer> assetsByType = assets.get(type);
-        if (assetsByType == null) return false;
-        return assetsByType.get(fileName) != null;
+    public boolean isLoaded(String fileName, Class type) {
+        RefCountedContainer assetContainer = published.get(fileName);
+        return assetContainer != null && assetContainer.type == type;
     }
 
     /**
@@ -399,6 +600,18 @@ public class AssetManager implements Disposable {
      * @param parameter parameters for the AssetLoader.
      */
     public synchronized <T> void load(String fileName, Class<T> type, AssetLoaderParameters<T> parameter) {
+        load(fileName, type, parameter, parameter == null ? 0 : parameter.priority);
+    }
+
+    /**
+     * Adds the given asset to the loading queue of the AssetManager, ahead of all queued assets with a lower priority.
+     *
+     * @param fileName  the file name (interpretation depends on {@link AssetLoader})
+     * @param type      the type of the asset.
+     * @param parameter parameters for the AssetLoader.
+     * @param priority  see {@link AssetDescriptor#priority}
+     */
+    public synchronized <T> void load(String fileName, Class<T> type, AssetLoaderParameters<T> parameter, int priority) {
         AssetLoader loader = getLoader(type, fileName);
         if (loader == null) throw new KermanRuntimeException("No loader for type: " + ClassReflection.getSimpleName(type));
 
@@ -435,7 +648,9 @@ public class AssetManager implements Disposable {
 
         toLoad++;
         AssetDescriptor assetDesc = new AssetDescriptor(fileName, type, parameter);
-        loadQueue.add(assetDesc);
+        assetDesc.priority = priority;
+        assetDesc.queueTime = TimeUtils.nanoTime();
+        enqueue(assetDesc);
         log.debug("Queued: " + assetDesc);
     }
 
@@ -445,7 +660,59 @@ public class AssetManager implements Disposable {
      * @param desc the {@link AssetDescriptor}
      */
     public synchronized void load(AssetDescriptor desc) {
-        load(desc.fileName, desc.type, desc.params);
+        load(desc.fileName, desc.type, desc.params, desc.priority);
+    }
+
+    /**
+     * Adds the given asset to the loading queue with {@link #PRIORITY_PREFETCH}, so it is only loaded once no other asset is
+     * queued. Like any loaded asset it has to be unloaded with {@link #unload(String)}. Loading it again with a higher priority,
+     * {@link #promote(String, int)} or {@link #finishLoadingAsset(String)} move it forward in the queue.
+     *
+     * @param fileName the file name (interpretation depends on {@link AssetLoader})
+     * @param type     the type of the asset.
+     */
+    public synchronized <T> void prefetch(String fileName, Class<T> type) {
+        load(fileName, type, null, PRIORITY_PREFETCH);
+    }
+
+    /**
+     * See {@link #prefetch(String, Class)}.
+     */
+    public synchronized <T> void prefetch(String fileName, Class<T> type, AssetLoaderParameters<T> parameter) {
+        load(fileName, type, parameter, PRIORITY_PREFETCH);
+    }
+
+    /**
+     * Raises the priority of the queued asset with the given file name to the given priority, if it is lower, so it is taken
+     * from the load queue before assets with a lower priority.
+     *
+     * @param fileName the file name (interpretation depends on {@link AssetLoader})
+     * @return whether the asset was in the load queue.
+     */
+    public synchronized boolean promote(String fileName, int priority) {
+        boolean queued = false;
+        for (int i = loadQueue.size - 1; i >= 0; i--) {
+            AssetDescriptor assetDesc = loadQueue.get(i);
+            if (!assetDesc.fileName.equals(fileName)) continue;
+            queued = true;
+            if (assetDesc.priority >= priority) continue;
+            loadQueue.removeIndex(i);
+            assetDesc.priority = priority;
+            enqueue(assetDesc);
+            // the promoted asset moved ahead, keep checking the assets that are now at this index.
+            i++;
+        }
+        return queued;
+    }
+
+    /**
+     * Inserts an asset into the load queue after all queued assets with the same or a higher priority.
+     */
+    private void enqueue(AssetDescriptor assetDesc) {
+        int index = loadQueue.size;
+        while (index > 0 && loadQueue.get(index - 1).priority < assetDesc.priority)
+            index--;
+        loadQueue.insert(index, assetDesc);
     }
 
     /**
@@ -456,18 +723,17 @@ public class AssetManager implements Disposable {
      */
     public synchronized boolean update() {
         try {
-            if (tasks.size == 0) {
-                // loop until we have a new task ready to be processed
-                while (loadQueue.size != 0 && tasks.size == 0)
-                    nextTask();
-                // have we not found a task? We are done!
-                if (tasks.size == 0) return true;
-            }
-            return updateTask() && loadQueue.size == 0 && tasks.size == 0;
+            // start queued assets until as many are loading as there are loading threads
+            while (loadQueue.size != 0 && rootTasks() < loadingThreads)
+                if (!nextTask()) break;
         } catch (Throwable t) {
-            handleTaskError(t);
-            return loadQueue.size == 0;
+            handleTaskError(null, t);
+            return loadQueue.size == 0 && tasks.size == 0;
         }
+        // have we not found a task? We are done!
+        if (tasks.size == 0) return loadQueue.size == 0;
+        updateTasks();
+        return loadQueue.size == 0 && tasks.size == 0;
     }
 
     /**
@@ -497,12 +763,18 @@ public class AssetManager implements Disposable {
     }
 
     /**
-     * Blocks until all assets are loaded.
+     * Blocks until all assets are loaded. The {@link #setUploadBudget(int) upload budget} doesn't apply while blocking, as the
+     * frame doesn't change.
      */
     public void finishLoading() {
         log.debug("Waiting for loading to complete...");
-        while (!update())
-            ThreadUtils.yield();
+        uploadBudget.suspend();
+        try {
+            while (!update())
+                ThreadUtils.yield();
+        } finally {
+            uploadBudget.resume();
+        }
         log.debug("Loading complete.");
     }
 
@@ -516,43 +788,46 @@ public class AssetManager implements Disposable {
     }
 
     /**
-     * Blocks until the specified asset is loaded.
+     * Blocks until the specified asset is loaded. The {@link #setUploadBudget(int) upload budget} doesn't apply while blocking,
+     * as the frame doesn't change.
      *
      * @param fileName the file name (interpretation depends on {@link AssetLoader})
      */
     public <T> T finishLoadingAsset(String fileName) {
         log.debug("Waiting for asset to be loaded: " + fileName);
-        while (true) {
-            synchronized (this) {
-                Class<T> type = assetTypes.get(fileName);
-                if (type != null) {
-                    ObjectMap<String, RefCountedContainer> assetsByType = assets.get(type);
-                    if (assetsByType != null) {
-                        RefCountedContainer assetContainer = assetsByType.get(fileName);
-                        if (assetContainer != null) {
-                            log.debug("Asset loaded: " + fileName);
-                            return (T) assetContainer.object;
-                        }
-                    }
+        promote(fileName, PRIORITY_HIGHEST);
+        uploadBudget.suspend();
+        try {
+            while (true) {
+                RefCountedContainer assetContainer = published.get(fileName);
+                if (assetContainer != null) {
+                    log.debug("Asset loaded: " + fileName);
+                    return (T) assetContainer.object;
                 }
                 update();
+                ThreadUtils.yield();
             }
-            ThreadUtils.yield();
+        } finally {
+            uploadBudget.resume();
         }
     }
 
-    synchronized void injectDependencies(String parentAssetFilename, KermanArray<AssetDescriptor> dependendAssetDescs) {
+    synchronized void injectDependencies(AssetLoadingTask parent, KermanArray<AssetDescriptor> dependendAssetDescs) {
+        // the parent may have been cancelled while its dependencies were resolved on a worker thread.
+        if (parent.cancel) return;
+        parent.dependenciesInjected = true;
         ObjectSet<String> injected = this.injected;
         for (AssetDescriptor desc : dependendAssetDescs) {
             if (injected.contains(desc.fileName)) continue; // Ignore subsequent dependencies if there are duplicates.
             injected.add(desc.fileName);
-            injectDependency(parentAssetFilename, desc);
+            injectDependency(parent, desc);
         }
         injected.clear(32);
     }
 
-    private synchronized void injectDependency(String parentAssetFilename, AssetDescriptor dependendAssetDesc) {
+    private synchronized void injectDependency(AssetLoadingTask parent, AssetDescriptor dependendAssetDesc) {
         // add the asset as a dependency of the parent asset
+        String parentAssetFilename = parent.assetDesc.fileName;
         KermanArray<String> dependencies = assetDependencies.get(parentAssetFilename);
         if (dependencies == null) {
             dependencies = new KermanArray<>();
@@ -567,18 +842,30 @@ public class AssetManager implements Disposable {
             RefCountedContainer assetRef = assets.get(type).get(dependendAssetDesc.fileName);
             assetRef.refCount++;
             incrementRefCountedDependencies(dependendAssetDesc.fileName);
+        } else if (revive(dependendAssetDesc.fileName, dependendAssetDesc.type)) {
+            log.debug("Dependency retained: " + dependendAssetDesc);
         } else {
-            // else add a new task for the asset.
-            log.info("Loading dependency: " + dependendAssetDesc);
-            addTask(dependendAssetDesc);
+            // else wait for the task already loading the asset, or add a new task for it.
+            AssetLoadingTask task = findTask(dependendAssetDesc.fileName);
+            if (task != null)
+                log.debug("Dependency already loading: " + dependendAssetDesc);
+            else {
+                log.info("Loading dependency: " + dependendAssetDesc);
+                task = addTask(dependendAssetDesc);
+            }
+            task.dependents.add(parent);
+            parent.pendingDependencies++;
         }
     }
 
     /**
-     * Removes a task from the loadQueue and adds it to the task stack. If the asset is already loaded (which can happen if it was
+     * Removes a task from the loadQueue and adds it to the task list. If the asset is already loaded (which can happen if it was
      * a dependency of a previously loaded asset) its reference count will be increased.
+     *
+     * @return false if the first queued asset is currently loading and has to stay in the queue until it is loaded.
      */
-    private void nextTask() {
+    private boolean nextTask() {
+        if (findTask(loadQueue.first().fileName) != null) return false;
         AssetDescriptor assetDesc = loadQueue.removeIndex(0);
 
         // if the asset not meant to be reloaded and is already loaded, increase its reference count
@@ -591,21 +878,120 @@ public class AssetManager implements Disposable {
             if (assetDesc.params != null && assetDesc.params.loadedCallback != null)
                 assetDesc.params.loadedCallback.finishedLoading(this, assetDesc.fileName, assetDesc.type);
             loaded++;
+        } else if (revive(assetDesc.fileName, assetDesc.type)) {
+            log.debug("Retained: " + assetDesc);
+            if (assetDesc.params != null && assetDesc.params.loadedCallback != null)
+                assetDesc.params.loadedCallback.finishedLoading(this, assetDesc.fileName, assetDesc.type);
+            loaded++;
         } else {
             // else add a new task for the asset.
             log.info("Loading: " + assetDesc);
-            addTask(assetDesc);
+            addTask(assetDesc).root = true;
         }
+        return true;
     }
 
     /**
-     * Adds a {@link AssetLoadingTask} to the task stack for the given asset.
+     * Adds a {@link AssetLoadingTask} to the task list for the given asset.
      */
-    private void addTask(AssetDescriptor assetDesc) {
+    private AssetLoadingTask addTask(AssetDescriptor assetDesc) {
         AssetLoader loader = getLoader(assetDesc.type, assetDesc.fileName);
         if (loader == null) throw new KermanRuntimeException("No loader for type: " + ClassReflection.getSimpleName(assetDesc.type));
-        tasks.add(new AssetLoadingTask(this, assetDesc, loader, executor));
+        if (evicted.remove(assetDesc.fileName)) cacheReloads++;
+        AssetLoadingTask task = new AssetLoadingTask(this, assetDesc, loader, executor);
+        tasks.add(task);
         peakTasks++;
+        return task;
+    }
+
+    /**
+     * @return the task currently loading the given asset, or null
+     */
+    private @Nullable AssetLoadingTask findTask(String fileName) {
+        for (int i = 0; i < tasks.size; i++) {
+            AssetLoadingTask task = tasks.get(i);
+            if (task.assetDesc.fileName.equals(fileName)) return task;
+        }
+        return null;
+    }
+
+    /**
+     * @return the number of tasks started from the load queue
+     */
+    private int rootTasks() {
+        int count = 0;
+        for (int i = 0; i < tasks.size; i++)
+            if (tasks.get(i).root) count++;
+        return count;
+    }
+
+    /**
+     * Claims the loader of a task unless it is {@link AssetLoader#isConcurrent() concurrent}. Tasks only hold their loader
+     * while they aren't waiting for dependencies, see {@link #releaseLoader(AssetLoadingTask)}, so the owner of a loader never
+     * waits for another task and two tasks can't wait for each other's loaders.
+     *
+     * @return false if another task is using the loader, in which case the task has to wait.
+     */
+    private boolean acquireLoader(AssetLoadingTask task) {
+        if (task.loader.isConcurrent()) return true;
+        AssetLoadingTask owner = loaderOwners.get(task.loader);
+        if (owner != null) return owner == task;
+        loaderOwners.put(task.loader, task);
+        // another task used the loader while this one waited for its dependencies, overwriting the state the loader kept from
+        // getDependencies, so getDependencies has to run again
+        if (loaderUsers.put(task.loader, task) != task && task.dependenciesInjected) task.repeatDependencies();
+        return true;
+    }
+
+    /**
+     * Lets other tasks use the loader of a task while it waits for its dependencies.
+     */
+    private void releaseLoader(AssetLoadingTask task) {
+        if (loaderOwners.get(task.loader) == task) loaderOwners.remove(task.loader);
+    }
+
+    /**
+     * Removes a finished or cancelled task from the task list and lets the tasks waiting for it continue.
+     *
+     * @return false if the task was already removed.
+     */
+    private boolean removeTask(AssetLoadingTask task) {
+        if (!tasks.removeValue(task, true)) return false;
+        releaseLoader(task);
+        if (loaderUsers.get(task.loader) == task) loaderUsers.remove(task.loader);
+        if (task.root) loaded++;
+        if (tasks.size == 0) peakTasks = 0;
+        for (AssetLoadingTask dependent : task.dependents)
+            dependent.pendingDependencies--;
+        return true;
+    }
+
+    /**
+     * Cancels a task and releases the dependencies it has injected so far. Dependencies that are still loading are cancelled
+     * as well once no other task is waiting for them.
+     */
+    private boolean cancelTask(AssetLoadingTask task) {
+        if (!removeTask(task)) return false;
+        task.cancel = true;
+        KermanArray<String> dependencies = assetDependencies.remove(task.assetDesc.fileName);
+        if (dependencies == null) return true;
+        for (String dependency : dependencies) {
+            AssetLoadingTask dependencyTask = findTask(dependency);
+            if (dependencyTask != null) {
+                dependencyTask.dependents.removeValue(task, true);
+                if (!dependencyTask.root && dependencyTask.dependents.size == 0) cancelTask(dependencyTask);
+            } else if (isLoaded(dependency)) unload(dependency);
+        }
+        return true;
+    }
+
+    /**
+     * Cancels a failed task and every task that waits for it, as none of them can finish anymore.
+     */
+    private void failTask(AssetLoadingTask task) {
+        if (!cancelTask(task)) return;
+        for (AssetLoadingTask dependent : task.dependents)
+            failTask(dependent);
     }
 
     /**
@@ -621,19 +1007,42 @@ public class AssetManager implements Disposable {
             typeToAssets = new ObjectMap<>();
             assets.put(type, typeToAssets);
         }
-        RefCountedContainer assetRef = new RefCountedContainer();
-        assetRef.object = asset;
+        RefCountedContainer assetRef = new RefCountedContainer(type, asset);
+        assetRef.size = estimateSize(type, asset);
+        memoryUsage += assetRef.size;
         typeToAssets.put(fileName, assetRef);
+        published.put(fileName, assetRef);
+        evictUnreferenced();
+    }
+
+    /**
+     * Updates every task that is not waiting for dependencies. Dependencies are added after the tasks needing them, so walking
+     * the list backwards lets a parent continue in the same update its last dependency finished in.
+     */
+    private void updateTasks() {
+        for (int i = tasks.size - 1; i >= 0; i--) {
+            // cancelling a task may have removed others from the list
+            if (i >= tasks.size) continue;
+            AssetLoadingTask task = tasks.get(i);
+            if (task.pendingDependencies > 0) {
+                releaseLoader(task);
+                continue;
+            }
+            if (!acquireLoader(task)) continue;
+            try {
+                updateTask(task);
+            } catch (Throwable t) {
+                handleTaskError(task, t);
+            }
+        }
     }
 
     /**
-     * Updates the current task on the top of the task stack.
+     * Updates a single task whose dependencies are all loaded.
      *
      * @return true if the asset is loaded or the task was cancelled.
      */
-    private boolean updateTask() {
-        AssetLoadingTask task = tasks.peek();
-
+    private boolean updateTask(AssetLoadingTask task) {
         boolean complete = true;
         try {
             complete = task.cancel || task.update();
@@ -644,16 +1053,18 @@ public class AssetManager implements Disposable {
 
         // if the task has been cancelled or has finished loading
         if (complete) {
-            // increase the number of loaded assets and pop the task from the stack
-            if (tasks.size == 1) {
-                loaded++;
-                peakTasks = 0;
+            if (task.cancel) {
+                cancelTask(task);
+                return true;
             }
-            tasks.pop();
-
-            if (task.cancel) return true;
 
+            // the asset is referenced once by the load queue and once by each asset it was a dependency of.
+            int references = (task.root ? 1 : 0) + task.dependents.size;
+            removeTask(task);
             addAsset(task.assetDesc.fileName, task.assetDesc.type, task.asset);
+            assets.get(task.assetDesc.type).get(task.assetDesc.fileName).refCount = references;
+            for (int i = 1; i < references; i++)
+                incrementRefCountedDependencies(task.assetDesc.fileName);
 
             // otherwise, if a listener was found in the parameter invoke it
             if (task.assetDesc.params != null && task.assetDesc.params.loadedCallback != null)
@@ -690,29 +1101,19 @@ public class AssetManager implements Disposable {
     /**
      * Handles a runtime/loading error in {@link #update()} by optionally invoking the {@link AssetErrorListener}.
      *
-     * @param t
+     * @param task the faulty task, or null if the error did not happen while loading an asset
      */
-    private void handleTaskError(Throwable t) {
+    private void handleTaskError(@Nullable AssetLoadingTask task, Throwable t) {
         log.error("Error loading asset.", t);
 
-        if (tasks.isEmpty()) throw new KermanRuntimeException(t);
+        if (task == null) throw new KermanRuntimeException(t);
 
-        // pop the faulty task from the stack
-        AssetLoadingTask task = tasks.pop();
-        AssetDescriptor assetDesc = task.assetDesc;
-
-        // remove all dependencies
-        if (task.dependenciesLoaded && task.dependencies != null) {
-            for (AssetDescriptor desc : task.dependencies)
-                unload(desc.fileName);
-        }
-
-        // clear the rest of the stack
-        tasks.clear();
+        // remove the faulty task, the dependencies it loaded so far and the tasks waiting for it
+        failTask(task);
 
         // inform the listener that something bad happened
         if (listener != null)
-            listener.error(assetDesc, t);
+            listener.error(task.assetDesc, t);
         else
             throw new KermanRuntimeException(t);
     }
@@ -803,6 +1204,11 @@ public class AssetManager implements Disposable {
         finishLoading();
 
         synchronized (this) {
+            // dispose assets right away instead of retaining them for the memory budget
+            long memoryBudget = this.memoryBudget;
+            this.memoryBudget = 0;
+            evictUnreferenced();
+
             ObjectIntMap<String> dependencyCount = new ObjectIntMap<>();
             while (assetTypes.size > 0) {
                 // for each asset, figure out how often it was referenced
@@ -820,6 +1226,10 @@ public class AssetManager implements Disposable {
                     if (dependencyCount.get(asset, 0) == 0) unload(asset);
             }
 
+            this.memoryBudget = memoryBudget;
+            this.evicted.clear(51);
+            this.memoryUsage = 0;
+            this.published.clear();
             this.assets.clear(51);
             this.assetTypes.clear(51);
             this.assetDependencies.clear(51);
@@ -828,9 +1238,133 @@ public class AssetManager implements Disposable {
             this.peakTasks = 0;
             this.loadQueue.clear();
             this.tasks.clear();
+            this.loaderOwners.clear(51);
+            this.loaderUsers.clear(51);
         }
     }
 
+    /**
+     * Limits the bytes loaders upload to the GPU per frame. With a limit, textures are uploaded in bands of rows and the meshes of
+     * models in parts, spread over as many calls to {@link #update()} in different frames as needed. Assets are only handed out
+     * once they are fully uploaded. This keeps frame times flat when loading behind a running scene, with
+     * {@link #update(int)} bounding the time spent on the rest of loading.
+     *
+     * @param bytesPerFrame the bytes per frame, or 0 to upload each asset at once (the default)
+     */
+    public synchronized void setUploadBudget(int bytesPerFrame) {
+        uploadBudget.setBytesPerFrame(bytesPerFrame);
+    }
+
+    /**
+     * @return the budget loaders use to split GPU uploads over several frames, see {@link #setUploadBudget(int)}
+     */
+    public UploadBudget getUploadBudget() {
+        return uploadBudget;
+    }
+
+    /**
+     * @return the estimated memory size of the asset in bytes, or 0 if there is no {@link AssetSizeEstimator} for the type
+     */
+    long estimateSize(Class type, Object asset) {
+        AssetSizeEstimator estimator = sizeEstimators.get(type);
+        return estimator == null ? 0 : estimator.estimate(asset);
+    }
+
+    /**
+     * Sets the cache of decoded pixmaps and sounds used by the default pixmap, texture and sound loaders, or null to always
+     * decode (the default).
+     */
+    public void setDecodedAssetCache(@Nullable DecodedAssetCache cache) {
+        decodedAssetCache = cache;
+    }
+
+    public @Nullable DecodedAssetCache getDecodedAssetCache() {
+        return decodedAssetCache;
+    }
+
+    /**
+     * Sets a tracer recording the phases of loading every asset from now on, or null to stop tracing (the default). See
+     * {@link AssetLoadTracer} for the phases and the Chrome trace export.
+     */
+    public void setTracer(@Nullable AssetLoadTracer tracer) {
+        this.tracer = tracer;
+    }
+
+    public @Nullable AssetLoadTracer getTracer() {
+        return tracer;
+    }
+
+    /**
+     * Sets the {@link AssetSizeEstimator} used to account the memory of assets of the given type against the memory budget.
+     * Estimators for {@link Texture}, {@link Pixmap} and {@link Sound} are set by default.
+     *
+     * @param estimator the estimator, or null to not account assets of this type
+     */
+    public synchronized <T> void setSizeEstimator(Class<T> type, @Nullable AssetSizeEstimator<T> estimator) {
+        if (estimator == null)
+            sizeEstimators.remove(type);
+        else
+            sizeEstimators.put(type, estimator);
+    }
+
+    /**
+     * Sets the number of bytes loaded assets may occupy before assets that are no longer referenced get disposed. With a budget,
+     * an asset whose reference count drops to zero in {@link #unload(String)} is kept instead of being disposed, and is handed out
+     * again without reloading if it is loaded before it gets evicted. Unreferenced assets are evicted least recently unloaded
+     * first whenever the estimated memory of all assets exceeds the budget. Referenced assets are never evicted.
+     *
+     * @param bytes the budget in bytes, or 0 to dispose assets as soon as they are no longer referenced (the default)
+     */
+    public synchronized void setMemoryBudget(long bytes) {
+        memoryBudget = Math.max(0, bytes);
+        evictUnreferenced();
+    }
+
+    public synchronized long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * @return the estimated memory in bytes of all loaded and retained assets
+     */
+    public synchronized long getMemoryUsage() {
+        return memoryUsage;
+    }
+
+    /**
+     * @return the number of unreferenced assets kept for the memory budget
+     */
+    public synchronized int getRetainedAssets() {
+        return unreferenced.size;
+    }
+
+    /**
+     * @return how often an asset was loaded while it was retained, so it didn't have to be reloaded
+     */
+    public synchronized int getCacheHits() {
+        return cacheHits;
+    }
+
+    /**
+     * @return how often a retained asset was disposed because the memory budget was exceeded
+     */
+    public synchronized int getCacheEvictions() {
+        return cacheEvictions;
+    }
+
+    /**
+     * @return how often an asset was loaded again after it had been evicted
+     */
+    public synchronized int getCacheReloads() {
+        return cacheReloads;
+    }
+
+    public synchronized void resetCacheCounters() {
+        cacheHits = 0;
+        cacheEvictions = 0;
+        cacheReloads = 0;
+    }
+
     /**
      * @return the {@link Logger} used by the {@link AssetManager}
      */
@@ -915,7 +1449,20 @@ public class AssetManager implements Disposable {
     }
 
     static class RefCountedContainer {
-        Object object;
+        final Class type;
+        final Object object;
+        /**
+         * Only accessed while holding the manager's lock.
+         */
         int refCount = 1;
+        /**
+         * The estimated memory size in bytes, 0 if the type has no {@link AssetSizeEstimator}.
+         */
+        long size;
+
+        RefCountedContainer(Class type, Object object) {
+            this.type = type;
+            this.object = object;
+        }
     }
 }
@@ -0,0 +1,9 @@
+package com.kerman.core.assets
+
+/**
+ * Estimates how many bytes of memory a loaded asset occupies. Used by [AssetManager.setMemoryBudget] to decide when
+ * unreferenced assets have to be evicted.
+ */
+fun interface AssetSizeEstimator<T> {
+    fun estimate(asset: T): Long
+}
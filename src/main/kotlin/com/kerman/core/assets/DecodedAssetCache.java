@@ -0,0 +1,374 @@
+package com.kerman.core.assets;
+
+import com.kerman.core.Kerman;
+import com.kerman.core.assets.loaders.PixmapLoader;
+import com.kerman.core.assets.loaders.SoundLoader;
+import com.kerman.core.assets.loaders.TextureLoader;
+import com.kerman.core.audio.Sound;
+import com.kerman.core.audio.SoundData;
+import com.kerman.core.files.FileHandle;
+import com.kerman.core.graphics.Pixmap;
+import com.kerman.core.graphics.Pixmap.Blending;
+import com.kerman.core.graphics.Pixmap.Format;
+import com.kerman.core.graphics.k2d.Kerman2DPixmap;
+import com.kerman.core.utils.BufferUtils;
+import com.kerman.core.utils.KermanRuntimeException;
+import com.kerman.core.utils.StreamUtils;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+
+/**
+ * A directory of decoded pixmaps and sounds, so they don't have to be decoded again on the next start. Set it with
+ * {@link AssetManager#setDecodedAssetCache(DecodedAssetCache)} to be used by {@link PixmapLoader}, {@link TextureLoader} and
+ * {@link SoundLoader}.
+ * <p>
+ * Entries are keyed by the path of the source file and the parameters it was decoded with. Each entry stores the length, the last
+ * modification time and a hash of the content of its source file. The content is only hashed again when the length or the
+ * modification time differ, or the modification time is unknown like for classpath files. So a changed source file is decoded
+ * again and never served stale, while an unchanged one is served without reading it. Uncompressed entries are memory mapped copy-on-write, so the pixels and samples are
+ * used right from the mapped file. {@link #setCompressed(boolean) Compressed} entries take less disk space but have to be
+ * inflated. Entries are never removed by the cache itself, see {@link #clear()}.
+ * <p>
+ * A cache may be used by several threads at once.
+ */
+public class DecodedAssetCache {
+    static private final int MAGIC = 0x4B444332; // "KDC2"
+    static private final int KIND_PIXMAP = 1;
+    static private final int KIND_SOUND = 2;
+    /**
+     * The offsets of the length, the last modification time and the content hash of the source file in the header of an entry.
+     */
+    static private final int SOURCE_LENGTH = 32, SOURCE_LAST_MODIFIED = 40, SOURCE_HASH = 48;
+    /**
+     * The size of the header of an entry, which keeps the data of uncompressed entries aligned.
+     */
+    static private final int HEADER_SIZE = 64;
+
+    private final FileHandle directory;
+    private volatile boolean compressed;
+    private int hits, misses;
+
+    /**
+     * @param directory where the entries are stored, created if it doesn't exist
+     */
+    public DecodedAssetCache(FileHandle directory) {
+        this.directory = directory;
+        directory.mkdirs();
+    }
+
+    public FileHandle getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Sets whether new entries are compressed with deflate. Existing entries are read either way. Defaults to false.
+     */
+    public void setCompressed(boolean compressed) {
+        this.compressed = compressed;
+    }
+
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    /**
+     * Returns the pixmap decoded from the file, from the cache if it was decoded before and decoding and adding it to the cache
+     * otherwise. The returned pixmap is owned by the caller.
+     *
+     * @param format the format to convert the pixmap to, or null to keep the format of the file
+     */
+    public Pixmap loadPixmap(FileHandle file, @Nullable Format format) {
+        String key = key(file, format == null ? "pixmap" : "pixmap:" + format);
+        Source source = new Source(file);
+        Pixmap pixmap = getPixmap(key, source);
+        if (pixmap != null) return pixmap;
+        // hashed before decoding, so a file changed while it is decoded is decoded again next time
+        source.hash();
+        pixmap = new Pixmap(file);
+        if (format != null && pixmap.getFormat() != format) {
+            Pixmap converted = new Pixmap(pixmap.getWidth(), pixmap.getHeight(), format);
+            converted.setBlending(Blending.None);
+            converted.drawPixmap(pixmap, 0, 0, 0, 0, pixmap.getWidth(), pixmap.getHeight());
+            pixmap.dispose();
+            pixmap = converted;
+        }
+        ByteBuffer pixels = pixmap.getPixels();
+        put(key, source, KIND_PIXMAP, pixmap.getWidth(), pixmap.getHeight(), Format.toKerman2DPixmapFormat(pixmap.getFormat()),
+                pixels);
+        return pixmap;
+    }
+
+    /**
+     * Returns the sound decoded from the file, created from the cache if it was decoded before. Falls back to
+     * {@link com.kerman.core.Audio#newSound(FileHandle)} if the audio backend can't decode without creating a sound.
+     */
+    public Sound loadSound(FileHandle file) {
+        String key = key(file, "sound");
+        Source source = new Source(file);
+        SoundData data = getSound(key, source);
+        if (data == null) {
+            source.hash();
+            data = Kerman.audio.decodeSound(file);
+            if (data == null) return Kerman.audio.newSound(file);
+            put(key, source, KIND_SOUND, data.getChannels(), data.getBitDepth(), data.getSampleRate(), data.getPcm());
+        }
+        return Kerman.audio.newSound(data);
+    }
+
+    private @Nullable Pixmap getPixmap(String key, Source source) {
+        ByteBuffer entry = get(key, source, KIND_PIXMAP);
+        if (entry == null) return null;
+        int width = entry.getInt(12), height = entry.getInt(16), format = entry.getInt(20);
+        if (entry.getInt(8) == 0) {
+            // the pixmap doesn't own the mapped memory, it is unmapped once the pixmap is garbage collected.
+            return new Pixmap(new Kerman2DPixmap(data(entry), new long[]{0, width, height, format}));
+        }
+        Pixmap pixmap = new Pixmap(width, height, Format.fromKerman2DPixmapFormat(format));
+        if (!inflate(entry, pixmap.getPixels())) {
+            pixmap.dispose();
+            return null;
+        }
+        return pixmap;
+    }
+
+    private @Nullable SoundData getSound(String key, Source source) {
+        ByteBuffer entry = get(key, source, KIND_SOUND);
+        if (entry == null) return null;
+        int channels = entry.getInt(12), bitDepth = entry.getInt(16), sampleRate = entry.getInt(20);
+        ByteBuffer pcm;
+        if (entry.getInt(8) == 0)
+            pcm = data(entry);
+        else {
+            pcm = BufferUtils.newByteBuffer(entry.getInt(24));
+            if (!inflate(entry, pcm)) return null;
+        }
+        return new SoundData(pcm, channels, bitDepth, sampleRate);
+    }
+
+    /**
+     * @return the mapped entry with the given key, or null if there is none or it was decoded from other content
+     */
+    private @Nullable ByteBuffer get(String key, Source source, int kind) {
+        FileHandle file = directory.child(key);
+        ByteBuffer entry = null;
+        if (file.exists()) {
+            try {
+                entry = file.map(MapMode.PRIVATE).order(ByteOrder.BIG_ENDIAN);
+                if (entry.capacity() < HEADER_SIZE || entry.getInt(0) != MAGIC || entry.getInt(4) != kind
+                        || (entry.getInt(8) == 0 && entry.capacity() < HEADER_SIZE + (long) entry.getInt(24))) entry = null;
+            } catch (KermanRuntimeException ignored) {
+                entry = null;
+            }
+        }
+        if (entry != null && !source.matches(entry)) {
+            if (entry.getLong(SOURCE_HASH) != source.hash())
+                entry = null;
+            else if (source.lastModified != 0) {
+                // the file was touched but not changed, so the next load doesn't have to hash it again
+                updateSource(file, source);
+            }
+        }
+        synchronized (this) {
+            if (entry != null)
+                hits++;
+            else
+                misses++;
+        }
+        return entry;
+    }
+
+    /**
+     * @return the data of an uncompressed entry, in native order
+     */
+    static private ByteBuffer data(ByteBuffer entry) {
+        ByteBuffer data = entry.duplicate();
+        ((Buffer) data).position(HEADER_SIZE);
+        ((Buffer) data).limit(HEADER_SIZE + entry.getInt(24));
+        return data.slice().order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Inflates the data of a compressed entry into the buffer.
+     *
+     * @return false if the entry is corrupt
+     */
+    static private boolean inflate(ByteBuffer entry, ByteBuffer output) {
+        ByteBuffer input = entry.duplicate();
+        ((Buffer) input).position(HEADER_SIZE);
+        byte[] in = new byte[input.remaining()];
+        input.get(in);
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(in);
+            byte[] out = new byte[64 * 1024];
+            ByteBuffer target = output.duplicate();
+            ((Buffer) target).clear();
+            while (!inflater.finished()) {
+                int count = inflater.inflate(out, 0, Math.min(out.length, target.remaining()));
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary() || !target.hasRemaining())) return false;
+                target.put(out, 0, count);
+            }
+            return target.position() == entry.getInt(24);
+        } catch (DataFormatException ex) {
+            return false;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Writes an entry to a temporary file first and then moves it in place, so a partially written entry is never read.
+     */
+    private void put(String key, Source source, int kind, int value0, int value1, int value2, ByteBuffer data) {
+        ByteBuffer input = data.duplicate();
+        int length = input.remaining();
+        boolean compressed = this.compressed;
+        FileHandle temp = directory.child(key + '.' + Thread.currentThread().getId() + ".tmp");
+        DataOutputStream output = null;
+        try {
+            output = new DataOutputStream(temp.write(false, 64 * 1024));
+            output.writeInt(MAGIC);
+            output.writeInt(kind);
+            output.writeInt(compressed ? 1 : 0);
+            output.writeInt(value0);
+            output.writeInt(value1);
+            output.writeInt(value2);
+            output.writeInt(length);
+            output.writeInt(0);
+            output.writeLong(source.length);
+            output.writeLong(source.lastModified);
+            output.writeLong(source.hash());
+            output.writeLong(0);
+            Deflater deflater = compressed ? new Deflater(Deflater.BEST_SPEED) : null;
+            OutputStream dataOutput = compressed ? new DeflaterOutputStream(output, deflater, 64 * 1024) : output;
+            byte[] buffer = new byte[64 * 1024];
+            while (input.hasRemaining()) {
+                int count = Math.min(buffer.length, input.remaining());
+                input.get(buffer, 0, count);
+                dataOutput.write(buffer, 0, count);
+            }
+            dataOutput.close();
+            output = null;
+            if (deflater != null) deflater.end();
+            temp.moveTo(directory.child(key));
+        } catch (IOException | KermanRuntimeException ex) {
+            // the cache is only an optimization, the next start decodes again.
+            StreamUtils.closeQuietly(output);
+            temp.delete();
+        }
+    }
+
+    /**
+     * Writes the length and last modification time of the source file to the header of an entry, without touching its data.
+     */
+    static private void updateSource(FileHandle entry, Source source) {
+        try (RandomAccessFile output = new RandomAccessFile(entry.file(), "rw")) {
+            output.seek(SOURCE_LENGTH);
+            output.writeLong(source.length);
+            output.writeLong(source.lastModified);
+        } catch (IOException ignored) {
+            // the content is hashed again on the next load.
+        }
+    }
+
+    /**
+     * @return the name of the entry for the file decoded with the given parameters, from a 64 bit hash of its type and path
+     */
+    static private String key(FileHandle file, String variant) {
+        String name = file.type() + ":" + file.path() + ":" + variant;
+        long hash = hash(ByteBuffer.wrap(name.getBytes(StandardCharsets.UTF_8)).order(ByteOrder.LITTLE_ENDIAN));
+        return Long.toHexString(hash) + '.' + file.extension();
+    }
+
+    static private long hash(ByteBuffer buffer) {
+        int length = buffer.remaining();
+        long hash = 0x9E3779B97F4A7C15L ^ length;
+        int i = buffer.position(), end = i + length;
+        for (; i + 8 <= end; i += 8)
+            hash = mix(hash ^ buffer.getLong(i));
+        long last = 0;
+        for (int shift = 0; i < end; i++, shift += 8)
+            last |= (buffer.get(i) & 0xffL) << shift;
+        return mix(hash ^ last);
+    }
+
+    static private long mix(long hash) {
+        hash = (hash ^ (hash >>> 33)) * 0xFF51AFD7ED558CCDL;
+        hash = (hash ^ (hash >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return hash ^ (hash >>> 33);
+    }
+
+    /**
+     * The length and last modification time of a source file, and the hash of its content once it is needed.
+     */
+    static private class Source {
+        final FileHandle file;
+        final long length, lastModified;
+        private boolean hashed;
+        private long hash;
+
+        Source(FileHandle file) {
+            this.file = file;
+            length = file.length();
+            lastModified = file.lastModified();
+        }
+
+        /**
+         * @return whether the entry was decoded from a file with the same length and known modification time
+         */
+        boolean matches(ByteBuffer entry) {
+            return lastModified != 0 && entry.getLong(SOURCE_LENGTH) == length && entry.getLong(SOURCE_LAST_MODIFIED) == lastModified;
+        }
+
+        /**
+         * @return a 64 bit hash of the content, which is read the first time only
+         */
+        long hash() {
+            if (!hashed) {
+                ByteBuffer content;
+                try {
+                    content = file.map();
+                } catch (KermanRuntimeException ex) {
+                    content = ByteBuffer.wrap(file.readBytes());
+                }
+                hash = DecodedAssetCache.hash(content.order(ByteOrder.LITTLE_ENDIAN));
+                hashed = true;
+            }
+            return hash;
+        }
+    }
+
+    /**
+     * @return the number of entries found in the cache since it was created
+     */
+    public synchronized int getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of entries that had to be decoded since the cache was created
+     */
+    public synchronized int getMisses() {
+        return misses;
+    }
+
+    /**
+     * Deletes all entries. Entries still mapped by loaded assets may not be deletable on some platforms.
+     */
+    public void clear() {
+        directory.emptyDirectory();
+    }
+}
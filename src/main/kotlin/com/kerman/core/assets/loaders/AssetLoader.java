@@ -2,6 +2,7 @@ package com.kerman.core.assets.loaders;
 
 import com.kerman.core.assets.AssetDescriptor;
 import com.kerman.core.assets.AssetLoaderParameters;
+import com.kerman.core.assets.AssetManager;
 import com.kerman.core.files.FileHandle;
 import com.kerman.core.utils.KermanArray;
 
@@ -43,4 +44,13 @@ public abstract class AssetLoader<T, P extends AssetLoaderParameters<T>> {
      * @return other assets that the asset depends on and need to be loaded first or null if there are no dependencies.
      */
     public abstract KermanArray<AssetDescriptor> getDependencies(String fileName, FileHandle file, P parameter);
+
+    /**
+     * Returns whether several assets can be loaded with this loader at the same time. The {@link AssetManager} only lets one
+     * asset at a time use loaders returning false, as those keep the state of the asset being loaded in fields between the
+     * loading steps. Loaders keeping that state per file name may return true.
+     */
+    public boolean isConcurrent() {
+        return false;
+    }
 }
@@ -8,6 +8,7 @@ import com.kerman.core.graphics.Texture;
 import com.kerman.core.graphics.Texture.TextureFilter;
 import com.kerman.core.graphics.k2d.BitmapFont;
 import com.kerman.core.graphics.k2d.BitmapFont.BitmapFontData;
+import com.kerman.core.graphics.k2d.DistanceFieldFont;
 import com.kerman.core.graphics.k2d.TextureAtlas;
 import com.kerman.core.graphics.k2d.TextureAtlas.AtlasRegion;
 import com.kerman.core.graphics.k2d.TextureRegion;
@@ -51,6 +52,12 @@ public class BitmapFontLoader extends AsynchronousAssetLoader<BitmapFont, Bitmap
                     textureParams.genMipMaps = parameter.genMipMaps;
                     textureParams.minFilter = parameter.minFilter;
                     textureParams.magFilter = parameter.magFilter;
+                    // distance fields are interpolated, so the default nearest filters are taken as not specified.
+                    if (parameter.distanceField != null && parameter.minFilter == TextureFilter.Nearest
+                            && parameter.magFilter == TextureFilter.Nearest) {
+                        textureParams.minFilter = parameter.genMipMaps ? TextureFilter.MipMapLinearLinear : TextureFilter.Linear;
+                        textureParams.magFilter = TextureFilter.Linear;
+                    }
                 }
 
                 AssetDescriptor descriptor = new AssetDescriptor(resolved, Texture.class, textureParams);
@@ -74,6 +81,8 @@ public class BitmapFontLoader extends AsynchronousAssetLoader<BitmapFont, Bitmap
 
             if (region == null)
                 throw new KermanRuntimeException("Could not find font region " + name + " in atlas " + parameter.atlasName);
+            if (parameter.distanceField != null)
+                return new DistanceFieldFont(file, region, parameter.distanceField, parameter.distanceFieldSpread);
             return new BitmapFont(file, region);
         } else {
             int n = data.getImagePaths().length;
@@ -81,6 +90,8 @@ public class BitmapFontLoader extends AsynchronousAssetLoader<BitmapFont, Bitmap
             for (int i = 0; i < n; i++) {
                 regs.add(new TextureRegion(manager.get(data.getImagePath(i), Texture.class)));
             }
+            if (parameter != null && parameter.distanceField != null)
+                return new DistanceFieldFont(data, regs, true, parameter.distanceField, parameter.distanceFieldSpread);
             return new BitmapFont(data, regs, true);
         }
     }
@@ -121,5 +132,18 @@ public class BitmapFontLoader extends AsynchronousAssetLoader<BitmapFont, Bitmap
          * for a separate image
          */
         public String atlasName = null;
+
+        /**
+         * If not {@code null}, the pages store distance fields of this type and a {@link DistanceFieldFont} is loaded. Unless
+         * {@link #minFilter} or {@link #magFilter} is set to another filter than the default {@link TextureFilter#Nearest}, the pages
+         * use linear filtering, with mipmaps if {@link #genMipMaps} is set. Defaults to {@code null}.
+         */
+        public DistanceFieldFont.Type distanceField = null;
+
+        /**
+         * The distance in texels from the edge of a glyph to where the distance field is 0 or 1, as set in the tool that made the
+         * font. Defaults to 4.
+         */
+        public float distanceFieldSpread = 4;
     }
 }
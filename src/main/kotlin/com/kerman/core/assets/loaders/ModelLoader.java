@@ -5,6 +5,7 @@ import com.kerman.core.assets.AssetLoaderParameters;
 import com.kerman.core.assets.AssetManager;
 import com.kerman.core.files.FileHandle;
 import com.kerman.core.graphics.Texture;
+import com.kerman.core.graphics.glutils.UploadBudget;
 import com.kerman.core.graphics.k3d.Model;
 import com.kerman.core.graphics.k3d.model.data.ModelData;
 import com.kerman.core.graphics.k3d.model.data.ModelMaterial;
@@ -22,6 +23,12 @@ import java.util.Iterator;
 public abstract class ModelLoader<P extends ModelLoader.ModelParameters> extends AsynchronousAssetLoader<Model, P> {
     protected KermanArray<ObjectMap.Entry<String, ModelData>> items = new KermanArray<>();
     protected ModelParameters defaultParameters = new ModelParameters();
+    /**
+     * Models whose meshes are being uploaded within the {@link AssetManager#getUploadBudget() upload budget}. Only used on the
+     * rendering thread.
+     */
+    protected final ObjectMap<String, Model> uploads = new ObjectMap<>();
+
     public ModelLoader(FileHandleResolver resolver) {
         super(resolver);
     }
@@ -98,6 +105,28 @@ public abstract class ModelLoader<P extends ModelLoader.ModelParameters> extends
 
     @Override
     public Model loadSync(AssetManager manager, String fileName, FileHandle file, P parameters) {
+        Model result = uploads.get(fileName);
+        boolean uploading = result != null;
+        if (result == null) {
+            result = createModel(manager, fileName);
+            if (result == null) return null;
+        }
+
+        // upload the meshes within the budget, continued in the next update
+        UploadBudget budget = manager.getUploadBudget();
+        if (uploading || budget.isLimited()) {
+            for (int i = 0; i < result.meshes.size; i++) {
+                if (!result.meshes.get(i).upload(budget)) {
+                    uploads.put(fileName, result);
+                    return null;
+                }
+            }
+        }
+        uploads.remove(fileName);
+        return result;
+    }
+
+    private Model createModel(AssetManager manager, String fileName) {
         ModelData data = null;
         synchronized (items) {
             for (int i = 0; i < items.size; i++) {
@@ -121,6 +150,12 @@ public abstract class ModelLoader<P extends ModelLoader.ModelParameters> extends
         return result;
     }
 
+    @Override
+    public void unloadAsync(AssetManager manager, String fileName, FileHandle file, P parameters) {
+        Model model = uploads.remove(fileName);
+        if (model != null) model.dispose();
+    }
+
     static public class ModelParameters extends AssetLoaderParameters<Model> {
         public TextureLoader.TextureParameter textureParameter;
 
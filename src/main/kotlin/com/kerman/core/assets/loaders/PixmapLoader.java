@@ -3,17 +3,21 @@ package com.kerman.core.assets.loaders;
 import com.kerman.core.assets.AssetDescriptor;
 import com.kerman.core.assets.AssetLoaderParameters;
 import com.kerman.core.assets.AssetManager;
+import com.kerman.core.assets.DecodedAssetCache;
 import com.kerman.core.files.FileHandle;
 import com.kerman.core.graphics.Pixmap;
 import com.kerman.core.utils.KermanArray;
 
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * Info : This class was inspired by "com.badlogic.gdx.assets.loaders.PixmapLoader".
  * <p>
- * {@link AssetLoader} for {@link Pixmap} instances. The Pixmap is loaded asynchronously.
+ * {@link AssetLoader} for {@link Pixmap} instances. The Pixmap is loaded asynchronously, from the
+ * {@link AssetManager#getDecodedAssetCache() decoded asset cache} if there is one.
  */
 public class PixmapLoader extends AsynchronousAssetLoader<Pixmap, PixmapLoader.PixmapParameter> {
-    Pixmap pixmap;
+    final ConcurrentHashMap<String, Pixmap> pixmaps = new ConcurrentHashMap<>();
 
     public PixmapLoader(FileHandleResolver resolver) {
         super(resolver);
@@ -21,15 +25,18 @@ public class PixmapLoader extends AsynchronousAssetLoader<Pixmap, PixmapLoader.P
 
     @Override
     public void loadAsync(AssetManager manager, String fileName, FileHandle file, PixmapParameter parameter) {
-        pixmap = null;
-        pixmap = new Pixmap(file);
+        DecodedAssetCache cache = manager.getDecodedAssetCache();
+        pixmaps.put(fileName, cache != null ? cache.loadPixmap(file, null) : new Pixmap(file));
     }
 
     @Override
     public Pixmap loadSync(AssetManager manager, String fileName, FileHandle file, PixmapParameter parameter) {
-        Pixmap pixmap = this.pixmap;
-        this.pixmap = null;
-        return pixmap;
+        return pixmaps.remove(fileName);
+    }
+
+    @Override
+    public boolean isConcurrent() {
+        return true;
     }
 
     @Override
@@ -4,6 +4,7 @@ import com.kerman.core.Kerman;
 import com.kerman.core.assets.AssetDescriptor;
 import com.kerman.core.assets.AssetLoaderParameters;
 import com.kerman.core.assets.AssetManager;
+import com.kerman.core.assets.DecodedAssetCache;
 import com.kerman.core.audio.Sound;
 import com.kerman.core.files.FileHandle;
 import com.kerman.core.utils.KermanArray;
@@ -11,7 +12,8 @@ import com.kerman.core.utils.KermanArray;
 /**
  * Info : this class was inspired by "com.badlogic.gdx.assets.loaders.SoundLoader".
  * <p>
- * {@link AssetLoader} to load {@link Sound} instances.
+ * {@link AssetLoader} to load {@link Sound} instances. The samples are taken from the
+ * {@link AssetManager#getDecodedAssetCache() decoded asset cache} if there is one.
  */
 public class SoundLoader extends AsynchronousAssetLoader<Sound, SoundLoader.SoundParameter> {
 
@@ -31,7 +33,8 @@ public class SoundLoader extends AsynchronousAssetLoader<Sound, SoundLoader.Soun
 
     @Override
     public void loadAsync(AssetManager manager, String fileName, FileHandle file, SoundParameter parameter) {
-        sound = Kerman.audio.newSound(file);
+        DecodedAssetCache cache = manager.getDecodedAssetCache();
+        sound = cache != null ? cache.loadSound(file) : Kerman.audio.newSound(file);
     }
 
     @Override
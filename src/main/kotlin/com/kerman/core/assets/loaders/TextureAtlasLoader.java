@@ -27,12 +27,15 @@ public class TextureAtlasLoader extends SynchronousAssetLoader<TextureAtlas, Tex
 
     @Override
     public TextureAtlas load(AssetManager assetManager, String fileName, FileHandle file, TextureAtlasParameter parameter) {
-        for (Page page : data.getPages()) {
-            Texture texture = assetManager.get(page.textureFile.path().replaceAll("\\\\", "/"), Texture.class);
-            page.texture = texture;
+        boolean lazyPages = parameter != null && parameter.lazyPages;
+        if (!lazyPages) {
+            for (Page page : data.getPages()) {
+                Texture texture = assetManager.get(page.textureFile.path().replaceAll("\\\\", "/"), Texture.class);
+                page.texture = texture;
+            }
         }
 
-        TextureAtlas atlas = new TextureAtlas(data);
+        TextureAtlas atlas = new TextureAtlas(data, lazyPages);
         data = null;
         return atlas;
     }
@@ -48,6 +51,7 @@ public class TextureAtlasLoader extends SynchronousAssetLoader<TextureAtlas, Tex
         }
 
         KermanArray<AssetDescriptor> dependencies = new KermanArray();
+        if (parameter != null && parameter.lazyPages) return dependencies;
         for (Page page : data.getPages()) {
             TextureParameter params = new TextureParameter();
             params.format = page.format;
@@ -64,6 +68,11 @@ public class TextureAtlasLoader extends SynchronousAssetLoader<TextureAtlas, Tex
          * whether to flip the texture atlas vertically
          **/
         public boolean flip = false;
+        /**
+         * whether to load the texture of a page when one of its regions is first found, instead of loading all pages as
+         * dependencies. The atlas then owns the page textures, see {@link TextureAtlas#load(TextureAtlasData, boolean)}.
+         **/
+        public boolean lazyPages = false;
 
         public TextureAtlasParameter() {
         }
@@ -3,14 +3,21 @@ package com.kerman.core.assets.loaders;
 import com.kerman.core.assets.AssetDescriptor;
 import com.kerman.core.assets.AssetLoaderParameters;
 import com.kerman.core.assets.AssetManager;
+import com.kerman.core.assets.DecodedAssetCache;
 import com.kerman.core.files.FileHandle;
+import com.kerman.core.graphics.Pixmap;
 import com.kerman.core.graphics.Pixmap.Format;
 import com.kerman.core.graphics.Texture;
 import com.kerman.core.graphics.Texture.TextureFilter;
 import com.kerman.core.graphics.Texture.TextureWrap;
 import com.kerman.core.graphics.TextureData;
+import com.kerman.core.graphics.TextureUpload;
+import com.kerman.core.graphics.glutils.FileTextureData;
+import com.kerman.core.graphics.glutils.UploadBudget;
 import com.kerman.core.utils.KermanArray;
 
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * Info : This class was inspired by "com.badlogic.gdx.assets.loaders.TextureLoader".
  * <p>
@@ -18,9 +25,13 @@ import com.kerman.core.utils.KermanArray;
  * rendering thread, synchronously. Passing a {@link TextureParameter} to
  * {@link AssetManager#load(String, Class, AssetLoaderParameters)} allows one to specify parameters as can be passed to the
  * various Texture constructors, e.g. filtering, whether to generate mipmaps and so on.
+ * <p>
+ * If the {@link AssetManager#getUploadBudget() upload budget} is limited, new textures without mipmaps are uploaded in bands of
+ * rows over several calls to {@link #loadSync(AssetManager, String, FileHandle, TextureParameter) loadSync}. Decoded images are
+ * taken from the {@link AssetManager#getDecodedAssetCache() decoded asset cache} if there is one.
  */
 public class TextureLoader extends AsynchronousAssetLoader<Texture, TextureLoader.TextureParameter> {
-    TextureLoaderInfo info = new TextureLoaderInfo();
+    final ConcurrentHashMap<String, TextureLoaderInfo> infos = new ConcurrentHashMap<>();
 
     public TextureLoader(FileHandleResolver resolver) {
         super(resolver);
@@ -28,6 +39,7 @@ public class TextureLoader extends AsynchronousAssetLoader<Texture, TextureLoade
 
     @Override
     public void loadAsync(AssetManager manager, String fileName, FileHandle file, TextureParameter parameter) {
+        TextureLoaderInfo info = new TextureLoaderInfo();
         info.filename = fileName;
         if (parameter == null || parameter.textureData == null) {
             Format format = null;
@@ -40,23 +52,45 @@ public class TextureLoader extends AsynchronousAssetLoader<Texture, TextureLoade
                 info.texture = parameter.texture;
             }
 
-            info.data = TextureData.Factory.loadFromFile(file, format, genMipMaps);
+            DecodedAssetCache cache = manager.getDecodedAssetCache();
+            if (cache != null && isDecodedImage(file))
+                info.data = new FileTextureData(file, cache.loadPixmap(file, format), format, genMipMaps);
+            else
+                info.data = TextureData.Factory.loadFromFile(file, format, genMipMaps);
         } else {
             info.data = parameter.textureData;
             info.texture = parameter.texture;
         }
         if (!info.data.isPrepared()) info.data.prepare();
+        infos.put(fileName, info);
+    }
+
+    /**
+     * @return whether the file is an image decoded to a {@link Pixmap}, which can be cached
+     */
+    static private boolean isDecodedImage(FileHandle file) {
+        String name = file.name();
+        return !name.endsWith(".cim") && !name.endsWith(".etc1") && !name.endsWith(".ktx") && !name.endsWith(".zktx");
     }
 
     @Override
     public Texture loadSync(AssetManager manager, String fileName, FileHandle file, TextureParameter parameter) {
+        TextureLoaderInfo info = infos.get(fileName);
         if (info == null) return null;
         Texture texture = info.texture;
-        if (texture != null) {
+        UploadBudget budget = manager.getUploadBudget();
+        // an upload that was started goes on even if the budget was suspended meanwhile
+        if (texture == null && (info.upload != null || budget.isLimited() && TextureUpload.canUpload(info.data))) {
+            if (info.upload == null) info.upload = new TextureUpload(info.data);
+            // continued in the next update
+            if (!info.upload.upload(budget)) return null;
+            texture = info.upload.getTexture();
+        } else if (texture != null) {
             texture.load(info.data);
         } else {
             texture = new Texture(info.data);
         }
+        infos.remove(fileName);
         if (parameter != null) {
             texture.setFilter(parameter.minFilter, parameter.magFilter);
             texture.setWrap(parameter.wrapU, parameter.wrapV);
@@ -69,10 +103,22 @@ public class TextureLoader extends AsynchronousAssetLoader<Texture, TextureLoade
         return null;
     }
 
+    @Override
+    public void unloadAsync(AssetManager manager, String fileName, FileHandle file, TextureParameter parameter) {
+        TextureLoaderInfo info = infos.remove(fileName);
+        if (info != null && info.upload != null) info.upload.dispose();
+    }
+
+    @Override
+    public boolean isConcurrent() {
+        return true;
+    }
+
     static public class TextureLoaderInfo {
         String filename;
         TextureData data;
         Texture texture;
+        TextureUpload upload;
     }
 
     static public class TextureParameter extends AssetLoaderParameters<Texture> {
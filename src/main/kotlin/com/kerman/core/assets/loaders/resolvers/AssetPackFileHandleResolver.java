@@ -0,0 +1,53 @@
+package com.kerman.core.assets.loaders.resolvers;
+
+import com.kerman.core.assets.loaders.FileHandleResolver;
+import com.kerman.core.files.AssetPack;
+import com.kerman.core.files.FileHandle;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * {@link FileHandleResolver} that resolves file names to files in an {@link AssetPack}, backed by slices of the memory mapped
+ * pack. Resolving a file needs no file system lookup and reading it no copy, which makes loading many small files much faster than
+ * loading them as loose files. File names not in the pack are passed to the fallback resolver, if there is one.
+ */
+public class AssetPackFileHandleResolver implements FileHandleResolver {
+    private final AssetPack pack;
+    private @Nullable FileHandleResolver fallbackResolver;
+
+    /**
+     * Memory maps the given pack file, see {@link AssetPack#AssetPack(FileHandle)}.
+     */
+    public AssetPackFileHandleResolver(FileHandle packFile) {
+        this(new AssetPack(packFile), null);
+    }
+
+    public AssetPackFileHandleResolver(AssetPack pack) {
+        this(pack, null);
+    }
+
+    /**
+     * @param fallbackResolver resolves file names that are not in the pack, may be null
+     */
+    public AssetPackFileHandleResolver(AssetPack pack, @Nullable FileHandleResolver fallbackResolver) {
+        this.pack = pack;
+        this.fallbackResolver = fallbackResolver;
+    }
+
+    public AssetPack getPack() {
+        return pack;
+    }
+
+    public @Nullable FileHandleResolver getFallbackResolver() {
+        return fallbackResolver;
+    }
+
+    public void setFallbackResolver(@Nullable FileHandleResolver fallbackResolver) {
+        this.fallbackResolver = fallbackResolver;
+    }
+
+    @Override
+    public FileHandle resolve(String fileName) {
+        if (fallbackResolver != null && !pack.contains(fileName)) return fallbackResolver.resolve(fileName);
+        return pack.get(fileName);
+    }
+}
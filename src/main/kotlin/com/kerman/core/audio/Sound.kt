@@ -137,4 +137,9 @@ interface Sound : Disposable {
      * @param volume the volume in the range [0,1].
      */
     fun setPan(soundId: Long, pan: Float, volume: Float)
+
+    /**
+     * @return the size in bytes of the decoded PCM data held by this sound, or 0 if it is not known.
+     */
+    fun getPcmSize(): Long
 }
@@ -0,0 +1,15 @@
+package com.kerman.core.audio
+
+import com.kerman.core.Audio
+import java.nio.ByteBuffer
+
+/**
+ * The decoded PCM samples of a [Sound], as returned by [Audio.decodeSound]. Samples of more than 8 bits are stored in native
+ * byte order, channels are interleaved.
+ *
+ * @property pcm        the samples, from the buffer's position to its limit
+ * @property channels   the number of channels, 1 for mono and 2 for stereo
+ * @property bitDepth   the number of bits of each sample, usually 16
+ * @property sampleRate the number of samples per second and channel
+ */
+class SoundData(val pcm: ByteBuffer, val channels: Int, val bitDepth: Int, val sampleRate: Int)
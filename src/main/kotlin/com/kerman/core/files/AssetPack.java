@@ -0,0 +1,175 @@
+package com.kerman.core.files;
+
+import com.kerman.core.utils.KermanArray;
+import com.kerman.core.utils.KermanRuntimeException;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A single file holding many files, written by {@link AssetPacker}. The pack is memory mapped once and the files in it are
+ * served as {@link AssetPackFileHandle}s backed by slices of the mapped buffer, so opening a file in the pack needs no file
+ * system lookup and reading it needs no copy.
+ * <p>
+ * The pack starts with a header of the {@link #MAGIC}, the {@link #VERSION}, the number of files and the alignment of their
+ * data. The index follows, with the path, offset and length of every file sorted by path, so files are found with a binary
+ * search. The data of every file starts at a multiple of the alignment. All numbers are big endian.
+ */
+public class AssetPack {
+    static public final int MAGIC = 0x4B50414B; // "KPAK"
+    static public final int VERSION = 1;
+
+    private final FileHandle packFile;
+    private final ByteBuffer data;
+    private final String[] paths;
+    private final int[] offsets;
+    private final int[] lengths;
+
+    /**
+     * Memory maps the given pack file and reads its index.
+     *
+     * @throws KermanRuntimeException if the file can't be mapped or is not a pack.
+     */
+    public AssetPack(FileHandle packFile) {
+        this.packFile = packFile;
+        data = packFile.map();
+        ByteBuffer header = data.duplicate().order(ByteOrder.BIG_ENDIAN);
+        if (header.remaining() < 16 || header.getInt() != MAGIC)
+            throw new KermanRuntimeException("Not an asset pack: " + packFile);
+        int version = header.getInt();
+        if (version != VERSION) throw new KermanRuntimeException("Unsupported asset pack version " + version + ": " + packFile);
+        int count = header.getInt();
+        header.getInt(); // alignment, only needed to write the pack.
+
+        paths = new String[count];
+        offsets = new int[count];
+        lengths = new int[count];
+        byte[] bytes = new byte[64];
+        for (int i = 0; i < count; i++) {
+            int pathLength = header.getShort() & 0xffff;
+            if (bytes.length < pathLength) bytes = new byte[pathLength];
+            header.get(bytes, 0, pathLength);
+            paths[i] = new String(bytes, 0, pathLength, StandardCharsets.UTF_8);
+            offsets[i] = header.getInt();
+            lengths[i] = header.getInt();
+            if (offsets[i] < 0 || lengths[i] < 0 || offsets[i] + lengths[i] > data.capacity())
+                throw new KermanRuntimeException("Corrupt asset pack entry " + paths[i] + ": " + packFile);
+        }
+    }
+
+    /**
+     * @return the pack file this pack was read from
+     */
+    public FileHandle getPackFile() {
+        return packFile;
+    }
+
+    /**
+     * @return the number of files in the pack
+     */
+    public int size() {
+        return paths.length;
+    }
+
+    /**
+     * @return whether the pack contains a file with the given path
+     */
+    public boolean contains(String path) {
+        return indexOf(normalize(path)) >= 0;
+    }
+
+    /**
+     * Returns a handle to the file or directory with the given path. The handle of a path not in the pack doesn't
+     * {@link FileHandle#exists() exist}. Separators may be '/' or '\', and "." and ".." are resolved.
+     */
+    public AssetPackFileHandle get(String path) {
+        path = normalize(path);
+        return new AssetPackFileHandle(this, path, indexOf(path));
+    }
+
+    /**
+     * @return the paths of all files in the pack, sorted
+     */
+    public KermanArray<String> getPaths() {
+        return new KermanArray<>(paths);
+    }
+
+    int indexOf(String path) {
+        int index = Arrays.binarySearch(paths, path);
+        return index >= 0 ? index : -1;
+    }
+
+    int getLength(int index) {
+        return lengths[index];
+    }
+
+    /**
+     * @return the data of the file at the given index of the index, a slice of the mapped pack in native order
+     */
+    ByteBuffer slice(int index) {
+        ByteBuffer slice = data.duplicate();
+        ((Buffer) slice).limit(offsets[index] + lengths[index]);
+        ((Buffer) slice).position(offsets[index]);
+        return slice.slice().order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * @return whether any file in the pack is in the directory with the given normalized path
+     */
+    boolean isDirectory(String path) {
+        if (path.length() == 0) return paths.length > 0;
+        String prefix = path + '/';
+        int index = -Arrays.binarySearch(paths, prefix) - 1;
+        return index >= 0 && index < paths.length && paths[index].startsWith(prefix);
+    }
+
+    /**
+     * @return the paths of the files and directories directly in the directory with the given normalized path
+     */
+    KermanArray<String> list(String path) {
+        KermanArray<String> children = new KermanArray<>();
+        String prefix = path.length() == 0 ? "" : path + '/';
+        int index = Arrays.binarySearch(paths, prefix);
+        if (index < 0) index = -index - 1;
+        for (; index < paths.length && paths[index].startsWith(prefix); index++) {
+            String child = paths[index];
+            int end = child.indexOf('/', prefix.length());
+            if (end != -1) child = child.substring(0, end);
+            if (children.size == 0 || !children.peek().equals(child)) children.add(child);
+        }
+        return children;
+    }
+
+    /**
+     * @return the path with '/' separators, without "." and ".." and without leading or trailing separators
+     */
+    static public String normalize(String path) {
+        path = path.replace('\\', '/');
+        if (path.indexOf("./") == -1 && !path.endsWith(".") && !path.startsWith("/") && !path.endsWith("/")
+                && path.indexOf("//") == -1)
+            return path;
+        KermanArray<String> names = new KermanArray<>();
+        for (String name : path.split("/")) {
+            if (name.length() == 0 || name.equals(".")) continue;
+            if (name.equals("..")) {
+                if (names.size == 0) throw new KermanRuntimeException("Path leaves the asset pack: " + path);
+                names.pop();
+            } else
+                names.add(name);
+        }
+        StringBuilder buffer = new StringBuilder(path.length());
+        for (int i = 0; i < names.size; i++) {
+            if (i > 0) buffer.append('/');
+            buffer.append(names.get(i));
+        }
+        return buffer.toString();
+    }
+
+    @Override
+    public String toString() {
+        return packFile.toString();
+    }
+}
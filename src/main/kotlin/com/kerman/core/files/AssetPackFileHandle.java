@@ -0,0 +1,201 @@
+package com.kerman.core.files;
+
+import com.kerman.core.utils.KermanArray;
+import com.kerman.core.utils.KermanRuntimeException;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * A file or directory in an {@link AssetPack}. Reading the file reads from a slice of the mapped pack, and {@link #map()} returns
+ * that slice without copying. Files in a pack can't be written, moved or deleted.
+ */
+public class AssetPackFileHandle extends FileHandle {
+    private final AssetPack pack;
+    private final String path;
+    private final int index;
+
+    AssetPackFileHandle(AssetPack pack, String path, int index) {
+        super(new File(path), pack.getPackFile().type());
+        this.pack = pack;
+        this.path = path;
+        this.index = index;
+    }
+
+    public AssetPack getPack() {
+        return pack;
+    }
+
+    @Override
+    public String path() {
+        return path;
+    }
+
+    @Override
+    public InputStream read() {
+        return new ByteBufferInputStream(slice());
+    }
+
+    @Override
+    public byte[] readBytes() {
+        ByteBuffer slice = slice();
+        byte[] bytes = new byte[slice.remaining()];
+        slice.get(bytes);
+        return bytes;
+    }
+
+    @Override
+    public int readBytes(byte[] bytes, int offset, int size) {
+        ByteBuffer slice = slice();
+        size = Math.min(size, slice.remaining());
+        slice.get(bytes, offset, size);
+        return size;
+    }
+
+    /**
+     * Returns the data of the file, a read only slice of the mapped pack.
+     *
+     * @throws KermanRuntimeException if the file isn't in the pack or the mode is not {@link MapMode#READ_ONLY}.
+     */
+    @Override
+    public ByteBuffer map(MapMode mode) {
+        if (mode != MapMode.READ_ONLY) throw new KermanRuntimeException("Cannot map a file in an asset pack for writing: " + this);
+        return slice();
+    }
+
+    private ByteBuffer slice() {
+        if (index == -1) throw new KermanRuntimeException("File not found: " + path + " (" + pack + ")");
+        return pack.slice(index);
+    }
+
+    @Override
+    public OutputStream write(boolean append) {
+        throw new KermanRuntimeException("Cannot write to a file in an asset pack: " + this);
+    }
+
+    @Override
+    public FileHandle[] list() {
+        KermanArray<String> children = pack.list(path);
+        FileHandle[] handles = new FileHandle[children.size];
+        for (int i = 0; i < children.size; i++)
+            handles[i] = pack.get(children.get(i));
+        return handles;
+    }
+
+    @Override
+    public boolean isDirectory() {
+        return index == -1 && pack.isDirectory(path);
+    }
+
+    @Override
+    public FileHandle child(String name) {
+        return pack.get(path.length() == 0 ? name : path + '/' + name);
+    }
+
+    @Override
+    public FileHandle sibling(String name) {
+        if (path.length() == 0) throw new KermanRuntimeException("Cannot get the sibling of the root.");
+        return parent().child(name);
+    }
+
+    @Override
+    public FileHandle parent() {
+        int end = path.lastIndexOf('/');
+        return pack.get(end == -1 ? "" : path.substring(0, end));
+    }
+
+    @Override
+    public void mkdirs() {
+        throw new KermanRuntimeException("Cannot mkdirs in an asset pack: " + this);
+    }
+
+    @Override
+    public boolean exists() {
+        return index != -1 || pack.isDirectory(path);
+    }
+
+    @Override
+    public boolean delete() {
+        throw new KermanRuntimeException("Cannot delete a file in an asset pack: " + this);
+    }
+
+    @Override
+    public boolean deleteDirectory() {
+        throw new KermanRuntimeException("Cannot delete a file in an asset pack: " + this);
+    }
+
+    @Override
+    public void emptyDirectory(boolean preserveTree) {
+        throw new KermanRuntimeException("Cannot delete a file in an asset pack: " + this);
+    }
+
+    @Override
+    public void moveTo(FileHandle dest) {
+        throw new KermanRuntimeException("Cannot move a file in an asset pack: " + this);
+    }
+
+    @Override
+    public long length() {
+        return index == -1 ? 0 : pack.getLength(index);
+    }
+
+    @Override
+    public long lastModified() {
+        return pack.getPackFile().lastModified();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof AssetPackFileHandle)) return false;
+        AssetPackFileHandle other = (AssetPackFileHandle) obj;
+        return pack == other.pack && path.equals(other.path);
+    }
+
+    @Override
+    public int hashCode() {
+        return pack.hashCode() * 37 + path.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+
+    static private class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) return 0;
+            if (!buffer.hasRemaining()) return -1;
+            length = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, length);
+            return length;
+        }
+
+        @Override
+        public long skip(long n) {
+            int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            ((Buffer) buffer).position(buffer.position() + count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.kerman.core.files;
+
+import com.kerman.core.utils.KermanArray;
+import com.kerman.core.utils.KermanRuntimeException;
+import com.kerman.core.utils.StreamUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes all files in a directory into a single {@link AssetPack}. Run from the command line with:
+ * <pre>
+ * AssetPacker &lt;input directory&gt; &lt;pack file&gt; [-benchmark]
+ * </pre>
+ * With -benchmark the time to open and read every file is compared between the loose files and the pack.
+ */
+public class AssetPacker {
+    static public final int DEFAULT_ALIGNMENT = 16;
+
+    /**
+     * Packs all files in the directory and its subdirectories with {@link #DEFAULT_ALIGNMENT}.
+     *
+     * @return the paths of the packed files, relative to the directory
+     */
+    static public KermanArray<String> pack(FileHandle inputDir, FileHandle packFile) {
+        return pack(inputDir, packFile, DEFAULT_ALIGNMENT);
+    }
+
+    /**
+     * Packs all files in the directory and its subdirectories. The data of every file starts at a multiple of the alignment.
+     *
+     * @return the paths of the packed files, relative to the directory
+     */
+    static public KermanArray<String> pack(FileHandle inputDir, FileHandle packFile, int alignment) {
+        if (!inputDir.isDirectory()) throw new KermanRuntimeException("Not a directory: " + inputDir);
+        if (alignment < 1) throw new IllegalArgumentException("alignment must be > 0: " + alignment);
+        KermanArray<String> paths = new KermanArray<>(String.class);
+        collect(inputDir, "", paths);
+        paths.sort();
+
+        int count = paths.size;
+        byte[][] pathBytes = new byte[count][];
+        int[] lengths = new int[count];
+        long indexEnd = 16;
+        for (int i = 0; i < count; i++) {
+            pathBytes[i] = paths.get(i).getBytes(StandardCharsets.UTF_8);
+            if (pathBytes[i].length > 0xffff) throw new KermanRuntimeException("Path too long: " + paths.get(i));
+            long length = inputDir.child(paths.get(i)).length();
+            if (length > Integer.MAX_VALUE) throw new KermanRuntimeException("File too large: " + paths.get(i));
+            lengths[i] = (int) length;
+            indexEnd += 2 + pathBytes[i].length + 8;
+        }
+
+        int[] offsets = new int[count];
+        long offset = indexEnd;
+        for (int i = 0; i < count; i++) {
+            offset = align(offset, alignment);
+            if (offset + lengths[i] > Integer.MAX_VALUE) throw new KermanRuntimeException("Pack larger than 2GB: " + packFile);
+            offsets[i] = (int) offset;
+            offset += lengths[i];
+        }
+
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(packFile.write(false), 64 * 1024));
+        try {
+            output.writeInt(AssetPack.MAGIC);
+            output.writeInt(AssetPack.VERSION);
+            output.writeInt(count);
+            output.writeInt(alignment);
+            for (int i = 0; i < count; i++) {
+                output.writeShort(pathBytes[i].length);
+                output.write(pathBytes[i]);
+                output.writeInt(offsets[i]);
+                output.writeInt(lengths[i]);
+            }
+            byte[] buffer = new byte[64 * 1024];
+            long position = indexEnd;
+            for (int i = 0; i < count; i++) {
+                for (; position < offsets[i]; position++)
+                    output.write(0);
+                InputStream input = inputDir.child(paths.get(i)).read();
+                try {
+                    int remaining = lengths[i];
+                    while (remaining > 0) {
+                        int read = input.read(buffer, 0, Math.min(buffer.length, remaining));
+                        if (read == -1) throw new KermanRuntimeException("File changed while packing: " + paths.get(i));
+                        output.write(buffer, 0, read);
+                        remaining -= read;
+                    }
+                } finally {
+                    StreamUtils.closeQuietly(input);
+                }
+                position += lengths[i];
+            }
+        } catch (IOException ex) {
+            throw new KermanRuntimeException("Error writing asset pack: " + packFile, ex);
+        } finally {
+            StreamUtils.closeQuietly(output);
+        }
+        return paths;
+    }
+
+    static private void collect(FileHandle dir, String prefix, KermanArray<String> paths) {
+        for (FileHandle child : dir.list()) {
+            String path = prefix + child.name();
+            if (child.isDirectory())
+                collect(child, path + '/', paths);
+            else
+                paths.add(path);
+        }
+    }
+
+    static private long align(long offset, int alignment) {
+        long remainder = offset % alignment;
+        return remainder == 0 ? offset : offset + alignment - remainder;
+    }
+
+    /**
+     * Compares opening and reading every packed file from the loose files and from the pack, best of several rounds.
+     */
+    static void benchmark(FileHandle inputDir, FileHandle packFile, KermanArray<String> paths) {
+        int rounds = 10;
+        long loose = Long.MAX_VALUE, packed = Long.MAX_VALUE, mapped = Long.MAX_VALUE;
+        long bytes = 0;
+        for (int round = 0; round < rounds; round++) {
+            long start = System.nanoTime();
+            bytes = 0;
+            for (int i = 0; i < paths.size; i++)
+                bytes += inputDir.child(paths.get(i)).readBytes().length;
+            loose = Math.min(loose, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            AssetPack pack = new AssetPack(packFile);
+            for (int i = 0; i < paths.size; i++)
+                pack.get(paths.get(i)).readBytes();
+            packed = Math.min(packed, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            pack = new AssetPack(packFile);
+            for (int i = 0; i < paths.size; i++)
+                pack.get(paths.get(i)).map();
+            mapped = Math.min(mapped, System.nanoTime() - start);
+        }
+        System.out.println(paths.size + " files, " + bytes + " bytes, best of " + rounds + " rounds:");
+        System.out.println("  loose files, readBytes: " + loose / 1000 + " us");
+        System.out.println("  asset pack, readBytes:  " + packed / 1000 + " us");
+        System.out.println("  asset pack, map:        " + mapped / 1000 + " us");
+    }
+
+    static public void main(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Usage: AssetPacker <input directory> <pack file> [-benchmark]");
+            System.exit(1);
+        }
+        FileHandle inputDir = new FileHandle(new File(args[0]));
+        FileHandle packFile = new FileHandle(new File(args[1]));
+        KermanArray<String> paths = pack(inputDir, packFile);
+        System.out.println("Packed " + paths.size + " files into " + packFile + " (" + packFile.length() + " bytes).");
+        if (args.length > 2 && args[2].equals("-benchmark")) benchmark(inputDir, packFile, paths);
+    }
+}
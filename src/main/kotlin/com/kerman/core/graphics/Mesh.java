@@ -3,6 +3,7 @@ package com.kerman.core.graphics;
 import com.kerman.core.Application;
 import com.kerman.core.Kerman;
 import com.kerman.core.graphics.VertexAttributes.Usage;
+import com.kerman.core.graphics.glutils.IncrementalUpload;
 import com.kerman.core.graphics.glutils.IndexArray;
 import com.kerman.core.graphics.glutils.IndexBufferObject;
 import com.kerman.core.graphics.glutils.IndexBufferObjectSubData;
@@ -10,8 +11,10 @@ import com.kerman.core.graphics.glutils.IndexData;
 import com.kerman.core.graphics.glutils.InstanceBufferObject;
 import com.kerman.core.graphics.glutils.InstanceData;
 import com.kerman.core.graphics.glutils.ShaderProgram;
+import com.kerman.core.graphics.glutils.UploadBudget;
 import com.kerman.core.graphics.glutils.VertexArray;
 import com.kerman.core.graphics.glutils.VertexBufferObject;
+import com.kerman.core.graphics.glutils.VertexBufferObjectStreaming;
 import com.kerman.core.graphics.glutils.VertexBufferObjectSubData;
 import com.kerman.core.graphics.glutils.VertexBufferObjectWithVAO;
 import com.kerman.core.graphics.glutils.VertexData;
@@ -165,6 +168,11 @@ public class Mesh implements Disposable {
                 indices = new IndexBufferObjectSubData(isStatic, maxIndices);
                 isVertexArray = false;
                 break;
+            case VertexBufferObjectStreaming:
+                vertices = new VertexBufferObjectStreaming(maxVertices, VertexBufferObjectStreaming.DEFAULT_REGIONS, attributes);
+                indices = new IndexBufferObjectSubData(isStatic, maxIndices);
+                isVertexArray = false;
+                break;
             case VertexArray:
             default:
                 vertices = new VertexArray(maxVertices, attributes);
@@ -675,6 +683,18 @@ public class Mesh implements Disposable {
         this.autoBind = autoBind;
     }
 
+    /**
+     * Uploads the pending vertex and index data within the given budget, instead of all at once the next time the mesh is bound.
+     * Call this on the rendering thread until it returns true, without modifying the mesh in between. Buffers that can't be
+     * uploaded in parts are left to be uploaded when the mesh is bound.
+     *
+     * @return true if no data is left to upload.
+     */
+    public boolean upload(UploadBudget budget) {
+        if (vertices instanceof IncrementalUpload && !((IncrementalUpload) vertices).upload(budget)) return false;
+        return !(indices instanceof IncrementalUpload) || ((IncrementalUpload) indices).upload(budget);
+    }
+
     /**
      * Binds the underlying {@link VertexBufferObject} and {@link IndexBufferObject} if indices where given. Use this with OpenGL
      * ES 2.0 and when auto-bind is disabled.
@@ -1413,6 +1433,6 @@ public class Mesh implements Disposable {
     }
 
     public enum VertexDataType {
-        VertexArray, VertexBufferObject, VertexBufferObjectSubData, VertexBufferObjectWithVAO
+        VertexArray, VertexBufferObject, VertexBufferObjectSubData, VertexBufferObjectWithVAO, VertexBufferObjectStreaming
     }
 }
@@ -2,6 +2,7 @@ package com.kerman.core.graphics;
 
 import com.kerman.core.Kerman;
 import com.kerman.core.Net;
+import com.kerman.core.files.AssetPackFileHandle;
 import com.kerman.core.files.FileHandle;
 import com.kerman.core.graphics.k2d.Kerman2DPixmap;
 import com.kerman.core.utils.BufferUtils;
@@ -97,6 +98,12 @@ public class Pixmap implements Disposable {
      */
     public Pixmap(FileHandle file) {
         try {
+            if (file instanceof AssetPackFileHandle) {
+                // decode straight from the mapped pack instead of copying the file.
+                ByteBuffer encoded = file.map();
+                pixmap = new Kerman2DPixmap(encoded, 0, encoded.remaining(), 0);
+                return;
+            }
             byte[] bytes = file.readBytes();
             pixmap = new Kerman2DPixmap(bytes, 0, bytes.length, 0);
         } catch (Exception e) {
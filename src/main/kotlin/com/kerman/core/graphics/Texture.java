@@ -81,6 +81,25 @@ public class Texture extends GLTexture {
         if (data.isManaged()) addManagedTexture(Kerman.app, this);
     }
 
+    /**
+     * Creates a texture for the data and allocates storage for the pixmap without uploading its pixels, which is left to
+     * {@link TextureUpload}.
+     */
+    Texture(TextureData data, Pixmap pixmap) {
+        super(GLES20.GL_TEXTURE_2D, Kerman.gl.glGenTexture());
+        this.data = data;
+
+        bind();
+        Kerman.gl.glTexImage2D(glTarget, 0, pixmap.getGLInternalFormat(), pixmap.getWidth(), pixmap.getHeight(), 0,
+                pixmap.getGLFormat(), pixmap.getGLType(), null);
+
+        unsafeSetFilter(minFilter, magFilter, true);
+        unsafeSetWrap(uWrap, vWrap, true);
+        unsafeSetAnisotropicFilter(anisotropicFilterLevel, true);
+        Kerman.gl.glBindTexture(glTarget, 0);
+        if (data.isManaged()) addManagedTexture(Kerman.app, this);
+    }
+
     private static void addManagedTexture(Application app, Texture texture) {
         KermanArray<Texture> managedTextureArray = managedTextures.get(app);
         if (managedTextureArray == null) managedTextureArray = new KermanArray<>();
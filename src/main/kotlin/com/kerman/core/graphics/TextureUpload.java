@@ -0,0 +1,100 @@
+package com.kerman.core.graphics;
+
+import com.kerman.core.Kerman;
+import com.kerman.core.graphics.Pixmap.Blending;
+import com.kerman.core.graphics.TextureData.TextureDataType;
+import com.kerman.core.graphics.glutils.IncrementalUpload;
+import com.kerman.core.graphics.glutils.UploadBudget;
+import com.kerman.core.graphics.k2d.Kerman2DPixmap;
+import com.kerman.core.utils.Disposable;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * Creates a {@link Texture} from {@link TextureData} and uploads its pixels in bands of rows via glTexSubImage2D, so that a large
+ * texture can be uploaded over several frames within an {@link UploadBudget}. Only pixmap based data without mipmaps can be
+ * uploaded this way, see {@link #canUpload(TextureData)}.
+ * <p>
+ * The texture returned by {@link #getTexture()} is complete once {@link #upload(UploadBudget)} returned true. If the upload is
+ * abandoned before that, {@link #dispose()} releases the texture and the pixmap.
+ */
+public class TextureUpload implements IncrementalUpload, Disposable {
+    private final TextureData data;
+    private Texture texture;
+    private Pixmap pixmap;
+    private boolean disposePixmap;
+    private int rowBytes;
+    private int row;
+
+    public TextureUpload(TextureData data) {
+        if (!canUpload(data)) throw new IllegalArgumentException("TextureData can't be uploaded in parts: " + data);
+        this.data = data;
+    }
+
+    /**
+     * @return whether the data holds a pixmap without mipmaps, which can be uploaded in bands of rows
+     */
+    static public boolean canUpload(TextureData data) {
+        return data.getType() == TextureDataType.Pixmap && !data.useMipMaps();
+    }
+
+    @Override
+    public boolean upload(UploadBudget budget) {
+        if (texture == null) begin();
+        if (pixmap == null) return true;
+
+        int height = pixmap.getHeight();
+        int rows = budget.claim(rowBytes, height - row);
+        if (rows > 0) {
+            ByteBuffer pixels = pixmap.getPixels().duplicate();
+            ((Buffer) pixels).limit((row + rows) * rowBytes);
+            ((Buffer) pixels).position(row * rowBytes);
+            texture.bind();
+            Kerman.gl.glPixelStorei(GLES20.GL_UNPACK_ALIGNMENT, 1);
+            Kerman.gl.glTexSubImage2D(texture.glTarget, 0, 0, row, pixmap.getWidth(), rows, pixmap.getGLFormat(),
+                    pixmap.getGLType(), pixels);
+            Kerman.gl.glBindTexture(texture.glTarget, 0);
+            row += rows;
+        }
+        if (row < height) return false;
+
+        if (disposePixmap) pixmap.dispose();
+        pixmap = null;
+        return true;
+    }
+
+    private void begin() {
+        if (!data.isPrepared()) data.prepare();
+        pixmap = data.consumePixmap();
+        disposePixmap = data.disposePixmap();
+        if (data.getFormat() != pixmap.getFormat()) {
+            Pixmap tmp = new Pixmap(pixmap.getWidth(), pixmap.getHeight(), data.getFormat());
+            tmp.setBlending(Blending.None);
+            tmp.drawPixmap(pixmap, 0, 0, 0, 0, pixmap.getWidth(), pixmap.getHeight());
+            if (disposePixmap) pixmap.dispose();
+            pixmap = tmp;
+            disposePixmap = true;
+        }
+        rowBytes = pixmap.getWidth() * Kerman2DPixmap.getBytesPerPixel(Pixmap.Format.toKerman2DPixmapFormat(pixmap.getFormat()));
+        texture = new Texture(data, pixmap);
+    }
+
+    /**
+     * @return the texture, complete once {@link #upload(UploadBudget)} returned true, or null if uploading hasn't started
+     */
+    public Texture getTexture() {
+        return texture;
+    }
+
+    /**
+     * Releases the texture and the pixmap if the upload didn't finish.
+     */
+    @Override
+    public void dispose() {
+        if (pixmap == null) return;
+        if (disposePixmap) pixmap.dispose();
+        pixmap = null;
+        texture.dispose();
+    }
+}
@@ -6,6 +6,7 @@ import com.kerman.core.graphics.Pixmap.Format;
 import com.kerman.core.math.MathUtils;
 import com.kerman.core.utils.BufferUtils;
 import com.kerman.core.utils.Disposable;
+import com.kerman.core.utils.GdxNativesLoader;
 import com.kerman.core.utils.KermanRuntimeException;
 import com.kerman.core.utils.StreamUtils;
 
@@ -21,14 +22,38 @@ import java.util.zip.GZIPOutputStream;
  * Info : This class was inspired by "com.badlogic.gdx.graphics.glutils.ETC1".
  * <p>
  * Class for encoding and decoding ETC1 compressed images. Also provides methods to add a PKM header.
+ * <p>
+ * When the gdx native library isn't available, all methods fall back to the pure Java implementations in {@link JavaETC1}.
  */
 public class ETC1 {
+    /**
+     * Whether the JNI methods of this class can be used, see {@link #isNative()}.
+     */
+    static final boolean nativesAvailable = probeNatives();
     /**
      * The PKM header size in bytes
      **/
     public static int PKM_HEADER_SIZE = 16;
     public static int ETC1_RGB8_OES = 0x00008d64;
 
+    private static boolean probeNatives() {
+        if (!GdxNativesLoader.tryLoad()) return false;
+        try {
+            // The library may load but not export the symbols of this class, only a call tells for sure.
+            getCompressedDataSizeJni(4, 4);
+            return true;
+        } catch (UnsatisfiedLinkError e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return whether the JNI implementations are used, false if the pure Java fallback is active.
+     */
+    public static boolean isNative() {
+        return nativesAvailable;
+    }
+
     private static int getPixelSize(Format format) {
         if (format == Format.RGB565) return 2;
         if (format == Format.RGB888) return 3;
@@ -43,8 +68,7 @@ public class ETC1 {
      */
     public static ETC1Data encodeImage(Pixmap pixmap) {
         int pixelSize = getPixelSize(pixmap.getFormat());
-        ByteBuffer compressedData = encodeImage(pixmap.getPixels(), 0, pixmap.getWidth(), pixmap.getHeight(), pixelSize);
-        BufferUtils.newUnsafeByteBuffer(compressedData);
+        ByteBuffer compressedData = encodeImage(pixmap.getPixels(), 0, pixmap.getWidth(), pixmap.getHeight(), pixelSize, false);
         return new ETC1Data(pixmap.getWidth(), pixmap.getHeight(), compressedData, 0);
     }
 
@@ -57,8 +81,7 @@ public class ETC1 {
      */
     public static ETC1Data encodeImagePKM(Pixmap pixmap) {
         int pixelSize = getPixelSize(pixmap.getFormat());
-        ByteBuffer compressedData = encodeImagePKM(pixmap.getPixels(), 0, pixmap.getWidth(), pixmap.getHeight(), pixelSize);
-        BufferUtils.newUnsafeByteBuffer(compressedData);
+        ByteBuffer compressedData = encodeImage(pixmap.getPixels(), 0, pixmap.getWidth(), pixmap.getHeight(), pixelSize, true);
         return new ETC1Data(pixmap.getWidth(), pixmap.getHeight(), compressedData, 16);
     }
 
@@ -87,24 +110,39 @@ public class ETC1 {
 
         int pixelSize = getPixelSize(format);
         Pixmap pixmap = new Pixmap(width, height, format);
-        decodeImage(etc1Data.compressedData, dataOffset, pixmap.getPixels(), 0, width, height, pixelSize);
+        if (nativesAvailable)
+            decodeImageJni(etc1Data.compressedData, dataOffset, pixmap.getPixels(), 0, width, height, pixelSize);
+        else
+            JavaETC1.decodeImage(etc1Data.compressedData, dataOffset, pixmap.getPixels(), 0, width, height, pixelSize);
         return pixmap;
     }
 
+    /**
+     * Encodes the image data to a new buffer registered with {@link BufferUtils#newUnsafeByteBuffer(ByteBuffer)}, optionally
+     * with a PKM header in front of the compressed image data.
+     */
+    private static ByteBuffer encodeImage(ByteBuffer imageData, int offset, int width, int height, int pixelSize,
+                                          boolean pkmHeader) {
+        if (nativesAvailable) {
+            ByteBuffer compressedData = pkmHeader ? encodeImagePKMJni(imageData, offset, width, height, pixelSize)
+                    : encodeImageJni(imageData, offset, width, height, pixelSize);
+            return BufferUtils.newUnsafeByteBuffer(compressedData);
+        }
+        int headerSize = pkmHeader ? PKM_HEADER_SIZE : 0;
+        ByteBuffer compressedData = BufferUtils.newUnsafeByteBuffer(headerSize + JavaETC1.getCompressedDataSize(width, height));
+        if (pkmHeader) JavaETC1.formatHeader(compressedData, 0, width, height);
+        JavaETC1.encodeImage(imageData, offset, width, height, pixelSize, compressedData, headerSize);
+        return compressedData;
+    }
+
     /**
      * @param width  the width in pixels
      * @param height the height in pixels
      * @return the number of bytes needed to store the compressed data
      */
-    public static native int getCompressedDataSize(int width, int height); /*
-		return etc1_get_encoded_data_size(width, height);
-	*/
-
-    // @off
-	/*JNI
-	#include <etc1/etc1_utils.h>
-	#include <stdlib.h>
-	 */
+    public static int getCompressedDataSize(int width, int height) {
+        return nativesAvailable ? getCompressedDataSizeJni(width, height) : JavaETC1.getCompressedDataSize(width, height);
+    }
 
     /**
      * Writes a PKM header to the {@link ByteBuffer}. Does not modify the position or limit of the ByteBuffer.
@@ -114,34 +152,63 @@ public class ETC1 {
      * @param width  the width in pixels
      * @param height the height in pixels
      */
-    public static native void formatHeader(ByteBuffer header, int offset, int width, int height); /*
-		etc1_pkm_format_header((etc1_byte*)header + offset, width, height);
-	*/
+    public static void formatHeader(ByteBuffer header, int offset, int width, int height) {
+        if (nativesAvailable)
+            formatHeaderJni(header, offset, width, height);
+        else
+            JavaETC1.formatHeader(header, offset, width, height);
+    }
 
     /**
      * @param header direct native order {@link ByteBuffer} holding the PKM header
      * @param offset the offset in bytes to the PKM header from the ByteBuffer's start
      * @return the width stored in the PKM header
      */
-    static native int getWidthPKM(ByteBuffer header, int offset); /*
-		return etc1_pkm_get_width((etc1_byte*)header + offset);
-	*/
+    static int getWidthPKM(ByteBuffer header, int offset) {
+        return nativesAvailable ? getWidthPKMJni(header, offset) : JavaETC1.getWidthPKM(header, offset);
+    }
 
     /**
      * @param header direct native order {@link ByteBuffer} holding the PKM header
      * @param offset the offset in bytes to the PKM header from the ByteBuffer's start
      * @return the height stored in the PKM header
      */
-    static native int getHeightPKM(ByteBuffer header, int offset); /*
-		return etc1_pkm_get_height((etc1_byte*)header + offset);
-	*/
+    static int getHeightPKM(ByteBuffer header, int offset) {
+        return nativesAvailable ? getHeightPKMJni(header, offset) : JavaETC1.getHeightPKM(header, offset);
+    }
 
     /**
      * @param header direct native order {@link ByteBuffer} holding the PKM header
      * @param offset the offset in bytes to the PKM header from the ByteBuffer's start
-     * @return the width stored in the PKM header
+     * @return whether the PKM header is valid
      */
-    static native boolean isValidPKM(ByteBuffer header, int offset); /*
+    static boolean isValidPKM(ByteBuffer header, int offset) {
+        return nativesAvailable ? isValidPKMJni(header, offset) : JavaETC1.isValidPKM(header, offset);
+    }
+
+    // @off
+	/*JNI
+	#include <etc1/etc1_utils.h>
+	#include <stdlib.h>
+	 */
+
+    private static native int getCompressedDataSizeJni(int width, int height); /*
+		return etc1_get_encoded_data_size(width, height);
+	*/
+
+    private static native void formatHeaderJni(ByteBuffer header, int offset, int width, int height); /*
+		etc1_pkm_format_header((etc1_byte*)header + offset, width, height);
+	*/
+
+    private static native int getWidthPKMJni(ByteBuffer header, int offset); /*
+		return etc1_pkm_get_width((etc1_byte*)header + offset);
+	*/
+
+    private static native int getHeightPKMJni(ByteBuffer header, int offset); /*
+		return etc1_pkm_get_height((etc1_byte*)header + offset);
+	*/
+
+    private static native boolean isValidPKMJni(ByteBuffer header, int offset); /*
 		return etc1_pkm_is_valid((etc1_byte*)header + offset) != 0?true:false;
 	*/
 
@@ -157,8 +224,8 @@ public class ETC1 {
      * @param height         the height in pixels
      * @param pixelSize      the pixel size, either 2 (RBG565) or 3 (RGB888)
      */
-    private static native void decodeImage(ByteBuffer compressedData, int offset, ByteBuffer decodedData, int offsetDec,
-                                           int width, int height, int pixelSize); /*
+    private static native void decodeImageJni(ByteBuffer compressedData, int offset, ByteBuffer decodedData, int offsetDec,
+                                              int width, int height, int pixelSize); /*
 		etc1_decode_image((etc1_byte*)compressedData + offset, (etc1_byte*)decodedData + offsetDec, width, height, pixelSize, width * pixelSize);
 	*/
 
@@ -172,7 +239,7 @@ public class ETC1 {
      * @param pixelSize the pixel size, either 2 (RGB565) or 3 (RGB888)
      * @return a new direct native order ByteBuffer containing the compressed image data
      */
-    private static native ByteBuffer encodeImage(ByteBuffer imageData, int offset, int width, int height, int pixelSize); /*
+    private static native ByteBuffer encodeImageJni(ByteBuffer imageData, int offset, int width, int height, int pixelSize); /*
 		int compressedSize = etc1_get_encoded_data_size(width, height);
 		etc1_byte* compressedData = (etc1_byte*)malloc(compressedSize);
 		etc1_encode_image((etc1_byte*)imageData + offset, width, height, pixelSize, width * pixelSize, compressedData);
@@ -189,7 +256,7 @@ public class ETC1 {
      * @param pixelSize the pixel size, either 2 (RGB565) or 3 (RGB888)
      * @return a new direct native order ByteBuffer containing the compressed image data
      */
-    private static native ByteBuffer encodeImagePKM(ByteBuffer imageData, int offset, int width, int height, int pixelSize); /*
+    private static native ByteBuffer encodeImagePKMJni(ByteBuffer imageData, int offset, int width, int height, int pixelSize); /*
 		int compressedSize = etc1_get_encoded_data_size(width, height);
 		etc1_byte* compressed = (etc1_byte*)malloc(compressedSize + ETC_PKM_HEADER_SIZE);
 		etc1_pkm_format_header(compressed, width, height);
@@ -0,0 +1,15 @@
+package com.kerman.core.graphics.glutils
+
+/**
+ * Implemented by GPU resources whose pending data can be uploaded in parts spread over several frames, see [UploadBudget].
+ */
+interface IncrementalUpload {
+
+    /**
+     * Uploads the next part of the pending data, as much as the budget grants in the current frame. Must be called on the
+     * rendering thread, and the data must not be modified until this returned true.
+     * @param budget the budget limiting the bytes uploaded per frame
+     * @return true if no data is left to upload.
+     */
+    fun upload(budget: UploadBudget): Boolean
+}
@@ -32,7 +32,7 @@ import java.nio.ShortBuffer;
  * VertexBufferObjects must be disposed via the {@link #dispose()} method when no longer needed
  * </p>
  */
-public class IndexBufferObject implements IndexData {
+public class IndexBufferObject implements IndexData, IncrementalUpload {
     final ShortBuffer buffer;
     final ByteBuffer byteBuffer;
     final boolean ownsBuffer;
@@ -43,6 +43,7 @@ public class IndexBufferObject implements IndexData {
     int bufferHandle;
     boolean isDirty = true;
     boolean isBound = false;
+    int uploadedBytes;
 
     /**
      * Creates a new static IndexBufferObject to be used with vertex arrays.
@@ -191,10 +192,25 @@ public class IndexBufferObject implements IndexData {
             ((Buffer) byteBuffer).limit(buffer.limit() * 2);
             Kerman.gl20.glBufferData(GLES20.GL_ELEMENT_ARRAY_BUFFER, byteBuffer.limit(), byteBuffer, usage);
             isDirty = false;
+            uploadedBytes = 0;
         }
         isBound = true;
     }
 
+    /**
+     * Uploads the next part of the pending indices. This binds GL_ELEMENT_ARRAY_BUFFER, so no vertex array object may be bound.
+     */
+    @Override
+    public boolean upload(@NotNull UploadBudget budget) {
+        if (!isDirty) return true;
+        ((Buffer) byteBuffer).limit(buffer.limit() * 2);
+        uploadedBytes = budget.uploadBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, bufferHandle, byteBuffer, uploadedBytes, usage);
+        if (uploadedBytes < byteBuffer.limit()) return false;
+        uploadedBytes = 0;
+        isDirty = false;
+        return true;
+    }
+
     /**
      * Unbinds this IndexBufferObject.
      */
@@ -0,0 +1,257 @@
+package com.kerman.core.graphics.glutils;
+
+import com.kerman.core.graphics.Color;
+import com.kerman.core.graphics.Mesh;
+import com.kerman.core.graphics.VertexAttribute;
+import com.kerman.core.graphics.VertexAttributes.Usage;
+import com.kerman.core.math.Matrix4;
+import com.kerman.core.utils.KermanIntArray;
+
+import java.util.Arrays;
+
+/**
+ * An immediate mode renderer that draws indexed vertices from a single mesh. Shapes can add each vertex once with
+ * {@link #vertex(float, float, float, float)} and reference it with {@link #index(int, int, int)}, so fans and quads don't repeat
+ * shared corners. Vertices added with {@link #vertex(float, float, float)} are indexed in order, like the vertices of
+ * {@link ImmediateModeRenderer20}.
+ * <p>
+ * The primitive type can change with {@link #setPrimitiveType(int)} without a flush. The indices are kept in runs of one
+ * primitive type, which are drawn in order from the same vertex and index upload, so points, lines and triangles mix in one flush
+ * and overlap like they were added. {@link #begin(Matrix4, int)} only flushes when the matrix changes.
+ * <p>
+ * {@link #getNumVertices()} returns the number of indices, which is at least the number of vertices, so callers that check the
+ * space left against {@link #getMaxVertices()} with the number of vertices a shape would have without indices also have room for
+ * its indices. The max vertices is at most 65536, as indices are shorts.
+ */
+public class IndexedImmediateModeRenderer implements ImmediateModeRenderer {
+    private final int maxVertices;
+    private final Mesh mesh;
+    private final int numTexCoords;
+    private final int vertexSize;
+    private final int normalOffset;
+    private final int colorOffset;
+    private final int texCoordOffset;
+    private final Matrix4 projModelView = new Matrix4();
+    private final float[] vertices;
+    private final short[] indices;
+    private final String[] shaderUniformNames;
+    /**
+     * The primitive type and the index count of each run, in the order they are drawn.
+     */
+    private final KermanIntArray runs = new KermanIntArray();
+    private int primitiveType;
+    private int vertexIdx;
+    private int numSetTexCoords;
+    private int numVertices;
+    private int numIndices;
+    private ShaderProgram shader;
+    private boolean ownsShader;
+
+    public IndexedImmediateModeRenderer(int maxVertices, boolean hasNormals, boolean hasColors, int numTexCoords) {
+        this(maxVertices, hasNormals, hasColors, numTexCoords,
+                ImmediateModeRenderer20.createDefaultShader(hasNormals, hasColors, numTexCoords));
+        ownsShader = true;
+    }
+
+    public IndexedImmediateModeRenderer(int maxVertices, boolean hasNormals, boolean hasColors, int numTexCoords,
+                                        ShaderProgram shader) {
+        if (maxVertices > 65536)
+            throw new IllegalArgumentException("Can't have more than 65536 vertices per flush: " + maxVertices);
+        this.maxVertices = maxVertices;
+        this.numTexCoords = numTexCoords;
+        this.shader = shader;
+
+        VertexAttribute[] attribs = ImmediateModeRenderer20.buildVertexAttributes(hasNormals, hasColors, numTexCoords);
+        mesh = new Mesh(false, maxVertices, maxVertices, attribs);
+
+        vertexSize = mesh.getVertexAttributes().vertexSize / 4;
+        vertices = new float[maxVertices * vertexSize];
+        indices = new short[maxVertices];
+        normalOffset = mesh.getVertexAttribute(Usage.Normal) != null ? mesh.getVertexAttribute(Usage.Normal).offset / 4 : 0;
+        colorOffset = mesh.getVertexAttribute(Usage.ColorPacked) != null ? mesh.getVertexAttribute(Usage.ColorPacked).offset / 4
+                : 0;
+        texCoordOffset = mesh.getVertexAttribute(Usage.TextureCoordinates) != null
+                ? mesh.getVertexAttribute(Usage.TextureCoordinates).offset / 4
+                : 0;
+
+        shaderUniformNames = new String[numTexCoords];
+        for (int i = 0; i < numTexCoords; i++) {
+            shaderUniformNames[i] = "u_sampler" + i;
+        }
+    }
+
+    public ShaderProgram getShader() {
+        return shader;
+    }
+
+    public void setShader(ShaderProgram shader) {
+        if (ownsShader) this.shader.dispose();
+        this.shader = shader;
+        ownsShader = false;
+    }
+
+    /**
+     * Sets the matrix and primitive type of the next vertices, flushing first if the matrix differs from the matrix of the pending
+     * vertices.
+     */
+    public void begin(Matrix4 projModelView, int primitiveType) {
+        if (numIndices > 0 && !Arrays.equals(this.projModelView.val, projModelView.val)) flush();
+        this.projModelView.set(projModelView);
+        this.primitiveType = primitiveType;
+    }
+
+    /**
+     * Sets the primitive type of the next indices without flushing.
+     */
+    public void setPrimitiveType(int primitiveType) {
+        this.primitiveType = primitiveType;
+    }
+
+    public int getPrimitiveType() {
+        return primitiveType;
+    }
+
+    public void color(Color color) {
+        vertices[vertexIdx + colorOffset] = color.toFloatBits();
+    }
+
+    public void color(float r, float g, float b, float a) {
+        vertices[vertexIdx + colorOffset] = Color.toFloatBits(r, g, b, a);
+    }
+
+    public void color(float colorBits) {
+        vertices[vertexIdx + colorOffset] = colorBits;
+    }
+
+    public void texCoord(float u, float v) {
+        final int idx = vertexIdx + texCoordOffset;
+        vertices[idx + numSetTexCoords] = u;
+        vertices[idx + numSetTexCoords + 1] = v;
+        numSetTexCoords += 2;
+    }
+
+    public void normal(float x, float y, float z) {
+        final int idx = vertexIdx + normalOffset;
+        vertices[idx] = x;
+        vertices[idx + 1] = y;
+        vertices[idx + 2] = z;
+    }
+
+    /**
+     * Adds a vertex and its index.
+     */
+    public void vertex(float x, float y, float z) {
+        index(addVertex(x, y, z));
+    }
+
+    /**
+     * Adds a vertex with the color without an index.
+     *
+     * @return the index of the vertex, for {@link #index(int)} and the other index methods
+     */
+    public int vertex(float x, float y, float z, float colorBits) {
+        vertices[vertexIdx + colorOffset] = colorBits;
+        return addVertex(x, y, z);
+    }
+
+    private int addVertex(float x, float y, float z) {
+        final int idx = vertexIdx;
+        vertices[idx] = x;
+        vertices[idx + 1] = y;
+        vertices[idx + 2] = z;
+
+        numSetTexCoords = 0;
+        vertexIdx += vertexSize;
+        return numVertices++;
+    }
+
+    /**
+     * Adds an index of the current primitive type, like a point.
+     */
+    public void index(int vertex) {
+        startRun(1);
+        indices[numIndices++] = (short) vertex;
+    }
+
+    /**
+     * Adds two indices of the current primitive type, like a line.
+     */
+    public void index(int vertex1, int vertex2) {
+        startRun(2);
+        short[] indices = this.indices;
+        int idx = numIndices;
+        indices[idx] = (short) vertex1;
+        indices[idx + 1] = (short) vertex2;
+        numIndices = idx + 2;
+    }
+
+    /**
+     * Adds three indices of the current primitive type, like a triangle.
+     */
+    public void index(int vertex1, int vertex2, int vertex3) {
+        startRun(3);
+        short[] indices = this.indices;
+        int idx = numIndices;
+        indices[idx] = (short) vertex1;
+        indices[idx + 1] = (short) vertex2;
+        indices[idx + 2] = (short) vertex3;
+        numIndices = idx + 3;
+    }
+
+    /**
+     * Extends the last run by the count if it has the current primitive type, else starts a new run.
+     */
+    private void startRun(int count) {
+        KermanIntArray runs = this.runs;
+        int size = runs.size;
+        if (size > 0 && runs.items[size - 2] == primitiveType)
+            runs.items[size - 1] += count;
+        else
+            runs.add(primitiveType, count);
+    }
+
+    public void flush() {
+        if (numIndices == 0) return;
+        ShaderProgram shader = this.shader;
+        shader.bind();
+        shader.setUniformMatrix("u_projModelView", projModelView);
+        for (int i = 0; i < numTexCoords; i++)
+            shader.setUniformi(shaderUniformNames[i], i);
+        mesh.setVertices(vertices, 0, vertexIdx);
+        mesh.setIndices(indices, 0, numIndices);
+        mesh.bind(shader);
+        int[] runs = this.runs.items;
+        for (int i = 0, n = this.runs.size, offset = 0; i < n; i += 2) {
+            mesh.render(shader, runs[i], offset, runs[i + 1], false);
+            offset += runs[i + 1];
+        }
+        mesh.unbind(shader);
+
+        numSetTexCoords = 0;
+        vertexIdx = 0;
+        numVertices = 0;
+        numIndices = 0;
+        this.runs.clear();
+    }
+
+    public void end() {
+        flush();
+    }
+
+    /**
+     * @return the number of pending indices, which is at least the number of pending vertices
+     */
+    public int getNumVertices() {
+        return numIndices;
+    }
+
+    @Override
+    public int getMaxVertices() {
+        return maxVertices;
+    }
+
+    public void dispose() {
+        if (ownsShader && shader != null) shader.dispose();
+        mesh.dispose();
+    }
+}
@@ -0,0 +1,359 @@
+package com.kerman.core.graphics.glutils;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Pure Java implementations of the native methods of {@link ETC1}. These are used whenever the gdx native library is not
+ * available on the running platform.
+ * <p>
+ * The PKM header and the decoder match the native code bit for bit. The encoder tries both block orientations and all modifier
+ * tables for each 4x4 block, with differential base colors when the averages of the two sub-blocks are close enough and
+ * individual base colors otherwise. Its output is valid ETC1, but not necessarily identical to the output of the native encoder.
+ * <p>
+ * All offsets are absolute and given in bytes relative to the start of the buffer, exactly like the JNI versions which ignore
+ * position and limit. RGB565 pixels are little endian, as in the native code.
+ */
+final class JavaETC1 {
+    /**
+     * The four modifiers of each table, in the order of the pixel index values.
+     */
+    static private final int[] modifiers = {2, 8, -2, -8, 5, 17, -5, -17, 9, 29, -9, -29, 13, 42, -13, -42, 18, 60, -18, -60,
+            24, 80, -24, -80, 33, 106, -33, -106, 47, 183, -47, -183};
+    static private final byte[] magic = {'P', 'K', 'M', ' ', '1', '0'};
+    static private final int RGB_NO_MIPMAPS = 0;
+
+    private JavaETC1() {
+    }
+
+    static int getCompressedDataSize(int width, int height) {
+        return (((width + 3) & ~3) * ((height + 3) & ~3)) >> 1;
+    }
+
+    static void formatHeader(ByteBuffer header, int offset, int width, int height) {
+        for (int i = 0; i < magic.length; i++)
+            header.put(offset + i, magic[i]);
+        putShort(header, offset + 6, RGB_NO_MIPMAPS);
+        putShort(header, offset + 8, (width + 3) & ~3);
+        putShort(header, offset + 10, (height + 3) & ~3);
+        putShort(header, offset + 12, width);
+        putShort(header, offset + 14, height);
+    }
+
+    static int getWidthPKM(ByteBuffer header, int offset) {
+        return getShort(header, offset + 12);
+    }
+
+    static int getHeightPKM(ByteBuffer header, int offset) {
+        return getShort(header, offset + 14);
+    }
+
+    static boolean isValidPKM(ByteBuffer header, int offset) {
+        for (int i = 0; i < magic.length; i++)
+            if (header.get(offset + i) != magic[i]) return false;
+        int format = getShort(header, offset + 6);
+        int encodedWidth = getShort(header, offset + 8), encodedHeight = getShort(header, offset + 10);
+        int width = getShort(header, offset + 12), height = getShort(header, offset + 14);
+        return format == RGB_NO_MIPMAPS && encodedWidth >= width && encodedWidth - width < 4 && encodedHeight >= height
+                && encodedHeight - height < 4;
+    }
+
+    static void decodeImage(ByteBuffer compressedData, int offset, ByteBuffer decodedData, int offsetDec, int width, int height,
+                            int pixelSize) {
+        if (pixelSize != 2 && pixelSize != 3) throw new IllegalArgumentException("pixelSize must be 2 or 3: " + pixelSize);
+        int stride = width * pixelSize;
+        int[] block = new int[16 * 3];
+        for (int by = 0, blocksY = (height + 3) >> 2; by < blocksY; by++) {
+            int yEnd = Math.min(4, height - by * 4);
+            for (int bx = 0, blocksX = (width + 3) >> 2; bx < blocksX; bx++, offset += 8) {
+                decodeBlock(compressedData, offset, block);
+                int xEnd = Math.min(4, width - bx * 4);
+                for (int y = 0; y < yEnd; y++) {
+                    int q = offsetDec + stride * (by * 4 + y) + pixelSize * bx * 4;
+                    for (int x = 0; x < xEnd; x++, q += pixelSize) {
+                        int p = (x + y * 4) * 3;
+                        int r = block[p], g = block[p + 1], b = block[p + 2];
+                        if (pixelSize == 3) {
+                            decodedData.put(q, (byte) r);
+                            decodedData.put(q + 1, (byte) g);
+                            decodedData.put(q + 2, (byte) b);
+                        } else {
+                            int pixel = ((r >> 3) << 11) | ((g >> 2) << 5) | (b >> 3);
+                            decodedData.put(q, (byte) pixel);
+                            decodedData.put(q + 1, (byte) (pixel >> 8));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Decodes the 8 byte block at the offset to 16 RGB888 pixels in rows of 4.
+     */
+    static private void decodeBlock(ByteBuffer in, int offset, int[] block) {
+        int high = getInt(in, offset), low = getInt(in, offset + 4);
+        int r1, r2, g1, g2, b1, b2;
+        if ((high & 2) != 0) {
+            int r = (high >>> 27) & 0x1f, g = (high >>> 19) & 0x1f, b = (high >>> 11) & 0x1f;
+            r1 = convert5To8(r);
+            g1 = convert5To8(g);
+            b1 = convert5To8(b);
+            r2 = convert5To8(r + signed3((high >>> 24) & 7));
+            g2 = convert5To8(g + signed3((high >>> 16) & 7));
+            b2 = convert5To8(b + signed3((high >>> 8) & 7));
+        } else {
+            r1 = convert4To8((high >>> 28) & 0xf);
+            r2 = convert4To8((high >>> 24) & 0xf);
+            g1 = convert4To8((high >>> 20) & 0xf);
+            g2 = convert4To8((high >>> 16) & 0xf);
+            b1 = convert4To8((high >>> 12) & 0xf);
+            b2 = convert4To8((high >>> 8) & 0xf);
+        }
+        boolean flipped = (high & 1) != 0;
+        decodeSubblock(block, r1, g1, b1, (high >>> 5) & 7, low, false, flipped);
+        decodeSubblock(block, r2, g2, b2, (high >>> 2) & 7, low, true, flipped);
+    }
+
+    static private void decodeSubblock(int[] block, int r, int g, int b, int table, int low, boolean second, boolean flipped) {
+        int baseX = 0, baseY = 0;
+        if (second) {
+            if (flipped)
+                baseY = 2;
+            else
+                baseX = 2;
+        }
+        for (int i = 0; i < 8; i++) {
+            int x, y;
+            if (flipped) {
+                x = baseX + (i >> 1);
+                y = baseY + (i & 1);
+            } else {
+                x = baseX + (i >> 2);
+                y = baseY + (i & 3);
+            }
+            int delta = modifiers[table * 4 + pixelIndex(low, x, y)];
+            int p = (x + y * 4) * 3;
+            block[p] = clamp(r + delta);
+            block[p + 1] = clamp(g + delta);
+            block[p + 2] = clamp(b + delta);
+        }
+    }
+
+    static void encodeImage(ByteBuffer imageData, int offset, int width, int height, int pixelSize, ByteBuffer compressedData,
+                            int compressedOffset) {
+        if (pixelSize != 2 && pixelSize != 3) throw new IllegalArgumentException("pixelSize must be 2 or 3: " + pixelSize);
+        int stride = width * pixelSize;
+        int[] block = new int[16 * 3], encoded = new int[2], best = new int[2];
+        boolean[] mask = new boolean[16];
+        for (int by = 0, blocksY = (height + 3) >> 2; by < blocksY; by++) {
+            int yEnd = Math.min(4, height - by * 4);
+            for (int bx = 0, blocksX = (width + 3) >> 2; bx < blocksX; bx++, compressedOffset += 8) {
+                int xEnd = Math.min(4, width - bx * 4);
+                for (int y = 0; y < 4; y++) {
+                    int q = offset + stride * (by * 4 + y) + pixelSize * bx * 4;
+                    for (int x = 0; x < 4; x++, q += pixelSize) {
+                        int p = x + y * 4;
+                        mask[p] = x < xEnd && y < yEnd;
+                        if (!mask[p]) continue;
+                        if (pixelSize == 3) {
+                            block[p * 3] = imageData.get(q) & 0xff;
+                            block[p * 3 + 1] = imageData.get(q + 1) & 0xff;
+                            block[p * 3 + 2] = imageData.get(q + 2) & 0xff;
+                        } else {
+                            int pixel = (imageData.get(q) & 0xff) | ((imageData.get(q + 1) & 0xff) << 8);
+                            block[p * 3] = convert5To8(pixel >>> 11);
+                            block[p * 3 + 1] = convert6To8((pixel >>> 5) & 0x3f);
+                            block[p * 3 + 2] = convert5To8(pixel & 0x1f);
+                        }
+                    }
+                }
+                long bestError = encodeBlock(block, mask, false, best);
+                if (encodeBlock(block, mask, true, encoded) < bestError) {
+                    best[0] = encoded[0];
+                    best[1] = encoded[1];
+                }
+                putInt(compressedData, compressedOffset, best[0]);
+                putInt(compressedData, compressedOffset + 4, best[1]);
+            }
+        }
+    }
+
+    /**
+     * Encodes the block with the given orientation.
+     *
+     * @param encoded receives the high and low 32 bits of the block
+     * @return the squared error of the pixels in the mask
+     */
+    static private long encodeBlock(int[] block, boolean[] mask, boolean flipped, int[] encoded) {
+        int[] average1 = new int[3], average2 = new int[3];
+        averageSubblock(block, mask, false, flipped, average1);
+        averageSubblock(block, mask, true, flipped, average2);
+
+        int high, r1, g1, b1, r2, g2, b2;
+        int qr1 = convert8To5(average1[0]), qg1 = convert8To5(average1[1]), qb1 = convert8To5(average1[2]);
+        int dr = convert8To5(average2[0]) - qr1, dg = convert8To5(average2[1]) - qg1, db = convert8To5(average2[2]) - qb1;
+        if (dr >= -4 && dr <= 3 && dg >= -4 && dg <= 3 && db >= -4 && db <= 3) {
+            high = (qr1 << 27) | ((dr & 7) << 24) | (qg1 << 19) | ((dg & 7) << 16) | (qb1 << 11) | ((db & 7) << 8) | 2;
+            r1 = convert5To8(qr1);
+            g1 = convert5To8(qg1);
+            b1 = convert5To8(qb1);
+            r2 = convert5To8(qr1 + dr);
+            g2 = convert5To8(qg1 + dg);
+            b2 = convert5To8(qb1 + db);
+        } else {
+            int qr2 = convert8To4(average2[0]), qg2 = convert8To4(average2[1]), qb2 = convert8To4(average2[2]);
+            qr1 = convert8To4(average1[0]);
+            qg1 = convert8To4(average1[1]);
+            qb1 = convert8To4(average1[2]);
+            high = (qr1 << 28) | (qr2 << 24) | (qg1 << 20) | (qg2 << 16) | (qb1 << 12) | (qb2 << 8);
+            r1 = convert4To8(qr1);
+            g1 = convert4To8(qg1);
+            b1 = convert4To8(qb1);
+            r2 = convert4To8(qr2);
+            g2 = convert4To8(qg2);
+            b2 = convert4To8(qb2);
+        }
+        if (flipped) high |= 1;
+
+        encoded[1] = 0;
+        long error = encodeSubblock(block, mask, r1, g1, b1, false, flipped, encoded);
+        high |= encoded[0] << 5;
+        error += encodeSubblock(block, mask, r2, g2, b2, true, flipped, encoded);
+        high |= encoded[0] << 2;
+        encoded[0] = high;
+        return error;
+    }
+
+    static private void averageSubblock(int[] block, boolean[] mask, boolean second, boolean flipped, int[] average) {
+        int r = 0, g = 0, b = 0, count = 0;
+        for (int i = 0; i < 8; i++) {
+            int p = subblockPixel(i, second, flipped);
+            if (!mask[p]) continue;
+            r += block[p * 3];
+            g += block[p * 3 + 1];
+            b += block[p * 3 + 2];
+            count++;
+        }
+        if (count == 0) {
+            average[0] = average[1] = average[2] = 0;
+            return;
+        }
+        average[0] = (r + count / 2) / count;
+        average[1] = (g + count / 2) / count;
+        average[2] = (b + count / 2) / count;
+    }
+
+    /**
+     * Picks the table with the least error for the sub-block and sets the pixel index bits of its pixels in encoded[1].
+     *
+     * @return the squared error, with the table in encoded[0]
+     */
+    static private long encodeSubblock(int[] block, boolean[] mask, int r, int g, int b, boolean second, boolean flipped,
+                                       int[] encoded) {
+        long bestError = Long.MAX_VALUE;
+        int bestTable = 0, bestBits = 0;
+        for (int table = 0; table < 8; table++) {
+            long error = 0;
+            int bits = 0;
+            for (int i = 0; i < 8; i++) {
+                int p = subblockPixel(i, second, flipped);
+                if (!mask[p]) continue;
+                int pr = block[p * 3], pg = block[p * 3 + 1], pb = block[p * 3 + 2];
+                int bestPixelError = Integer.MAX_VALUE, bestIndex = 0;
+                for (int index = 0; index < 4; index++) {
+                    int delta = modifiers[table * 4 + index];
+                    int er = clamp(r + delta) - pr, eg = clamp(g + delta) - pg, eb = clamp(b + delta) - pb;
+                    int pixelError = er * er + eg * eg + eb * eb;
+                    if (pixelError < bestPixelError) {
+                        bestPixelError = pixelError;
+                        bestIndex = index;
+                    }
+                }
+                error += bestPixelError;
+                int k = (p & 3) * 4 + (p >> 2);
+                bits |= ((bestIndex & 1) << k) | ((bestIndex >> 1) << (k + 16));
+            }
+            if (error < bestError) {
+                bestError = error;
+                bestTable = table;
+                bestBits = bits;
+            }
+        }
+        encoded[0] = bestTable;
+        encoded[1] |= bestBits;
+        return bestError;
+    }
+
+    /**
+     * @return the index in rows of 4 of the i-th pixel of a sub-block
+     */
+    static private int subblockPixel(int i, boolean second, boolean flipped) {
+        int x, y;
+        if (flipped) {
+            x = i >> 1;
+            y = (i & 1) + (second ? 2 : 0);
+        } else {
+            x = (i >> 2) + (second ? 2 : 0);
+            y = i & 3;
+        }
+        return x + y * 4;
+    }
+
+    /**
+     * @return the pixel index value of the pixel, whose least significant bit is bit x * 4 + y and most significant bit is 16 bits
+     * higher
+     */
+    static private int pixelIndex(int low, int x, int y) {
+        int k = x * 4 + y;
+        return ((low >>> k) & 1) | (((low >>> (k + 16)) & 1) << 1);
+    }
+
+    static private int signed3(int value) {
+        return (value << 29) >> 29;
+    }
+
+    static private int convert4To8(int value) {
+        return (value << 4) | value;
+    }
+
+    static private int convert5To8(int value) {
+        return (value << 3) | (value >> 2);
+    }
+
+    static private int convert6To8(int value) {
+        return (value << 2) | (value >> 4);
+    }
+
+    static private int convert8To4(int value) {
+        return (value * 15 + 127) / 255;
+    }
+
+    static private int convert8To5(int value) {
+        return (value * 31 + 127) / 255;
+    }
+
+    static private int clamp(int value) {
+        return value < 0 ? 0 : Math.min(value, 255);
+    }
+
+    static private int getShort(ByteBuffer buffer, int offset) {
+        return ((buffer.get(offset) & 0xff) << 8) | (buffer.get(offset + 1) & 0xff);
+    }
+
+    static private void putShort(ByteBuffer buffer, int offset, int value) {
+        buffer.put(offset, (byte) (value >> 8));
+        buffer.put(offset + 1, (byte) value);
+    }
+
+    static private int getInt(ByteBuffer buffer, int offset) {
+        return ((buffer.get(offset) & 0xff) << 24) | ((buffer.get(offset + 1) & 0xff) << 16) | ((buffer.get(offset + 2) & 0xff) << 8)
+                | (buffer.get(offset + 3) & 0xff);
+    }
+
+    static private void putInt(ByteBuffer buffer, int offset, int value) {
+        buffer.put(offset, (byte) (value >> 24));
+        buffer.put(offset + 1, (byte) (value >> 16));
+        buffer.put(offset + 2, (byte) (value >> 8));
+        buffer.put(offset + 3, (byte) value);
+    }
+}
@@ -10,6 +10,8 @@ import com.kerman.core.math.Vector2;
 import com.kerman.core.math.Vector3;
 import com.kerman.core.utils.Disposable;
 
+import org.jetbrains.annotations.Nullable;
+
 /**
  * Info : This class was inspired by "com.badlogic.gdx.graphics.glutils.ShapeRenderer".
  * <p>
@@ -59,9 +61,15 @@ import com.kerman.core.utils.Disposable;
  * <p>
  * The projection and transformation matrices are a state of the ShapeRenderer, just like the color, and will be applied to all
  * shapes until they are changed.
+ * <p>
+ * By default the shapes are drawn with an {@link IndexedImmediateModeRenderer}. Rectangles, circles, arcs, ellipses and polygons
+ * add each corner once and reference it by index, and with {@link #setAutoShapeType(boolean) auto shape type} changing between
+ * points, lines and filled shapes doesn't flush the batch, so shapes of all types are drawn from one mesh upload in the order
+ * they were added. Only a changed matrix or a full batch causes a flush.
  */
 public class ShapeRenderer implements Disposable {
     private final ImmediateModeRenderer renderer;
+    private final @Nullable IndexedImmediateModeRenderer indexed;
     private final Matrix4 projectionMatrix = new Matrix4();
     private final Matrix4 transformMatrix = new Matrix4();
     private final Matrix4 combinedMatrix = new Matrix4();
@@ -80,10 +88,28 @@ public class ShapeRenderer implements Disposable {
     }
 
     public ShapeRenderer(int maxVertices, ShaderProgram defaultShader) {
-        if (defaultShader == null) {
-            renderer = new ImmediateModeRenderer20(maxVertices, false, true, 0);
+        this(maxVertices, defaultShader, maxVertices <= 65536);
+    }
+
+    /**
+     * @param indexed if true the shapes are drawn with an {@link IndexedImmediateModeRenderer}, which requires maxVertices to be
+     *                at most 65536, else with an {@link ImmediateModeRenderer20}.
+     */
+    public ShapeRenderer(int maxVertices, ShaderProgram defaultShader, boolean indexed) {
+        if (indexed) {
+            if (defaultShader == null) {
+                this.indexed = new IndexedImmediateModeRenderer(maxVertices, false, true, 0);
+            } else {
+                this.indexed = new IndexedImmediateModeRenderer(maxVertices, false, true, 0, defaultShader);
+            }
+            renderer = this.indexed;
         } else {
-            renderer = new ImmediateModeRenderer20(maxVertices, false, true, 0, defaultShader);
+            this.indexed = null;
+            if (defaultShader == null) {
+                renderer = new ImmediateModeRenderer20(maxVertices, false, true, 0);
+            } else {
+                renderer = new ImmediateModeRenderer20(maxVertices, false, true, 0, defaultShader);
+            }
         }
         projectionMatrix.setToOrtho2D(0, 0, Kerman.graphics.getWidth(), Kerman.graphics.getHeight());
         matrixDirty = true;
@@ -210,8 +236,20 @@ public class ShapeRenderer implements Disposable {
         if (shapeType == type) return;
         if (shapeType == null) throw new IllegalStateException("begin must be called first.");
         if (!autoShapeType) throw new IllegalStateException("autoShapeType must be enabled.");
-        end();
-        begin(type);
+        switchType(type);
+    }
+
+    /**
+     * Changes the shape type, without a flush if the shapes are indexed and the matrix hasn't changed.
+     */
+    private void switchType(ShapeType type) {
+        if (indexed != null && !matrixDirty) {
+            shapeType = type;
+            indexed.setPrimitiveType(type.getGlType());
+        } else {
+            end();
+            begin(type);
+        }
     }
 
     /**
@@ -342,6 +380,12 @@ public class ShapeRenderer implements Disposable {
     public void triangle(float x1, float y1, float x2, float y2, float x3, float y3) {
         check(ShapeType.Line, ShapeType.Filled, 6);
         float colorBits = color.toFloatBits();
+        if (indexed != null) {
+            IndexedImmediateModeRenderer indexed = this.indexed;
+            indexTriangle(indexed.vertex(x1, y1, 0, colorBits), indexed.vertex(x2, y2, 0, colorBits),
+                    indexed.vertex(x3, y3, 0, colorBits));
+            return;
+        }
         if (shapeType == ShapeType.Line) {
             renderer.color(colorBits);
             renderer.vertex(x1, y1, 0);
@@ -372,6 +416,12 @@ public class ShapeRenderer implements Disposable {
      */
     public void triangle(float x1, float y1, float x2, float y2, float x3, float y3, Color col1, Color col2, Color col3) {
         check(ShapeType.Line, ShapeType.Filled, 6);
+        if (indexed != null) {
+            IndexedImmediateModeRenderer indexed = this.indexed;
+            indexTriangle(indexed.vertex(x1, y1, 0, col1.toFloatBits()), indexed.vertex(x2, y2, 0, col2.toFloatBits()),
+                    indexed.vertex(x3, y3, 0, col3.toFloatBits()));
+            return;
+        }
         if (shapeType == ShapeType.Line) {
             renderer.color(col1.r, col1.g, col1.b, col1.a);
             renderer.vertex(x1, y1, 0);
@@ -403,6 +453,12 @@ public class ShapeRenderer implements Disposable {
     public void rect(float x, float y, float width, float height) {
         check(ShapeType.Line, ShapeType.Filled, 8);
         float colorBits = color.toFloatBits();
+        if (indexed != null) {
+            IndexedImmediateModeRenderer indexed = this.indexed;
+            indexQuad(indexed.vertex(x, y, 0, colorBits), indexed.vertex(x + width, y, 0, colorBits),
+                    indexed.vertex(x + width, y + height, 0, colorBits), indexed.vertex(x, y + height, 0, colorBits));
+            return;
+        }
         if (shapeType == ShapeType.Line) {
             renderer.color(colorBits);
             renderer.vertex(x, y, 0);
@@ -451,6 +507,13 @@ public class ShapeRenderer implements Disposable {
      */
     public void rect(float x, float y, float width, float height, Color col1, Color col2, Color col3, Color col4) {
         check(ShapeType.Line, ShapeType.Filled, 8);
+        if (indexed != null) {
+            IndexedImmediateModeRenderer indexed = this.indexed;
+            indexQuad(indexed.vertex(x, y, 0, col1.toFloatBits()), indexed.vertex(x + width, y, 0, col2.toFloatBits()),
+                    indexed.vertex(x + width, y + height, 0, col3.toFloatBits()),
+                    indexed.vertex(x, y + height, 0, col4.toFloatBits()));
+            return;
+        }
 
         if (shapeType == ShapeType.Line) {
             renderer.color(col1.r, col1.g, col1.b, col1.a);
@@ -540,6 +603,13 @@ public class ShapeRenderer implements Disposable {
         float x4 = x1 + (x3 - x2);
         float y4 = y3 - (y2 - y1);
 
+        if (indexed != null) {
+            IndexedImmediateModeRenderer indexed = this.indexed;
+            indexQuad(indexed.vertex(x1, y1, 0, col1.toFloatBits()), indexed.vertex(x2, y2, 0, col2.toFloatBits()),
+                    indexed.vertex(x3, y3, 0, col3.toFloatBits()), indexed.vertex(x4, y4, 0, col4.toFloatBits()));
+            return;
+        }
+
         if (shapeType == ShapeType.Line) {
             renderer.color(col1.r, col1.g, col1.b, col1.a);
             renderer.vertex(x1, y1, 0);
@@ -588,6 +658,12 @@ public class ShapeRenderer implements Disposable {
         width *= 0.5f;
         float tx = t.x * width;
         float ty = t.y * width;
+        if (indexed != null) {
+            IndexedImmediateModeRenderer indexed = this.indexed;
+            indexQuad(indexed.vertex(x1 + tx, y1 + ty, 0, colorBits), indexed.vertex(x2 + tx, y2 + ty, 0, colorBits),
+                    indexed.vertex(x2 - tx, y2 - ty, 0, colorBits), indexed.vertex(x1 - tx, y1 - ty, 0, colorBits));
+            return;
+        }
         if (shapeType == ShapeType.Line) {
             renderer.color(colorBits);
             renderer.vertex(x1 + tx, y1 + ty, 0);
@@ -637,6 +713,12 @@ public class ShapeRenderer implements Disposable {
         width *= 0.5f;
         float tx = t.x * width;
         float ty = t.y * width;
+        if (indexed != null) {
+            IndexedImmediateModeRenderer indexed = this.indexed;
+            indexQuad(indexed.vertex(x1 + tx, y1 + ty, 0, col1Bits), indexed.vertex(x2 + tx, y2 + ty, 0, col2Bits),
+                    indexed.vertex(x2 - tx, y2 - ty, 0, col2Bits), indexed.vertex(x1 - tx, y1 - ty, 0, col1Bits));
+            return;
+        }
         if (shapeType == ShapeType.Line) {
             renderer.color(col1Bits);
             renderer.vertex(x1 + tx, y1 + ty, 0);
@@ -879,6 +961,24 @@ public class ShapeRenderer implements Disposable {
         float cx = radius * MathUtils.cos(start * MathUtils.degreesToRadians);
         float cy = radius * MathUtils.sin(start * MathUtils.degreesToRadians);
 
+        if (indexed != null) {
+            check(ShapeType.Line, ShapeType.Filled, segments * 3 + 3);
+            IndexedImmediateModeRenderer indexed = this.indexed;
+            int center = indexed.vertex(x, y, 0, colorBits);
+            int last = indexed.vertex(x + cx, y + cy, 0, colorBits);
+            if (shapeType == ShapeType.Line) indexed.index(center, last);
+            for (int i = 0; i < segments; i++) {
+                float temp = cx;
+                cx = cos * cx - sin * cy;
+                cy = sin * temp + cos * cy;
+                int next = indexed.vertex(x + cx, y + cy, 0, colorBits);
+                indexRim(center, last, next);
+                last = next;
+            }
+            if (shapeType == ShapeType.Line) indexed.index(last, center);
+            return;
+        }
+
         if (shapeType == ShapeType.Line) {
             check(ShapeType.Line, ShapeType.Filled, segments * 2 + 2);
 
@@ -941,6 +1041,23 @@ public class ShapeRenderer implements Disposable {
         float cos = MathUtils.cos(angle);
         float sin = MathUtils.sin(angle);
         float cx = radius, cy = 0;
+        if (indexed != null) {
+            check(ShapeType.Line, ShapeType.Filled, segments * 3 + 3);
+            IndexedImmediateModeRenderer indexed = this.indexed;
+            int center = shapeType == ShapeType.Filled ? indexed.vertex(x, y, 0, colorBits) : -1;
+            int first = indexed.vertex(x + cx, y + cy, 0, colorBits), last = first;
+            for (int i = 1; i < segments; i++) {
+                float temp = cx;
+                cx = cos * cx - sin * cy;
+                cy = sin * temp + cos * cy;
+                int next = indexed.vertex(x + cx, y + cy, 0, colorBits);
+                indexRim(center, last, next);
+                last = next;
+            }
+            // The last segment ends at the first vertex.
+            indexRim(center, last, first);
+            return;
+        }
         if (shapeType == ShapeType.Line) {
             check(ShapeType.Line, ShapeType.Filled, segments * 2 + 2);
             for (int i = 0; i < segments; i++) {
@@ -1001,6 +1118,19 @@ public class ShapeRenderer implements Disposable {
         float angle = 2 * MathUtils.PI / segments;
 
         float cx = x + width / 2, cy = y + height / 2;
+        if (indexed != null) {
+            IndexedImmediateModeRenderer indexed = this.indexed;
+            int center = shapeType == ShapeType.Filled ? indexed.vertex(cx, cy, 0, colorBits) : -1;
+            int first = indexed.vertex(cx + width * 0.5f, cy, 0, colorBits), last = first;
+            for (int i = 1; i < segments; i++) {
+                int next = indexed.vertex(cx + (width * 0.5f * MathUtils.cos(i * angle)),
+                        cy + (height * 0.5f * MathUtils.sin(i * angle)), 0, colorBits);
+                indexRim(center, last, next);
+                last = next;
+            }
+            indexRim(center, last, first);
+            return;
+        }
         if (shapeType == ShapeType.Line) {
             for (int i = 0; i < segments; i++) {
                 renderer.color(colorBits);
@@ -1049,6 +1179,20 @@ public class ShapeRenderer implements Disposable {
         float cx = x + width / 2, cy = y + height / 2;
         float x1 = width * 0.5f;
         float y1 = 0;
+        if (indexed != null) {
+            IndexedImmediateModeRenderer indexed = this.indexed;
+            int center = shapeType == ShapeType.Filled ? indexed.vertex(cx, cy, 0, colorBits) : -1;
+            int first = indexed.vertex(cx + cos * x1, cy + sin * x1, 0, colorBits), last = first;
+            for (int i = 1; i < segments; i++) {
+                x1 = (width * 0.5f * MathUtils.cos(i * angle));
+                y1 = (height * 0.5f * MathUtils.sin(i * angle));
+                int next = indexed.vertex(cx + cos * x1 - sin * y1, cy + sin * x1 + cos * y1, 0, colorBits);
+                indexRim(center, last, next);
+                last = next;
+            }
+            indexRim(center, last, first);
+            return;
+        }
         if (shapeType == ShapeType.Line) {
             for (int i = 0; i < segments; i++) {
                 renderer.color(colorBits);
@@ -1166,6 +1310,17 @@ public class ShapeRenderer implements Disposable {
 
         check(ShapeType.Line, null, count);
         float colorBits = color.toFloatBits();
+        if (indexed != null) {
+            IndexedImmediateModeRenderer indexed = this.indexed;
+            int first = indexed.vertex(vertices[offset], vertices[offset + 1], 0, colorBits), last = first;
+            for (int i = offset + 2, n = offset + count; i < n; i += 2) {
+                int next = indexed.vertex(vertices[i], vertices[i + 1], 0, colorBits);
+                indexed.index(last, next);
+                last = next;
+            }
+            indexed.index(last, first);
+            return;
+        }
         float firstX = vertices[0];
         float firstY = vertices[1];
 
@@ -1208,6 +1363,16 @@ public class ShapeRenderer implements Disposable {
 
         check(ShapeType.Line, null, count);
         float colorBits = color.toFloatBits();
+        if (indexed != null) {
+            IndexedImmediateModeRenderer indexed = this.indexed;
+            int last = indexed.vertex(vertices[offset], vertices[offset + 1], 0, colorBits);
+            for (int i = offset + 2, n = offset + count; i < n; i += 2) {
+                int next = indexed.vertex(vertices[i], vertices[i + 1], 0, colorBits);
+                indexed.index(last, next);
+                last = next;
+            }
+            return;
+        }
         for (int i = offset, n = offset + count - 2; i < n; i += 2) {
             float x1 = vertices[i];
             float y1 = vertices[i + 1];
@@ -1233,8 +1398,9 @@ public class ShapeRenderer implements Disposable {
     }
 
     /**
-     * Checks whether the correct ShapeType was set. If not and autoShapeType is enabled, it flushes the batch and changes the
-     * shape type. The batch is also flushed, when the matrix has been changed or not enough vertices remain.
+     * Checks whether the correct ShapeType was set. If not and autoShapeType is enabled, it changes the shape type, flushing the
+     * batch first unless the shapes are indexed. The batch is also flushed, when the matrix has been changed or not enough
+     * vertices remain.
      *
      * @param preferred   usually ShapeType.Line
      * @param other       usually ShapeType.Filled. May be null.
@@ -1251,14 +1417,14 @@ public class ShapeRenderer implements Disposable {
                 else
                     throw new IllegalStateException("Must call begin(ShapeType." + preferred + ") or begin(ShapeType." + other + ").");
             }
-            end();
-            begin(preferred);
+            switchType(preferred);
         } else if (matrixDirty) {
             // Matrix has been changed.
             ShapeType type = shapeType;
             end();
             begin(type);
-        } else if (renderer.getMaxVertices() - renderer.getNumVertices() < newVertices) {
+        }
+        if (renderer.getMaxVertices() - renderer.getNumVertices() < newVertices) {
             // Not enough space.
             ShapeType type = shapeType;
             end();
@@ -1266,6 +1432,43 @@ public class ShapeRenderer implements Disposable {
         }
     }
 
+    /**
+     * Adds the outline or the fill of a triangle of indexed vertices, for the current shape type.
+     */
+    private void indexTriangle(int v1, int v2, int v3) {
+        if (shapeType == ShapeType.Line) {
+            indexed.index(v1, v2);
+            indexed.index(v2, v3);
+            indexed.index(v3, v1);
+        } else
+            indexed.index(v1, v2, v3);
+    }
+
+    /**
+     * Adds the outline or the two triangles of a quad of indexed vertices in winding order, for the current shape type.
+     */
+    private void indexQuad(int v1, int v2, int v3, int v4) {
+        if (shapeType == ShapeType.Line) {
+            indexed.index(v1, v2);
+            indexed.index(v2, v3);
+            indexed.index(v3, v4);
+            indexed.index(v4, v1);
+        } else {
+            indexed.index(v1, v2, v3);
+            indexed.index(v3, v4, v1);
+        }
+    }
+
+    /**
+     * Adds a segment of the rim of a round shape, or its triangle with the center when filled.
+     */
+    private void indexRim(int center, int v1, int v2) {
+        if (shapeType == ShapeType.Line)
+            indexed.index(v1, v2);
+        else
+            indexed.index(center, v1, v2);
+    }
+
     /**
      * Finishes the batch of shapes and ensures they get rendered.
      */
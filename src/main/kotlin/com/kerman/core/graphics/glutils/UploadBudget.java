@@ -0,0 +1,111 @@
+package com.kerman.core.graphics.glutils;
+
+import com.kerman.core.Kerman;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * Limits the number of bytes uploaded to the GPU per frame, so that loading large textures and meshes behind a running scene is
+ * spread over several frames instead of causing a single long one. Frames are told apart by
+ * {@link com.kerman.core.Graphics#getFrameId()}. Uploads go through {@link IncrementalUpload} implementations, which claim parts
+ * of the budget with {@link #claim(int, int)}.
+ * <p>
+ * The budget is only used on the rendering thread. Code that blocks until uploads are done within a single frame, like
+ * {@link com.kerman.core.assets.AssetManager#finishLoading()}, {@link #suspend() suspends} the budget, as the frame wouldn't
+ * change and an upload larger than the budget would never finish.
+ */
+public class UploadBudget {
+    private int bytesPerFrame;
+    private long frameId = -1;
+    private long claimed;
+    private int suspended;
+
+    /**
+     * @param bytesPerFrame the bytes that may be uploaded per frame, or 0 for no limit
+     */
+    public UploadBudget(int bytesPerFrame) {
+        setBytesPerFrame(bytesPerFrame);
+    }
+
+    public int getBytesPerFrame() {
+        return bytesPerFrame;
+    }
+
+    /**
+     * @param bytesPerFrame the bytes that may be uploaded per frame, or 0 for no limit
+     */
+    public void setBytesPerFrame(int bytesPerFrame) {
+        this.bytesPerFrame = Math.max(0, bytesPerFrame);
+    }
+
+    /**
+     * @return whether uploads have to be split, false if everything may be uploaded at once
+     */
+    public boolean isLimited() {
+        return bytesPerFrame > 0 && suspended == 0;
+    }
+
+    /**
+     * Lifts the limit until {@link #resume()} is called, so every claim is granted in full. Calls nest, each must be followed by
+     * a call to resume.
+     */
+    public void suspend() {
+        suspended++;
+    }
+
+    /**
+     * Restores the limit lifted by the matching {@link #suspend()}.
+     */
+    public void resume() {
+        if (suspended == 0) throw new IllegalStateException("resume called without suspend.");
+        suspended--;
+    }
+
+    /**
+     * Claims up to the given number of units from the budget of the current frame. A unit is the smallest part an upload can be
+     * split into, e.g. a row of a texture. One unit is granted per frame even if it is larger than the whole budget, so that
+     * every upload keeps progressing. While the budget is {@link #suspend() suspended} all units are granted.
+     *
+     * @param unitBytes the size of one unit in bytes
+     * @param units     the number of units left to upload
+     * @return the number of units that may be uploaded now, 0 if the budget of this frame is used up
+     */
+    public int claim(int unitBytes, int units) {
+        if (!isLimited() || units <= 0) return units;
+        long frame = Kerman.graphics.getFrameId();
+        if (frame != frameId) {
+            frameId = frame;
+            claimed = 0;
+        }
+        int granted = (int) Math.min(units, Math.max(0, bytesPerFrame - claimed) / Math.max(1, unitBytes));
+        if (granted == 0 && claimed == 0) granted = 1;
+        claimed += (long) granted * unitBytes;
+        return granted;
+    }
+
+    /**
+     * Uploads the next part of the data of a buffer object, allocating its storage with the first part.
+     *
+     * @param target       the buffer target, e.g. GL_ARRAY_BUFFER
+     * @param bufferHandle the buffer object
+     * @param data         the data, uploaded up to its limit
+     * @param offset       the number of bytes already uploaded
+     * @param usage        the usage passed to glBufferData
+     * @return the number of bytes uploaded so far, equal to the limit of data once the buffer is complete
+     */
+    public int uploadBuffer(int target, int bufferHandle, ByteBuffer data, int offset, int usage) {
+        int size = data.limit();
+        Kerman.gl20.glBindBuffer(target, bufferHandle);
+        if (offset == 0) Kerman.gl20.glBufferData(target, size, null, usage);
+        int bytes = claim(1, size - offset);
+        if (bytes > 0) {
+            ByteBuffer part = data.duplicate();
+            ((Buffer) part).limit(offset + bytes);
+            ((Buffer) part).position(offset);
+            Kerman.gl20.glBufferSubData(target, offset, bytes, part);
+        }
+        Kerman.gl20.glBindBuffer(target, 0);
+        return offset + bytes;
+    }
+}
@@ -25,7 +25,7 @@ import java.nio.FloatBuffer;
  * <p>
  * VertexBufferObjects must be disposed via the {@link #dispose()} method when no longer needed
  */
-public class VertexBufferObject implements VertexData {
+public class VertexBufferObject implements VertexData, IncrementalUpload {
     boolean isDirty = false;
     boolean isBound = false;
     private VertexAttributes attributes;
@@ -34,6 +34,7 @@ public class VertexBufferObject implements VertexData {
     private boolean ownsBuffer;
     private int bufferHandle;
     private int usage;
+    private int uploadedBytes;
 
     /**
      * Constructs a new interleaved VertexBufferObject.
@@ -167,6 +168,17 @@ public class VertexBufferObject implements VertexData {
         usage = value;
     }
 
+    @Override
+    public boolean upload(@NotNull UploadBudget budget) {
+        if (!isDirty) return true;
+        ((Buffer) byteBuffer).limit(buffer.limit() * 4);
+        uploadedBytes = budget.uploadBuffer(GLES20.GL_ARRAY_BUFFER, bufferHandle, byteBuffer, uploadedBytes, usage);
+        if (uploadedBytes < byteBuffer.limit()) return false;
+        uploadedBytes = 0;
+        isDirty = false;
+        return true;
+    }
+
     /**
      * Binds this VertexBufferObject for rendering via glDrawArrays or glDrawElements
      *
@@ -186,6 +198,7 @@ public class VertexBufferObject implements VertexData {
             ((Buffer) byteBuffer).limit(buffer.limit() * 4);
             gl.glBufferData(GLES20.GL_ARRAY_BUFFER, byteBuffer.limit(), byteBuffer, usage);
             isDirty = false;
+            uploadedBytes = 0;
         }
 
         final int numAttributes = attributes.size();
@@ -0,0 +1,246 @@
+package com.kerman.core.graphics.glutils;
+
+import com.kerman.core.Kerman;
+import com.kerman.core.graphics.GLES20;
+import com.kerman.core.graphics.GLES30;
+import com.kerman.core.graphics.VertexAttribute;
+import com.kerman.core.graphics.VertexAttributes;
+import com.kerman.core.utils.BufferUtils;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * A {@link VertexData} implementation for vertices that are replaced before every draw, like the vertices of a
+ * {@link com.kerman.core.graphics.k2d.SpriteBatch}. Instead of uploading into the start of the same buffer every time, which makes
+ * many drivers wait until the previous draw using the buffer is done, every upload is written behind the previous one in a buffer
+ * several times the size of the vertices. Once the buffer is full it is orphaned, so the driver hands out new storage while the
+ * GPU still draws from the old one.
+ * <p>
+ * With OpenGL ES 3.0 the vertices are written with glMapBufferRange and GL_MAP_UNSYNCHRONIZED_BIT, otherwise with
+ * glBufferSubData. The attribute pointers are set to the offset of the last upload when bound, so vertices set with
+ * {@link #setVertices(float[], int, int)} are used from the next {@link #bind(ShaderProgram)} on.
+ * <p>
+ * With OpenGL ES 3.0 the attributes are also kept in a vertex array object, like {@link VertexBufferObjectWithVAO}, because OpenGL 3.0+
+ * core profiles have no default one. Its attribute pointers are set again on every bind, since they move with every upload.
+ */
+public class VertexBufferObjectStreaming implements VertexData {
+    /**
+     * The number of regions used by {@link com.kerman.core.graphics.Mesh.VertexDataType#VertexBufferObjectStreaming}.
+     */
+    static public final int DEFAULT_REGIONS = 8;
+    static private final IntBuffer tmpHandle = BufferUtils.newIntBuffer(1);
+
+    private final VertexAttributes attributes;
+    private final FloatBuffer buffer;
+    private final ByteBuffer byteBuffer;
+    private final int capacity;
+    private int bufferHandle;
+    private int vaoHandle = -1;
+    private boolean isDirty = false;
+    /**
+     * The offset in bytes where the next upload is written and where the last upload starts.
+     */
+    private int writeOffset, drawOffset;
+
+    /**
+     * @param numVertices the maximum number of vertices per upload
+     * @param regions     how many uploads of the maximum number of vertices fit in the buffer before it is orphaned
+     * @param attributes  the {@link VertexAttribute}s.
+     */
+    public VertexBufferObjectStreaming(int numVertices, int regions, VertexAttribute... attributes) {
+        this(numVertices, regions, new VertexAttributes(attributes));
+    }
+
+    /**
+     * @param numVertices the maximum number of vertices per upload
+     * @param regions     how many uploads of the maximum number of vertices fit in the buffer before it is orphaned
+     * @param attributes  the {@link VertexAttributes}.
+     */
+    public VertexBufferObjectStreaming(int numVertices, int regions, VertexAttributes attributes) {
+        if (regions < 1) throw new IllegalArgumentException("regions must be > 0: " + regions);
+        this.attributes = attributes;
+        byteBuffer = BufferUtils.newUnsafeByteBuffer(attributes.vertexSize * numVertices);
+        buffer = byteBuffer.asFloatBuffer();
+        ((Buffer) buffer).limit(0);
+        capacity = attributes.vertexSize * numVertices * regions;
+        bufferHandle = Kerman.gl20.glGenBuffer();
+        // the storage is allocated by orphaning on the first upload.
+        writeOffset = capacity;
+        createVAO();
+    }
+
+    @NotNull
+    @Override
+    public VertexAttributes getAttributes() {
+        return attributes;
+    }
+
+    @Override
+    public int getNumVertices() {
+        return buffer.limit() * 4 / attributes.vertexSize;
+    }
+
+    @Override
+    public int getNumMaxVertices() {
+        return byteBuffer.capacity() / attributes.vertexSize;
+    }
+
+    /**
+     * @deprecated use {@link #getBuffer(boolean)} instead
+     */
+    @NotNull
+    @Override
+    @Deprecated
+    public FloatBuffer getBuffer() {
+        isDirty = true;
+        return buffer;
+    }
+
+    @NotNull
+    @Override
+    public FloatBuffer getBuffer(boolean forWriting) {
+        isDirty |= forWriting;
+        return buffer;
+    }
+
+    @Override
+    public void setVertices(@NotNull float[] vertices, int offset, int count) {
+        isDirty = true;
+        BufferUtils.copy(vertices, byteBuffer, count, offset);
+        ((Buffer) buffer).position(0);
+        ((Buffer) buffer).limit(count);
+    }
+
+    @Override
+    public void updateVertices(int targetOffset, @NotNull float[] vertices, int sourceOffset, int count) {
+        isDirty = true;
+        final int pos = byteBuffer.position();
+        ((Buffer) byteBuffer).position(targetOffset * 4);
+        BufferUtils.copy(vertices, sourceOffset, count, byteBuffer);
+        ((Buffer) byteBuffer).position(pos);
+        ((Buffer) buffer).position(0);
+    }
+
+    /**
+     * Writes the vertices behind the previous upload, orphaning the buffer if they don't fit anymore. The buffer must be bound.
+     */
+    private void upload() {
+        final GLES20 gl = Kerman.gl20;
+        int bytes = buffer.limit() * 4;
+        if (writeOffset + bytes > capacity) {
+            gl.glBufferData(GLES20.GL_ARRAY_BUFFER, capacity, null, GLES20.GL_STREAM_DRAW);
+            writeOffset = 0;
+        }
+        ((Buffer) byteBuffer).position(0);
+        ((Buffer) byteBuffer).limit(bytes);
+        if (!map(bytes)) gl.glBufferSubData(GLES20.GL_ARRAY_BUFFER, writeOffset, bytes, byteBuffer);
+        ((Buffer) byteBuffer).limit(byteBuffer.capacity());
+        drawOffset = writeOffset;
+        writeOffset += bytes;
+        isDirty = false;
+    }
+
+    /**
+     * @return false if the range couldn't be mapped and has to be uploaded with glBufferSubData
+     */
+    private boolean map(int bytes) {
+        final GLES30 gl = Kerman.gl30;
+        if (gl == null || bytes == 0) return false;
+        Buffer mapped = gl.glMapBufferRange(GLES20.GL_ARRAY_BUFFER, writeOffset, bytes, GLES30.GL_MAP_WRITE_BIT
+                | GLES30.GL_MAP_INVALIDATE_RANGE_BIT | GLES30.GL_MAP_UNSYNCHRONIZED_BIT);
+        if (!(mapped instanceof ByteBuffer)) return false;
+        ((ByteBuffer) mapped).put(byteBuffer.duplicate());
+        // the content is undefined if unmapping fails, e.g. because the context lost the buffer.
+        return gl.glUnmapBuffer(GLES20.GL_ARRAY_BUFFER);
+    }
+
+    @Override
+    public void bind(@NotNull ShaderProgram shader) {
+        bind(shader, null);
+    }
+
+    @Override
+    public void bind(@NotNull ShaderProgram shader, int[] locations) {
+        final GLES20 gl = Kerman.gl20;
+
+        if (vaoHandle != -1) Kerman.gl30.glBindVertexArray(vaoHandle);
+        gl.glBindBuffer(GLES20.GL_ARRAY_BUFFER, bufferHandle);
+        if (isDirty) upload();
+
+        final int numAttributes = attributes.size();
+        for (int i = 0; i < numAttributes; i++) {
+            final VertexAttribute attribute = attributes.get(i);
+            final int location = locations == null ? shader.getAttributeLocation(attribute.alias) : locations[i];
+            if (location < 0) continue;
+            shader.enableVertexAttribute(location);
+
+            shader.setVertexAttribute(location, attribute.numComponents, attribute.type, attribute.normalized,
+                    attributes.vertexSize, drawOffset + attribute.offset);
+        }
+    }
+
+    @Override
+    public void unbind(@NotNull final ShaderProgram shader) {
+        unbind(shader, null);
+    }
+
+    @Override
+    public void unbind(@NotNull final ShaderProgram shader, final int[] locations) {
+        final int numAttributes = attributes.size();
+        if (locations == null) {
+            for (int i = 0; i < numAttributes; i++) {
+                shader.disableVertexAttribute(attributes.get(i).alias);
+            }
+        } else {
+            for (int i = 0; i < numAttributes; i++) {
+                final int location = locations[i];
+                if (location >= 0) shader.disableVertexAttribute(location);
+            }
+        }
+        Kerman.gl20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 0);
+        if (vaoHandle != -1) Kerman.gl30.glBindVertexArray(0);
+    }
+
+    /**
+     * Invalidates the buffer so a new OpenGL buffer handle is created. Use this in case of a context loss.
+     */
+    @Override
+    public void invalidate() {
+        bufferHandle = Kerman.gl20.glGenBuffer();
+        createVAO();
+        writeOffset = capacity;
+        isDirty = true;
+    }
+
+    @Override
+    public void dispose() {
+        GLES20 gl = Kerman.gl20;
+        gl.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 0);
+        gl.glDeleteBuffer(bufferHandle);
+        bufferHandle = 0;
+        BufferUtils.disposeUnsafeByteBuffer(byteBuffer);
+        deleteVAO();
+    }
+
+    private void createVAO() {
+        if (Kerman.gl30 == null) return;
+        ((Buffer) tmpHandle).clear();
+        Kerman.gl30.glGenVertexArrays(1, tmpHandle);
+        vaoHandle = tmpHandle.get();
+    }
+
+    private void deleteVAO() {
+        if (vaoHandle != -1) {
+            ((Buffer) tmpHandle).clear();
+            tmpHandle.put(vaoHandle);
+            ((Buffer) tmpHandle).flip();
+            Kerman.gl30.glDeleteVertexArrays(1, tmpHandle);
+            vaoHandle = -1;
+        }
+    }
+}
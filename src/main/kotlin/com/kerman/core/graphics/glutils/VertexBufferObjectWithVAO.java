@@ -32,7 +32,7 @@ import java.nio.IntBuffer;
  * <p>
  * Code adapted from {@link VertexBufferObject}.
  */
-public class VertexBufferObjectWithVAO implements VertexData {
+public class VertexBufferObjectWithVAO implements VertexData, IncrementalUpload {
     final static IntBuffer tmpHandle = BufferUtils.newIntBuffer(1);
 
     final VertexAttributes attributes;
@@ -45,6 +45,7 @@ public class VertexBufferObjectWithVAO implements VertexData {
     boolean isDirty = false;
     boolean isBound = false;
     int vaoHandle = -1;
+    int uploadedBytes;
     KermanIntArray cachedLocations = new KermanIntArray();
 
     /**
@@ -240,9 +241,21 @@ public class VertexBufferObjectWithVAO implements VertexData {
             ((Buffer) byteBuffer).limit(buffer.limit() * 4);
             gl.glBufferData(GLES20.GL_ARRAY_BUFFER, byteBuffer.limit(), byteBuffer, usage);
             isDirty = false;
+            uploadedBytes = 0;
         }
     }
 
+    @Override
+    public boolean upload(@NotNull UploadBudget budget) {
+        if (!isDirty) return true;
+        ((Buffer) byteBuffer).limit(buffer.limit() * 4);
+        uploadedBytes = budget.uploadBuffer(GLES20.GL_ARRAY_BUFFER, bufferHandle, byteBuffer, uploadedBytes, usage);
+        if (uploadedBytes < byteBuffer.limit()) return false;
+        uploadedBytes = 0;
+        isDirty = false;
+        return true;
+    }
+
     /**
      * Unbinds this VertexBufferObject.
      *
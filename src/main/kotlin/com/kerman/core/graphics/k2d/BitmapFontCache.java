@@ -9,6 +9,7 @@ import com.kerman.core.utils.FlushablePool;
 import com.kerman.core.utils.KermanArray;
 import com.kerman.core.utils.KermanIntArray;
 import com.kerman.core.utils.NumberUtils;
+import org.jetbrains.annotations.Nullable;
 import java.util.Arrays;
 
 /**
@@ -29,6 +30,7 @@ public class BitmapFontCache {
         }
     };
     private final Color color = new Color(1, 1, 1, 1);
+    private @Nullable GlyphLayoutCache layoutCache;
     private boolean integer;
     private int glyphCount;
     private float x, y;
@@ -549,8 +551,13 @@ public class BitmapFontCache {
      */
     public GlyphLayout addText(CharSequence str, float x, float y, int start, int end, float targetWidth, int halign,
                                boolean wrap, String truncate) {
-        GlyphLayout layout = pooledLayouts.obtain();
-        layout.setText(font, str, start, end, color, targetWidth, halign, wrap, truncate);
+        GlyphLayout layout;
+        if (layoutCache != null)
+            layout = layoutCache.get(font, str, start, end, color, targetWidth, halign, wrap, truncate);
+        else {
+            layout = pooledLayouts.obtain();
+            layout.setText(font, str, start, end, color, targetWidth, halign, wrap, truncate);
+        }
         addText(layout, x, y);
         return layout;
     }
@@ -578,6 +585,19 @@ public class BitmapFontCache {
         return y;
     }
 
+    /**
+     * Sets the cache the layouts of added text are taken from, or null to lay out the text every time it is added. The layouts
+     * returned by the setText and addText methods are then shared and must not be modified. A cache can be shared by the caches of
+     * several fonts and labels, and the cache of a font is set with {@code font.getCache().setLayoutCache(layoutCache)}.
+     */
+    public void setLayoutCache(@Nullable GlyphLayoutCache layoutCache) {
+        this.layoutCache = layoutCache;
+    }
+
+    public @Nullable GlyphLayoutCache getLayoutCache() {
+        return layoutCache;
+    }
+
     public BitmapFont getFont() {
         return font;
     }
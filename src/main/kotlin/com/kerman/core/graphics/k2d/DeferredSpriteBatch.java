@@ -0,0 +1,149 @@
+package com.kerman.core.graphics.k2d;
+
+import com.kerman.core.graphics.glutils.ShaderProgram;
+import com.kerman.core.math.Matrix4;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A {@link SpriteBatch} that records the sprites drawn between {@link #begin()} and {@link #end()} instead of rendering them right
+ * away, and renders them sorted by {@link #setLayer(int) layer} and then by state (texture, shader and blending) in end. Sprites
+ * drawn with the same state are merged into one flush even if other textures were drawn in between, so interleaved draws across
+ * textures and blend modes need far fewer flushes than in submission order.
+ * <p>
+ * Layers are drawn from the lowest to the highest. Within a layer, sprites with the same state keep the order they were drawn in,
+ * but sprites with different states may be reordered, so sprites whose overlap matters have to be drawn in different layers.
+ * <p>
+ * {@link #flush()} only records the sprites drawn so far. Changing the projection or transform matrix while drawing renders
+ * everything recorded so far, as it was drawn with the previous matrix.
+ */
+public class DeferredSpriteBatch extends SpriteBatch {
+    private final SpriteCommands commands = new SpriteCommands();
+    private int[] order = new int[64], orderTemp = new int[64];
+    private int layer;
+    private boolean rendering;
+
+    /**
+     * Constructs a batch of 1000 sprites with the default shader.
+     */
+    public DeferredSpriteBatch() {
+        this(1000, null);
+    }
+
+    /**
+     * @param size          the max number of sprites in a single flush. Max of 8191. The number of recorded sprites is unbounded.
+     * @param defaultShader the default shader to use, see {@link SpriteBatch#SpriteBatch(int, ShaderProgram)}
+     */
+    public DeferredSpriteBatch(int size, @Nullable ShaderProgram defaultShader) {
+        super(size, defaultShader);
+    }
+
+    /**
+     * Sets the layer of the sprites drawn from now on. Lower layers are drawn first. Defaults to 0 and is kept after {@link #end()}.
+     */
+    public void setLayer(int layer) {
+        if (this.layer == layer) return;
+        flush();
+        this.layer = layer;
+    }
+
+    public int getLayer() {
+        return layer;
+    }
+
+    @Override
+    public void end() {
+        if (!drawing) throw new IllegalStateException("SpriteBatch.begin must be called before end.");
+        flush();
+        renderRecorded();
+        super.end();
+    }
+
+    /**
+     * Records the sprites drawn since the last flush with the current state.
+     */
+    @Override
+    public void flush() {
+        if (rendering) {
+            super.flush();
+            return;
+        }
+        if (idx == 0) return;
+        commands.add(this, layer, vertices, idx);
+        idx = 0;
+    }
+
+    @Override
+    public void setProjectionMatrix(@NotNull Matrix4 projection) {
+        if (drawing) {
+            flush();
+            renderRecorded();
+        }
+        super.setProjectionMatrix(projection);
+    }
+
+    @Override
+    public void setTransformMatrix(@NotNull Matrix4 transform) {
+        if (drawing) {
+            flush();
+            renderRecorded();
+        }
+        super.setTransformMatrix(transform);
+    }
+
+    /**
+     * Renders the recorded sprites sorted by layer and state.
+     */
+    private void renderRecorded() {
+        int count = commands.size();
+        if (count == 0) return;
+        sort(count);
+        rendering = true;
+        playback(commands, order);
+        rendering = false;
+        commands.clear();
+    }
+
+    /**
+     * Sorts the indices of the commands into {@link #order} by layer and then state. The sort is stable, so runs with the same
+     * layer and state stay in the order they were drawn.
+     */
+    private void sort(int count) {
+        if (order.length < count) {
+            order = new int[Math.max(count, order.length * 2)];
+            orderTemp = new int[order.length];
+        }
+        int[] order = this.order, temp = orderTemp;
+        for (int i = 0; i < count; i++)
+            order[i] = i;
+        int[] commands = this.commands.commands.items;
+        // bottom-up merge sort, already sorted runs are merged with a single comparison.
+        for (int width = 1; width < count; width <<= 1) {
+            for (int start = 0; start < count; start += width << 1) {
+                int middle = Math.min(start + width, count), end = Math.min(start + (width << 1), count);
+                if (middle == end || compare(commands, order[middle - 1], order[middle]) <= 0) {
+                    System.arraycopy(order, start, temp, start, end - start);
+                    continue;
+                }
+                for (int i = start, left = start, right = middle; i < end; i++) {
+                    if (left < middle && (right == end || compare(commands, order[left], order[right]) <= 0))
+                        temp[i] = order[left++];
+                    else
+                        temp[i] = order[right++];
+                }
+            }
+            int[] swap = order;
+            order = temp;
+            temp = swap;
+        }
+        this.order = order;
+        orderTemp = temp;
+    }
+
+    static private int compare(int[] commands, int a, int b) {
+        a *= 4;
+        b *= 4;
+        int result = Integer.compare(commands[a], commands[b]);
+        return result != 0 ? result : Integer.compare(commands[a + 1], commands[b + 1]);
+    }
+}
@@ -0,0 +1,256 @@
+package com.kerman.core.graphics.k2d;
+
+import com.kerman.core.files.FileHandle;
+import com.kerman.core.graphics.Texture;
+import com.kerman.core.graphics.Texture.TextureFilter;
+import com.kerman.core.graphics.glutils.ShaderProgram;
+import com.kerman.core.utils.KermanArray;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Info : This class was inspired by "com.badlogic.gdx.graphics.g2d.DistanceFieldFont".
+ * <p>
+ * Renders a font whose pages store signed distance fields instead of coverage, so a single atlas renders crisp text at any
+ * {@link BitmapFontData#setScale(float) scale}. {@link Type#SDF} fonts store the distance in the alpha channel, like fonts exported
+ * by Hiero with the distance field effect, and {@link Type#MSDF} fonts store 3 distances in the color channels, like fonts made by
+ * msdfgen based tools, which keeps corners sharp.
+ * <p>
+ * The font cache draws with the shader of the font, see {@link #getDistanceFieldShader()}, and sets its smoothing uniform from the
+ * {@link #getSpread() spread}, the font scale and the {@link #setProjectionScale(float) projection scale}, so edges stay about one
+ * pixel wide at every size. The batch must use the vertex layout of {@link SpriteBatch}. The uniform is only set on the GL thread,
+ * when the cache draws to a batch that renders or when the shader is bound, so the font can be drawn to a
+ * {@link SpriteCommandBuffer} on another thread. Batches that draw later than the font cache, like {@link DeferredSpriteBatch} and
+ * submitted command buffers, get the smoothing the font was last drawn with, so the font must not be drawn to them at different
+ * scales.
+ * <p>
+ * Page textures that still have the default nearest filtering are set to linear filtering, because distance fields are
+ * interpolated. Pages whose filter was chosen, e.g. with the {@link com.kerman.core.assets.loaders.BitmapFontLoader.BitmapFontParameter
+ * loader parameters} or by a texture atlas, keep it.
+ */
+public class DistanceFieldFont extends BitmapFont {
+    private final Type type;
+    private final float spread;
+    private float projectionScale = 1;
+    private @Nullable DistanceFieldShader shader;
+
+    /**
+     * Loads the font and its page images.
+     *
+     * @param spread the distance in texels of the page images from the edge of a glyph to where the field is 0 or 1
+     */
+    public DistanceFieldFont(FileHandle fontFile, Type type, float spread) {
+        this(new BitmapFontData(fontFile, false), (KermanArray<TextureRegion>) null, true, type, spread);
+    }
+
+    /**
+     * @param spread the distance in texels of the page images from the edge of a glyph to where the field is 0 or 1
+     * @see BitmapFont#BitmapFont(FileHandle, TextureRegion)
+     */
+    public DistanceFieldFont(FileHandle fontFile, TextureRegion region, Type type, float spread) {
+        this(new BitmapFontData(fontFile, false), KermanArray.with(region), true, type, spread);
+    }
+
+    /**
+     * @param spread the distance in texels of the page images from the edge of a glyph to where the field is 0 or 1
+     * @see BitmapFont#BitmapFont(BitmapFontData, KermanArray, boolean)
+     */
+    public DistanceFieldFont(BitmapFontData data, @Nullable KermanArray<TextureRegion> pageRegions, boolean integer, Type type,
+                             float spread) {
+        super(data, pageRegions, integer);
+        if (spread <= 0) throw new IllegalArgumentException("spread must be > 0: " + spread);
+        this.type = type;
+        this.spread = spread;
+        // created with the font on the GL thread, so drawing the font to a command buffer on another thread needs no GL.
+        shader = new DistanceFieldShader(type);
+    }
+
+    @Override
+    protected void load(BitmapFontData data) {
+        super.load(data);
+        // Distance fields are interpolated, nearest filtering makes the edges blocky. Nearest is the default of textures, so it
+        // is taken as not specified.
+        for (TextureRegion region : getRegions()) {
+            Texture texture = region.getTexture();
+            if (texture.getMinFilter() == TextureFilter.Nearest && texture.getMagFilter() == TextureFilter.Nearest)
+                texture.setFilter(TextureFilter.Linear, TextureFilter.Linear);
+        }
+    }
+
+    @Override
+    public BitmapFontCache newFontCache() {
+        return new DistanceFieldFontCache(this, integer);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public float getSpread() {
+        return spread;
+    }
+
+    /**
+     * @return the number of screen pixels per world unit the text is drawn with, 1 by default
+     */
+    public float getProjectionScale() {
+        return projectionScale;
+    }
+
+    /**
+     * Sets the number of screen pixels per world unit, so the edges stay one pixel wide when the projection scales the text, e.g.
+     * 1 / zoom for an {@link com.kerman.core.graphics.OrthographicCamera} showing one world unit per pixel at zoom 1.
+     */
+    public void setProjectionScale(float projectionScale) {
+        this.projectionScale = projectionScale;
+    }
+
+    /**
+     * @return the half width of the edge in distance field units at the current scales
+     */
+    public float getSmoothing() {
+        return 0.25f / (spread * Math.abs(getScaleX()) * projectionScale);
+    }
+
+    /**
+     * Returns the shader the font cache draws with, created with the font. It sets the smoothing the font was last drawn with when
+     * it is bound and is disposed with the font.
+     */
+    public ShaderProgram getDistanceFieldShader() {
+        if (shader == null) throw new IllegalStateException("The font is disposed.");
+        return shader;
+    }
+
+    /**
+     * Returns a new instance of a shader for distance field fonts of the type, with the smoothing in the uniform
+     * {@code u_smoothing}.
+     */
+    static public ShaderProgram createDistanceFieldShader(Type type) {
+        ShaderProgram shader = new ShaderProgram(vertexShader(), fragmentShader(type));
+        if (!shader.isCompiled()) throw new IllegalArgumentException("Error compiling shader: " + shader.getLog());
+        return shader;
+    }
+
+    static private String vertexShader() {
+        return "attribute vec4 " + ShaderProgram.POSITION_ATTRIBUTE + ";\n" //
+                + "attribute vec4 " + ShaderProgram.COLOR_ATTRIBUTE + ";\n" //
+                + "attribute vec2 " + ShaderProgram.TEXCOORD_ATTRIBUTE + "0;\n" //
+                + "uniform mat4 u_projTrans;\n" //
+                + "varying vec4 v_color;\n" //
+                + "varying vec2 v_texCoords;\n" //
+                + "\n" //
+                + "void main()\n" //
+                + "{\n" //
+                + "   v_color = " + ShaderProgram.COLOR_ATTRIBUTE + ";\n" //
+                + "   v_color.a = v_color.a * (255.0/254.0);\n" //
+                + "   v_texCoords = " + ShaderProgram.TEXCOORD_ATTRIBUTE + "0;\n" //
+                + "   gl_Position =  u_projTrans * " + ShaderProgram.POSITION_ATTRIBUTE + ";\n" //
+                + "}\n";
+    }
+
+    static private String fragmentShader(Type type) {
+        String distance = type == Type.MSDF //
+                ? "  vec3 msd = texture2D(u_texture, v_texCoords).rgb;\n" //
+                + "  float distance = max(min(msd.r, msd.g), min(max(msd.r, msd.g), msd.b));\n" //
+                : "  float distance = texture2D(u_texture, v_texCoords).a;\n";
+        return "#ifdef GL_ES\n" //
+                + "#define LOWP lowp\n" //
+                + "precision mediump float;\n" //
+                + "#else\n" //
+                + "#define LOWP \n" //
+                + "#endif\n" //
+                + "varying LOWP vec4 v_color;\n" //
+                + "varying vec2 v_texCoords;\n" //
+                + "uniform sampler2D u_texture;\n" //
+                + "uniform float u_smoothing;\n" //
+                + "void main()\n"//
+                + "{\n" //
+                + distance //
+                + "  float alpha = smoothstep(0.5 - u_smoothing, 0.5 + u_smoothing, distance);\n" //
+                + "  gl_FragColor = vec4(v_color.rgb, v_color.a * alpha);\n" //
+                + "}";
+    }
+
+    @Override
+    public void dispose() {
+        super.dispose();
+        if (shader != null) {
+            shader.dispose();
+            shader = null;
+        }
+    }
+
+    /**
+     * How the distances are stored in the page images.
+     */
+    public enum Type {
+        /**
+         * One distance in the alpha channel.
+         */
+        SDF,
+        /**
+         * Three distances in the red, green and blue channels, whose median is the distance.
+         */
+        MSDF
+    }
+
+    /**
+     * A distance field shader that sets the smoothing it was last given when it is bound, so batches that bind it later, like
+     * {@link SpriteBatch#submit(SpriteCommandBuffer)}, draw with it.
+     */
+    static private class DistanceFieldShader extends ShaderProgram {
+        float smoothing = 0.5f;
+
+        DistanceFieldShader(Type type) {
+            super(vertexShader(), fragmentShader(type));
+            if (!isCompiled()) throw new IllegalArgumentException("Error compiling shader: " + getLog());
+        }
+
+        @Override
+        public void bind() {
+            super.bind();
+            setUniformf("u_smoothing", smoothing);
+        }
+    }
+
+    /**
+     * Draws the glyphs with the shader of the font and the smoothing for the current scale, restoring the shader of the batch
+     * afterwards.
+     */
+    static private class DistanceFieldFontCache extends BitmapFontCache {
+        DistanceFieldFontCache(DistanceFieldFont font, boolean integer) {
+            super(font, integer);
+        }
+
+        @Override
+        public void draw(Batch spriteBatch) {
+            ShaderProgram previous = begin(spriteBatch);
+            super.draw(spriteBatch);
+            spriteBatch.setShader(previous);
+        }
+
+        @Override
+        public void draw(Batch spriteBatch, int start, int end) {
+            ShaderProgram previous = begin(spriteBatch);
+            super.draw(spriteBatch, start, end);
+            spriteBatch.setShader(previous);
+        }
+
+        /**
+         * @return the custom shader of the batch, or null if it draws with its default shader
+         */
+        private @Nullable ShaderProgram begin(Batch batch) {
+            DistanceFieldFont font = (DistanceFieldFont) getFont();
+            DistanceFieldShader shader = (DistanceFieldShader) font.getDistanceFieldShader();
+            // getShader returns the default shader when no custom shader is set, restoring it would make it the custom shader.
+            ShaderProgram previous = batch instanceof SpriteBatch ? ((SpriteBatch) batch).customShader : batch.getShader();
+            batch.setShader(shader);
+            // Glyphs drawn at another scale may still be pending with a different smoothing.
+            batch.flush();
+            shader.smoothing = Math.min(font.getSmoothing(), 0.5f);
+            // command buffers record on any thread and bind the shader when they are submitted.
+            if (batch.isDrawing() && !(batch instanceof SpriteCommandBuffer))
+                shader.setUniformf("u_smoothing", shader.smoothing);
+            return previous;
+        }
+    }
+}
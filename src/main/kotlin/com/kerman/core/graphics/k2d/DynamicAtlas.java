@@ -0,0 +1,444 @@
+package com.kerman.core.graphics.k2d;
+
+import com.kerman.core.Kerman;
+import com.kerman.core.graphics.GLES20;
+import com.kerman.core.graphics.GLES30;
+import com.kerman.core.graphics.Pixmap;
+import com.kerman.core.graphics.Pixmap.Blending;
+import com.kerman.core.graphics.Pixmap.Format;
+import com.kerman.core.graphics.Texture;
+import com.kerman.core.graphics.Texture.TextureFilter;
+import com.kerman.core.graphics.glutils.PixmapTextureData;
+import com.kerman.core.utils.Disposable;
+import com.kerman.core.utils.KermanArray;
+import com.kerman.core.utils.KermanIntArray;
+import com.kerman.core.utils.KermanRuntimeException;
+import com.kerman.core.utils.ObjectMap;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * Packs pixmaps created at runtime, like rendered text, avatars or minimap tiles, into a few page textures, so they can be drawn
+ * by a batch without switching textures. Pixmaps are placed with a skyline packer, and the space wasted below the skyline and
+ * freed by {@link #remove(String)} is reused by splitting it guillotine style. A page starts at the initial page size and doubles
+ * until the max page size before another page is added.
+ * <p>
+ * Packing only draws into the pixmap kept for each page. {@link #update()} uploads the changed rectangle of each page with
+ * glTexSubImage2D and must be called before the regions are drawn. The page textures are managed and restored from those pixmaps
+ * when the context is lost.
+ * <p>
+ * Pixmaps packed with {@link #packTransient(String, Pixmap)} are put on separate pages. When all pages are full, the transient
+ * page used least recently by {@link #get(String)} is evicted with all its entries, so transient regions should be looked up with
+ * {@link #get(String)} when they are drawn rather than kept.
+ * <p>
+ * Growing a page replaces its texture and updates the regions returned for it, but not sprites and other objects that copied the
+ * texture coordinates of a region. All methods must be called on the rendering thread.
+ */
+public class DynamicAtlas implements Disposable {
+    private final Format format;
+    private final int pageSize, maxPageSize, maxPages, padding;
+    private final KermanArray<Page> pages = new KermanArray<>();
+    private final ObjectMap<String, Entry> entries = new ObjectMap<>();
+    private TextureFilter minFilter = TextureFilter.Nearest, magFilter = TextureFilter.Nearest;
+    private long useCount;
+    /**
+     * The position found by the last successful {@link Page#place(int, int)}.
+     */
+    private int placedX, placedY;
+
+    /**
+     * Creates an atlas with up to 4 RGBA8888 pages that start at 256x256 and grow up to 2048x2048, with 1 pixel of padding.
+     */
+    public DynamicAtlas() {
+        this(Format.RGBA8888, 256, 2048, 4, 1);
+    }
+
+    /**
+     * @param pageSize    the width and height of a new page
+     * @param maxPageSize the width and height up to which a page grows
+     * @param maxPages    the number of pages after which transient pages are evicted
+     * @param padding     the number of transparent pixels right of and below every image
+     */
+    public DynamicAtlas(Format format, int pageSize, int maxPageSize, int maxPages, int padding) {
+        if (pageSize < 1 || pageSize > maxPageSize)
+            throw new IllegalArgumentException("pageSize must be > 0 and <= maxPageSize: " + pageSize + ", " + maxPageSize);
+        if (maxPages < 1) throw new IllegalArgumentException("maxPages must be > 0: " + maxPages);
+        if (padding < 0) throw new IllegalArgumentException("padding must be >= 0: " + padding);
+        this.format = format;
+        this.pageSize = pageSize;
+        this.maxPageSize = maxPageSize;
+        this.maxPages = maxPages;
+        this.padding = padding;
+    }
+
+    public void setFilter(TextureFilter minFilter, TextureFilter magFilter) {
+        this.minFilter = minFilter;
+        this.magFilter = magFilter;
+        for (Page page : pages)
+            page.texture.setFilter(minFilter, magFilter);
+    }
+
+    /**
+     * Packs a copy of the pixmap, which can be disposed afterwards. The entry is kept until it is removed.
+     *
+     * @return the region of the image, which is updated when its page grows
+     * @throws KermanRuntimeException if the name is already packed or there is no space left that isn't used by other entries
+     */
+    public TextureRegion pack(String name, Pixmap pixmap) {
+        return pack(name, pixmap, false);
+    }
+
+    /**
+     * Packs a copy of the pixmap on a transient page, which may be evicted by later packing.
+     *
+     * @return the region of the image, which must no longer be drawn once {@link #get(String)} returns null for the name
+     * @throws KermanRuntimeException if the name is already packed or there is no space left that isn't used by other entries
+     */
+    public TextureRegion packTransient(String name, Pixmap pixmap) {
+        return pack(name, pixmap, true);
+    }
+
+    private TextureRegion pack(String name, Pixmap pixmap, boolean evictable) {
+        if (entries.containsKey(name)) throw new KermanRuntimeException("Pixmap has already been packed with name: " + name);
+        int width = pixmap.getWidth() + padding, height = pixmap.getHeight() + padding;
+        if (width > maxPageSize || height > maxPageSize)
+            throw new KermanRuntimeException("Pixmap is too large for a page of " + maxPageSize + "x" + maxPageSize + ": " + name);
+
+        Page page = place(width, height, evictable);
+        Entry entry = new Entry(name, page, placedX, placedY, pixmap.getWidth(), pixmap.getHeight());
+        page.pixmap.drawPixmap(pixmap, entry.x, entry.y);
+        page.dirty(entry.x, entry.y, entry.width, entry.height);
+        page.entries.add(entry);
+        page.lastUsed = ++useCount;
+        page.setRegion(entry);
+        entries.put(name, entry);
+        return entry.region;
+    }
+
+    private Page place(int width, int height, boolean evictable) {
+        for (Page page : pages)
+            if (page.evictable == evictable && page.place(width, height)) return page;
+        for (Page page : pages) {
+            if (page.evictable != evictable) continue;
+            while (page.grow())
+                if (page.place(width, height)) return page;
+        }
+
+        if (pages.size == maxPages) {
+            Page leastUsed = null;
+            for (Page page : pages)
+                if (page.evictable && (leastUsed == null || page.lastUsed < leastUsed.lastUsed)) leastUsed = page;
+            if (leastUsed == null) throw new KermanRuntimeException("All " + maxPages + " pages are full.");
+            evict(leastUsed);
+        }
+        Page page = new Page(evictable);
+        pages.add(page);
+        while (!page.place(width, height))
+            if (!page.grow()) throw new KermanRuntimeException("Image doesn't fit on an empty page: " + width + "x" + height);
+        return page;
+    }
+
+    private void evict(Page page) {
+        for (Entry entry : page.entries)
+            entries.remove(entry.name);
+        pages.removeValue(page, true);
+        page.dispose();
+    }
+
+    /**
+     * Returns the region of the image packed with the name, or null if it wasn't packed, was removed or its transient page was
+     * evicted. This marks the page of a transient image as used.
+     */
+    public @Nullable TextureRegion get(String name) {
+        Entry entry = entries.get(name);
+        if (entry == null) return null;
+        entry.page.lastUsed = ++useCount;
+        return entry.region;
+    }
+
+    /**
+     * Removes the image packed with the name and clears its space for other images. Its region must no longer be drawn.
+     *
+     * @return false if the name wasn't packed
+     */
+    public boolean remove(String name) {
+        Entry entry = entries.remove(name);
+        if (entry == null) return false;
+        Page page = entry.page;
+        page.entries.removeValue(entry, true);
+        page.free(entry.x, entry.y, entry.width + padding, entry.height + padding);
+        return true;
+    }
+
+    /**
+     * Uploads the rectangle of each page changed since the last update.
+     */
+    public void update() {
+        for (Page page : pages)
+            page.upload();
+    }
+
+    public int getPageCount() {
+        return pages.size;
+    }
+
+    /**
+     * @return the texture of the page, which is replaced when the page grows
+     */
+    public Texture getPageTexture(int page) {
+        return pages.get(page).texture;
+    }
+
+    @Override
+    public void dispose() {
+        for (Page page : pages)
+            page.dispose();
+        pages.clear();
+        entries.clear();
+    }
+
+    static private class Entry {
+        final String name;
+        final Page page;
+        final int x, y, width, height;
+        final TextureRegion region = new TextureRegion();
+
+        Entry(String name, Page page, int x, int y, int width, int height) {
+            this.name = name;
+            this.page = page;
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    private class Page {
+        final boolean evictable;
+        final KermanArray<Entry> entries = new KermanArray<>(false, 16, Entry[]::new);
+        /**
+         * The lowest free row from the top of the page, as segments of x, y and width covering the page width.
+         */
+        final KermanIntArray skyline = new KermanIntArray();
+        /**
+         * Free rectangles below the skyline, as x, y, width and height.
+         */
+        final KermanIntArray freeRects = new KermanIntArray();
+        Pixmap pixmap;
+        Texture texture;
+        int dirtyX, dirtyY, dirtyX2, dirtyY2;
+        long lastUsed;
+
+        Page(boolean evictable) {
+            this.evictable = evictable;
+            pixmap = newPixmap(pageSize, pageSize);
+            texture = newTexture();
+            skyline.add(0, 0, pageSize);
+        }
+
+        private Pixmap newPixmap(int width, int height) {
+            Pixmap pixmap = new Pixmap(width, height, format);
+            pixmap.setBlending(Blending.None);
+            pixmap.setColor(0);
+            pixmap.fill();
+            return pixmap;
+        }
+
+        /**
+         * Creates the texture from the whole pixmap, so nothing is dirty afterwards.
+         */
+        private Texture newTexture() {
+            Texture texture = new Texture(new PixmapTextureData(pixmap, null, false, false, true));
+            texture.setFilter(minFilter, magFilter);
+            dirtyX2 = dirtyX;
+            return texture;
+        }
+
+        /**
+         * Finds space for an image and stores its position in {@link #placedX} and {@link #placedY}.
+         *
+         * @return false if the page has no space for the image
+         */
+        boolean place(int width, int height) {
+            return placeFree(width, height) || placeSkyline(width, height);
+        }
+
+        private boolean placeFree(int width, int height) {
+            int[] rects = freeRects.items;
+            int best = -1, bestArea = Integer.MAX_VALUE;
+            for (int i = 0, n = freeRects.size; i < n; i += 4) {
+                int w = rects[i + 2], h = rects[i + 3];
+                if (w >= width && h >= height && w * h < bestArea) {
+                    best = i;
+                    bestArea = w * h;
+                }
+            }
+            if (best == -1) return false;
+
+            int x = rects[best], y = rects[best + 1], w = rects[best + 2], h = rects[best + 3];
+            freeRects.removeRange(best, best + 3);
+            // Split the rest along the shorter leftover side, so the larger leftover stays in one piece.
+            int right = w - width, below = h - height;
+            if (right < below) {
+                addFree(x + width, y, right, height);
+                addFree(x, y + height, w, below);
+            } else {
+                addFree(x + width, y, right, h);
+                addFree(x, y + height, width, below);
+            }
+            placedX = x;
+            placedY = y;
+            return true;
+        }
+
+        private boolean placeSkyline(int width, int height) {
+            int pageWidth = pixmap.getWidth(), pageHeight = pixmap.getHeight();
+            int[] segments = skyline.items;
+            int n = skyline.size, best = -1, bestY = Integer.MAX_VALUE;
+            for (int i = 0; i < n; i += 3) {
+                int x = segments[i];
+                if (x + width > pageWidth) break;
+                int y = 0;
+                for (int j = i; j < n && segments[j] < x + width; j += 3)
+                    y = Math.max(y, segments[j + 1]);
+                if (y + height <= pageHeight && y < bestY) {
+                    best = i;
+                    bestY = y;
+                }
+            }
+            if (best == -1) return false;
+
+            // Keep the space between the covered segments and the image as free rectangles.
+            int x = segments[best], end = x + width, last = best;
+            for (; last < n && segments[last] < end; last += 3) {
+                int segmentX = segments[last], segmentEnd = Math.min(segmentX + segments[last + 2], end);
+                addFree(segmentX, segments[last + 1], segmentEnd - segmentX, bestY - segments[last + 1]);
+            }
+            // Replace the covered segments with one below the image, keeping the uncovered part of the last one.
+            last -= 3;
+            int lastEnd = segments[last] + segments[last + 2];
+            if (lastEnd > end) {
+                segments[last + 2] = lastEnd - end;
+                segments[last] = end;
+                last -= 3;
+            }
+            if (last >= best) skyline.removeRange(best, last + 2);
+            skyline.insertRange(best, 3);
+            segments = skyline.items;
+            segments[best] = x;
+            segments[best + 1] = bestY + height;
+            segments[best + 2] = width;
+            mergeSkyline(best);
+            placedX = x;
+            placedY = bestY;
+            return true;
+        }
+
+        /**
+         * Merges the segment with its neighbours that have the same y.
+         */
+        private void mergeSkyline(int index) {
+            int[] segments = skyline.items;
+            if (index + 3 < skyline.size && segments[index + 4] == segments[index + 1]) {
+                segments[index + 2] += segments[index + 5];
+                skyline.removeRange(index + 3, index + 5);
+            }
+            if (index > 0 && segments[index - 2] == segments[index + 1]) {
+                segments[index - 1] += segments[index + 2];
+                skyline.removeRange(index, index + 2);
+            }
+        }
+
+        private void addFree(int x, int y, int width, int height) {
+            if (width > 0 && height > 0) freeRects.add(x, y, width, height);
+        }
+
+        void free(int x, int y, int width, int height) {
+            pixmap.fillRectangle(x, y, width, height);
+            dirty(x, y, width, height);
+            addFree(x, y, width, height);
+        }
+
+        /**
+         * Doubles the smaller side of the page, replacing its texture.
+         *
+         * @return false if the page has the max size
+         */
+        boolean grow() {
+            int width = pixmap.getWidth(), height = pixmap.getHeight();
+            if (width >= maxPageSize && height >= maxPageSize) return false;
+            int newWidth = width, newHeight = height;
+            if (width <= height && width < maxPageSize)
+                newWidth = Math.min(width * 2, maxPageSize);
+            else
+                newHeight = Math.min(height * 2, maxPageSize);
+
+            Pixmap grown = newPixmap(newWidth, newHeight);
+            grown.drawPixmap(pixmap, 0, 0);
+            pixmap.dispose();
+            pixmap = grown;
+            if (newWidth > width) {
+                skyline.add(width, 0, newWidth - width);
+                mergeSkyline(skyline.size - 3);
+            }
+
+            texture.dispose();
+            texture = newTexture();
+            for (Entry entry : entries)
+                setRegion(entry);
+            return true;
+        }
+
+        void setRegion(Entry entry) {
+            entry.region.setTexture(texture);
+            entry.region.setRegion(entry.x, entry.y, entry.width, entry.height);
+        }
+
+        void dirty(int x, int y, int width, int height) {
+            if (dirtyX2 <= dirtyX) {
+                dirtyX = x;
+                dirtyY = y;
+                dirtyX2 = x + width;
+                dirtyY2 = y + height;
+            } else {
+                dirtyX = Math.min(dirtyX, x);
+                dirtyY = Math.min(dirtyY, y);
+                dirtyX2 = Math.max(dirtyX2, x + width);
+                dirtyY2 = Math.max(dirtyY2, y + height);
+            }
+        }
+
+        void upload() {
+            if (dirtyX2 <= dirtyX) return;
+            GLES20 gl = Kerman.gl;
+            texture.bind();
+            gl.glPixelStorei(GLES20.GL_UNPACK_ALIGNMENT, 1);
+            if (Kerman.graphics.isGL30Available()) {
+                gl.glPixelStorei(GLES30.GL_UNPACK_ROW_LENGTH, pixmap.getWidth());
+                gl.glPixelStorei(GLES30.GL_UNPACK_SKIP_PIXELS, dirtyX);
+                gl.glPixelStorei(GLES30.GL_UNPACK_SKIP_ROWS, dirtyY);
+                gl.glTexSubImage2D(texture.glTarget, 0, dirtyX, dirtyY, dirtyX2 - dirtyX, dirtyY2 - dirtyY,
+                        pixmap.getGLFormat(), pixmap.getGLType(), pixmap.getPixels());
+                gl.glPixelStorei(GLES30.GL_UNPACK_ROW_LENGTH, 0);
+                gl.glPixelStorei(GLES30.GL_UNPACK_SKIP_PIXELS, 0);
+                gl.glPixelStorei(GLES30.GL_UNPACK_SKIP_ROWS, 0);
+            } else {
+                // Without GL_UNPACK_ROW_LENGTH only whole rows can be uploaded from the pixmap.
+                int rowBytes = pixmap.getWidth() * Kerman2DPixmap.getBytesPerPixel(Format.toKerman2DPixmapFormat(format));
+                ByteBuffer rows = pixmap.getPixels().duplicate();
+                ((Buffer) rows).limit(dirtyY2 * rowBytes);
+                ((Buffer) rows).position(dirtyY * rowBytes);
+                gl.glTexSubImage2D(texture.glTarget, 0, 0, dirtyY, pixmap.getWidth(), dirtyY2 - dirtyY, pixmap.getGLFormat(),
+                        pixmap.getGLType(), rows);
+            }
+            dirtyX2 = dirtyX;
+        }
+
+        void dispose() {
+            texture.dispose();
+            pixmap.dispose();
+        }
+    }
+}
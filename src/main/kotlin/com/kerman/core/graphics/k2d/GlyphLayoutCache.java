@@ -0,0 +1,231 @@
+package com.kerman.core.graphics.k2d;
+
+import com.kerman.core.graphics.Color;
+import com.kerman.core.graphics.k2d.BitmapFont.BitmapFontData;
+import com.kerman.core.math.MathUtils;
+import com.kerman.core.utils.Align;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * A least recently used cache of {@link GlyphLayout layouts}, so laying out text that was laid out recently costs a hash lookup
+ * instead of wrapping, kerning and building the runs again. Layouts are looked up by font, text, color, target width, alignment,
+ * wrap and truncate, and the scale and {@link BitmapFontData#markupEnabled} of the font data. {@link #clear()} must be called after
+ * other font data that affects layouts is changed.
+ * <p>
+ * The returned layouts are shared and must not be modified. A layout stays valid after it was evicted, so it can be kept by a
+ * {@link BitmapFontCache}. Like GlyphLayout, this class must only be used from the game thread.
+ */
+public class GlyphLayoutCache {
+    private final int capacity;
+    private final Entry[] table;
+    private int size;
+    /**
+     * The most and least recently used entries.
+     */
+    private @Nullable Entry head, tail;
+    private long hits, misses;
+
+    /**
+     * Creates a cache of up to 256 layouts.
+     */
+    public GlyphLayoutCache() {
+        this(256);
+    }
+
+    /**
+     * @param capacity the number of layouts after which the least recently used layout is evicted
+     */
+    public GlyphLayoutCache(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be > 0: " + capacity);
+        this.capacity = capacity;
+        table = new Entry[MathUtils.nextPowerOfTwo(capacity * 2)];
+    }
+
+    /**
+     * Returns a layout of the whole string with the font's current color, and no alignment or wrapping.
+     *
+     * @see GlyphLayout#setText(BitmapFont, CharSequence)
+     */
+    public GlyphLayout get(BitmapFont font, CharSequence str) {
+        return get(font, str, 0, str.length(), font.getColor(), 0, Align.left, false, null);
+    }
+
+    /**
+     * Returns a layout of the whole string without truncation.
+     *
+     * @see GlyphLayout#setText(BitmapFont, CharSequence, Color, float, int, boolean)
+     */
+    public GlyphLayout get(BitmapFont font, CharSequence str, Color color, float targetWidth, int halign, boolean wrap) {
+        return get(font, str, 0, str.length(), color, targetWidth, halign, wrap, null);
+    }
+
+    /**
+     * Returns the cached layout for the arguments, laying out the text if it isn't cached.
+     *
+     * @see GlyphLayout#setText(BitmapFont, CharSequence, int, int, Color, float, int, boolean, String)
+     */
+    public GlyphLayout get(BitmapFont font, CharSequence str, int start, int end, Color color, float targetWidth, int halign,
+                           boolean wrap, @Nullable String truncate) {
+        BitmapFontData data = font.data;
+        int colorBits = color.toIntBits();
+        int hash = System.identityHashCode(font);
+        for (int i = start; i < end; i++)
+            hash = 31 * hash + str.charAt(i);
+        hash = 31 * hash + colorBits;
+        hash = 31 * hash + Float.floatToIntBits(targetWidth);
+        hash = 31 * hash + halign;
+        hash = 31 * hash + (wrap ? 1 : 0);
+        hash = 31 * hash + (truncate == null ? 0 : truncate.hashCode());
+        hash = 31 * hash + Float.floatToIntBits(data.scaleX);
+        hash = 31 * hash + Float.floatToIntBits(data.scaleY);
+        hash = 31 * hash + (data.markupEnabled ? 1 : 0);
+        hash ^= hash >>> 16;
+
+        int index = hash & (table.length - 1);
+        for (Entry entry = table[index]; entry != null; entry = entry.next) {
+            if (entry.hash == hash && entry.font == font && entry.colorBits == colorBits && entry.targetWidth == targetWidth
+                    && entry.halign == halign && entry.wrap == wrap && entry.scaleX == data.scaleX && entry.scaleY == data.scaleY
+                    && entry.markupEnabled == data.markupEnabled && equals(entry.truncate, truncate)
+                    && equals(entry.text, str, start, end)) {
+                hits++;
+                if (entry != head) {
+                    unlink(entry);
+                    link(entry);
+                }
+                return entry.layout;
+            }
+        }
+
+        misses++;
+        if (size == capacity) remove(tail);
+        Entry entry = new Entry();
+        entry.hash = hash;
+        entry.font = font;
+        entry.text = new StringBuilder(end - start).append(str, start, end).toString();
+        entry.colorBits = colorBits;
+        entry.targetWidth = targetWidth;
+        entry.halign = halign;
+        entry.wrap = wrap;
+        entry.truncate = truncate;
+        entry.scaleX = data.scaleX;
+        entry.scaleY = data.scaleY;
+        entry.markupEnabled = data.markupEnabled;
+        entry.layout.setText(font, entry.text, 0, entry.text.length(), color, targetWidth, halign, wrap, truncate);
+        entry.next = table[index];
+        table[index] = entry;
+        link(entry);
+        size++;
+        return entry.layout;
+    }
+
+    static private boolean equals(@Nullable String a, @Nullable String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    static private boolean equals(String text, CharSequence str, int start, int end) {
+        if (text.length() != end - start) return false;
+        for (int i = start, ii = 0; i < end; i++, ii++)
+            if (text.charAt(ii) != str.charAt(i)) return false;
+        return true;
+    }
+
+    /**
+     * Adds the entry as the most recently used.
+     */
+    private void link(Entry entry) {
+        entry.previous = null;
+        entry.after = head;
+        if (head != null) head.previous = entry;
+        head = entry;
+        if (tail == null) tail = entry;
+    }
+
+    private void unlink(Entry entry) {
+        if (entry.previous != null)
+            entry.previous.after = entry.after;
+        else
+            head = entry.after;
+        if (entry.after != null)
+            entry.after.previous = entry.previous;
+        else
+            tail = entry.previous;
+    }
+
+    private void remove(Entry entry) {
+        unlink(entry);
+        int index = entry.hash & (table.length - 1);
+        if (table[index] == entry)
+            table[index] = entry.next;
+        else {
+            Entry previous = table[index];
+            while (previous.next != entry)
+                previous = previous.next;
+            previous.next = entry.next;
+        }
+        size--;
+    }
+
+    /**
+     * Removes all layouts, e.g. after font data was changed.
+     */
+    public void clear() {
+        Arrays.fill(table, null);
+        head = null;
+        tail = null;
+        size = 0;
+    }
+
+    /**
+     * @return the number of cached layouts
+     */
+    public int getSize() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the number of lookups that returned a cached layout since the counters were reset
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of lookups that laid out the text since the counters were reset
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    public void resetCounters() {
+        hits = 0;
+        misses = 0;
+    }
+
+    static private class Entry {
+        final GlyphLayout layout = new GlyphLayout();
+        int hash;
+        BitmapFont font;
+        String text;
+        int colorBits;
+        float targetWidth;
+        int halign;
+        boolean wrap;
+        @Nullable String truncate;
+        float scaleX, scaleY;
+        boolean markupEnabled;
+        /**
+         * The next entry in the same bucket.
+         */
+        @Nullable Entry next;
+        /**
+         * The neighbours in the order of use.
+         */
+        @Nullable Entry previous, after;
+    }
+}
@@ -0,0 +1,46 @@
+package com.kerman.core.graphics.k2d;
+
+import com.kerman.core.files.FileHandle;
+import com.kerman.core.utils.KermanArray;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * An effect whose emitters are {@link GpuParticleEmitter GPU emitters}, so existing {@code .p} files can be run with millions of
+ * particles by raising the max particle count of their emitters. The images of an emitter must be in one texture, so effects with
+ * more than one image per emitter are loaded with {@link #load(FileHandle, TextureAtlas)}. Requires OpenGL ES 3.0.
+ * <p>
+ * The effect must be disposed to free the buffers and shaders of its emitters.
+ */
+public class GpuParticleEffect extends ParticleEffect {
+    public GpuParticleEffect() {
+    }
+
+    public GpuParticleEffect(ParticleEffect effect) {
+        super(effect);
+    }
+
+    @Override
+    protected ParticleEmitter newEmitter(BufferedReader reader) throws IOException {
+        return new GpuParticleEmitter(reader);
+    }
+
+    @Override
+    protected ParticleEmitter newEmitter(ParticleEmitter emitter) {
+        return new GpuParticleEmitter(emitter);
+    }
+
+    /**
+     * Disposes the GPU resources of the emitters, and the textures if they were loaded by the effect.
+     */
+    @Override
+    public void dispose() {
+        super.dispose();
+        KermanArray<ParticleEmitter> emitters = getEmitters();
+        for (int i = 0, n = emitters.size; i < n; i++) {
+            ParticleEmitter emitter = emitters.get(i);
+            if (emitter instanceof GpuParticleEmitter) ((GpuParticleEmitter) emitter).dispose();
+        }
+    }
+}
@@ -0,0 +1,794 @@
+package com.kerman.core.graphics.k2d;
+
+import com.kerman.core.Kerman;
+import com.kerman.core.graphics.GLES20;
+import com.kerman.core.graphics.GLES30;
+import com.kerman.core.graphics.Texture;
+import com.kerman.core.graphics.glutils.ShaderProgram;
+import com.kerman.core.math.Matrix4;
+import com.kerman.core.math.collision.BoundingBox;
+import com.kerman.core.utils.BufferUtils;
+import com.kerman.core.utils.Disposable;
+import com.kerman.core.utils.KermanArray;
+import com.kerman.core.utils.KermanIntArray;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.FloatBuffer;
+
+/**
+ * An emitter whose particles are simulated and drawn on the GPU, so effects can have millions of particles. It is configured like
+ * {@link ParticleEmitter} and loads the same {@code .p} files, see {@link GpuParticleEffect}. Requires OpenGL ES 3.0.
+ * <p>
+ * The emitter keeps the emission, duration and delay on the CPU. A particle is {@value #PARTICLE_SIZE} floats in a vertex buffer:
+ * position, age and life in milliseconds, a random seed and the angle of the ellipse edge it spawned on. When the emitter is drawn,
+ * a vertex shader advances all particles with transform feedback into a second buffer, and an instanced draw computes the quads from
+ * the values of the emitter. The per particle random values, like the low and high value of each {@link ScaledNumericValue}, are
+ * hashed from the seed instead of being stored, and the curves of the values are sampled at 32 points per draw.
+ * <p>
+ * The differences to the CPU emitter are:
+ * <ul>
+ * <li>The simulation runs when the emitter is drawn, for the time it was updated since the last draw, so the emitter may be updated
+ * on other threads, e.g. by {@link ParallelParticleUpdater}, but must be drawn on the rendering thread.</li>
+ * <li>New particles take the oldest slots of a ring. The emitter stops emitting when {@link #getActiveCount()}, which counts the
+ * particles that may still live, reaches the max particle count, so live particles are never replaced.</li>
+ * <li>All sprites must be regions of the same texture and there may be up to {@value #MAX_SPRITES}.</li>
+ * <li>The batch is flushed to draw the particles, so the particles aren't sorted with other sprites of the batch, and its shader
+ * and blending are restored afterwards. The blend function of the batch is unchanged.</li>
+ * <li>{@link #getBoundingBox()} is approximate, as the particles aren't read back.</li>
+ * </ul>
+ * The emitter must be {@link #dispose() disposed} to free its buffers and shaders.
+ */
+public class GpuParticleEmitter extends ParticleEmitter implements Disposable {
+    /**
+     * The number of floats of a particle: x, y, age, life, seed and spawn angle.
+     */
+    static public final int PARTICLE_SIZE = 6;
+    static public final int MAX_SPRITES = 32;
+    static private final int CURVE_SAMPLES = 32;
+    static private final String[] VARYINGS = {"v_position", "v_life", "v_particle"};
+
+    private final float[] curves = new float[3 * CURVE_SAMPLES * 4];
+    private final float[] ranges = new float[8 * 4];
+    private final float[] relative = new float[8];
+    private final float[] regions = new float[MAX_SPRITES * 8];
+    private final float[] lifeValues = new float[16];
+    private final Matrix4 projTrans = new Matrix4();
+    private final BoundingBox bounds = new BoundingBox();
+    /**
+     * The spawn time in milliseconds, particle count and max life of each update that emitted, to count the particles that may
+     * still live.
+     */
+    private final KermanIntArray spawns = new KermanIntArray();
+    private final int[] buffers = new int[2];
+    private final int[] vertexArrays = new int[4];
+    private int indexBuffer, cornerBuffer;
+    private @Nullable ShaderProgram simulateShader, drawShader;
+    private int capacity, current, spawnStart;
+    private boolean clear = true;
+    private boolean flipX, flipY;
+    private float accumulator;
+    private int time;
+    private int pendingSpawns, pendingMillis;
+    private float pendingDelta, translateX, translateY;
+
+    public GpuParticleEmitter() {
+    }
+
+    public GpuParticleEmitter(BufferedReader reader) throws IOException {
+        super(reader);
+    }
+
+    public GpuParticleEmitter(ParticleEmitter emitter) {
+        super(emitter);
+    }
+
+    @Override
+    boolean storesParticles() {
+        return false;
+    }
+
+    @Override
+    public void addParticle() {
+        addParticles(1);
+    }
+
+    @Override
+    public void addParticles(int count) {
+        count = Math.min(count, getMaxParticleCount() - activeCount);
+        if (count <= 0) return;
+        pendingSpawns += count;
+        activeCount += count;
+        updateLifeValues(durationTimer / duration);
+        int size = spawns.size;
+        if (size > 0 && spawns.get(size - 3) == time)
+            spawns.items[size - 2] += count;
+        else
+            spawns.add(time, count, maxLife());
+    }
+
+    /**
+     * Updates the emission like {@link ParticleEmitter#update(float)}. The particles are moved by the next {@link #draw(Batch)}.
+     */
+    @Override
+    public void update(float delta) {
+        accumulator += delta * 1000;
+        int deltaMillis = 0;
+        if (accumulator >= 1) {
+            deltaMillis = (int) accumulator;
+            accumulator -= deltaMillis;
+            pendingMillis += deltaMillis;
+            pendingDelta += delta;
+        }
+        super.update(delta);
+        if (deltaMillis == 0) return;
+
+        // Remove the spawns whose particles all died, unless later spawns may still live.
+        int time = this.time += deltaMillis;
+        int[] items = spawns.items;
+        int count = 0, expired = 0;
+        for (int i = 0, n = spawns.size; i < n; i += 3) {
+            if (time - items[i] < items[i + 2])
+                count += items[i + 1];
+            else if (expired == i) expired += 3;
+        }
+        if (expired > 0) spawns.removeRange(0, expired - 1);
+        activeCount = count;
+    }
+
+    @Override
+    public void draw(Batch batch, float delta) {
+        update(delta);
+        draw(batch);
+    }
+
+    /**
+     * Moves the particles for the time since the last draw and draws them. The batch is flushed first if it is drawing, and its
+     * shader and blending are restored afterwards.
+     */
+    @Override
+    public void draw(Batch batch) {
+        KermanArray<Sprite> sprites = getSprites();
+        if (sprites.size == 0) return;
+        if (sprites.size > MAX_SPRITES)
+            throw new IllegalStateException("A GPU emitter can have up to " + MAX_SPRITES + " sprites: " + sprites.size);
+        Texture texture = sprites.get(0).getTexture();
+        for (int i = 1; i < sprites.size; i++)
+            if (sprites.get(i).getTexture() != texture)
+                throw new IllegalStateException("The sprites of a GPU emitter must use the same texture: " + getName());
+
+        boolean drawing = batch.isDrawing();
+        if (drawing) batch.flush();
+
+        if (capacity != getMaxParticleCount()) createBuffers(getMaxParticleCount());
+        if (simulateShader == null) {
+            simulateShader = new FeedbackShaderProgram(createSimulateVertexShader(), createSimulateFragmentShader());
+            if (!simulateShader.isCompiled())
+                throw new IllegalArgumentException("Error compiling shader: " + simulateShader.getLog());
+            drawShader = new ShaderProgram(createDrawVertexShader(), createDrawFragmentShader());
+            if (!drawShader.isCompiled()) throw new IllegalArgumentException("Error compiling shader: " + drawShader.getLog());
+            createVertexArrays();
+        }
+
+        setValues();
+        if (clear || pendingSpawns > 0 || pendingMillis > 0) simulate();
+        render(batch, texture, sprites);
+        restore(batch, drawing);
+    }
+
+    /**
+     * Restores the GL state the batch expects: its shader and blending if it is drawing, otherwise the disabled blending it leaves
+     * after {@link Batch#end()}. The batch binds its texture on every flush.
+     */
+    static private void restore(Batch batch, boolean drawing) {
+        GLES20 gl = Kerman.gl20;
+        if (!drawing) {
+            gl.glDisable(GLES20.GL_BLEND);
+            return;
+        }
+        batch.getShader().bind();
+        if (!batch.isBlendingEnabled())
+            gl.glDisable(GLES20.GL_BLEND);
+        else if (batch.getBlendSrcFunc() != -1)
+            gl.glBlendFuncSeparate(batch.getBlendSrcFunc(), batch.getBlendDstFunc(), batch.getBlendSrcFuncAlpha(),
+                    batch.getBlendDstFuncAlpha());
+    }
+
+    private void simulate() {
+        GLES30 gl = Kerman.gl30;
+        ShaderProgram shader = simulateShader;
+        shader.bind();
+        setValueUniforms(shader);
+        int spawnCount = Math.min(pendingSpawns, capacity);
+        float percent = durationTimer / duration;
+        updateLifeValues(percent);
+        shader.setUniformf(shader.fetchUniformLocation("u_time", false), pendingMillis, pendingDelta, clear ? 1 : 0,
+                random().nextFloat() * 4096);
+        shader.setUniformf(shader.fetchUniformLocation("u_spawnRange", false), spawnStart, spawnCount, capacity, 0);
+        shader.setUniformf(shader.fetchUniformLocation("u_translate", false), translateX, translateY);
+        shader.setUniform4fv(shader.fetchUniformLocation("u_life", false), lifeValues, 0, lifeValues.length);
+
+        ScaledNumericValue spawnWidthValue = getSpawnWidth(), spawnHeightValue = getSpawnHeight();
+        shader.setUniformf(shader.fetchUniformLocation("u_spawn", false), getX(), getY(),
+                spawnWidth + spawnWidthDiff * spawnWidthValue.getScale(percent),
+                spawnHeight + spawnHeightDiff * spawnHeightValue.getScale(percent));
+        SpawnShapeValue shape = getSpawnShape();
+        shader.setUniformf(shader.fetchUniformLocation("u_shape", false), shape.getShape().ordinal(), shape.isEdges() ? 1 : 0,
+                shape.getSide().ordinal(), 0);
+        RangedNumericValue xOffset = getXOffsetValue(), yOffset = getYOffsetValue();
+        shader.setUniformf(shader.fetchUniformLocation("u_offset", false), //
+                xOffset.isActive() ? xOffset.getLowMin() : 0, xOffset.isActive() ? xOffset.getLowMax() : 0, //
+                yOffset.isActive() ? yOffset.getLowMin() : 0, yOffset.isActive() ? yOffset.getLowMax() : 0);
+
+        gl.glEnable(GLES30.GL_RASTERIZER_DISCARD);
+        gl.glBindVertexArray(vertexArrays[current]);
+        gl.glBindBufferBase(GLES30.GL_TRANSFORM_FEEDBACK_BUFFER, 0, buffers[1 - current]);
+        gl.glBeginTransformFeedback(GLES20.GL_POINTS);
+        gl.glDrawArrays(GLES20.GL_POINTS, 0, capacity);
+        gl.glEndTransformFeedback();
+        gl.glBindBufferBase(GLES30.GL_TRANSFORM_FEEDBACK_BUFFER, 0, 0);
+        gl.glBindVertexArray(0);
+        gl.glDisable(GLES30.GL_RASTERIZER_DISCARD);
+        current = 1 - current;
+
+        spawnStart = (spawnStart + spawnCount) % capacity;
+        clear = false;
+        pendingSpawns = 0;
+        pendingMillis = 0;
+        pendingDelta = 0;
+        translateX = 0;
+        translateY = 0;
+    }
+
+    private void render(Batch batch, Texture texture, KermanArray<Sprite> sprites) {
+        GLES30 gl = Kerman.gl30;
+        ShaderProgram shader = drawShader;
+        shader.bind();
+        setValueUniforms(shader);
+        for (int i = 0, n = sprites.size; i < n; i++) {
+            Sprite sprite = sprites.get(i);
+            int offset = i * 8;
+            regions[offset] = flipX ? sprite.getU2() : sprite.getU();
+            regions[offset + 1] = flipY ? sprite.getV2() : sprite.getV();
+            regions[offset + 2] = flipX ? sprite.getU() : sprite.getU2();
+            regions[offset + 3] = flipY ? sprite.getV() : sprite.getV2();
+            regions[offset + 4] = sprite.getWidth();
+            regions[offset + 5] = sprite.getHeight();
+            regions[offset + 6] = sprite.getOriginX();
+            regions[offset + 7] = sprite.getOriginY();
+        }
+        shader.setUniform4fv(shader.fetchUniformLocation("u_regions", false), regions, 0, sprites.size * 8);
+        shader.setUniformf(shader.fetchUniformLocation("u_sprites", false), sprites.size, getSpriteMode().ordinal(),
+                isPremultipliedAlpha() ? 1 : 0, isAdditive() ? 1 : 0);
+        projTrans.set(batch.getProjectionMatrix()).mul(batch.getTransformMatrix());
+        shader.setUniformMatrix(shader.fetchUniformLocation("u_projTrans", false), projTrans);
+        texture.bind(0);
+        shader.setUniformi(shader.fetchUniformLocation("u_texture", false), 0);
+
+        gl.glEnable(GLES20.GL_BLEND);
+        if (isPremultipliedAlpha())
+            gl.glBlendFunc(GLES20.GL_ONE, GLES20.GL_ONE_MINUS_SRC_ALPHA);
+        else if (isAdditive())
+            gl.glBlendFunc(GLES20.GL_SRC_ALPHA, GLES20.GL_ONE);
+        else
+            gl.glBlendFunc(GLES20.GL_SRC_ALPHA, GLES20.GL_ONE_MINUS_SRC_ALPHA);
+        gl.glBindVertexArray(vertexArrays[2 + current]);
+        gl.glDrawArraysInstanced(GLES20.GL_TRIANGLE_STRIP, 0, 4, capacity);
+        gl.glBindVertexArray(0);
+    }
+
+    /**
+     * Samples the curves and copies the ranges of the values both shaders use. The values are in the order of the curves: x scale,
+     * y scale, rotation, velocity, angle, wind, gravity and transparency.
+     */
+    private void setValues() {
+        ScaledNumericValue xScale = getXScale(), yScale = getYScale(), rotation = getRotation(), velocity = getVelocity();
+        ScaledNumericValue angle = getAngle(), wind = getWind(), gravity = getGravity(), transparency = getTransparency();
+        GradientColorValue tint = getTint();
+        float[] curves = this.curves;
+        for (int i = 0; i < CURVE_SAMPLES; i++) {
+            float percent = i / (float) (CURVE_SAMPLES - 1);
+            int offset = i * 4;
+            curves[offset] = xScale.getScale(percent);
+            curves[offset + 1] = yScale.getScale(percent);
+            curves[offset + 2] = rotation.getScale(percent);
+            curves[offset + 3] = velocity.getScale(percent);
+            offset += CURVE_SAMPLES * 4;
+            curves[offset] = angle.getScale(percent);
+            curves[offset + 1] = wind.getScale(percent);
+            curves[offset + 2] = gravity.getScale(percent);
+            curves[offset + 3] = transparency.getScale(percent);
+            offset += CURVE_SAMPLES * 4;
+            float[] color = tint.getColor(percent);
+            curves[offset] = color[0];
+            curves[offset + 1] = color[1];
+            curves[offset + 2] = color[2];
+            curves[offset + 3] = 0;
+        }
+
+        // Wind and gravity only move particles with velocity, like on the CPU.
+        setRange(0, xScale, true);
+        setRange(1, yScale, yScale.isActive());
+        setRange(2, rotation, rotation.isActive());
+        setRange(3, velocity, velocity.isActive());
+        setRange(4, angle, true);
+        setRange(5, wind, velocity.isActive() && wind.isActive());
+        setRange(6, gravity, velocity.isActive() && gravity.isActive());
+        setRange(7, transparency, true);
+        // The high transparency is never relative.
+        relative[7] = 0;
+    }
+
+    private void setRange(int index, ScaledNumericValue value, boolean active) {
+        int offset = index * 4;
+        ranges[offset] = active ? value.getLowMin() : 0;
+        ranges[offset + 1] = active ? value.getLowMax() : 0;
+        ranges[offset + 2] = active ? value.getHighMin() : 0;
+        ranges[offset + 3] = active ? value.getHighMax() : 0;
+        relative[index] = value.isRelative() ? 1 : 0;
+    }
+
+    private void setValueUniforms(ShaderProgram shader) {
+        ScaledNumericValue angle = getAngle();
+        shader.setUniform4fv(shader.fetchUniformLocation("u_curves", false), curves, 0, curves.length);
+        shader.setUniform4fv(shader.fetchUniformLocation("u_ranges", false), ranges, 0, ranges.length);
+        shader.setUniform1fv(shader.fetchUniformLocation("u_relative", false), relative, 0, relative.length);
+        shader.setUniformf(shader.fetchUniformLocation("u_flags", false), getYScale().isActive() ? 1 : 0,
+                angle.isActive() && angle.getTimeline().length > 1 ? 1 : 0, isAligned() ? 1 : 0, 0);
+    }
+
+    /**
+     * Sets the range, relative flag and scale of the life and the life offset of particles spawned at the percent of the duration,
+     * 8 floats each. Values that aren't independent were chosen by the emitter when it restarted and are passed as ranges of one
+     * value.
+     */
+    private void updateLifeValues(float percent) {
+        float[] values = lifeValues;
+        IndependentScaledNumericValue life = (IndependentScaledNumericValue) getLife();
+        if (life.independent)
+            setLifeValues(values, 0, life.getLowMin(), life.getLowMax(), life.getHighMin(), life.getHighMax(), life.isRelative());
+        else
+            setLifeValues(values, 0, this.life, this.life, lifeDiff, lifeDiff, true);
+        values[5] = life.getScale(percent);
+        IndependentScaledNumericValue lifeOffset = (IndependentScaledNumericValue) getLifeOffset();
+        if (!lifeOffset.independent)
+            setLifeValues(values, 8, this.lifeOffset, this.lifeOffset, lifeOffsetDiff, lifeOffsetDiff, true);
+        else if (lifeOffset.isActive())
+            setLifeValues(values, 8, lifeOffset.getLowMin(), lifeOffset.getLowMax(), lifeOffset.getHighMin(),
+                    lifeOffset.getHighMax(), lifeOffset.isRelative());
+        else
+            setLifeValues(values, 8, 0, 0, lifeOffset.getHighMin(), lifeOffset.getHighMax(), lifeOffset.isRelative());
+        values[13] = lifeOffset.getScale(percent);
+    }
+
+    static private void setLifeValues(float[] values, int offset, float lowMin, float lowMax, float highMin, float highMax,
+                                      boolean relative) {
+        values[offset] = lowMin;
+        values[offset + 1] = lowMax;
+        values[offset + 2] = highMin;
+        values[offset + 3] = highMax;
+        values[offset + 4] = relative ? 1 : 0;
+    }
+
+    /**
+     * Returns the longest life a particle spawned now may have, from the values set by {@link #updateLifeValues(float)}.
+     */
+    private int maxLife() {
+        float[] values = lifeValues;
+        float scale = values[5];
+        float lowScale = values[4] == 1 ? 1 : 1 - scale;
+        return (int) Math.ceil(Math.max(values[0] * lowScale, values[1] * lowScale) + Math.max(values[2] * scale, values[3] * scale));
+    }
+
+    @Override
+    public void setPosition(float x, float y) {
+        if (isAttached()) {
+            translateX += x - getX();
+            translateY += y - getY();
+        }
+        super.setPosition(x, y);
+    }
+
+    @Override
+    public void setFlip(boolean flipX, boolean flipY) {
+        this.flipX = flipX;
+        this.flipY = flipY;
+        super.setFlip(flipX, flipY);
+    }
+
+    @Override
+    public void setMaxParticleCount(int maxParticleCount) {
+        super.setMaxParticleCount(maxParticleCount);
+        // Called by the constructors of the super class before the fields are initialized.
+        if (spawns != null) clearParticles();
+    }
+
+    @Override
+    public void reset(boolean start) {
+        clearParticles();
+        super.reset(start);
+    }
+
+    private void clearParticles() {
+        clear = true;
+        spawns.clear();
+        pendingSpawns = 0;
+        pendingMillis = 0;
+        pendingDelta = 0;
+        translateX = 0;
+        translateY = 0;
+    }
+
+    /**
+     * Returns approximate bounds of the particles, as the particles are only known to the GPU. The bounds contain the spawn shape
+     * around the current position, extended by the distance the fastest particle may move in the longest life and by the size of
+     * the largest sprite. They are conservative for particles spawned at the current position, but don't contain particles that
+     * were spawned before the emitter moved unless it is {@link #isAttached() attached}. Without particles the bounds are the
+     * position, an empty but valid box.
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        BoundingBox bounds = this.bounds;
+        bounds.inf();
+        if (activeCount == 0) return bounds.ext(getX(), getY(), 0);
+
+        // The line and square shapes extend from or around the position, so both sides are included.
+        float width = Math.abs(spawnWidth) + Math.abs(spawnWidthDiff), height = Math.abs(spawnHeight) + Math.abs(spawnHeightDiff);
+        RangedNumericValue xOffset = getXOffsetValue(), yOffset = getYOffsetValue();
+        float offsetX = xOffset.isActive() ? Math.max(Math.abs(xOffset.getLowMin()), Math.abs(xOffset.getLowMax())) : 0;
+        float offsetY = yOffset.isActive() ? Math.max(Math.abs(yOffset.getLowMin()), Math.abs(yOffset.getLowMax())) : 0;
+
+        ScaledNumericValue velocity = getVelocity();
+        float distance = 0;
+        if (velocity.isActive()) {
+            float speed = maxValue(velocity) + maxValue(getWind()) + maxValue(getGravity());
+            float life = maxValue(getLife()) + maxValue(getLifeOffset());
+            distance = speed * life / 1000;
+        }
+
+        // The quads are offset by up to the sprite size from the particle and rotate, so their diagonal is used.
+        float spriteSize = 0;
+        KermanArray<Sprite> sprites = getSprites();
+        for (int i = 0; i < sprites.size; i++)
+            spriteSize = Math.max(spriteSize, Math.max(sprites.get(i).getWidth(), sprites.get(i).getHeight()));
+        float size = spriteSize + Math.max(maxValue(getXScale()), maxValue(getYScale())) * 1.4142136f;
+
+        float extentX = width + offsetX + distance + size, extentY = height + offsetY + distance + size;
+        bounds.ext(getX() - extentX, getY() - extentY, 0);
+        bounds.ext(getX() + extentX, getY() + extentY, 0);
+        return bounds;
+    }
+
+    /**
+     * @return the largest absolute value the value can have for a particle, assuming the scale curve stays within 0 and 1
+     */
+    static private float maxValue(ScaledNumericValue value) {
+        if (!value.isActive()) return 0;
+        float low = Math.max(Math.abs(value.getLowMin()), Math.abs(value.getLowMax()));
+        float high = Math.max(Math.abs(value.getHighMin()), Math.abs(value.getHighMax()));
+        return value.isRelative() ? low + high : Math.max(low, high);
+    }
+
+    private void createBuffers(int capacity) {
+        disposeBuffers();
+        GLES30 gl = Kerman.gl30;
+        for (int i = 0; i < 2; i++) {
+            buffers[i] = gl.glGenBuffer();
+            gl.glBindBuffer(GLES20.GL_ARRAY_BUFFER, buffers[i]);
+            // The contents are cleared by the first simulation.
+            gl.glBufferData(GLES20.GL_ARRAY_BUFFER, capacity * PARTICLE_SIZE * 4, null, GLES30.GL_DYNAMIC_COPY);
+        }
+        FloatBuffer indices = BufferUtils.newFloatBuffer(capacity);
+        for (int i = 0; i < capacity; i++)
+            indices.put(i);
+        indices.flip();
+        indexBuffer = gl.glGenBuffer();
+        gl.glBindBuffer(GLES20.GL_ARRAY_BUFFER, indexBuffer);
+        gl.glBufferData(GLES20.GL_ARRAY_BUFFER, capacity * 4, indices, GLES20.GL_STATIC_DRAW);
+        FloatBuffer corners = BufferUtils.newFloatBuffer(8);
+        corners.put(new float[]{0, 0, 1, 0, 0, 1, 1, 1}).flip();
+        cornerBuffer = gl.glGenBuffer();
+        gl.glBindBuffer(GLES20.GL_ARRAY_BUFFER, cornerBuffer);
+        gl.glBufferData(GLES20.GL_ARRAY_BUFFER, 8 * 4, corners, GLES20.GL_STATIC_DRAW);
+        gl.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 0);
+
+        this.capacity = capacity;
+        current = 0;
+        spawnStart = 0;
+        clear = true;
+        if (simulateShader != null) createVertexArrays();
+    }
+
+    /**
+     * Creates a vertex array to simulate and one to draw from each buffer.
+     */
+    private void createVertexArrays() {
+        GLES30 gl = Kerman.gl30;
+        if (vertexArrays[0] != 0) gl.glDeleteVertexArrays(4, vertexArrays, 0);
+        gl.glGenVertexArrays(4, vertexArrays, 0);
+        for (int i = 0; i < 2; i++) {
+            gl.glBindVertexArray(vertexArrays[i]);
+            setParticleAttributes(simulateShader, buffers[i], 0);
+            gl.glBindBuffer(GLES20.GL_ARRAY_BUFFER, indexBuffer);
+            setAttribute(simulateShader, "a_index", 1, 0, 0, 0);
+
+            gl.glBindVertexArray(vertexArrays[2 + i]);
+            setParticleAttributes(drawShader, buffers[i], 1);
+            gl.glBindBuffer(GLES20.GL_ARRAY_BUFFER, cornerBuffer);
+            setAttribute(drawShader, "a_corner", 2, 0, 0, 0);
+        }
+        gl.glBindVertexArray(0);
+        gl.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 0);
+    }
+
+    static private void setParticleAttributes(ShaderProgram shader, int buffer, int divisor) {
+        Kerman.gl30.glBindBuffer(GLES20.GL_ARRAY_BUFFER, buffer);
+        int stride = PARTICLE_SIZE * 4;
+        setAttribute(shader, "a_position", 2, stride, 0, divisor);
+        setAttribute(shader, "a_life", 2, stride, 8, divisor);
+        setAttribute(shader, "a_particle", 2, stride, 16, divisor);
+    }
+
+    static private void setAttribute(ShaderProgram shader, String name, int size, int stride, int offset, int divisor) {
+        int location = shader.getAttributeLocation(name);
+        if (location == -1) return;
+        GLES30 gl = Kerman.gl30;
+        gl.glEnableVertexAttribArray(location);
+        gl.glVertexAttribPointer(location, size, GLES20.GL_FLOAT, false, stride, offset);
+        gl.glVertexAttribDivisor(location, divisor);
+    }
+
+    private void disposeBuffers() {
+        if (capacity == 0) return;
+        GLES30 gl = Kerman.gl30;
+        gl.glDeleteBuffer(buffers[0]);
+        gl.glDeleteBuffer(buffers[1]);
+        gl.glDeleteBuffer(indexBuffer);
+        gl.glDeleteBuffer(cornerBuffer);
+        capacity = 0;
+    }
+
+    @Override
+    public void dispose() {
+        disposeBuffers();
+        if (vertexArrays[0] != 0) {
+            Kerman.gl30.glDeleteVertexArrays(4, vertexArrays, 0);
+            vertexArrays[0] = 0;
+        }
+        if (simulateShader != null) {
+            simulateShader.dispose();
+            drawShader.dispose();
+            simulateShader = null;
+            drawShader = null;
+        }
+    }
+
+    /**
+     * The uniforms and functions both vertex shaders use to compute the values of a particle from its seed.
+     */
+    static private String createValueFunctions() {
+        return "uniform vec4 u_curves[" + 3 * CURVE_SAMPLES + "];\n" //
+                + "uniform vec4 u_ranges[8];\n" //
+                + "uniform float u_relative[8];\n" //
+                + "uniform vec4 u_flags;\n" //
+                + "\n" //
+                + "float random(float seed, float key)\n" //
+                + "{\n" //
+                + "   vec3 p = fract(vec3(seed, key, seed + key) * 0.1031);\n" //
+                + "   p += dot(p, p.yzx + 33.33);\n" //
+                + "   return fract((p.x + p.y) * p.z);\n" //
+                + "}\n" //
+                + "\n" //
+                + "vec4 curves(int group, float percent)\n" //
+                + "{\n" //
+                + "   float at = clamp(percent, 0.0, 1.0) * " + (CURVE_SAMPLES - 1) + ".0;\n" //
+                + "   float i = floor(at);\n" //
+                + "   int index = group * " + CURVE_SAMPLES + " + int(i);\n" //
+                + "   return mix(u_curves[index], u_curves[index + (i < " + (CURVE_SAMPLES - 1) + ".0 ? 1 : 0)], at - i);\n" //
+                + "}\n" //
+                + "\n" //
+                + "float value(int index, float seed, float scale)\n" //
+                + "{\n" //
+                + "   vec4 range = u_ranges[index];\n" //
+                + "   float low = mix(range.x, range.y, random(seed, float(index * 2)));\n" //
+                + "   float high = mix(range.z, range.w, random(seed, float(index * 2 + 1)));\n" //
+                + "   return low + (high - low * (1.0 - u_relative[index])) * scale;\n" //
+                + "}\n" //
+                + "\n" //
+                + "float particleAngle(float seed, float spawnAngle, float percent)\n" //
+                + "{\n" //
+                + "   if (u_flags.y > 0.5) return value(4, seed, curves(1, percent).x);\n" //
+                + "   if (spawnAngle > -1000.0) return spawnAngle;\n" //
+                + "   return value(4, seed, curves(1, 0.0).x);\n" //
+                + "}\n";
+    }
+
+    static private String createSimulateVertexShader() {
+        return "attribute vec2 a_position;\n" //
+                + "attribute vec2 a_life;\n" //
+                + "attribute vec2 a_particle;\n" //
+                + "attribute float a_index;\n" //
+                + "uniform vec4 u_time;\n" //
+                + "uniform vec4 u_spawnRange;\n" //
+                + "uniform vec2 u_translate;\n" //
+                + "uniform vec4 u_life[4];\n" //
+                + "uniform vec4 u_spawn;\n" //
+                + "uniform vec4 u_shape;\n" //
+                + "uniform vec4 u_offset;\n" //
+                + "varying vec2 v_position;\n" //
+                + "varying vec2 v_life;\n" //
+                + "varying vec2 v_particle;\n" //
+                + createValueFunctions() //
+                + "\n" //
+                + "vec2 move(vec2 position, float seed, float spawnAngle, float percent, float delta)\n" //
+                + "{\n" //
+                + "   vec4 scales = curves(1, percent);\n" //
+                + "   float angle = radians(particleAngle(seed, spawnAngle, percent));\n" //
+                + "   float velocity = value(3, seed, curves(0, percent).w) * delta;\n" //
+                + "   position += velocity * vec2(cos(angle), sin(angle));\n" //
+                + "   position.x += value(5, seed, scales.y) * delta;\n" //
+                + "   position.y += value(6, seed, scales.z) * delta;\n" //
+                + "   return position;\n" //
+                + "}\n" //
+                + "\n" //
+                + "float lifeValue(vec4 range, vec4 params, float seed, float key)\n" //
+                + "{\n" //
+                + "   float low = mix(range.x, range.y, random(seed, key));\n" //
+                + "   float high = mix(range.z, range.w, random(seed, key + 1.0));\n" //
+                + "   return floor(low + (high - low * (1.0 - params.x)) * params.y);\n" //
+                + "}\n" //
+                + "\n" //
+                + "vec2 spawn(float seed, inout float spawnAngle)\n" //
+                + "{\n" //
+                + "   vec2 position = u_spawn.xy + vec2(mix(u_offset.x, u_offset.y, random(seed, 17.0)),\n" //
+                + "      mix(u_offset.z, u_offset.w, random(seed, 18.0)));\n" //
+                + "   float width = u_spawn.z;\n" //
+                + "   float height = u_spawn.w;\n" //
+                + "   float r1 = random(seed, 19.0);\n" //
+                + "   float r2 = random(seed, 20.0);\n" //
+                + "   if (u_shape.x == 1.0) {\n" //
+                + "      if (width != 0.0) position += vec2(width * r1, height * r1);\n" //
+                + "      else position.y += height * r1;\n" //
+                + "   } else if (u_shape.x == 2.0) {\n" //
+                + "      position += vec2(r1 * width - width * 0.5, r2 * height - height * 0.5);\n" //
+                + "   } else if (u_shape.x == 3.0 && width != 0.0 && height != 0.0) {\n" //
+                + "      vec2 radius = vec2(width, height) * 0.5;\n" //
+                + "      if (u_shape.y > 0.5) {\n" //
+                + "         spawnAngle = u_shape.z == 1.0 ? -r1 * 179.0 : (u_shape.z == 2.0 ? r1 * 179.0 : r1 * 360.0);\n" //
+                + "         float angle = radians(spawnAngle);\n" //
+                + "         position += vec2(cos(angle), sin(angle)) * radius;\n" //
+                + "      } else {\n" //
+                + "         float angle = r2 * 6.2831853;\n" //
+                + "         position += vec2(cos(angle), sin(angle)) * radius * sqrt(r1);\n" //
+                + "      }\n" //
+                + "   }\n" //
+                + "   return position;\n" //
+                + "}\n" //
+                + "\n" //
+                + "void main()\n" //
+                + "{\n" //
+                + "   vec2 position = a_position;\n" //
+                + "   vec2 life = a_life;\n" //
+                + "   vec2 particle = a_particle;\n" //
+                + "   if (u_time.z > 0.5) life = vec2(0.0);\n" //
+                + "   else if (life.y > 0.0) position += u_translate;\n" //
+                + "   if (mod(a_index - u_spawnRange.x + u_spawnRange.z, u_spawnRange.z) < u_spawnRange.y) {\n" //
+                + "      float seed = random(a_index, u_time.w) * 4096.0;\n" //
+                + "      float spawnAngle = -1000.0;\n" //
+                + "      position = spawn(seed, spawnAngle);\n" //
+                + "      particle = vec2(seed, spawnAngle);\n" //
+                + "      life = vec2(0.0, lifeValue(u_life[0], u_life[1], particle.x, 21.0));\n" //
+                + "      float offset = min(lifeValue(u_life[2], u_life[3], particle.x, 23.0), life.y - 1.0);\n" //
+                + "      if (offset > 0.0) {\n" //
+                + "         life.x = offset;\n" //
+                + "         position = move(position, particle.x, particle.y, offset / life.y, offset / 1000.0);\n" //
+                + "      }\n" //
+                + "   }\n" //
+                + "   if (life.y > 0.0) {\n" //
+                + "      life.x += u_time.x;\n" //
+                + "      if (life.x >= life.y) life = vec2(0.0);\n" //
+                + "      else position = move(position, particle.x, particle.y, life.x / life.y, u_time.y);\n" //
+                + "   }\n" //
+                + "   v_position = position;\n" //
+                + "   v_life = life;\n" //
+                + "   v_particle = particle;\n" //
+                + "   gl_Position = vec4(0.0, 0.0, 0.0, 1.0);\n" //
+                + "}\n";
+    }
+
+    static private String createSimulateFragmentShader() {
+        return "#ifdef GL_ES\n" //
+                + "precision mediump float;\n" //
+                + "#endif\n" //
+                + "void main()\n" //
+                + "{\n" //
+                + "  gl_FragColor = vec4(0.0);\n" //
+                + "}";
+    }
+
+    static private String createDrawVertexShader() {
+        return "attribute vec2 a_corner;\n" //
+                + "attribute vec2 a_position;\n" //
+                + "attribute vec2 a_life;\n" //
+                + "attribute vec2 a_particle;\n" //
+                + "uniform mat4 u_projTrans;\n" //
+                + "uniform vec4 u_regions[" + MAX_SPRITES * 2 + "];\n" //
+                + "uniform vec4 u_sprites;\n" //
+                + "varying vec4 v_color;\n" //
+                + "varying vec2 v_texCoords;\n" //
+                + createValueFunctions() //
+                + "\n" //
+                + "void main()\n" //
+                + "{\n" //
+                + "   if (a_life.y <= 0.0) {\n" //
+                + "      // Dead particles are collapsed to a point outside the clip volume.\n" //
+                + "      v_color = vec4(0.0);\n" //
+                + "      v_texCoords = vec2(0.0);\n" //
+                + "      gl_Position = vec4(2.0, 2.0, 2.0, 1.0);\n" //
+                + "   } else {\n" //
+                + "      float percent = a_life.x / a_life.y;\n" //
+                + "      float seed = a_particle.x;\n" //
+                + "      float sprite = 0.0;\n" //
+                + "      if (u_sprites.y == 1.0) sprite = floor(random(seed, 16.0) * u_sprites.x);\n" //
+                + "      else if (u_sprites.y == 2.0) sprite = floor(percent * u_sprites.x);\n" //
+                + "      int index = int(min(sprite, u_sprites.x - 1.0)) * 2;\n" //
+                + "      vec4 region = u_regions[index];\n" //
+                + "      vec4 size = u_regions[index + 1];\n" //
+                + "      vec4 scales = curves(0, percent);\n" //
+                + "      vec2 scale;\n" //
+                + "      scale.x = value(0, seed, scales.x) / size.x;\n" //
+                + "      scale.y = u_flags.x > 0.5 ? value(1, seed, scales.y) / size.y : scale.x;\n" //
+                + "      float rotation = value(2, seed, scales.z);\n" //
+                + "      if (u_flags.z > 0.5) rotation += particleAngle(seed, a_particle.y, percent);\n" //
+                + "      rotation = radians(rotation);\n" //
+                + "      float c = cos(rotation);\n" //
+                + "      float s = sin(rotation);\n" //
+                + "      vec2 local = (a_corner * size.xy - size.zw) * scale;\n" //
+                + "      vec2 position = a_position - size.xy * 0.5 + size.zw\n" //
+                + "         + vec2(local.x * c - local.y * s, local.x * s + local.y * c);\n" //
+                + "      v_texCoords = vec2(mix(region.x, region.z, a_corner.x), mix(region.w, region.y, a_corner.y));\n" //
+                + "      vec3 tint = clamp(curves(2, percent).rgb, 0.0, 1.0);\n" //
+                + "      float alpha = clamp(value(7, seed, curves(1, percent).w), 0.0, 1.0);\n" //
+                + "      if (u_sprites.z > 0.5) {\n" //
+                + "         tint *= alpha;\n" //
+                + "         if (u_sprites.w > 0.5) alpha = 0.0;\n" //
+                + "      }\n" //
+                + "      v_color = vec4(tint, alpha);\n" //
+                + "      gl_Position = u_projTrans * vec4(position, 0.0, 1.0);\n" //
+                + "   }\n" //
+                + "}\n";
+    }
+
+    static private String createDrawFragmentShader() {
+        return "#ifdef GL_ES\n" //
+                + "#define LOWP lowp\n" //
+                + "precision mediump float;\n" //
+                + "#else\n" //
+                + "#define LOWP \n" //
+                + "#endif\n" //
+                + "varying LOWP vec4 v_color;\n" //
+                + "varying vec2 v_texCoords;\n" //
+                + "uniform sampler2D u_texture;\n" //
+                + "void main()\n" //
+                + "{\n" //
+                + "  gl_FragColor = v_color * texture2D(u_texture, v_texCoords);\n" //
+                + "}";
+    }
+
+    /**
+     * Captures the varyings of the particles with transform feedback, which must be set before the program is linked.
+     */
+    static private class FeedbackShaderProgram extends ShaderProgram {
+        FeedbackShaderProgram(String vertexShader, String fragmentShader) {
+            super(vertexShader, fragmentShader);
+        }
+
+        @Override
+        protected int createProgram() {
+            int program = super.createProgram();
+            if (program != -1) Kerman.gl30.glTransformFeedbackVaryings(program, VARYINGS, GLES30.GL_INTERLEAVED_ATTRIBS);
+            return program;
+        }
+    }
+}
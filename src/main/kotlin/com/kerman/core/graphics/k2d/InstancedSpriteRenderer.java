@@ -0,0 +1,297 @@
+package com.kerman.core.graphics.k2d;
+
+import com.kerman.core.Kerman;
+import com.kerman.core.graphics.Color;
+import com.kerman.core.graphics.GLES20;
+import com.kerman.core.graphics.Mesh;
+import com.kerman.core.graphics.Texture;
+import com.kerman.core.graphics.VertexAttribute;
+import com.kerman.core.graphics.VertexAttributes.Usage;
+import com.kerman.core.graphics.glutils.ShaderProgram;
+import com.kerman.core.math.Matrix4;
+import com.kerman.core.utils.Disposable;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Draws sprites with instanced rendering, see {@link Mesh#enableInstancedRendering(boolean, int, VertexAttribute...)}. A sprite is
+ * a single instance record of {@link #INSTANCE_SIZE} floats: position, size, rotation, region and packed color. The 4 corners are
+ * computed by the vertex shader from a static quad, so drawing a sprite writes half the floats {@link SpriteBatch} writes and does
+ * no trigonometry on the CPU. Requires OpenGL ES 3.0.
+ * <p>
+ * Like {@link SpriteBatch}, sprites are drawn between {@link #begin()} and {@link #end()} and the renderer flushes when the texture
+ * changes or {@link #getMaxSprites()} sprites were drawn. Sprites are rotated around their center. Blending is always enabled with
+ * GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA, the default blending of SpriteBatch.
+ */
+public class InstancedSpriteRenderer implements Disposable {
+    static public final String CORNER_ATTRIBUTE = "a_corner";
+    static public final String SIZE_ATTRIBUTE = "a_size";
+    static public final String ROTATION_ATTRIBUTE = "a_rotation";
+    static public final String REGION_ATTRIBUTE = "a_region";
+    /**
+     * The number of floats of an instance record: x, y, width, height, rotation in degrees, u, v, u2, v2 and packed color.
+     */
+    static public final int INSTANCE_SIZE = 10;
+
+    private final Mesh mesh;
+    private final float[] instances;
+    private final ShaderProgram shader;
+    private final boolean ownsShader;
+    private final Matrix4 projectionMatrix = new Matrix4();
+    private final Matrix4 transformMatrix = new Matrix4();
+    private final Matrix4 combinedMatrix = new Matrix4();
+    private final Color color = new Color(1, 1, 1, 1);
+    private float colorPacked = Color.WHITE_FLOAT_BITS;
+    private int idx;
+    private @Nullable Texture lastTexture;
+    private boolean drawing;
+    /**
+     * Number of render calls since the last {@link #begin()}.
+     */
+    public int renderCalls = 0;
+
+    /**
+     * Constructs a renderer of up to 10000 sprites per flush with the default shader.
+     */
+    public InstancedSpriteRenderer() {
+        this(10000, null);
+    }
+
+    /**
+     * @param maxSprites the max number of sprites in a single flush
+     * @param shader     the shader to use, or null to use {@link #createDefaultShader()}. This is not owned by the renderer and
+     *                   must be disposed separately.
+     */
+    public InstancedSpriteRenderer(int maxSprites, @Nullable ShaderProgram shader) {
+        mesh = new Mesh(true, 4, 6, new VertexAttribute(Usage.Generic, 2, CORNER_ATTRIBUTE));
+        mesh.setVertices(new float[]{0, 0, 1, 0, 1, 1, 0, 1});
+        mesh.setIndices(new short[]{0, 1, 2, 2, 3, 0});
+        mesh.enableInstancedRendering(false, maxSprites,
+                new VertexAttribute(Usage.Position, 2, ShaderProgram.POSITION_ATTRIBUTE),
+                new VertexAttribute(Usage.Generic, 2, SIZE_ATTRIBUTE),
+                new VertexAttribute(Usage.Generic, 1, ROTATION_ATTRIBUTE),
+                new VertexAttribute(Usage.Generic, 4, REGION_ATTRIBUTE),
+                new VertexAttribute(Usage.ColorPacked, 4, ShaderProgram.COLOR_ATTRIBUTE));
+        instances = new float[maxSprites * INSTANCE_SIZE];
+
+        if (shader == null) {
+            this.shader = createDefaultShader();
+            ownsShader = true;
+        } else {
+            this.shader = shader;
+            ownsShader = false;
+        }
+        projectionMatrix.setToOrtho2D(0, 0, Kerman.graphics.getWidth(), Kerman.graphics.getHeight());
+    }
+
+    /**
+     * Returns a new instance of the default shader, which places the corners of the quad from the instance record.
+     */
+    static public ShaderProgram createDefaultShader() {
+        String vertexShader = "attribute vec2 " + CORNER_ATTRIBUTE + ";\n" //
+                + "attribute vec2 " + ShaderProgram.POSITION_ATTRIBUTE + ";\n" //
+                + "attribute vec2 " + SIZE_ATTRIBUTE + ";\n" //
+                + "attribute float " + ROTATION_ATTRIBUTE + ";\n" //
+                + "attribute vec4 " + REGION_ATTRIBUTE + ";\n" //
+                + "attribute vec4 " + ShaderProgram.COLOR_ATTRIBUTE + ";\n" //
+                + "uniform mat4 u_projTrans;\n" //
+                + "varying vec4 v_color;\n" //
+                + "varying vec2 v_texCoords;\n" //
+                + "\n" //
+                + "void main()\n" //
+                + "{\n" //
+                + "   vec2 local = (" + CORNER_ATTRIBUTE + " - 0.5) * " + SIZE_ATTRIBUTE + ";\n" //
+                + "   float angle = radians(" + ROTATION_ATTRIBUTE + ");\n" //
+                + "   float c = cos(angle);\n" //
+                + "   float s = sin(angle);\n" //
+                + "   vec2 position = " + ShaderProgram.POSITION_ATTRIBUTE + " + 0.5 * " + SIZE_ATTRIBUTE
+                + " + vec2(local.x * c - local.y * s, local.x * s + local.y * c);\n" //
+                + "   v_color = " + ShaderProgram.COLOR_ATTRIBUTE + ";\n" //
+                + "   v_color.a = v_color.a * (255.0/254.0);\n" //
+                + "   v_texCoords = vec2(mix(" + REGION_ATTRIBUTE + ".x, " + REGION_ATTRIBUTE + ".z, " + CORNER_ATTRIBUTE + ".x),\n" //
+                + "      mix(" + REGION_ATTRIBUTE + ".w, " + REGION_ATTRIBUTE + ".y, " + CORNER_ATTRIBUTE + ".y));\n" //
+                + "   gl_Position =  u_projTrans * vec4(position, 0.0, 1.0);\n" //
+                + "}\n";
+        String fragmentShader = "#ifdef GL_ES\n" //
+                + "#define LOWP lowp\n" //
+                + "precision mediump float;\n" //
+                + "#else\n" //
+                + "#define LOWP \n" //
+                + "#endif\n" //
+                + "varying LOWP vec4 v_color;\n" //
+                + "varying vec2 v_texCoords;\n" //
+                + "uniform sampler2D u_texture;\n" //
+                + "void main()\n"//
+                + "{\n" //
+                + "  gl_FragColor = v_color * texture2D(u_texture, v_texCoords);\n" //
+                + "}";
+
+        ShaderProgram shader = new ShaderProgram(vertexShader, fragmentShader);
+        if (!shader.isCompiled()) throw new IllegalArgumentException("Error compiling shader: " + shader.getLog());
+        return shader;
+    }
+
+    public void begin() {
+        if (drawing) throw new IllegalStateException("InstancedSpriteRenderer.end must be called before begin.");
+        renderCalls = 0;
+
+        Kerman.gl.glDepthMask(false);
+        shader.bind();
+        setupMatrices();
+
+        drawing = true;
+    }
+
+    public void end() {
+        if (!drawing) throw new IllegalStateException("InstancedSpriteRenderer.begin must be called before end.");
+        if (idx > 0) flush();
+        lastTexture = null;
+        drawing = false;
+
+        GLES20 gl = Kerman.gl;
+        gl.glDepthMask(true);
+        gl.glDisable(GLES20.GL_BLEND);
+    }
+
+    public void setColor(Color tint) {
+        color.set(tint);
+        colorPacked = tint.toFloatBits();
+    }
+
+    public void setColor(float r, float g, float b, float a) {
+        color.set(r, g, b, a);
+        colorPacked = color.toFloatBits();
+    }
+
+    public Color getColor() {
+        return color;
+    }
+
+    /**
+     * Draws the region with the bottom left corner at x, y, rotated around its center.
+     *
+     * @param rotation the rotation in degrees, counter clockwise
+     */
+    public void draw(TextureRegion region, float x, float y, float width, float height, float rotation) {
+        draw(region.texture, x, y, width, height, rotation, region.u, region.v, region.u2, region.v2);
+    }
+
+    /**
+     * Draws the whole texture with the bottom left corner at x, y, rotated around its center.
+     *
+     * @param rotation the rotation in degrees, counter clockwise
+     */
+    public void draw(Texture texture, float x, float y, float width, float height, float rotation) {
+        draw(texture, x, y, width, height, rotation, 0, 0, 1, 1);
+    }
+
+    private void draw(Texture texture, float x, float y, float width, float height, float rotation, float u, float v, float u2,
+                      float v2) {
+        if (!drawing) throw new IllegalStateException("InstancedSpriteRenderer.begin must be called before draw.");
+
+        float[] instances = this.instances;
+        if (texture != lastTexture)
+            switchTexture(texture);
+        else if (idx == instances.length) flush();
+
+        int idx = this.idx;
+        instances[idx] = x;
+        instances[idx + 1] = y;
+        instances[idx + 2] = width;
+        instances[idx + 3] = height;
+        instances[idx + 4] = rotation;
+        instances[idx + 5] = u;
+        instances[idx + 6] = v;
+        instances[idx + 7] = u2;
+        instances[idx + 8] = v2;
+        instances[idx + 9] = colorPacked;
+        this.idx = idx + INSTANCE_SIZE;
+    }
+
+    /**
+     * Draws sprites from instance records of {@link #INSTANCE_SIZE} floats each, e.g. kept by the caller and only updated for the
+     * sprites that moved. The color of the renderer is not applied.
+     *
+     * @param offset the offset of the first record in floats
+     * @param count  the number of floats, a multiple of {@link #INSTANCE_SIZE}
+     */
+    public void draw(Texture texture, float[] records, int offset, int count) {
+        if (!drawing) throw new IllegalStateException("InstancedSpriteRenderer.begin must be called before draw.");
+
+        float[] instances = this.instances;
+        if (texture != lastTexture) switchTexture(texture);
+        while (count > 0) {
+            if (idx == instances.length) flush();
+            int copy = Math.min(count, instances.length - idx);
+            System.arraycopy(records, offset, instances, idx, copy);
+            idx += copy;
+            offset += copy;
+            count -= copy;
+        }
+    }
+
+    private void switchTexture(Texture texture) {
+        flush();
+        lastTexture = texture;
+    }
+
+    public void flush() {
+        if (idx == 0) return;
+
+        renderCalls++;
+        lastTexture.bind();
+        mesh.setInstanceData(instances, 0, idx);
+        Kerman.gl.glEnable(GLES20.GL_BLEND);
+        Kerman.gl.glBlendFuncSeparate(GLES20.GL_SRC_ALPHA, GLES20.GL_ONE_MINUS_SRC_ALPHA, GLES20.GL_SRC_ALPHA,
+                GLES20.GL_ONE_MINUS_SRC_ALPHA);
+        mesh.render(shader, GLES20.GL_TRIANGLES, 0, 6);
+
+        idx = 0;
+    }
+
+    /**
+     * @return the max number of sprites in a single flush
+     */
+    public int getMaxSprites() {
+        return instances.length / INSTANCE_SIZE;
+    }
+
+    public Matrix4 getProjectionMatrix() {
+        return projectionMatrix;
+    }
+
+    public void setProjectionMatrix(Matrix4 projection) {
+        if (drawing) flush();
+        projectionMatrix.set(projection);
+        if (drawing) setupMatrices();
+    }
+
+    public Matrix4 getTransformMatrix() {
+        return transformMatrix;
+    }
+
+    public void setTransformMatrix(Matrix4 transform) {
+        if (drawing) flush();
+        transformMatrix.set(transform);
+        if (drawing) setupMatrices();
+    }
+
+    private void setupMatrices() {
+        combinedMatrix.set(projectionMatrix).mul(transformMatrix);
+        shader.setUniformMatrix("u_projTrans", combinedMatrix);
+        shader.setUniformi("u_texture", 0);
+    }
+
+    public ShaderProgram getShader() {
+        return shader;
+    }
+
+    public boolean isDrawing() {
+        return drawing;
+    }
+
+    @Override
+    public void dispose() {
+        mesh.dispose();
+        if (ownsShader) shader.dispose();
+    }
+}
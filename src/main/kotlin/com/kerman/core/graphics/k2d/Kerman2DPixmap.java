@@ -4,13 +4,24 @@ import com.kerman.core.graphics.GLES20;
 import com.kerman.core.utils.Disposable;
 import com.kerman.core.utils.KermanRuntimeException;
 
+import org.lwjgl.stb.STBImage;
+import org.lwjgl.system.MemoryStack;
+import org.lwjgl.system.MemoryUtil;
+
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
 
 /**
  * This class was inspired by the "com.badlogic.gdx.graphics.g2d.Gdx2DPixmap".
+ * <p>
+ * Unlike the original this class doesn't use the gdx2d native library. Images are decoded with stb_image (through LWJGL) straight
+ * into a direct {@link ByteBuffer}, and all drawing, blending, scaling and format conversion is done in Java. Instances don't
+ * share any state, so pixmaps can be decoded and drawn to concurrently from several threads as long as each pixmap is only
+ * touched by one thread at a time.
  */
 public class Kerman2DPixmap implements Disposable {
     public static final int GDX2D_FORMAT_ALPHA = 1;
@@ -25,34 +36,62 @@ public class Kerman2DPixmap implements Disposable {
 
     public static final int GDX2D_BLEND_NONE = 0;
     public static final int GDX2D_BLEND_SRC_OVER = 1;
-    long basePtr;
+
+    /**
+     * Who owns the memory of {@link #pixelPtr} and how it has to be released.
+     */
+    private static final int MEMORY_EXTERNAL = 0;
+    private static final int MEMORY_STB = 1;
+    private static final int MEMORY_MALLOC = 2;
+
+    /**
+     * Lookup tables to expand 4, 5 and 6 bit channels to 8 bit.
+     */
+    private static final int[] lu4 = new int[16];
+    private static final int[] lu5 = new int[32];
+    private static final int[] lu6 = new int[64];
+
+    static {
+        for (int i = 0; i < lu4.length; i++) lu4[i] = (int) (i / 15f * 255);
+        for (int i = 0; i < lu5.length; i++) lu5[i] = (int) (i / 31f * 255);
+        for (int i = 0; i < lu6.length; i++) lu6[i] = (int) (i / 63f * 255);
+    }
+
     int width;
     int height;
     int format;
     ByteBuffer pixelPtr;
-    long[] nativeData = new long[4];
-    public Kerman2DPixmap(byte[] encodedData, int offset, int len, int requestedFormat) throws IOException {
-        pixelPtr = load(nativeData, encodedData, offset, len);
-        if (pixelPtr == null) throw new IOException("Error loading pixmap: " + getFailureReason());
+    private int memory;
+    private int blend = GDX2D_BLEND_SRC_OVER;
+    private int scale = GDX2D_SCALE_LINEAR;
+    /**
+     * Views of {@link #pixelPtr} used for pixel access. Multi byte channels are stored big endian (R, G, B, A), while the packed
+     * 16 bit formats are stored in machine order, just like OpenGL expects them.
+     */
+    private ByteBuffer bytes;
+    private ByteBuffer shorts;
 
-        basePtr = nativeData[0];
-        width = (int) nativeData[1];
-        height = (int) nativeData[2];
-        format = (int) nativeData[3];
+    public Kerman2DPixmap(byte[] encodedData, int offset, int len, int requestedFormat) throws IOException {
+        ByteBuffer buffer = MemoryUtil.memAlloc(len);
+        try {
+            buffer.put(encodedData, offset, len).flip();
+            load(buffer);
+        } finally {
+            MemoryUtil.memFree(buffer);
+        }
 
         if (requestedFormat != 0 && requestedFormat != format) {
             convert(requestedFormat);
         }
     }
+
     public Kerman2DPixmap(ByteBuffer encodedData, int offset, int len, int requestedFormat) throws IOException {
         if (!encodedData.isDirect()) throw new IOException("Couldn't load pixmap from non-direct ByteBuffer");
-        pixelPtr = loadByteBuffer(nativeData, encodedData, offset, len);
-        if (pixelPtr == null) throw new IOException("Error loading pixmap: " + getFailureReason());
-
-        basePtr = nativeData[0];
-        width = (int) nativeData[1];
-        height = (int) nativeData[2];
-        format = (int) nativeData[3];
+        ByteBuffer buffer = encodedData.duplicate();
+        buffer.clear();
+        buffer.position(offset);
+        buffer.limit(offset + len);
+        load(buffer.slice());
 
         if (requestedFormat != 0 && requestedFormat != format) {
             convert(requestedFormat);
@@ -69,13 +108,13 @@ public class Kerman2DPixmap implements Disposable {
         }
 
         buffer = bytes.toByteArray();
-        pixelPtr = load(nativeData, buffer, 0, buffer.length);
-        if (pixelPtr == null) throw new IOException("Error loading pixmap: " + getFailureReason());
-
-        basePtr = nativeData[0];
-        width = (int) nativeData[1];
-        height = (int) nativeData[2];
-        format = (int) nativeData[3];
+        ByteBuffer encoded = MemoryUtil.memAlloc(buffer.length);
+        try {
+            encoded.put(buffer).flip();
+            load(encoded);
+        } finally {
+            MemoryUtil.memFree(encoded);
+        }
 
         if (requestedFormat != 0 && requestedFormat != format) {
             convert(requestedFormat);
@@ -86,22 +125,23 @@ public class Kerman2DPixmap implements Disposable {
      * @throws KermanRuntimeException if allocation failed.
      */
     public Kerman2DPixmap(int width, int height, int format) throws KermanRuntimeException {
-        pixelPtr = newPixmap(nativeData, width, height, format);
-        if (pixelPtr == null) throw new KermanRuntimeException(
+        ByteBuffer pixels = null;
+        if (width > 0 && height > 0) {
+            long size = (long) width * height * getBytesPerPixel(format);
+            if (size <= Integer.MAX_VALUE) pixels = MemoryUtil.memCalloc((int) size);
+        }
+        if (pixels == null) throw new KermanRuntimeException(
                 "Unable to allocate memory for pixmap: " + width + "x" + height + ", " + getFormatString(format));
 
-        this.basePtr = nativeData[0];
-        this.width = (int) nativeData[1];
-        this.height = (int) nativeData[2];
-        this.format = (int) nativeData[3];
+        set(pixels, MEMORY_MALLOC, width, height, format);
     }
 
+    /**
+     * Wraps existing pixel memory. nativeData holds the width, height and format at indices 1, 2 and 3, index 0 is ignored. The
+     * memory is not released on {@link #dispose()}, the caller stays its owner.
+     */
     public Kerman2DPixmap(ByteBuffer pixelPtr, long[] nativeData) {
-        this.pixelPtr = pixelPtr;
-        this.basePtr = nativeData[0];
-        this.width = (int) nativeData[1];
-        this.height = (int) nativeData[2];
-        this.format = (int) nativeData[3];
+        set(pixelPtr, MEMORY_EXTERNAL, (int) nativeData[1], (int) nativeData[2], (int) nativeData[3]);
     }
 
     public static int toGlFormat(int format) {
@@ -172,194 +212,566 @@ public class Kerman2DPixmap implements Disposable {
         }
     }
 
-    private static native ByteBuffer load(long[] nativeData, byte[] buffer, int offset, int len); /*MANUAL
-		const unsigned char* p_buffer = (const unsigned char*)env->GetPrimitiveArrayCritical(buffer, 0);
-		gdx2d_pixmap* pixmap = gdx2d_load(p_buffer + offset, len);
-		env->ReleasePrimitiveArrayCritical(buffer, (char*)p_buffer, 0);
-
-		if(pixmap==0)
-			return 0;
-
-		jobject pixel_buffer = env->NewDirectByteBuffer((void*)pixmap->pixels, pixmap->width * pixmap->height * gdx2d_bytes_per_pixel(pixmap->format));
-		jlong* p_native_data = (jlong*)env->GetPrimitiveArrayCritical(nativeData, 0);
-		p_native_data[0] = (jlong)pixmap;
-		p_native_data[1] = pixmap->width;
-		p_native_data[2] = pixmap->height;
-		p_native_data[3] = pixmap->format;
-		env->ReleasePrimitiveArrayCritical(nativeData, p_native_data, 0);
-
-		return pixel_buffer;
-	 */
-
-    private static native ByteBuffer loadByteBuffer(long[] nativeData, ByteBuffer buffer, int offset, int len); /*MANUAL
-		if(buffer==0)
-			return 0;
-
-		const unsigned char* p_buffer = (const unsigned char*)env->GetDirectBufferAddress(buffer);
-		gdx2d_pixmap* pixmap = gdx2d_load(p_buffer + offset, len);
-
-		if(pixmap==0)
-			return 0;
-
-		jobject pixel_buffer = env->NewDirectByteBuffer((void*)pixmap->pixels, pixmap->width * pixmap->height * gdx2d_bytes_per_pixel(pixmap->format));
-		jlong* p_native_data = (jlong*)env->GetPrimitiveArrayCritical(nativeData, 0);
-		p_native_data[0] = (jlong)pixmap;
-		p_native_data[1] = pixmap->width;
-		p_native_data[2] = pixmap->height;
-		p_native_data[3] = pixmap->format;
-		env->ReleasePrimitiveArrayCritical(nativeData, p_native_data, 0);
-
-		return pixel_buffer;
-	 */
-
-    private static native ByteBuffer newPixmap(long[] nativeData, int width, int height, int format); /*MANUAL
-		gdx2d_pixmap* pixmap = gdx2d_new(width, height, format);
-		if(pixmap==0)
-			return 0;
-
-		jobject pixel_buffer = env->NewDirectByteBuffer((void*)pixmap->pixels, pixmap->width * pixmap->height * gdx2d_bytes_per_pixel(pixmap->format));
-		jlong* p_native_data = (jlong*)env->GetPrimitiveArrayCritical(nativeData, 0);
-		p_native_data[0] = (jlong)pixmap;
-		p_native_data[1] = pixmap->width;
-		p_native_data[2] = pixmap->height;
-		p_native_data[3] = pixmap->format;
-		env->ReleasePrimitiveArrayCritical(nativeData, p_native_data, 0);
-
-		return pixel_buffer;
-	 */
-
-    private static native void free(long pixmap); /*
-		gdx2d_free((gdx2d_pixmap*)pixmap);
-	 */
-
-    private static native void clear(long pixmap, int color); /*
-		gdx2d_clear((gdx2d_pixmap*)pixmap, color);
-	 */
-
-    private static native void setPixel(long pixmap, int x, int y, int color); /*
-		gdx2d_set_pixel((gdx2d_pixmap*)pixmap, x, y, color);
-	 */
-
-    private static native int getPixel(long pixmap, int x, int y); /*
-		return gdx2d_get_pixel((gdx2d_pixmap*)pixmap, x, y);
-	 */
-
-    private static native void drawLine(long pixmap, int x, int y, int x2, int y2, int color); /*
-		gdx2d_draw_line((gdx2d_pixmap*)pixmap, x, y, x2, y2, color);
-	 */
+    public static int getBytesPerPixel(int format) {
+        switch (format) {
+            case GDX2D_FORMAT_ALPHA:
+                return 1;
+            case GDX2D_FORMAT_LUMINANCE_ALPHA:
+            case GDX2D_FORMAT_RGB565:
+            case GDX2D_FORMAT_RGBA4444:
+                return 2;
+            case GDX2D_FORMAT_RGB888:
+                return 3;
+            case GDX2D_FORMAT_RGBA8888:
+                return 4;
+            default:
+                throw new KermanRuntimeException("unknown format: " + format);
+        }
+    }
 
-    private static native void drawRect(long pixmap, int x, int y, int width, int height, int color); /*
-		gdx2d_draw_rect((gdx2d_pixmap*)pixmap, x, y, width, height, color);
-	 */
+    /**
+     * @return the reason the last decode on the calling thread failed, as reported by stb_image.
+     */
+    public static String getFailureReason() {
+        return STBImage.stbi_failure_reason();
+    }
 
-    private static native void drawCircle(long pixmap, int x, int y, int radius, int color); /*
-		gdx2d_draw_circle((gdx2d_pixmap*)pixmap, x, y, radius, color);
-	 */
+    /**
+     * Converts a RGBA8888 color to the pixel value of the given format.
+     */
+    private static int toFormat(int format, int color) {
+        switch (format) {
+            case GDX2D_FORMAT_ALPHA:
+                return color & 0xff;
+            case GDX2D_FORMAT_LUMINANCE_ALPHA: {
+                int r = color >>> 24;
+                int g = (color >>> 16) & 0xff;
+                int b = (color >>> 8) & 0xff;
+                int l = ((int) (0.2126f * r + 0.7152f * g + 0.0722f * b)) & 0xff;
+                return (l << 8) | (color & 0xff);
+            }
+            case GDX2D_FORMAT_RGB888:
+                return color >>> 8;
+            case GDX2D_FORMAT_RGBA8888:
+                return color;
+            case GDX2D_FORMAT_RGB565:
+                return ((color >>> 27) << 11) | (((color >>> 18) & 0x3f) << 5) | ((color >>> 11) & 0x1f);
+            case GDX2D_FORMAT_RGBA4444:
+                return ((color >>> 28) << 12) | (((color >>> 20) & 0xf) << 8) | (((color >>> 12) & 0xf) << 4)
+                        | ((color >>> 4) & 0xf);
+            default:
+                return 0;
+        }
+    }
 
-    private static native void fillRect(long pixmap, int x, int y, int width, int height, int color); /*
-		gdx2d_fill_rect((gdx2d_pixmap*)pixmap, x, y, width, height, color);
-	 */
+    /**
+     * Converts a pixel value of the given format to a RGBA8888 color.
+     */
+    private static int toRGBA8888(int format, int pixel) {
+        switch (format) {
+            case GDX2D_FORMAT_ALPHA:
+                return (pixel & 0xff) | 0xffffff00;
+            case GDX2D_FORMAT_LUMINANCE_ALPHA: {
+                int l = (pixel >>> 8) & 0xff;
+                return (l << 24) | (l << 16) | (l << 8) | (pixel & 0xff);
+            }
+            case GDX2D_FORMAT_RGB888:
+                return (pixel << 8) | 0xff;
+            case GDX2D_FORMAT_RGBA8888:
+                return pixel;
+            case GDX2D_FORMAT_RGB565:
+                return (lu5[(pixel >>> 11) & 0x1f] << 24) | (lu6[(pixel >>> 5) & 0x3f] << 16) | (lu5[pixel & 0x1f] << 8) | 0xff;
+            case GDX2D_FORMAT_RGBA4444:
+                return (lu4[(pixel >>> 12) & 0xf] << 24) | (lu4[(pixel >>> 8) & 0xf] << 16) | (lu4[(pixel >>> 4) & 0xf] << 8)
+                        | lu4[pixel & 0xf];
+            default:
+                return 0;
+        }
+    }
 
-    private static native void fillCircle(long pixmap, int x, int y, int radius, int color); /*
-		gdx2d_fill_circle((gdx2d_pixmap*)pixmap, x, y, radius, color);
-	 */
+    /**
+     * Blends the RGBA8888 color src over dst.
+     */
+    private static int blend(int src, int dst) {
+        int srcA = src & 0xff;
+        if (srcA == 0xff) return src;
+        if (srcA == 0) return dst;
+
+        int dstA = dst & 0xff;
+        dstA -= (dstA * srcA) / 255;
+        int a = dstA + srcA;
+        int r = ((dst >>> 24) * dstA + (src >>> 24) * srcA) / a;
+        int g = (((dst >>> 16) & 0xff) * dstA + ((src >>> 16) & 0xff) * srcA) / a;
+        int b = (((dst >>> 8) & 0xff) * dstA + ((src >>> 8) & 0xff) * srcA) / a;
+        return (r << 24) | (g << 16) | (b << 8) | a;
+    }
+
+    private void load(ByteBuffer encoded) throws IOException {
+        ByteBuffer pixels;
+        int w, h, channels;
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            IntBuffer wBuffer = stack.mallocInt(1);
+            IntBuffer hBuffer = stack.mallocInt(1);
+            IntBuffer channelsBuffer = stack.mallocInt(1);
+            pixels = STBImage.stbi_load_from_memory(encoded, wBuffer, hBuffer, channelsBuffer, 0);
+            w = wBuffer.get(0);
+            h = hBuffer.get(0);
+            channels = channelsBuffer.get(0);
+        }
+        if (pixels == null) throw new IOException("Error loading pixmap: " + getFailureReason());
 
-    private static native void fillTriangle(long pixmap, int x1, int y1, int x2, int y2, int x3, int y3, int color); /*
-		gdx2d_fill_triangle((gdx2d_pixmap*)pixmap, x1, y1, x2, y2, x3, y3, color);
-	 */
+        // stb_image's channel count maps directly onto the GDX2D_FORMAT_* constants, grey images load as alpha.
+        set(pixels, MEMORY_STB, w, h, channels);
+    }
 
-    private static native void drawPixmap(long src, long dst, int srcX, int srcY, int srcWidth, int srcHeight, int dstX,
-                                          int dstY, int dstWidth, int dstHeight); /*
-		gdx2d_draw_pixmap((gdx2d_pixmap*)src, (gdx2d_pixmap*)dst, srcX, srcY, srcWidth, srcHeight, dstX, dstY, dstWidth, dstHeight);
-		 */
-
-    private static native void setBlend(long src, int blend); /*
-		gdx2d_set_blend((gdx2d_pixmap*)src, blend);
-	 */
-
-    private static native void setScale(long src, int scale); /*
-		gdx2d_set_scale((gdx2d_pixmap*)src, scale);
-	 */
-
-    public static native String getFailureReason(); /*
-     return env->NewStringUTF(gdx2d_get_failure_reason());
-	 */
+    private void set(ByteBuffer pixels, int memory, int width, int height, int format) {
+        this.pixelPtr = pixels;
+        this.memory = memory;
+        this.width = width;
+        this.height = height;
+        this.format = format;
+        this.bytes = pixels.duplicate().order(ByteOrder.BIG_ENDIAN);
+        this.shorts = pixels.duplicate().order(ByteOrder.nativeOrder());
+    }
 
     private void convert(int requestedFormat) {
         Kerman2DPixmap pixmap = new Kerman2DPixmap(width, height, requestedFormat);
         pixmap.setBlend(GDX2D_BLEND_NONE);
         pixmap.drawPixmap(this, 0, 0, 0, 0, width, height);
         dispose();
-        this.basePtr = pixmap.basePtr;
-        this.format = pixmap.format;
-        this.height = pixmap.height;
-        this.nativeData = pixmap.nativeData;
-        this.pixelPtr = pixmap.pixelPtr;
-        this.width = pixmap.width;
+        set(pixmap.pixelPtr, pixmap.memory, pixmap.width, pixmap.height, pixmap.format);
     }
 
     @Override
     public void dispose() {
-        free(basePtr);
+        if (memory == MEMORY_STB)
+            STBImage.stbi_image_free(pixelPtr);
+        else if (memory == MEMORY_MALLOC)
+            MemoryUtil.memFree(pixelPtr);
+        memory = MEMORY_EXTERNAL;
+    }
+
+    /**
+     * @return the raw pixel value at the given pixel index, no bounds checking is performed.
+     */
+    private int get(int index) {
+        switch (format) {
+            case GDX2D_FORMAT_ALPHA:
+                return bytes.get(index) & 0xff;
+            case GDX2D_FORMAT_LUMINANCE_ALPHA:
+                return bytes.getShort(index << 1) & 0xffff;
+            case GDX2D_FORMAT_RGB888: {
+                int offset = index * 3;
+                return ((bytes.get(offset) & 0xff) << 16) | ((bytes.get(offset + 1) & 0xff) << 8) | (bytes.get(offset + 2) & 0xff);
+            }
+            case GDX2D_FORMAT_RGBA8888:
+                return bytes.getInt(index << 2);
+            case GDX2D_FORMAT_RGB565:
+            case GDX2D_FORMAT_RGBA4444:
+                return shorts.getShort(index << 1) & 0xffff;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Stores the raw pixel value at the given pixel index, no bounds checking is performed.
+     */
+    private void put(int index, int pixel) {
+        switch (format) {
+            case GDX2D_FORMAT_ALPHA:
+                bytes.put(index, (byte) pixel);
+                break;
+            case GDX2D_FORMAT_LUMINANCE_ALPHA:
+                bytes.putShort(index << 1, (short) pixel);
+                break;
+            case GDX2D_FORMAT_RGB888: {
+                int offset = index * 3;
+                bytes.put(offset, (byte) (pixel >>> 16));
+                bytes.put(offset + 1, (byte) (pixel >>> 8));
+                bytes.put(offset + 2, (byte) pixel);
+                break;
+            }
+            case GDX2D_FORMAT_RGBA8888:
+                bytes.putInt(index << 2, pixel);
+                break;
+            case GDX2D_FORMAT_RGB565:
+            case GDX2D_FORMAT_RGBA4444:
+                shorts.putShort(index << 1, (short) pixel);
+                break;
+        }
+    }
+
+    /**
+     * Writes the RGBA8888 color to the pixel at the given index, blending it with the current content if blending is enabled.
+     */
+    private void draw(int index, int color) {
+        if (blend != GDX2D_BLEND_NONE) color = blend(color, toRGBA8888(format, get(index)));
+        put(index, toFormat(format, color));
+    }
+
+    private void hline(int x1, int x2, int y, int color) {
+        if (y < 0 || y >= height) return;
+        if (x1 > x2) {
+            int tmp = x1;
+            x1 = x2;
+            x2 = tmp;
+        }
+        if (x1 >= width || x2 < 0) return;
+        if (x1 < 0) x1 = 0;
+        if (x2 >= width) x2 = width - 1;
+
+        int index = y * width + x1;
+        if (blend == GDX2D_BLEND_NONE || (color & 0xff) == 0xff) {
+            int pixel = toFormat(format, color);
+            for (int x = x1; x <= x2; x++, index++) put(index, pixel);
+        } else {
+            for (int x = x1; x <= x2; x++, index++) draw(index, color);
+        }
+    }
+
+    private void vline(int y1, int y2, int x, int color) {
+        if (x < 0 || x >= width) return;
+        if (y1 > y2) {
+            int tmp = y1;
+            y1 = y2;
+            y2 = tmp;
+        }
+        if (y1 >= height || y2 < 0) return;
+        if (y1 < 0) y1 = 0;
+        if (y2 >= height) y2 = height - 1;
+
+        for (int y = y1, index = y1 * width + x; y <= y2; y++, index += width) draw(index, color);
     }
 
     public void clear(int color) {
-        clear(basePtr, color);
+        int pixel = toFormat(format, color);
+        for (int i = 0, n = width * height; i < n; i++) put(i, pixel);
     }
 
     public void setPixel(int x, int y, int color) {
-        setPixel(basePtr, x, y, color);
+        if (x < 0 || y < 0 || x >= width || y >= height) return;
+        draw(y * width + x, color);
     }
 
     public int getPixel(int x, int y) {
-        return getPixel(basePtr, x, y);
+        if (x < 0 || y < 0 || x >= width || y >= height) return 0;
+        return toRGBA8888(format, get(y * width + x));
     }
 
     public void drawLine(int x, int y, int x2, int y2, int color) {
-        drawLine(basePtr, x, y, x2, y2, color);
+        int dy = y2 - y;
+        int dx = x2 - x;
+        int stepX, stepY;
+        if (dy < 0) {
+            dy = -dy;
+            stepY = -1;
+        } else {
+            stepY = 1;
+        }
+        if (dx < 0) {
+            dx = -dx;
+            stepX = -1;
+        } else {
+            stepX = 1;
+        }
+        dy <<= 1;
+        dx <<= 1;
+
+        setPixel(x, y, color);
+        if (dx > dy) {
+            int fraction = dy - (dx >> 1);
+            while (x != x2) {
+                if (fraction >= 0) {
+                    y += stepY;
+                    fraction -= dx;
+                }
+                x += stepX;
+                fraction += dy;
+                setPixel(x, y, color);
+            }
+        } else {
+            int fraction = dx - (dy >> 1);
+            while (y != y2) {
+                if (fraction >= 0) {
+                    x += stepX;
+                    fraction -= dy;
+                }
+                y += stepY;
+                fraction += dx;
+                setPixel(x, y, color);
+            }
+        }
     }
 
-    // @off
-	/*JNI
-	#include <gdx2d/gdx2d.h>
-	#include <stdlib.h>
-	 */
-
     public void drawRect(int x, int y, int width, int height, int color) {
-        drawRect(basePtr, x, y, width, height, color);
+        hline(x, x + width - 1, y, color);
+        hline(x, x + width - 1, y + height - 1, color);
+        vline(y, y + height - 1, x, color);
+        vline(y, y + height - 1, x + width - 1, color);
+    }
+
+    private void circlePoints(int cx, int cy, int x, int y, int color) {
+        if (x == 0) {
+            setPixel(cx, cy + y, color);
+            setPixel(cx, cy - y, color);
+            setPixel(cx + y, cy, color);
+            setPixel(cx - y, cy, color);
+        } else if (x == y) {
+            setPixel(cx + x, cy + y, color);
+            setPixel(cx - x, cy + y, color);
+            setPixel(cx + x, cy - y, color);
+            setPixel(cx - x, cy - y, color);
+        } else if (x < y) {
+            setPixel(cx + x, cy + y, color);
+            setPixel(cx - x, cy + y, color);
+            setPixel(cx + x, cy - y, color);
+            setPixel(cx - x, cy - y, color);
+            setPixel(cx + y, cy + x, color);
+            setPixel(cx - y, cy + x, color);
+            setPixel(cx + y, cy - x, color);
+            setPixel(cx - y, cy - x, color);
+        }
     }
 
     public void drawCircle(int x, int y, int radius, int color) {
-        drawCircle(basePtr, x, y, radius, color);
+        int px = 0;
+        int py = radius;
+        int p = (5 - radius * 4) / 4;
+
+        circlePoints(x, y, px, py, color);
+        while (px < py) {
+            px++;
+            if (p < 0) {
+                p += 2 * px + 1;
+            } else {
+                py--;
+                p += 2 * (px - py) + 1;
+            }
+            circlePoints(x, y, px, py, color);
+        }
     }
 
     public void fillRect(int x, int y, int width, int height, int color) {
-        fillRect(basePtr, x, y, width, height, color);
+        int x2 = x + width - 1;
+        int y2 = y + height - 1;
+        if (x >= this.width || y >= this.height || x2 < 0 || y2 < 0) return;
+        if (y < 0) y = 0;
+        if (y2 >= this.height) y2 = this.height - 1;
+
+        for (; y <= y2; y++) hline(x, x2, y, color);
     }
 
     public void fillCircle(int x, int y, int radius, int color) {
-        fillCircle(basePtr, x, y, radius, color);
+        int f = 1 - radius;
+        int ddFx = 1;
+        int ddFy = -2 * radius;
+        int px = 0;
+        int py = radius;
+
+        hline(x, x, y + radius, color);
+        hline(x, x, y - radius, color);
+        hline(x - radius, x + radius, y, color);
+
+        while (px < py) {
+            if (f >= 0) {
+                py--;
+                ddFy += 2;
+                f += ddFy;
+            }
+            px++;
+            ddFx += 2;
+            f += ddFx;
+            hline(x - px, x + px, y + py, color);
+            hline(x - px, x + px, y - py, color);
+            hline(x - py, x + py, y + px, color);
+            hline(x - py, x + py, y - px, color);
+        }
     }
 
     public void fillTriangle(int x1, int y1, int x2, int y2, int x3, int y3, int color) {
-        fillTriangle(basePtr, x1, y1, x2, y2, x3, y3, color);
+        // Sort the vertices by y so that y1 <= y2 <= y3.
+        int tmp;
+        if (y1 > y2) {
+            tmp = x1;
+            x1 = x2;
+            x2 = tmp;
+            tmp = y1;
+            y1 = y2;
+            y2 = tmp;
+        }
+        if (y1 > y3) {
+            tmp = x1;
+            x1 = x3;
+            x3 = tmp;
+            tmp = y1;
+            y1 = y3;
+            y3 = tmp;
+        }
+        if (y2 > y3) {
+            tmp = x2;
+            x2 = x3;
+            x3 = tmp;
+            tmp = y2;
+            y2 = y3;
+            y3 = tmp;
+        }
+        if (y1 == y3) {
+            hline(Math.min(x1, Math.min(x2, x3)), Math.max(x1, Math.max(x2, x3)), y1, color);
+            return;
+        }
+
+        int yStart = Math.max(y1, 0);
+        int yEnd = Math.min(y3, height - 1);
+        float longSlope = (float) (x3 - x1) / (y3 - y1);
+        for (int y = yStart; y <= yEnd; y++) {
+            float xa = x1 + (y - y1) * longSlope;
+            float xb;
+            if (y < y2)
+                xb = x1 + (float) (y - y1) * (x2 - x1) / (y2 - y1);
+            else if (y3 != y2)
+                xb = x2 + (float) (y - y2) * (x3 - x2) / (y3 - y2);
+            else
+                xb = x2;
+            hline(Math.round(xa), Math.round(xb), y, color);
+        }
     }
 
     public void drawPixmap(Kerman2DPixmap src, int srcX, int srcY, int dstX, int dstY, int width, int height) {
-        drawPixmap(src.basePtr, basePtr, srcX, srcY, width, height, dstX, dstY, width, height);
+        drawPixmap(src, srcX, srcY, width, height, dstX, dstY, width, height);
     }
 
     public void drawPixmap(Kerman2DPixmap src, int srcX, int srcY, int srcWidth, int srcHeight, int dstX, int dstY, int dstWidth,
                            int dstHeight) {
-        drawPixmap(src.basePtr, basePtr, srcX, srcY, srcWidth, srcHeight, dstX, dstY, dstWidth, dstHeight);
+        if (srcWidth == dstWidth && srcHeight == dstHeight)
+            blitSameSize(src, srcX, srcY, dstX, dstY, srcWidth, srcHeight);
+        else if (scale == GDX2D_SCALE_NEAREST)
+            blitNearest(src, srcX, srcY, srcWidth, srcHeight, dstX, dstY, dstWidth, dstHeight);
+        else
+            blitLinear(src, srcX, srcY, srcWidth, srcHeight, dstX, dstY, dstWidth, dstHeight);
+    }
+
+    private void blitSameSize(Kerman2DPixmap src, int srcX, int srcY, int dstX, int dstY, int width, int height) {
+        // Clip the rectangle against both pixmaps.
+        if (srcX < 0) {
+            dstX -= srcX;
+            width += srcX;
+            srcX = 0;
+        }
+        if (srcY < 0) {
+            dstY -= srcY;
+            height += srcY;
+            srcY = 0;
+        }
+        if (dstX < 0) {
+            srcX -= dstX;
+            width += dstX;
+            dstX = 0;
+        }
+        if (dstY < 0) {
+            srcY -= dstY;
+            height += dstY;
+            dstY = 0;
+        }
+        width = Math.min(width, Math.min(src.width - srcX, this.width - dstX));
+        height = Math.min(height, Math.min(src.height - srcY, this.height - dstY));
+        if (width <= 0 || height <= 0) return;
+
+        if (src.format == format && blend == GDX2D_BLEND_NONE) {
+            // Same layout, copy whole rows.
+            int bpp = getBytesPerPixel(format);
+            int rowBytes = width * bpp;
+            for (int y = 0; y < height; y++) {
+                ByteBuffer in = src.bytes.duplicate();
+                int srcOffset = ((srcY + y) * src.width + srcX) * bpp;
+                in.limit(srcOffset + rowBytes).position(srcOffset);
+                ByteBuffer out = bytes.duplicate();
+                out.position(((dstY + y) * this.width + dstX) * bpp);
+                out.put(in);
+            }
+            return;
+        }
+
+        for (int y = 0; y < height; y++) {
+            int srcIndex = (srcY + y) * src.width + srcX;
+            int dstIndex = (dstY + y) * this.width + dstX;
+            for (int x = 0; x < width; x++, srcIndex++, dstIndex++)
+                draw(dstIndex, toRGBA8888(src.format, src.get(srcIndex)));
+        }
+    }
+
+    private void blitNearest(Kerman2DPixmap src, int srcX, int srcY, int srcWidth, int srcHeight, int dstX, int dstY,
+                             int dstWidth, int dstHeight) {
+        if (dstWidth <= 0 || dstHeight <= 0) return;
+        int xRatio = (srcWidth << 16) / dstWidth + 1;
+        int yRatio = (srcHeight << 16) / dstHeight + 1;
+
+        for (int i = 0; i < dstHeight; i++) {
+            int sy = ((i * yRatio) >> 16) + srcY;
+            int dy = i + dstY;
+            if (sy < 0 || dy < 0) continue;
+            if (sy >= src.height || dy >= height) break;
+
+            for (int j = 0; j < dstWidth; j++) {
+                int sx = ((j * xRatio) >> 16) + srcX;
+                int dx = j + dstX;
+                if (sx < 0 || dx < 0) continue;
+                if (sx >= src.width || dx >= width) break;
+                draw(dy * width + dx, toRGBA8888(src.format, src.get(sy * src.width + sx)));
+            }
+        }
+    }
+
+    private void blitLinear(Kerman2DPixmap src, int srcX, int srcY, int srcWidth, int srcHeight, int dstX, int dstY,
+                            int dstWidth, int dstHeight) {
+        if (dstWidth <= 0 || dstHeight <= 0) return;
+        float xRatio = ((float) srcWidth - 1) / dstWidth;
+        float yRatio = ((float) srcHeight - 1) / dstHeight;
+
+        for (int i = 0; i < dstHeight; i++) {
+            int sy = (int) (i * yRatio) + srcY;
+            int dy = i + dstY;
+            float yDiff = (yRatio * i + srcY) - sy;
+            if (sy < 0 || dy < 0) continue;
+            if (sy >= src.height || dy >= height) break;
+            boolean hasNextRow = sy + 1 < src.height;
+
+            for (int j = 0; j < dstWidth; j++) {
+                int sx = (int) (j * xRatio) + srcX;
+                int dx = j + dstX;
+                float xDiff = (xRatio * j + srcX) - sx;
+                if (sx < 0 || dx < 0) continue;
+                if (sx >= src.width || dx >= width) break;
+                boolean hasNextColumn = sx + 1 < src.width;
+
+                int index = sy * src.width + sx;
+                int c1 = toRGBA8888(src.format, src.get(index));
+                int c2 = hasNextColumn ? toRGBA8888(src.format, src.get(index + 1)) : c1;
+                int c3 = hasNextRow ? toRGBA8888(src.format, src.get(index + src.width)) : c1;
+                int c4 = hasNextColumn && hasNextRow ? toRGBA8888(src.format, src.get(index + src.width + 1)) : c1;
+
+                float ta = (1 - xDiff) * (1 - yDiff);
+                float tb = xDiff * (1 - yDiff);
+                float tc = (1 - xDiff) * yDiff;
+                float td = xDiff * yDiff;
+
+                int r = (int) ((c1 >>> 24) * ta + (c2 >>> 24) * tb + (c3 >>> 24) * tc + (c4 >>> 24) * td) & 0xff;
+                int g = (int) (((c1 >>> 16) & 0xff) * ta + ((c2 >>> 16) & 0xff) * tb + ((c3 >>> 16) & 0xff) * tc
+                        + ((c4 >>> 16) & 0xff) * td) & 0xff;
+                int b = (int) (((c1 >>> 8) & 0xff) * ta + ((c2 >>> 8) & 0xff) * tb + ((c3 >>> 8) & 0xff) * tc
+                        + ((c4 >>> 8) & 0xff) * td) & 0xff;
+                int a = (int) ((c1 & 0xff) * ta + (c2 & 0xff) * tb + (c3 & 0xff) * tc + (c4 & 0xff) * td) & 0xff;
+                draw(dy * width + dx, (r << 24) | (g << 16) | (b << 8) | a);
+            }
+        }
     }
 
     public void setBlend(int blend) {
-        setBlend(basePtr, blend);
+        this.blend = blend;
     }
 
     public void setScale(int scale) {
-        setScale(basePtr, scale);
+        this.scale = scale;
     }
 
     public ByteBuffer getPixels() {
@@ -0,0 +1,231 @@
+package com.kerman.core.graphics.k2d;
+
+import com.kerman.core.Kerman;
+import com.kerman.core.graphics.GLES20;
+import com.kerman.core.graphics.Texture;
+import com.kerman.core.graphics.VertexAttribute;
+import com.kerman.core.graphics.VertexAttributes.Usage;
+import com.kerman.core.graphics.glutils.ShaderProgram;
+import com.kerman.core.utils.BufferUtils;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.IntBuffer;
+
+/**
+ * A {@link SpriteBatch} that binds several textures at once, so drawing sprites from different textures, e.g. from several atlas
+ * pages and a font, doesn't flush the batch every time the texture changes. The batch only flushes once more textures are used
+ * than there are texture units, see {@link #getMaxTextures()}.
+ * <p>
+ * Every vertex gets the index of its texture in the {@link #TEXTURE_INDEX_ATTRIBUTE} attribute, and the textures are bound to
+ * the units 0 to n-1 and set to the sampler array "u_textures". A custom shader set with {@link #setShader(ShaderProgram)} has to
+ * use both, see {@link #createDefaultShader(int)}.
+ */
+public class MultiTextureSpriteBatch extends SpriteBatch {
+    static public final String TEXTURE_INDEX_ATTRIBUTE = "a_textureIndex";
+
+    /**
+     * The vertices written by the draw methods with the texture index added to every vertex.
+     */
+    private final float[] indexedVertices;
+    private final Texture[] textures;
+    private final int[] textureUnits;
+    private int textureCount;
+    /**
+     * Runs of sprites drawn with the same texture, as the offset in {@link #vertices} they start at and their texture index.
+     */
+    private final int[] runStarts;
+    private final int[] runTextures;
+    private int runCount;
+    private final ShaderProgram ownedShader;
+
+    /**
+     * Constructs a batch of 1000 sprites using up to 16 textures at once, or as many as the GPU has texture units.
+     */
+    public MultiTextureSpriteBatch() {
+        this(1000, Math.min(16, getMaxTextureUnits()), null);
+    }
+
+    /**
+     * @param size          the max number of sprites in a single batch. Max of 8191.
+     * @param maxTextures   the max number of textures bound at once, at most {@link #getMaxTextureUnits()}
+     * @param defaultShader the default shader to use, or null to generate one with {@link #createDefaultShader(int)}. This is not
+     *                      owned by the batch and must be disposed separately.
+     */
+    public MultiTextureSpriteBatch(int size, int maxTextures, @Nullable ShaderProgram defaultShader) {
+        super(size, defaultShader != null ? defaultShader : createDefaultShader(maxTextures), false,
+                new VertexAttribute(Usage.Position, 2, ShaderProgram.POSITION_ATTRIBUTE),
+                new VertexAttribute(Usage.ColorPacked, 4, ShaderProgram.COLOR_ATTRIBUTE),
+                new VertexAttribute(Usage.TextureCoordinates, 2, ShaderProgram.TEXCOORD_ATTRIBUTE + "0"),
+                new VertexAttribute(Usage.Generic, 1, TEXTURE_INDEX_ATTRIBUTE));
+        if (maxTextures > getMaxTextureUnits())
+            throw new IllegalArgumentException("maxTextures exceeds the texture units of the GPU: " + maxTextures);
+        ownedShader = defaultShader == null ? getShader() : null;
+        indexedVertices = new float[size * 24];
+        textures = new Texture[maxTextures];
+        textureUnits = new int[maxTextures];
+        for (int i = 0; i < maxTextures; i++)
+            textureUnits[i] = i;
+        runStarts = new int[size];
+        runTextures = new int[size];
+    }
+
+    /**
+     * @return the number of texture units a fragment shader can sample from
+     */
+    static public int getMaxTextureUnits() {
+        IntBuffer units = BufferUtils.newIntBuffer(16);
+        Kerman.gl.glGetIntegerv(GLES20.GL_MAX_TEXTURE_IMAGE_UNITS, units);
+        return Math.max(1, units.get(0));
+    }
+
+    /**
+     * Returns a new default shader sampling from the given number of textures. GLSL ES 1.0 can't index a sampler array with a
+     * varying, so the texture is picked with a branch per texture.
+     */
+    static public ShaderProgram createDefaultShader(int maxTextures) {
+        if (maxTextures < 1) throw new IllegalArgumentException("maxTextures must be > 0: " + maxTextures);
+        String vertexShader = "attribute vec4 " + ShaderProgram.POSITION_ATTRIBUTE + ";\n" //
+                + "attribute vec4 " + ShaderProgram.COLOR_ATTRIBUTE + ";\n" //
+                + "attribute vec2 " + ShaderProgram.TEXCOORD_ATTRIBUTE + "0;\n" //
+                + "attribute float " + TEXTURE_INDEX_ATTRIBUTE + ";\n" //
+                + "uniform mat4 u_projTrans;\n" //
+                + "varying vec4 v_color;\n" //
+                + "varying vec2 v_texCoords;\n" //
+                + "varying float v_textureIndex;\n" //
+                + "\n" //
+                + "void main()\n" //
+                + "{\n" //
+                + "   v_color = " + ShaderProgram.COLOR_ATTRIBUTE + ";\n" //
+                + "   v_color.a = v_color.a * (255.0/254.0);\n" //
+                + "   v_texCoords = " + ShaderProgram.TEXCOORD_ATTRIBUTE + "0;\n" //
+                + "   v_textureIndex = " + TEXTURE_INDEX_ATTRIBUTE + ";\n" //
+                + "   gl_Position =  u_projTrans * " + ShaderProgram.POSITION_ATTRIBUTE + ";\n" //
+                + "}\n";
+        StringBuilder fragmentShader = new StringBuilder("#ifdef GL_ES\n" //
+                + "#define LOWP lowp\n" //
+                + "precision mediump float;\n" //
+                + "#else\n" //
+                + "#define LOWP \n" //
+                + "#endif\n" //
+                + "varying LOWP vec4 v_color;\n" //
+                + "varying vec2 v_texCoords;\n" //
+                + "varying float v_textureIndex;\n" //
+                + "uniform sampler2D u_textures[" + maxTextures + "];\n" //
+                + "void main()\n"//
+                + "{\n" //
+                + "  vec4 texel;\n");
+        for (int i = 0; i < maxTextures; i++) {
+            if (i == maxTextures - 1)
+                fragmentShader.append(i == 0 ? "  " : "  else ");
+            else
+                fragmentShader.append(i == 0 ? "  if" : "  else if").append(" (v_textureIndex < ").append(i).append(".5) ");
+            fragmentShader.append("texel = texture2D(u_textures[").append(i).append("], v_texCoords);\n");
+        }
+        fragmentShader.append("  gl_FragColor = v_color * texel;\n}");
+
+        ShaderProgram shader = new ShaderProgram(vertexShader, fragmentShader.toString());
+        if (!shader.isCompiled()) throw new IllegalArgumentException("Error compiling shader: " + shader.getLog());
+        return shader;
+    }
+
+    /**
+     * @return the max number of textures bound at once
+     */
+    public int getMaxTextures() {
+        return textures.length;
+    }
+
+    /**
+     * Adds the texture to the textures of the current batch instead of flushing, unless all texture units are used.
+     */
+    @Override
+    protected void switchTexture(Texture texture) {
+        if (idx == vertices.length) flush();
+        if (idx == 0) {
+            textureCount = 0;
+            runCount = 0;
+        }
+        int index = indexOf(texture);
+        if (index == -1) {
+            if (textureCount == textures.length) {
+                flush();
+                textureCount = 0;
+                runCount = 0;
+            }
+            index = textureCount;
+            textures[textureCount++] = texture;
+        }
+        if (runCount > 0 && runStarts[runCount - 1] == idx)
+            runTextures[runCount - 1] = index;
+        else {
+            runStarts[runCount] = idx;
+            runTextures[runCount] = index;
+            runCount++;
+        }
+        lastTexture = texture;
+        invTexWidth = 1.0f / texture.getWidth();
+        invTexHeight = 1.0f / texture.getHeight();
+    }
+
+    private int indexOf(Texture texture) {
+        Texture[] textures = this.textures;
+        for (int i = 0, n = textureCount; i < n; i++)
+            if (textures[i] == texture) return i;
+        return -1;
+    }
+
+    @Override
+    public void flush() {
+        if (idx == 0) return;
+
+        for (int i = textureCount - 1; i >= 0; i--)
+            textures[i].bind(i);
+
+        // add the texture index to every vertex, a sprite has 4 vertices of 5 floats.
+        float[] vertices = this.vertices, indexedVertices = this.indexedVertices;
+        int[] runStarts = this.runStarts, runTextures = this.runTextures;
+        int idx = this.idx, target = 0;
+        for (int run = 0, runCount = this.runCount; run < runCount; run++) {
+            float textureIndex = runTextures[run];
+            int end = run + 1 < runCount ? runStarts[run + 1] : idx;
+            for (int i = runStarts[run]; i < end; i += 5, target += 6) {
+                indexedVertices[target] = vertices[i];
+                indexedVertices[target + 1] = vertices[i + 1];
+                indexedVertices[target + 2] = vertices[i + 2];
+                indexedVertices[target + 3] = vertices[i + 3];
+                indexedVertices[target + 4] = vertices[i + 4];
+                indexedVertices[target + 5] = textureIndex;
+            }
+        }
+        mesh.setVertices(indexedVertices, 0, target);
+        renderSprites(idx / 20);
+
+        this.idx = 0;
+        // keep drawing with the last texture without another switch
+        textureCount = 1;
+        textures[0] = lastTexture;
+        runCount = 1;
+        runStarts[0] = 0;
+        runTextures[0] = 0;
+    }
+
+    @Override
+    public void end() {
+        super.end();
+        textureCount = 0;
+        runCount = 0;
+        for (int i = 0; i < textures.length; i++)
+            textures[i] = null;
+    }
+
+    @Override
+    protected void setupTextureUniforms(ShaderProgram shader) {
+        shader.setUniform1iv("u_textures", textureUnits, 0, textureUnits.length);
+    }
+
+    @Override
+    public void dispose() {
+        super.dispose();
+        if (ownedShader != null) ownedShader.dispose();
+    }
+}
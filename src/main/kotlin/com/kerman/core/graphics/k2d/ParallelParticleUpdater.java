@@ -0,0 +1,167 @@
+package com.kerman.core.graphics.k2d;
+
+import com.kerman.core.utils.Disposable;
+import com.kerman.core.utils.KermanArray;
+import com.kerman.core.utils.KermanRuntimeException;
+import com.kerman.core.utils.async.AsyncExecutor;
+import com.kerman.core.utils.async.AsyncResult;
+import com.kerman.core.utils.async.AsyncTask;
+
+/**
+ * Updates the emitters of many {@link ParticleEffect effects}, like the effects obtained from a {@link ParticleEffectPool}, on the
+ * threads of an {@link AsyncExecutor} and the calling thread. The emitters are split into one range per thread with about the same
+ * number of active particles. {@link #update(KermanArray, float)} returns when all emitters are updated, so the effects are drawn
+ * on the render thread as usual:
+ *
+ * <pre>
+ * effect = pool.obtain();
+ * effect.setSeed(seed);
+ * effect.start();
+ * effects.add(effect);
+ * ...
+ * updater.update(effects, delta);
+ * batch.begin();
+ * for (PooledEffect effect : effects)
+ * 	effect.draw(batch);
+ * batch.end();
+ * </pre>
+ * <p>
+ * Every emitter must have its own random number generator, see {@link ParticleEffect#setSeed(long)}. The particles of an emitter
+ * then don't depend on the thread it's updated on or the order in which the emitters are updated, so effects seeded the same make
+ * the same particles when they are updated with this class or with {@link ParticleEffect#update(float)}. Subclasses of
+ * ParticleEffect overriding {@link ParticleEffect#update(float)} aren't supported, as the emitters are updated directly.
+ */
+public class ParallelParticleUpdater implements Disposable {
+    private final AsyncExecutor executor;
+    private final boolean ownsExecutor;
+    private final int threads;
+    private final KermanArray<ParticleEmitter> emitters = new KermanArray<>(true, 64, ParticleEmitter.class);
+    private final KermanArray<UpdateTask> tasks = new KermanArray<>();
+    private final KermanArray<AsyncResult<Void>> results = new KermanArray<>();
+
+    /**
+     * Creates an updater with one worker thread less than there are processors, as the calling thread updates emitters too.
+     */
+    public ParallelParticleUpdater() {
+        this(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    }
+
+    /**
+     * Creates an updater with its own executor, which is disposed with the updater.
+     *
+     * @param threads the number of worker threads
+     */
+    public ParallelParticleUpdater(int threads) {
+        this(new AsyncExecutor(threads, "ParallelParticleUpdater"), threads, true);
+    }
+
+    /**
+     * Creates an updater using an executor that is shared with other work and isn't disposed with the updater.
+     *
+     * @param threads the number of worker threads of the executor to use
+     */
+    public ParallelParticleUpdater(AsyncExecutor executor, int threads) {
+        this(executor, threads, false);
+    }
+
+    private ParallelParticleUpdater(AsyncExecutor executor, int threads, boolean ownsExecutor) {
+        if (threads < 1) throw new IllegalArgumentException("threads must be > 0: " + threads);
+        this.executor = executor;
+        this.threads = threads;
+        this.ownsExecutor = ownsExecutor;
+    }
+
+    /**
+     * Updates all emitters of the effects, like calling {@link ParticleEffect#update(float)} on every effect.
+     *
+     * @throws IllegalStateException if an emitter uses the shared random number generator
+     */
+    public void update(KermanArray<? extends ParticleEffect> effects, float delta) {
+        KermanArray<ParticleEmitter> emitters = this.emitters;
+        emitters.clear();
+        long particles = 0;
+        for (int i = 0, n = effects.size; i < n; i++) {
+            KermanArray<ParticleEmitter> effectEmitters = effects.get(i).getEmitters();
+            for (int ii = 0, nn = effectEmitters.size; ii < nn; ii++) {
+                ParticleEmitter emitter = effectEmitters.get(ii);
+                if (emitter.getRandom() == null) {
+                    throw new IllegalStateException("ParticleEffect.setSeed must be called before the effect is updated in parallel: "
+                            + emitter.getName());
+                }
+                emitters.add(emitter);
+                // Emitters without particles still cost something, and may emit.
+                particles += emitter.getActiveCount() + 1;
+            }
+        }
+
+        ParticleEmitter[] items = emitters.items;
+        int ranges = Math.min(threads + 1, emitters.size);
+        if (ranges <= 1) {
+            update(items, 0, emitters.size, delta);
+            emitters.clear();
+            return;
+        }
+
+        // The calling thread updates the first range, the others are submitted.
+        int firstEnd = 0;
+        try {
+            int start = 0, range = 1;
+            long weight = 0;
+            for (int i = 0, n = emitters.size; i < n; i++) {
+                weight += items[i].getActiveCount() + 1;
+                if (i == n - 1 || weight >= particles * range / ranges) {
+                    if (range == 1)
+                        firstEnd = i + 1;
+                    else {
+                        if (tasks.size < range - 1) tasks.add(new UpdateTask());
+                        UpdateTask task = tasks.get(range - 2);
+                        task.start = start;
+                        task.end = i + 1;
+                        task.delta = delta;
+                        results.add(executor.submit(task));
+                    }
+                    start = i + 1;
+                    range++;
+                }
+            }
+            update(items, 0, firstEnd, delta);
+        } finally {
+            // Wait for all tasks before anything is rethrown, so no emitter is updated after this returns.
+            KermanRuntimeException failure = null;
+            try {
+                for (int i = 0, n = results.size; i < n; i++) {
+                    try {
+                        results.get(i).get();
+                    } catch (KermanRuntimeException ex) {
+                        if (failure == null) failure = ex;
+                    }
+                }
+            } finally {
+                results.clear();
+                emitters.clear();
+            }
+            if (failure != null) throw failure;
+        }
+    }
+
+    static private void update(ParticleEmitter[] emitters, int start, int end, float delta) {
+        for (int i = start; i < end; i++)
+            emitters[i].update(delta);
+    }
+
+    @Override
+    public void dispose() {
+        if (ownsExecutor) executor.dispose();
+    }
+
+    private class UpdateTask implements AsyncTask<Void> {
+        int start, end;
+        float delta;
+
+        @Override
+        public Void call() {
+            update(emitters.items, start, end, delta);
+            return null;
+        }
+    }
+}
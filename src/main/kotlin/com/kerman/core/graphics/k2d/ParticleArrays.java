@@ -0,0 +1,109 @@
+package com.kerman.core.graphics.k2d;
+
+/**
+ * The particles of a {@link ParticleEmitter} in {@link ParticleEmitter.StorageMode#arrays arrays} mode, one array per field of
+ * {@link ParticleEmitter.Particle} plus the state a particle's sprite would have. The live particles are packed at the start of
+ * the arrays, so the emitter only touches live particles and removes one by moving the last live particle into its place.
+ */
+class ParticleArrays {
+    /**
+     * The vertices written before they are drawn, for 64 particles.
+     */
+    final float[] vertices = new float[64 * Sprite.SPRITE_SIZE];
+    final int[] life, currentLife;
+    /**
+     * The index of the sprite in the sprites of the emitter, the frame in animated mode.
+     */
+    final int[] sprite;
+    /**
+     * The center of the particle.
+     */
+    final float[] x, y;
+    /**
+     * The scale, rotation and packed color of the particle, like set on a particle's sprite.
+     */
+    final float[] scaleX, scaleY, spriteRotation, color;
+    final float[] xScale, xScaleDiff;
+    final float[] yScale, yScaleDiff;
+    final float[] rotation, rotationDiff;
+    final float[] velocity, velocityDiff;
+    final float[] angle, angleDiff;
+    final float[] angleCos, angleSin;
+    final float[] transparency, transparencyDiff;
+    final float[] wind, windDiff;
+    final float[] gravity, gravityDiff;
+    /**
+     * The red, green and blue of the tint, 3 values per particle.
+     */
+    final float[] tint;
+    /**
+     * The percent of the life of each particle, set when the particles are updated.
+     */
+    final float[] percent;
+
+    ParticleArrays(int capacity) {
+        life = new int[capacity];
+        currentLife = new int[capacity];
+        sprite = new int[capacity];
+        x = new float[capacity];
+        y = new float[capacity];
+        scaleX = new float[capacity];
+        scaleY = new float[capacity];
+        spriteRotation = new float[capacity];
+        color = new float[capacity];
+        xScale = new float[capacity];
+        xScaleDiff = new float[capacity];
+        yScale = new float[capacity];
+        yScaleDiff = new float[capacity];
+        rotation = new float[capacity];
+        rotationDiff = new float[capacity];
+        velocity = new float[capacity];
+        velocityDiff = new float[capacity];
+        angle = new float[capacity];
+        angleDiff = new float[capacity];
+        angleCos = new float[capacity];
+        angleSin = new float[capacity];
+        transparency = new float[capacity];
+        transparencyDiff = new float[capacity];
+        wind = new float[capacity];
+        windDiff = new float[capacity];
+        gravity = new float[capacity];
+        gravityDiff = new float[capacity];
+        tint = new float[capacity * 3];
+        percent = new float[capacity];
+    }
+
+    /**
+     * Copies the particle at the source index over the particle at the target index.
+     */
+    void move(int from, int to) {
+        life[to] = life[from];
+        currentLife[to] = currentLife[from];
+        sprite[to] = sprite[from];
+        x[to] = x[from];
+        y[to] = y[from];
+        scaleX[to] = scaleX[from];
+        scaleY[to] = scaleY[from];
+        spriteRotation[to] = spriteRotation[from];
+        color[to] = color[from];
+        xScale[to] = xScale[from];
+        xScaleDiff[to] = xScaleDiff[from];
+        yScale[to] = yScale[from];
+        yScaleDiff[to] = yScaleDiff[from];
+        rotation[to] = rotation[from];
+        rotationDiff[to] = rotationDiff[from];
+        velocity[to] = velocity[from];
+        velocityDiff[to] = velocityDiff[from];
+        angle[to] = angle[from];
+        angleDiff[to] = angleDiff[from];
+        angleCos[to] = angleCos[from];
+        angleSin[to] = angleSin[from];
+        transparency[to] = transparency[from];
+        transparencyDiff[to] = transparencyDiff[from];
+        wind[to] = wind[from];
+        windDiff[to] = windDiff[from];
+        gravity[to] = gravity[from];
+        gravityDiff[to] = gravityDiff[from];
+        System.arraycopy(tint, from * 3, tint, to * 3, 3);
+    }
+}
@@ -2,6 +2,7 @@ package com.kerman.core.graphics.k2d;
 
 import com.kerman.core.files.FileHandle;
 import com.kerman.core.graphics.Texture;
+import com.kerman.core.math.RandomXS128;
 import com.kerman.core.math.collision.BoundingBox;
 import com.kerman.core.utils.KermanArray;
 import com.kerman.core.utils.Disposable;
@@ -118,6 +119,16 @@ public class ParticleEffect implements Disposable {
             emitters.get(i).setPosition(x, y);
     }
 
+    /**
+     * Gives every emitter its own random number generator seeded from the seed, see
+     * {@link ParticleEmitter#setRandom(java.util.Random)}. Effects seeded the same and then started make the same particles when
+     * they are updated with the same deltas, on any thread, so the effect can be updated with a {@link ParallelParticleUpdater}.
+     */
+    public void setSeed(long seed) {
+        for (int i = 0, n = emitters.size; i < n; i++)
+            emitters.get(i).setRandom(new RandomXS128(seed + i * 0x9E3779B97F4A7C15L));
+    }
+
     public void setFlip(boolean flipX, boolean flipY) {
         for (int i = 0, n = emitters.size; i < n; i++)
             emitters.get(i).setFlip(flipX, flipY);
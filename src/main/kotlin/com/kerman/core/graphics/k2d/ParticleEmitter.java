@@ -1,16 +1,20 @@
 package com.kerman.core.graphics.k2d;
 
 import com.kerman.core.Kerman;
+import com.kerman.core.graphics.Color;
 import com.kerman.core.graphics.GLES20;
+import com.kerman.core.graphics.Texture;
 import com.kerman.core.math.MathUtils;
 import com.kerman.core.math.Rectangle;
 import com.kerman.core.math.collision.BoundingBox;
 import com.kerman.core.utils.KermanArray;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.Writer;
 import java.util.Arrays;
+import java.util.Random;
 
 /**
  * Info : This class was inspired by "com.badlogic.gdx.graphics.g2d.ParticleEmitter".
@@ -51,12 +55,15 @@ public class ParticleEmitter {
     private float accumulator;
     private KermanArray<Sprite> sprites;
     private SpriteMode spriteMode = SpriteMode.single;
+    private StorageMode storageMode = StorageMode.sprites;
     private Particle[] particles;
+    private ParticleArrays arrays;
+    private @Nullable Random random;
     private int minParticleCount, maxParticleCount = 4;
     private float x, y;
     private String name;
     private KermanArray<String> imagePaths;
-    private int activeCount;
+    int activeCount;
     private boolean[] active;
     private boolean firstUpdate;
     private boolean flipX, flipY;
@@ -64,10 +71,10 @@ public class ParticleEmitter {
     private boolean allowCompletion;
     private BoundingBox bounds;
     private int emission, emissionDiff, emissionDelta;
-    private int lifeOffset, lifeOffsetDiff;
-    private int life, lifeDiff;
-    private float spawnWidth, spawnWidthDiff;
-    private float spawnHeight, spawnHeightDiff;
+    int lifeOffset, lifeOffsetDiff;
+    int life, lifeDiff;
+    float spawnWidth, spawnWidthDiff;
+    float spawnHeight, spawnHeightDiff;
     private float delay, delayTimer;
     private boolean attached;
     private boolean continuous;
@@ -75,6 +82,10 @@ public class ParticleEmitter {
     private boolean behind;
     private boolean additive = true;
     private boolean premultipliedAlpha = false;
+    /**
+     * The position chosen by {@link #spawn(float)}, and the angle of the ellipse edge or NaN.
+     */
+    private float spawnX, spawnY, spawnAngle;
 
     public ParticleEmitter() {
         initialize();
@@ -89,6 +100,7 @@ public class ParticleEmitter {
         sprites = new KermanArray<>(emitter.sprites);
         name = emitter.name;
         imagePaths = new KermanArray<>(emitter.imagePaths);
+        storageMode = emitter.storageMode;
         setMaxParticleCount(emitter.maxParticleCount);
         minParticleCount = emitter.minParticleCount;
         delayValue.load(emitter.delayValue);
@@ -163,6 +175,12 @@ public class ParticleEmitter {
     public void addParticle() {
         int activeCount = this.activeCount;
         if (activeCount == maxParticleCount) return;
+        if (arrays != null) {
+            // Activating may update the particle, which must be live.
+            this.activeCount = activeCount + 1;
+            activateParticle(arrays, activeCount);
+            return;
+        }
         boolean[] active = this.active;
         for (int i = 0, n = active.length; i < n; i++) {
             if (!active[i]) {
@@ -177,6 +195,12 @@ public class ParticleEmitter {
     public void addParticles(int count) {
         count = Math.min(count, maxParticleCount - activeCount);
         if (count == 0) return;
+        if (arrays != null) {
+            // Activating may update the particle, which must be live.
+            for (int i = 0; i < count; i++)
+                activateParticle(arrays, activeCount++);
+            return;
+        }
         boolean[] active = this.active;
         int index = 0, n = active.length;
         outer:
@@ -234,6 +258,11 @@ public class ParticleEmitter {
             }
         }
 
+        if (arrays != null) {
+            updateParticles(arrays, 0, delta, deltaMillis);
+            return;
+        }
+
         boolean[] active = this.active;
         int activeCount = this.activeCount;
         Particle[] particles = this.particles;
@@ -254,11 +283,15 @@ public class ParticleEmitter {
         } else {
             batch.setBlendFunction(GLES20.GL_SRC_ALPHA, GLES20.GL_ONE_MINUS_SRC_ALPHA);
         }
-        Particle[] particles = this.particles;
-        boolean[] active = this.active;
+        if (arrays != null)
+            drawParticles(arrays, batch);
+        else {
+            Particle[] particles = this.particles;
+            boolean[] active = this.active;
 
-        for (int i = 0, n = active.length; i < n; i++) {
-            if (active[i]) particles[i].draw(batch);
+            for (int i = 0, n = active.length; i < n; i++) {
+                if (active[i]) particles[i].draw(batch);
+            }
         }
 
         if (cleansUpBlendFunction && (additive || premultipliedAlpha))
@@ -286,21 +319,26 @@ public class ParticleEmitter {
             batch.setBlendFunction(GLES20.GL_SRC_ALPHA, GLES20.GL_ONE_MINUS_SRC_ALPHA);
         }
 
-        Particle[] particles = this.particles;
-        boolean[] active = this.active;
-        int activeCount = this.activeCount;
-        for (int i = 0, n = active.length; i < n; i++) {
-            if (active[i]) {
-                Particle particle = particles[i];
-                if (updateParticle(particle, delta, deltaMillis))
-                    particle.draw(batch);
-                else {
-                    active[i] = false;
-                    activeCount--;
+        if (arrays != null) {
+            updateParticles(arrays, 0, delta, deltaMillis);
+            drawParticles(arrays, batch);
+        } else {
+            Particle[] particles = this.particles;
+            boolean[] active = this.active;
+            int activeCount = this.activeCount;
+            for (int i = 0, n = active.length; i < n; i++) {
+                if (active[i]) {
+                    Particle particle = particles[i];
+                    if (updateParticle(particle, delta, deltaMillis))
+                        particle.draw(batch);
+                    else {
+                        active[i] = false;
+                        activeCount--;
+                    }
                 }
             }
+            this.activeCount = activeCount;
         }
-        this.activeCount = activeCount;
 
         if (cleansUpBlendFunction && (additive || premultipliedAlpha))
             batch.setBlendFunction(GLES20.GL_SRC_ALPHA, GLES20.GL_ONE_MINUS_SRC_ALPHA);
@@ -358,26 +396,26 @@ public class ParticleEmitter {
     }
 
     private void restart() {
-        delay = delayValue.active ? delayValue.newLowValue() : 0;
+        delay = delayValue.active ? delayValue.newLowValue(random()) : 0;
         delayTimer = 0;
 
         durationTimer -= duration;
-        duration = durationValue.newLowValue();
+        duration = durationValue.newLowValue(random());
 
-        emission = (int) emissionValue.newLowValue();
-        emissionDiff = (int) emissionValue.newHighValue();
+        emission = (int) emissionValue.newLowValue(random());
+        emissionDiff = (int) emissionValue.newHighValue(random());
         if (!emissionValue.relative) emissionDiff -= emission;
 
         if (!lifeValue.independent) generateLifeValues();
 
         if (!lifeOffsetValue.independent) generateLifeOffsetValues();
 
-        spawnWidth = spawnWidthValue.newLowValue();
-        spawnWidthDiff = spawnWidthValue.newHighValue();
+        spawnWidth = spawnWidthValue.newLowValue(random());
+        spawnWidthDiff = spawnWidthValue.newHighValue(random());
         if (!spawnWidthValue.relative) spawnWidthDiff -= spawnWidth;
 
-        spawnHeight = spawnHeightValue.newLowValue();
-        spawnHeightDiff = spawnHeightValue.newHighValue();
+        spawnHeight = spawnHeightValue.newLowValue(random());
+        spawnHeightDiff = spawnHeightValue.newHighValue(random());
         if (!spawnHeightValue.relative) spawnHeightDiff -= spawnHeight;
 
         updateFlags = 0;
@@ -408,7 +446,7 @@ public class ParticleEmitter {
                 sprite = sprites.first();
                 break;
             case random:
-                sprite = sprites.random();
+                sprite = sprites.get(random().nextInt(sprites.size));
                 break;
         }
 
@@ -430,13 +468,13 @@ public class ParticleEmitter {
         particle.currentLife = particle.life = life + (int) (lifeDiff * lifeValue.getScale(percent));
 
         if (velocityValue.active) {
-            particle.velocity = velocityValue.newLowValue();
-            particle.velocityDiff = velocityValue.newHighValue();
+            particle.velocity = velocityValue.newLowValue(random());
+            particle.velocityDiff = velocityValue.newHighValue(random());
             if (!velocityValue.relative) particle.velocityDiff -= particle.velocity;
         }
 
-        particle.angle = angleValue.newLowValue();
-        particle.angleDiff = angleValue.newHighValue();
+        particle.angle = angleValue.newLowValue(random());
+        particle.angleDiff = angleValue.newHighValue(random());
         if (!angleValue.relative) particle.angleDiff -= particle.angle;
         float angle = 0;
         if ((updateFlags & UPDATE_ANGLE) == 0) {
@@ -449,13 +487,13 @@ public class ParticleEmitter {
         float spriteWidth = sprite.getWidth();
         float spriteHeight = sprite.getHeight();
 
-        particle.xScale = xScaleValue.newLowValue() / spriteWidth;
-        particle.xScaleDiff = xScaleValue.newHighValue() / spriteWidth;
+        particle.xScale = xScaleValue.newLowValue(random()) / spriteWidth;
+        particle.xScaleDiff = xScaleValue.newHighValue(random()) / spriteWidth;
         if (!xScaleValue.relative) particle.xScaleDiff -= particle.xScale;
 
         if (yScaleValue.active) {
-            particle.yScale = yScaleValue.newLowValue() / spriteHeight;
-            particle.yScaleDiff = yScaleValue.newHighValue() / spriteHeight;
+            particle.yScale = yScaleValue.newLowValue(random()) / spriteHeight;
+            particle.yScaleDiff = yScaleValue.newHighValue(random()) / spriteHeight;
             if (!yScaleValue.relative) particle.yScaleDiff -= particle.yScale;
             particle.setScale(particle.xScale + particle.xScaleDiff * xScaleValue.getScale(0),
                     particle.yScale + particle.yScaleDiff * yScaleValue.getScale(0));
@@ -464,8 +502,8 @@ public class ParticleEmitter {
         }
 
         if (rotationValue.active) {
-            particle.rotation = rotationValue.newLowValue();
-            particle.rotationDiff = rotationValue.newHighValue();
+            particle.rotation = rotationValue.newLowValue(random());
+            particle.rotationDiff = rotationValue.newHighValue(random());
             if (!rotationValue.relative) particle.rotationDiff -= particle.rotation;
             float rotation = particle.rotation + particle.rotationDiff * rotationValue.getScale(0);
             if (aligned) rotation += angle;
@@ -473,14 +511,14 @@ public class ParticleEmitter {
         }
 
         if (windValue.active) {
-            particle.wind = windValue.newLowValue();
-            particle.windDiff = windValue.newHighValue();
+            particle.wind = windValue.newLowValue(random());
+            particle.windDiff = windValue.newHighValue(random());
             if (!windValue.relative) particle.windDiff -= particle.wind;
         }
 
         if (gravityValue.active) {
-            particle.gravity = gravityValue.newLowValue();
-            particle.gravityDiff = gravityValue.newHighValue();
+            particle.gravity = gravityValue.newLowValue(random());
+            particle.gravityDiff = gravityValue.newHighValue(random());
             if (!gravityValue.relative) particle.gravityDiff -= particle.gravity;
         }
 
@@ -491,20 +529,40 @@ public class ParticleEmitter {
         color[1] = temp[1];
         color[2] = temp[2];
 
-        particle.transparency = transparencyValue.newLowValue();
-        particle.transparencyDiff = transparencyValue.newHighValue() - particle.transparency;
+        particle.transparency = transparencyValue.newLowValue(random());
+        particle.transparencyDiff = transparencyValue.newHighValue(random()) - particle.transparency;
+
+        spawn(percent);
+        if (!Float.isNaN(spawnAngle) && (updateFlags & UPDATE_ANGLE) == 0) {
+            particle.angle = spawnAngle;
+            particle.angleCos = MathUtils.cosDeg(spawnAngle);
+            particle.angleSin = MathUtils.sinDeg(spawnAngle);
+        }
+
+        particle.setBounds(spawnX - spriteWidth * 0.5f, spawnY - spriteHeight * 0.5f, spriteWidth, spriteHeight);
 
-        // Spawn.
+        int offsetTime = (int) (lifeOffset + lifeOffsetDiff * lifeOffsetValue.getScale(percent));
+        if (offsetTime > 0) {
+            if (offsetTime >= particle.currentLife) offsetTime = particle.currentLife - 1;
+            updateParticle(particle, offsetTime / 1000f, offsetTime);
+        }
+    }
+
+    /**
+     * Chooses the position of a new particle in the spawn shape.
+     */
+    private void spawn(float percent) {
+        spawnAngle = Float.NaN;
         float x = this.x;
-        if (xOffsetValue.active) x += xOffsetValue.newLowValue();
+        if (xOffsetValue.active) x += xOffsetValue.newLowValue(random());
         float y = this.y;
-        if (yOffsetValue.active) y += yOffsetValue.newLowValue();
+        if (yOffsetValue.active) y += yOffsetValue.newLowValue(random());
         switch (spawnShapeValue.shape) {
             case square: {
                 float width = spawnWidth + (spawnWidthDiff * spawnWidthValue.getScale(percent));
                 float height = spawnHeight + (spawnHeightDiff * spawnHeightValue.getScale(percent));
-                x += MathUtils.random(width) - width * 0.5f;
-                y += MathUtils.random(height) - height * 0.5f;
+                x += random().nextFloat() * width - width * 0.5f;
+                y += random().nextFloat() * height - height * 0.5f;
                 break;
             }
             case ellipse: {
@@ -518,29 +576,25 @@ public class ParticleEmitter {
                     float spawnAngle;
                     switch (spawnShapeValue.side) {
                         case top:
-                            spawnAngle = -MathUtils.random(179f);
+                            spawnAngle = -random().nextFloat() * 179f;
                             break;
                         case bottom:
-                            spawnAngle = MathUtils.random(179f);
+                            spawnAngle = random().nextFloat() * 179f;
                             break;
                         default:
-                            spawnAngle = MathUtils.random(360f);
+                            spawnAngle = random().nextFloat() * 360f;
                             break;
                     }
                     float cosDeg = MathUtils.cosDeg(spawnAngle);
                     float sinDeg = MathUtils.sinDeg(spawnAngle);
                     x += cosDeg * radiusX;
                     y += sinDeg * radiusX / scaleY;
-                    if ((updateFlags & UPDATE_ANGLE) == 0) {
-                        particle.angle = spawnAngle;
-                        particle.angleCos = cosDeg;
-                        particle.angleSin = sinDeg;
-                    }
+                    this.spawnAngle = spawnAngle;
                 } else {
                     float radius2 = radiusX * radiusX;
                     while (true) {
-                        float px = MathUtils.random(width) - radiusX;
-                        float py = MathUtils.random(width) - radiusX;
+                        float px = random().nextFloat() * width - radiusX;
+                        float py = random().nextFloat() * width - radiusX;
                         if (px * px + py * py <= radius2) {
                             x += px;
                             y += py / scaleY;
@@ -554,22 +608,17 @@ public class ParticleEmitter {
                 float width = spawnWidth + (spawnWidthDiff * spawnWidthValue.getScale(percent));
                 float height = spawnHeight + (spawnHeightDiff * spawnHeightValue.getScale(percent));
                 if (width != 0) {
-                    float lineX = width * MathUtils.random();
+                    float lineX = width * random().nextFloat();
                     x += lineX;
                     y += lineX * (height / width);
                 } else
-                    y += height * MathUtils.random();
+                    y += height * random().nextFloat();
                 break;
             }
         }
 
-        particle.setBounds(x - spriteWidth * 0.5f, y - spriteHeight * 0.5f, spriteWidth, spriteHeight);
-
-        int offsetTime = (int) (lifeOffset + lifeOffsetDiff * lifeOffsetValue.getScale(percent));
-        if (offsetTime > 0) {
-            if (offsetTime >= particle.currentLife) offsetTime = particle.currentLife - 1;
-            updateParticle(particle, offsetTime / 1000f, offsetTime);
-        }
+        spawnX = x;
+        spawnY = y;
     }
 
     private boolean updateParticle(Particle particle, float delta, int deltaMillis) {
@@ -656,15 +705,343 @@ public class ParticleEmitter {
         return true;
     }
 
+    private void activateParticle(ParticleArrays arrays, int index) {
+        int spriteIndex = spriteMode == SpriteMode.random ? random().nextInt(sprites.size) : 0;
+        Sprite sprite = sprites.get(spriteIndex);
+        arrays.sprite[index] = spriteIndex;
+
+        float percent = durationTimer / duration;
+        int updateFlags = this.updateFlags;
+
+        if (lifeValue.independent) generateLifeValues();
+
+        if (lifeOffsetValue.independent) generateLifeOffsetValues();
+
+        arrays.currentLife[index] = arrays.life[index] = life + (int) (lifeDiff * lifeValue.getScale(percent));
+
+        if (velocityValue.active) {
+            arrays.velocity[index] = velocityValue.newLowValue(random());
+            arrays.velocityDiff[index] = velocityValue.newHighValue(random());
+            if (!velocityValue.relative) arrays.velocityDiff[index] -= arrays.velocity[index];
+        }
+
+        arrays.angle[index] = angleValue.newLowValue(random());
+        arrays.angleDiff[index] = angleValue.newHighValue(random());
+        if (!angleValue.relative) arrays.angleDiff[index] -= arrays.angle[index];
+        float angle = 0;
+        if ((updateFlags & UPDATE_ANGLE) == 0) {
+            angle = arrays.angle[index] + arrays.angleDiff[index] * angleValue.getScale(0);
+            arrays.angle[index] = angle;
+            arrays.angleCos[index] = MathUtils.cosDeg(angle);
+            arrays.angleSin[index] = MathUtils.sinDeg(angle);
+        }
+
+        float spriteWidth = sprite.getWidth();
+        float spriteHeight = sprite.getHeight();
+
+        arrays.xScale[index] = xScaleValue.newLowValue(random()) / spriteWidth;
+        arrays.xScaleDiff[index] = xScaleValue.newHighValue(random()) / spriteWidth;
+        if (!xScaleValue.relative) arrays.xScaleDiff[index] -= arrays.xScale[index];
+        float scaleX = arrays.xScale[index] + arrays.xScaleDiff[index] * xScaleValue.getScale(0);
+        arrays.scaleX[index] = scaleX;
+        if (yScaleValue.active) {
+            arrays.yScale[index] = yScaleValue.newLowValue(random()) / spriteHeight;
+            arrays.yScaleDiff[index] = yScaleValue.newHighValue(random()) / spriteHeight;
+            if (!yScaleValue.relative) arrays.yScaleDiff[index] -= arrays.yScale[index];
+            arrays.scaleY[index] = arrays.yScale[index] + arrays.yScaleDiff[index] * yScaleValue.getScale(0);
+        } else
+            arrays.scaleY[index] = scaleX;
+
+        if (rotationValue.active) {
+            arrays.rotation[index] = rotationValue.newLowValue(random());
+            arrays.rotationDiff[index] = rotationValue.newHighValue(random());
+            if (!rotationValue.relative) arrays.rotationDiff[index] -= arrays.rotation[index];
+            float rotation = arrays.rotation[index] + arrays.rotationDiff[index] * rotationValue.getScale(0);
+            if (aligned) rotation += angle;
+            arrays.spriteRotation[index] = rotation;
+        } else {
+            // An aligned particle adds its angle to the rotation even when the rotation value is inactive.
+            arrays.rotation[index] = 0;
+            arrays.rotationDiff[index] = 0;
+            arrays.spriteRotation[index] = sprite.getRotation();
+        }
+
+        if (windValue.active) {
+            arrays.wind[index] = windValue.newLowValue(random());
+            arrays.windDiff[index] = windValue.newHighValue(random());
+            if (!windValue.relative) arrays.windDiff[index] -= arrays.wind[index];
+        }
+
+        if (gravityValue.active) {
+            arrays.gravity[index] = gravityValue.newLowValue(random());
+            arrays.gravityDiff[index] = gravityValue.newHighValue(random());
+            if (!gravityValue.relative) arrays.gravityDiff[index] -= arrays.gravity[index];
+        }
+
+        System.arraycopy(tintValue.getColor(0), 0, arrays.tint, index * 3, 3);
+
+        arrays.transparency[index] = transparencyValue.newLowValue(random());
+        arrays.transparencyDiff[index] = transparencyValue.newHighValue(random()) - arrays.transparency[index];
+        arrays.color[index] = sprite.getPackedColor();
+
+        spawn(percent);
+        if (!Float.isNaN(spawnAngle) && (updateFlags & UPDATE_ANGLE) == 0) {
+            arrays.angle[index] = spawnAngle;
+            arrays.angleCos[index] = MathUtils.cosDeg(spawnAngle);
+            arrays.angleSin[index] = MathUtils.sinDeg(spawnAngle);
+        }
+        arrays.x[index] = spawnX;
+        arrays.y[index] = spawnY;
+
+        int offsetTime = (int) (lifeOffset + lifeOffsetDiff * lifeOffsetValue.getScale(percent));
+        if (offsetTime > 0) {
+            if (offsetTime >= arrays.currentLife[index]) offsetTime = arrays.currentLife[index] - 1;
+            updateParticles(arrays, index, offsetTime / 1000f, offsetTime);
+        }
+    }
+
+    /**
+     * Updates the particles in arrays mode from the start index like {@link #updateParticle(Particle, float, int)}, removing the
+     * particles that died. Each field is updated in its own pass over the particles, which only reads the arrays it needs.
+     */
+    private void updateParticles(ParticleArrays arrays, int start, float delta, int deltaMillis) {
+        int[] currentLife = arrays.currentLife, particleLife = arrays.life;
+        float[] percent = arrays.percent;
+        int n = activeCount;
+        for (int i = start; i < n; ) {
+            int life = currentLife[i] - deltaMillis;
+            if (life <= 0) {
+                arrays.move(--n, i);
+                continue;
+            }
+            currentLife[i] = life;
+            percent[i] = 1 - life / (float) particleLife[i];
+            i++;
+        }
+        activeCount = n;
+
+        int updateFlags = this.updateFlags;
+
+        if ((updateFlags & UPDATE_SCALE) != 0) {
+            float[] scaleX = arrays.scaleX, xScale = arrays.xScale, xScaleDiff = arrays.xScaleDiff;
+            for (int i = start; i < n; i++)
+                scaleX[i] = xScale[i] + xScaleDiff[i] * xScaleValue.getScale(percent[i]);
+            float[] scaleY = arrays.scaleY;
+            if (yScaleValue.active) {
+                float[] yScale = arrays.yScale, yScaleDiff = arrays.yScaleDiff;
+                for (int i = start; i < n; i++)
+                    scaleY[i] = yScale[i] + yScaleDiff[i] * yScaleValue.getScale(percent[i]);
+            } else
+                System.arraycopy(scaleX, start, scaleY, start, n - start);
+        }
+
+        float[] spriteRotation = arrays.spriteRotation, rotation = arrays.rotation, rotationDiff = arrays.rotationDiff;
+        if ((updateFlags & UPDATE_VELOCITY) != 0) {
+            float[] x = arrays.x, y = arrays.y, velocity = arrays.velocity, velocityDiff = arrays.velocityDiff;
+            float[] angle = arrays.angle, angleDiff = arrays.angleDiff;
+            boolean updateRotation = (updateFlags & UPDATE_ROTATION) != 0;
+            if ((updateFlags & UPDATE_ANGLE) != 0) {
+                for (int i = start; i < n; i++) {
+                    float particleVelocity = (velocity[i] + velocityDiff[i] * velocityValue.getScale(percent[i])) * delta;
+                    float particleAngle = angle[i] + angleDiff[i] * angleValue.getScale(percent[i]);
+                    x[i] += particleVelocity * MathUtils.cosDeg(particleAngle);
+                    y[i] += particleVelocity * MathUtils.sinDeg(particleAngle);
+                    if (updateRotation) {
+                        float particleRotation = rotation[i] + rotationDiff[i] * rotationValue.getScale(percent[i]);
+                        if (aligned) particleRotation += particleAngle;
+                        spriteRotation[i] = particleRotation;
+                    }
+                }
+            } else {
+                float[] angleCos = arrays.angleCos, angleSin = arrays.angleSin;
+                for (int i = start; i < n; i++) {
+                    float particleVelocity = (velocity[i] + velocityDiff[i] * velocityValue.getScale(percent[i])) * delta;
+                    x[i] += particleVelocity * angleCos[i];
+                    y[i] += particleVelocity * angleSin[i];
+                }
+                if (aligned || updateRotation) {
+                    for (int i = start; i < n; i++) {
+                        float particleRotation = rotation[i] + rotationDiff[i] * rotationValue.getScale(percent[i]);
+                        if (aligned) particleRotation += angle[i];
+                        spriteRotation[i] = particleRotation;
+                    }
+                }
+            }
+
+            if ((updateFlags & UPDATE_WIND) != 0) {
+                float[] wind = arrays.wind, windDiff = arrays.windDiff;
+                for (int i = start; i < n; i++)
+                    x[i] += (wind[i] + windDiff[i] * windValue.getScale(percent[i])) * delta;
+            }
+
+            if ((updateFlags & UPDATE_GRAVITY) != 0) {
+                float[] gravity = arrays.gravity, gravityDiff = arrays.gravityDiff;
+                for (int i = start; i < n; i++)
+                    y[i] += (gravity[i] + gravityDiff[i] * gravityValue.getScale(percent[i])) * delta;
+            }
+        } else if ((updateFlags & UPDATE_ROTATION) != 0) {
+            for (int i = start; i < n; i++)
+                spriteRotation[i] = rotation[i] + rotationDiff[i] * rotationValue.getScale(percent[i]);
+        }
+
+        float[] color = arrays.color, tint = arrays.tint;
+        float[] transparency = arrays.transparency, transparencyDiff = arrays.transparencyDiff;
+        boolean updateTint = (updateFlags & UPDATE_TINT) != 0;
+        for (int i = start; i < n; i++) {
+            float r, g, b;
+            if (updateTint) {
+                float[] temp = tintValue.getColor(percent[i]);
+                r = temp[0];
+                g = temp[1];
+                b = temp[2];
+            } else {
+                r = tint[i * 3];
+                g = tint[i * 3 + 1];
+                b = tint[i * 3 + 2];
+            }
+            float a = MathUtils.clamp(transparency[i] + transparencyDiff[i] * transparencyValue.getScale(percent[i]), 0f, 1f);
+            if (premultipliedAlpha) {
+                r *= a;
+                g *= a;
+                b *= a;
+                if (additive) a = 0;
+            }
+            color[i] = Color.toFloatBits(MathUtils.clamp(r, 0f, 1f), MathUtils.clamp(g, 0f, 1f), MathUtils.clamp(b, 0f, 1f), a);
+        }
+
+        // The center stays where it is when the frame changes, so nothing else changes with the frame.
+        if ((updateFlags & UPDATE_SPRITE) != 0) {
+            int[] sprite = arrays.sprite;
+            int frames = sprites.size;
+            for (int i = start; i < n; i++)
+                sprite[i] = Math.min((int) (percent[i] * frames), frames - 1);
+        }
+    }
+
+    /**
+     * Draws the particles in arrays mode, writing their vertices like {@link Sprite#getVertices()} does for a sprite.
+     */
+    private void drawParticles(ParticleArrays arrays, Batch batch) {
+        float[] vertices = arrays.vertices;
+        Texture lastTexture = null;
+        int idx = 0;
+        for (int i = 0, n = activeCount; i < n; i++) {
+            Texture texture = sprites.get(arrays.sprite[i]).getTexture();
+            if (idx == vertices.length || (texture != lastTexture && idx > 0)) {
+                batch.draw(lastTexture, vertices, 0, idx);
+                idx = 0;
+            }
+            lastTexture = texture;
+            writeVertices(arrays, i, vertices, idx);
+            idx += Sprite.SPRITE_SIZE;
+        }
+        if (idx > 0) batch.draw(lastTexture, vertices, 0, idx);
+    }
+
+    /**
+     * Writes the vertices of a particle in arrays mode.
+     */
+    private void writeVertices(ParticleArrays arrays, int index, float[] vertices, int offset) {
+        Sprite sprite = sprites.get(arrays.sprite[index]);
+        float width = sprite.getWidth();
+        float height = sprite.getHeight();
+        float originX = sprite.getOriginX();
+        float originY = sprite.getOriginY();
+        float localX = -originX;
+        float localY = -originY;
+        float localX2 = localX + width;
+        float localY2 = localY + height;
+        float worldOriginX = arrays.x[index] - width * 0.5f + originX;
+        float worldOriginY = arrays.y[index] - height * 0.5f + originY;
+        float scaleX = arrays.scaleX[index];
+        float scaleY = arrays.scaleY[index];
+        if (scaleX != 1 || scaleY != 1) {
+            localX *= scaleX;
+            localY *= scaleY;
+            localX2 *= scaleX;
+            localY2 *= scaleY;
+        }
+
+        float x1, y1, x2, y2, x3, y3, x4, y4;
+        float rotation = arrays.spriteRotation[index];
+        if (rotation != 0) {
+            final float cos = MathUtils.cosDeg(rotation);
+            final float sin = MathUtils.sinDeg(rotation);
+            final float localXCos = localX * cos;
+            final float localXSin = localX * sin;
+            final float localYCos = localY * cos;
+            final float localYSin = localY * sin;
+            final float localX2Cos = localX2 * cos;
+            final float localX2Sin = localX2 * sin;
+            final float localY2Cos = localY2 * cos;
+            final float localY2Sin = localY2 * sin;
+
+            x1 = localXCos - localYSin + worldOriginX;
+            y1 = localYCos + localXSin + worldOriginY;
+            x2 = localXCos - localY2Sin + worldOriginX;
+            y2 = localY2Cos + localXSin + worldOriginY;
+            x3 = localX2Cos - localY2Sin + worldOriginX;
+            y3 = localY2Cos + localX2Sin + worldOriginY;
+            x4 = x1 + (x3 - x2);
+            y4 = y3 - (y2 - y1);
+        } else {
+            x1 = localX + worldOriginX;
+            y1 = localY + worldOriginY;
+            x2 = x1;
+            y2 = localY2 + worldOriginY;
+            x3 = localX2 + worldOriginX;
+            y3 = y2;
+            x4 = x3;
+            y4 = y1;
+        }
+
+        float u = sprite.getU(), v = sprite.getV(), u2 = sprite.getU2(), v2 = sprite.getV2();
+        if (flipX) {
+            float temp = u;
+            u = u2;
+            u2 = temp;
+        }
+        if (flipY) {
+            float temp = v;
+            v = v2;
+            v2 = temp;
+        }
+        float color = arrays.color[index];
+
+        vertices[offset + Batch.X1] = x1;
+        vertices[offset + Batch.Y1] = y1;
+        vertices[offset + Batch.C1] = color;
+        vertices[offset + Batch.U1] = u;
+        vertices[offset + Batch.V1] = v2;
+
+        vertices[offset + Batch.X2] = x2;
+        vertices[offset + Batch.Y2] = y2;
+        vertices[offset + Batch.C2] = color;
+        vertices[offset + Batch.U2] = u;
+        vertices[offset + Batch.V2] = v;
+
+        vertices[offset + Batch.X3] = x3;
+        vertices[offset + Batch.Y3] = y3;
+        vertices[offset + Batch.C3] = color;
+        vertices[offset + Batch.U3] = u2;
+        vertices[offset + Batch.V3] = v;
+
+        vertices[offset + Batch.X4] = x4;
+        vertices[offset + Batch.Y4] = y4;
+        vertices[offset + Batch.C4] = color;
+        vertices[offset + Batch.U4] = u2;
+        vertices[offset + Batch.V4] = v2;
+    }
+
     private void generateLifeValues() {
-        life = (int) lifeValue.newLowValue();
-        lifeDiff = (int) lifeValue.newHighValue();
+        life = (int) lifeValue.newLowValue(random());
+        lifeDiff = (int) lifeValue.newHighValue(random());
         if (!lifeValue.relative) lifeDiff -= life;
     }
 
     private void generateLifeOffsetValues() {
-        lifeOffset = lifeOffsetValue.active ? (int) lifeOffsetValue.newLowValue() : 0;
-        lifeOffsetDiff = (int) lifeOffsetValue.newHighValue();
+        lifeOffset = lifeOffsetValue.active ? (int) lifeOffsetValue.newLowValue(random()) : 0;
+        lifeOffsetDiff = (int) lifeOffsetValue.newHighValue(random());
         if (!lifeOffsetValue.relative) lifeOffsetDiff -= lifeOffset;
     }
 
@@ -672,6 +1049,13 @@ public class ParticleEmitter {
         if (attached) {
             float xAmount = x - this.x;
             float yAmount = y - this.y;
+            if (arrays != null) {
+                float[] particleX = arrays.x, particleY = arrays.y;
+                for (int i = 0, n = activeCount; i < n; i++) {
+                    particleX[i] += xAmount;
+                    particleY[i] += yAmount;
+                }
+            }
             boolean[] active = this.active;
             for (int i = 0, n = active.length; i < n; i++)
                 if (active[i]) particles[i].translate(xAmount, yAmount);
@@ -716,6 +1100,22 @@ public class ParticleEmitter {
     public void setSprites(KermanArray<Sprite> sprites) {
         this.sprites = sprites;
         if (sprites.size == 0) return;
+        if (arrays != null) {
+            for (int i = 0, n = activeCount; i < n; i++) {
+                switch (spriteMode) {
+                    case single:
+                        arrays.sprite[i] = 0;
+                        break;
+                    case random:
+                        arrays.sprite[i] = random().nextInt(sprites.size);
+                        break;
+                    case animated:
+                        float percent = 1 - arrays.currentLife[i] / (float) arrays.life[i];
+                        arrays.sprite[i] = Math.min((int) (percent * sprites.size), sprites.size - 1);
+                        break;
+                }
+            }
+        }
         for (Particle particle : particles) {
             if (particle == null) break;
             Sprite sprite = null;
@@ -724,7 +1124,7 @@ public class ParticleEmitter {
                     sprite = sprites.first();
                     break;
                 case random:
-                    sprite = sprites.random();
+                    sprite = sprites.get(random().nextInt(sprites.size));
                     break;
                 case animated:
                     float percent = 1 - particle.currentLife / (float) particle.life;
@@ -745,6 +1145,40 @@ public class ParticleEmitter {
         this.spriteMode = spriteMode;
     }
 
+    /**
+     * @return the random number generator set with {@link #setRandom(Random)}, or null if {@link MathUtils#random} is used
+     */
+    public @Nullable Random getRandom() {
+        return random;
+    }
+
+    /**
+     * Sets the random number generator for new particles and the values of the emitter, or null to use
+     * {@link MathUtils#random}, the default. An emitter with its own generator only changes its own state when it's updated, so
+     * emitters with different generators can be updated on different threads, and an emitter updated with the same deltas after
+     * seeding its generator makes the same particles. Copies of the emitter use {@link MathUtils#random}.
+     */
+    public void setRandom(@Nullable Random random) {
+        this.random = random;
+    }
+
+    Random random() {
+        return random != null ? random : MathUtils.random;
+    }
+
+    public StorageMode getStorageMode() {
+        return storageMode;
+    }
+
+    /**
+     * Sets how the particles are stored, removing the active particles if the mode changes.
+     */
+    public void setStorageMode(StorageMode storageMode) {
+        if (this.storageMode == storageMode) return;
+        this.storageMode = storageMode;
+        setMaxParticleCount(maxParticleCount);
+    }
+
     public String getName() {
         return name;
     }
@@ -912,9 +1346,28 @@ public class ParticleEmitter {
 
     public void setMaxParticleCount(int maxParticleCount) {
         this.maxParticleCount = maxParticleCount;
-        active = new boolean[maxParticleCount];
         activeCount = 0;
-        particles = new Particle[maxParticleCount];
+        if (!storesParticles()) {
+            active = new boolean[0];
+            particles = new Particle[0];
+            arrays = null;
+        } else if (storageMode == StorageMode.arrays) {
+            active = new boolean[0];
+            particles = new Particle[0];
+            arrays = new ParticleArrays(maxParticleCount);
+        } else {
+            active = new boolean[maxParticleCount];
+            particles = new Particle[maxParticleCount];
+            arrays = null;
+        }
+    }
+
+    /**
+     * Returns false if the particles are stored somewhere else, like by {@link GpuParticleEmitter}, so no particles are allocated
+     * for the max particle count. Called from the constructors.
+     */
+    boolean storesParticles() {
+        return true;
     }
 
     public boolean isComplete() {
@@ -984,6 +1437,16 @@ public class ParticleEmitter {
         BoundingBox bounds = this.bounds;
 
         bounds.inf();
+        if (arrays != null) {
+            float[] vertices = arrays.vertices;
+            for (int i = 0, n = activeCount; i < n; i++) {
+                writeVertices(arrays, i, vertices, 0);
+                bounds.ext(vertices[Batch.X1], vertices[Batch.Y1], 0);
+                bounds.ext(vertices[Batch.X2], vertices[Batch.Y2], 0);
+                bounds.ext(vertices[Batch.X3], vertices[Batch.Y3], 0);
+                bounds.ext(vertices[Batch.X4], vertices[Batch.Y4], 0);
+            }
+        }
         for (int i = 0, n = active.length; i < n; i++)
             if (active[i]) {
                 Rectangle r = particles[i].getBoundingRectangle();
@@ -1241,6 +1704,24 @@ public class ParticleEmitter {
         single, random, animated
     }
 
+    /**
+     * How the particles of an emitter are stored.
+     */
+    public enum StorageMode {
+        /**
+         * Each particle is a {@link Particle}, a sprite created with {@link #newParticle(Sprite)}, and dead particles stay in
+         * their slot, so updating and drawing visit every slot up to the {@link #getMaxParticleCount() max particle count}.
+         */
+        sprites,
+        /**
+         * The particles are stored in one array per field, with the live particles packed at the start, so updating and drawing
+         * only visit live particles and write the vertices without a sprite per particle. {@link #getParticles()} is empty and
+         * {@link #newParticle(Sprite)} isn't called. A dead particle is replaced by the last one, so the order in which the
+         * particles are drawn changes. The {@link #setFlip(boolean, boolean) flip} applies to every particle when it's drawn.
+         */
+        arrays
+    }
+
     public static class Particle extends Sprite {
         protected int life, currentLife;
         protected float xScale, xScaleDiff;
@@ -1333,7 +1814,11 @@ public class ParticleEmitter {
         private float lowMin, lowMax;
 
         public float newLowValue() {
-            return lowMin + (lowMax - lowMin) * MathUtils.random();
+            return newLowValue(MathUtils.random);
+        }
+
+        public float newLowValue(Random random) {
+            return lowMin + (lowMax - lowMin) * random.nextFloat();
         }
 
         public void setLow(float value) {
@@ -1403,7 +1888,11 @@ public class ParticleEmitter {
         private float highMin, highMax;
 
         public float newHighValue() {
-            return highMin + (highMax - highMin) * MathUtils.random();
+            return newHighValue(MathUtils.random);
+        }
+
+        public float newHighValue(Random random) {
+            return highMin + (highMax - highMin) * random.nextFloat();
         }
 
         public void setHigh(float value) {
@@ -1606,7 +2095,7 @@ public class ParticleEmitter {
     }
 
     static public class GradientColorValue extends ParticleValue {
-        static private final float[] temp = new float[4];
+        private final float[] temp = new float[4];
         float[] timeline = {0};
         private float[] colors = {1, 1, 1};
 
@@ -9,6 +9,7 @@ import com.kerman.core.assets.loaders.resolvers.InternalFileHandleResolver;
 import com.kerman.core.files.FileHandle;
 import com.kerman.core.graphics.Texture;
 import com.kerman.core.math.EarClippingTriangulator;
+import com.kerman.core.math.Triangulator;
 import com.kerman.core.utils.KermanArray;
 import com.kerman.core.utils.KermanRuntimeException;
 import com.kerman.core.utils.StreamUtils;
@@ -24,14 +25,23 @@ import java.io.IOException;
 public class PolygonRegionLoader extends SynchronousAssetLoader<PolygonRegion, PolygonRegionLoader.PolygonRegionParameters> {
 
     private final PolygonRegionParameters defaultParameters = new PolygonRegionParameters();
-    private final EarClippingTriangulator triangulator = new EarClippingTriangulator();
+    private final Triangulator triangulator;
 
     public PolygonRegionLoader() {
         this(new InternalFileHandleResolver());
     }
 
     public PolygonRegionLoader(FileHandleResolver resolver) {
+        this(resolver, new EarClippingTriangulator());
+    }
+
+    /**
+     * @param triangulator triangulates the shapes, e.g. a {@link com.kerman.core.math.MonotoneTriangulator} for shapes with
+     *                     thousands of vertices
+     */
+    public PolygonRegionLoader(FileHandleResolver resolver, Triangulator triangulator) {
         super(resolver);
+        this.triangulator = triangulator;
     }
 
     @Override
@@ -101,7 +111,7 @@ public class PolygonRegionLoader extends SynchronousAssetLoader<PolygonRegion, P
                     for (int i = 0, n = vertices.length; i < n; i++)
                         vertices[i] = Float.parseFloat(polygonStrings[i]);
                     // It would probably be better if PSH stored the vertices and triangles, then we don't have to triangulate here.
-                    return new PolygonRegion(textureRegion, vertices, triangulator.computeTriangles(vertices).toArray());
+                    return new PolygonRegion(textureRegion, vertices, triangulator.computeTriangles(vertices, 0, vertices.length).toArray());
                 }
             }
         } catch (IOException ex) {
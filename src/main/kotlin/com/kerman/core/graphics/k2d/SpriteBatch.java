@@ -15,6 +15,7 @@ import com.kerman.core.math.Matrix4;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import java.nio.Buffer;
+import java.util.Arrays;
 
 /**
  * Info : This class was inspired by "com.badlogic.gdx.graphics.g2d.SpriteBatch".
@@ -40,6 +41,10 @@ public class SpriteBatch implements Batch {
     final float[] vertices;
     private final Matrix4 transformMatrix = new Matrix4();
     private final Matrix4 projectionMatrix = new Matrix4();
+    /**
+     * The matrices of this batch while {@link #playback(SpriteCommands, int[])} draws with recorded ones.
+     */
+    private final Matrix4 savedTransformMatrix = new Matrix4(), savedProjectionMatrix = new Matrix4();
     private final Matrix4 combinedMatrix = new Matrix4();
     private final ShaderProgram shader;
     private final Color color = new Color(1, 1, 1, 1);
@@ -61,13 +66,13 @@ public class SpriteBatch implements Batch {
     boolean drawing = false;
     float colorPacked = Color.WHITE_FLOAT_BITS;
     private final VertexDataType currentDataType;
-    private final Mesh mesh;
+    final Mesh mesh;
     private boolean blendingDisabled = false;
     private int blendSrcFunc = GLES20.GL_SRC_ALPHA;
     private int blendDstFunc = GLES20.GL_ONE_MINUS_SRC_ALPHA;
     private int blendSrcFuncAlpha = GLES20.GL_SRC_ALPHA;
     private int blendDstFuncAlpha = GLES20.GL_ONE_MINUS_SRC_ALPHA;
-    private ShaderProgram customShader = null;
+    ShaderProgram customShader = null;
     private boolean ownsShader;
 
     /**
@@ -100,10 +105,35 @@ public class SpriteBatch implements Batch {
      * @param defaultShader The default shader to use. This is not owned by the SpriteBatch and must be disposed separately.
      */
     public SpriteBatch(int size, ShaderProgram defaultShader) {
+        this(size, defaultShader, false);
+    }
+
+    /**
+     * Constructs a new SpriteBatch, see {@link #SpriteBatch(int, ShaderProgram)}.
+     *
+     * @param streaming whether every flush writes the vertices behind the previous flush into a larger buffer instead of replacing
+     *                  the vertices of the same buffer, so consecutive flushes don't wait for the GPU to finish drawing the previous
+     *                  one. See {@link VertexDataType#VertexBufferObjectStreaming}.
+     */
+    public SpriteBatch(int size, ShaderProgram defaultShader, boolean streaming) {
+        this(size, defaultShader, streaming, new VertexAttribute(Usage.Position, 2, ShaderProgram.POSITION_ATTRIBUTE),
+                new VertexAttribute(Usage.ColorPacked, 4, ShaderProgram.COLOR_ATTRIBUTE),
+                new VertexAttribute(Usage.TextureCoordinates, 2, ShaderProgram.TEXCOORD_ATTRIBUTE + "0"));
+    }
+
+    /**
+     * Constructs a new SpriteBatch whose mesh has the given attributes, for subclasses that add attributes to the vertices in
+     * {@link #flush()}. The vertices written by the draw methods always have the position, color and texture coordinates.
+     */
+    protected SpriteBatch(int size, ShaderProgram defaultShader, boolean streaming, VertexAttribute... attributes) {
         // 32767 is max vertex index, so 32767 / 4 vertices per sprite = 8191 sprites max.
         if (size > 8191) throw new IllegalArgumentException("Can't have more than 8191 sprites per batch: " + size);
 
-        VertexDataType vertexDataType = (Kerman.gl30 != null) ? VertexDataType.VertexBufferObjectWithVAO : defaultVertexDataType;
+        VertexDataType vertexDataType;
+        if (streaming)
+            vertexDataType = VertexDataType.VertexBufferObjectStreaming;
+        else
+            vertexDataType = (Kerman.gl30 != null) ? VertexDataType.VertexBufferObjectWithVAO : defaultVertexDataType;
 
         if (overrideVertexType != null) {
             vertexDataType = overrideVertexType;
@@ -111,10 +141,7 @@ public class SpriteBatch implements Batch {
 
         currentDataType = vertexDataType;
 
-        mesh = new Mesh(currentDataType, false, size * 4, size * 6,
-                new VertexAttribute(Usage.Position, 2, ShaderProgram.POSITION_ATTRIBUTE),
-                new VertexAttribute(Usage.ColorPacked, 4, ShaderProgram.COLOR_ATTRIBUTE),
-                new VertexAttribute(Usage.TextureCoordinates, 2, ShaderProgram.TEXCOORD_ATTRIBUTE + "0"));
+        mesh = new Mesh(currentDataType, false, size * 4, size * 6, attributes);
 
         projectionMatrix.setToOrtho2D(0, 0, Kerman.graphics.getWidth(), Kerman.graphics.getHeight());
 
@@ -146,6 +173,17 @@ public class SpriteBatch implements Batch {
         }
     }
 
+    /**
+     * Constructs a batch that only writes sprites into the given vertices and has no mesh or shader, for subclasses that record the
+     * sprites instead of rendering them. Doesn't need the GL thread.
+     */
+    SpriteBatch(float[] vertices) {
+        this.vertices = vertices;
+        currentDataType = null;
+        mesh = null;
+        shader = null;
+    }
+
     /**
      * Returns a new instance of the default shader used by SpriteBatch for GL2 when no shader is specified.
      */
@@ -573,15 +611,11 @@ public class SpriteBatch implements Batch {
         if (!drawing) throw new IllegalStateException("SpriteBatch.begin must be called before draw.");
 
         int verticesLength = vertices.length;
-        int remainingVertices = verticesLength;
-        if (texture != lastTexture)
-            switchTexture(texture);
-        else {
-            remainingVertices -= idx;
-            if (remainingVertices == 0) {
-                flush();
-                remainingVertices = verticesLength;
-            }
+        if (texture != lastTexture) switchTexture(texture);
+        int remainingVertices = verticesLength - idx;
+        if (remainingVertices == 0) {
+            flush();
+            remainingVertices = verticesLength;
         }
         int copyCount = Math.min(remainingVertices, count);
 
@@ -966,16 +1000,108 @@ public class SpriteBatch implements Batch {
     public void flush() {
         if (idx == 0) return;
 
+        lastTexture.bind();
+        mesh.setVertices(vertices, 0, idx);
+        renderSprites(idx / 20);
+
+        idx = 0;
+    }
+
+    /**
+     * Draws the sprites recorded into the buffer, in the order they were recorded and with the texture, shader, blending and
+     * matrices they were recorded with. The buffer may have been recorded on another thread, but must not be recorded into while it
+     * is submitted. The texture, shader, blending and matrices of this batch are restored afterwards.
+     */
+    public void submit(SpriteCommandBuffer buffer) {
+        if (!drawing) throw new IllegalStateException("SpriteBatch.begin must be called before submit.");
+        if (buffer.isDrawing()) throw new IllegalStateException("SpriteCommandBuffer.end must be called before submit.");
+        playback(buffer.commands, null);
+    }
+
+    /**
+     * Draws the recorded sprites with the state they were recorded with, flushing whenever the state changes or the vertices are
+     * full, and restores the state of this batch afterwards.
+     *
+     * @param order the order to draw the runs in, or null to draw them in the order they were recorded
+     */
+    void playback(SpriteCommands commands, @Nullable int[] order) {
+        int count = commands.size();
+        if (count == 0) return;
+        flush();
+
+        Texture texture = lastTexture;
+        ShaderProgram shader = customShader;
+        boolean blending = !blendingDisabled;
+        int src = blendSrcFunc, dst = blendDstFunc, srcAlpha = blendSrcFuncAlpha, dstAlpha = blendDstFuncAlpha;
+        savedProjectionMatrix.set(projectionMatrix);
+        savedTransformMatrix.set(transformMatrix);
+
+        int[] runs = commands.commands.items, blend = commands.stateBlending.items;
+        float[] recorded = commands.vertices.items, vertices = this.vertices;
+        int appliedState = -1;
+        for (int i = 0; i < count; i++) {
+            int command = (order == null ? i : order[i]) * 4, state = runs[command + 1];
+            if (state != appliedState) {
+                // the setters only flush if the state changes, so a MultiTextureSpriteBatch keeps batching across textures.
+                setShader(commands.shader(state));
+                int b = state * 5;
+                if (blend[b] == 1)
+                    enableBlending();
+                else
+                    disableBlending();
+                setBlendFunctionSeparate(blend[b + 1], blend[b + 2], blend[b + 3], blend[b + 4]);
+                Matrix4 projection = commands.projection(state), transform = commands.transform(state);
+                setMatrices(projection != null ? projection : savedProjectionMatrix,
+                        transform != null ? transform : savedTransformMatrix);
+                Texture recordedTexture = commands.texture(state);
+                if (recordedTexture != lastTexture) switchTexture(recordedTexture);
+                appliedState = state;
+            }
+            int offset = runs[command + 2], length = runs[command + 3];
+            while (length > 0) {
+                if (idx == vertices.length) flush();
+                int copy = Math.min(length, vertices.length - idx);
+                System.arraycopy(recorded, offset, vertices, idx, copy);
+                idx += copy;
+                offset += copy;
+                length -= copy;
+            }
+        }
+        flush();
+
+        setShader(shader);
+        if (blending)
+            enableBlending();
+        else
+            disableBlending();
+        setBlendFunctionSeparate(src, dst, srcAlpha, dstAlpha);
+        setMatrices(savedProjectionMatrix, savedTransformMatrix);
+        if (texture == null)
+            lastTexture = null;
+        else if (texture != lastTexture) switchTexture(texture);
+    }
+
+    /**
+     * Sets the matrices for {@link #playback(SpriteCommands, int[])} without calling the setters, which subclasses override to
+     * render what they recorded.
+     */
+    private void setMatrices(Matrix4 projection, Matrix4 transform) {
+        if (Arrays.equals(projectionMatrix.val, projection.val) && Arrays.equals(transformMatrix.val, transform.val)) return;
+        flush();
+        projectionMatrix.set(projection);
+        transformMatrix.set(transform);
+        setupMatrices();
+    }
+
+    /**
+     * Renders the given number of sprites from the start of the mesh with the blending and shader of this batch.
+     */
+    void renderSprites(int spritesInBatch) {
         renderCalls++;
         totalRenderCalls++;
-        int spritesInBatch = idx / 20;
         if (spritesInBatch > maxSpritesInBatch) maxSpritesInBatch = spritesInBatch;
         int count = spritesInBatch * 6;
 
-        lastTexture.bind();
-        Mesh mesh = this.mesh;
-        mesh.setVertices(vertices, 0, idx);
-
         // Only upload indices for the vertex array type
         if (currentDataType == VertexDataType.VertexArray) {
             Buffer indicesBuffer = mesh.getIndicesBuffer(true);
@@ -991,8 +1117,6 @@ public class SpriteBatch implements Batch {
         }
 
         mesh.render(customShader != null ? customShader : shader, GLES20.GL_TRIANGLES, 0, count);
-
-        idx = 0;
     }
 
     @Override
@@ -1047,7 +1171,7 @@ public class SpriteBatch implements Batch {
 
     @Override
     public void dispose() {
-        mesh.dispose();
+        if (mesh != null) mesh.dispose();
         if (ownsShader && shader != null) shader.dispose();
     }
 
@@ -1079,13 +1203,16 @@ public class SpriteBatch implements Batch {
 
     protected void setupMatrices() {
         combinedMatrix.set(projectionMatrix).mul(transformMatrix);
-        if (customShader != null) {
-            customShader.setUniformMatrix("u_projTrans", combinedMatrix);
-            customShader.setUniformi("u_texture", 0);
-        } else {
-            shader.setUniformMatrix("u_projTrans", combinedMatrix);
-            shader.setUniformi("u_texture", 0);
-        }
+        ShaderProgram shader = customShader != null ? customShader : this.shader;
+        shader.setUniformMatrix("u_projTrans", combinedMatrix);
+        setupTextureUniforms(shader);
+    }
+
+    /**
+     * Sets the texture sampler uniforms of the bound shader.
+     */
+    protected void setupTextureUniforms(ShaderProgram shader) {
+        shader.setUniformi("u_texture", 0);
     }
 
     protected void switchTexture(Texture texture) {
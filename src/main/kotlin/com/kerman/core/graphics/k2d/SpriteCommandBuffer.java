@@ -0,0 +1,149 @@
+package com.kerman.core.graphics.k2d;
+
+import com.kerman.core.graphics.glutils.ShaderProgram;
+import com.kerman.core.math.Matrix4;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A {@link Batch} that records the sprites drawn between {@link #begin()} and {@link #end()} into vertices on the CPU instead of
+ * rendering them, so the vertices can be built on a worker thread and drawn on the GL thread with
+ * {@link SpriteBatch#submit(SpriteCommandBuffer)}. Anything that draws to a Batch can be recorded, like {@link Sprite},
+ * {@link NinePatch} and {@link BitmapFontCache}. For example, one buffer per scene layer or tile chunk can be recorded in parallel
+ * with an {@link com.kerman.core.utils.async.AsyncExecutor} and the buffers then submitted in order:
+ *
+ * <pre>
+ * AsyncResult&lt;Void&gt; result = executor.submit(() -&gt; {
+ * 	buffer.begin();
+ * 	chunk.draw(buffer);
+ * 	buffer.end();
+ * 	return null;
+ * });
+ * ...
+ * result.get();
+ * batch.begin();
+ * batch.submit(buffer);
+ * batch.end();
+ * </pre>
+ * <p>
+ * The texture, shader and blending are recorded with the sprites. The projection and transform matrices are those of the batch the
+ * buffer is submitted to, unless they were set on the buffer, then the sprites drawn after are recorded with the matrices set. A
+ * buffer needs no GL resources, but must only be used by one thread at a time, and BitmapFont and other classes sharing state
+ * between batches must not be used by several threads at once.
+ */
+public class SpriteCommandBuffer extends SpriteBatch {
+    final SpriteCommands commands = new SpriteCommands();
+    /**
+     * Whether the matrices were set on the buffer and are recorded with the sprites.
+     */
+    private boolean projectionSet, transformSet;
+
+    /**
+     * Constructs a buffer that copies the vertices of up to 1000 sprites at once into the recorded vertices.
+     */
+    public SpriteCommandBuffer() {
+        this(1000);
+    }
+
+    /**
+     * @param size the number of sprites written before they are copied into the recorded vertices. The number of recorded sprites
+     *             is unbounded.
+     */
+    public SpriteCommandBuffer(int size) {
+        super(new float[size * Sprite.SPRITE_SIZE]);
+    }
+
+    /**
+     * Starts recording, discarding the sprites recorded before.
+     */
+    @Override
+    public void begin() {
+        if (drawing) throw new IllegalStateException("SpriteCommandBuffer.end must be called before begin.");
+        commands.clear();
+        drawing = true;
+    }
+
+    @Override
+    public void end() {
+        if (!drawing) throw new IllegalStateException("SpriteCommandBuffer.begin must be called before end.");
+        flush();
+        lastTexture = null;
+        drawing = false;
+    }
+
+    /**
+     * Records the sprites drawn since the last flush with the current state.
+     */
+    @Override
+    public void flush() {
+        if (idx == 0) return;
+        commands.add(this, 0, vertices, idx, projectionSet ? getProjectionMatrix() : null,
+                transformSet ? getTransformMatrix() : null);
+        idx = 0;
+    }
+
+    /**
+     * @return the number of runs of sprites with the same state recorded since {@link #begin()}
+     */
+    public int getCommandCount() {
+        return commands.size();
+    }
+
+    /**
+     * Sets the shader the following sprites are drawn with, or null for the default shader of the batch the buffer is submitted
+     * to.
+     */
+    @Override
+    public void setShader(@Nullable ShaderProgram shader) {
+        if (shader == customShader) return;
+        flush();
+        customShader = shader;
+    }
+
+    /**
+     * @return the shader set with {@link #setShader(ShaderProgram)}, or null if the default shader of the batch the buffer is
+     * submitted to is used
+     */
+    @Override
+    public ShaderProgram getShader() {
+        return customShader;
+    }
+
+    /**
+     * Sets the projection matrix the following sprites are drawn with, instead of the one of the batch the buffer is submitted
+     * to. It is kept after {@link #begin()}.
+     */
+    @Override
+    public void setProjectionMatrix(@NotNull Matrix4 projection) {
+        flush();
+        getProjectionMatrix().set(projection);
+        projectionSet = true;
+    }
+
+    /**
+     * Sets the transform matrix the following sprites are drawn with, instead of the one of the batch the buffer is submitted
+     * to. It is kept after {@link #begin()}.
+     */
+    @Override
+    public void setTransformMatrix(@NotNull Matrix4 transform) {
+        flush();
+        getTransformMatrix().set(transform);
+        transformSet = true;
+    }
+
+    /**
+     * Buffers can't be played back into other buffers, as a buffer has no shader to set up and doesn't record the matrices
+     * the sprites were recorded with. Submit both buffers to the batch that draws them instead.
+     *
+     * @throws IllegalArgumentException always
+     */
+    @Override
+    public void submit(SpriteCommandBuffer buffer) {
+        throw new IllegalArgumentException("A SpriteCommandBuffer can't be submitted to another SpriteCommandBuffer.");
+    }
+
+    @Override
+    public void dispose() {
+        commands.clear();
+    }
+}
@@ -0,0 +1,129 @@
+package com.kerman.core.graphics.k2d;
+
+import com.kerman.core.graphics.Texture;
+import com.kerman.core.graphics.glutils.ShaderProgram;
+import com.kerman.core.math.Matrix4;
+import com.kerman.core.utils.KermanArray;
+import com.kerman.core.utils.KermanFloatArray;
+import com.kerman.core.utils.KermanIntArray;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Recorded runs of sprites in flat arrays, played back with {@link SpriteBatch#playback(SpriteCommands, int[])}. Every run has a
+ * layer, a state (texture, shader, blending and matrices) and the vertices of its sprites in the layout of
+ * {@link SpriteBatch#vertices}.
+ */
+final class SpriteCommands {
+    /**
+     * The vertices of all runs.
+     */
+    final KermanFloatArray vertices = new KermanFloatArray(false, 4096);
+    /**
+     * The runs, as layer, state index, offset in {@link #vertices} and number of floats.
+     */
+    final KermanIntArray commands = new KermanIntArray(false, 256);
+    /**
+     * The states used by the runs: texture, shader (null for the default shader) and blending, as enabled flag and the 4 blend
+     * functions.
+     */
+    final KermanArray<Texture> stateTextures = new KermanArray<>(false, 16, Texture.class);
+    final KermanArray<ShaderProgram> stateShaders = new KermanArray<>(false, 16, ShaderProgram.class);
+    final KermanIntArray stateBlending = new KermanIntArray(false, 16 * 5);
+    /**
+     * The projection and transform matrices of the states, null for the matrices of the batch the runs are played back with.
+     */
+    final KermanArray<Matrix4> stateProjections = new KermanArray<>(false, 16, Matrix4.class);
+    final KermanArray<Matrix4> stateTransforms = new KermanArray<>(false, 16, Matrix4.class);
+
+    /**
+     * Records a run of sprites with the current state of the batch, drawn with the matrices of the batch it is played back with.
+     */
+    void add(SpriteBatch batch, int layer, float[] vertices, int count) {
+        add(batch, layer, vertices, count, null, null);
+    }
+
+    /**
+     * Records a run of sprites with the current state of the batch and the given matrices.
+     *
+     * @param projection the projection matrix, or null for the one of the batch the run is played back with
+     * @param transform  the transform matrix, or null for the one of the batch the run is played back with
+     */
+    void add(SpriteBatch batch, int layer, float[] vertices, int count, @Nullable Matrix4 projection,
+             @Nullable Matrix4 transform) {
+        commands.add(layer, stateIndex(batch, projection, transform), this.vertices.size, count);
+        this.vertices.addAll(vertices, 0, count);
+    }
+
+    private int stateIndex(SpriteBatch batch, @Nullable Matrix4 projection, @Nullable Matrix4 transform) {
+        Texture texture = batch.lastTexture;
+        ShaderProgram shader = batch.customShader;
+        int blending = batch.isBlendingEnabled() ? 1 : 0, src = batch.getBlendSrcFunc(), dst = batch.getBlendDstFunc();
+        int srcAlpha = batch.getBlendSrcFuncAlpha(), dstAlpha = batch.getBlendDstFuncAlpha();
+        Texture[] textures = stateTextures.items;
+        ShaderProgram[] shaders = stateShaders.items;
+        int[] blend = stateBlending.items;
+        Matrix4[] projections = stateProjections.items, transforms = stateTransforms.items;
+        // most sprites use the state of the previous run or one used shortly before.
+        for (int i = stateTextures.size - 1; i >= 0; i--) {
+            int b = i * 5;
+            if (textures[i] == texture && shaders[i] == shader && blend[b] == blending && blend[b + 1] == src
+                    && blend[b + 2] == dst && blend[b + 3] == srcAlpha && blend[b + 4] == dstAlpha
+                    && equals(projections[i], projection) && equals(transforms[i], transform)) return i;
+        }
+        stateTextures.add(texture);
+        stateShaders.add(shader);
+        stateBlending.add(blending, src, dst, srcAlpha);
+        stateBlending.add(dstAlpha);
+        stateProjections.add(projection == null ? null : new Matrix4(projection));
+        stateTransforms.add(transform == null ? null : new Matrix4(transform));
+        return stateTextures.size - 1;
+    }
+
+    static private boolean equals(@Nullable Matrix4 a, @Nullable Matrix4 b) {
+        if (a == null || b == null) return a == b;
+        return Arrays.equals(a.val, b.val);
+    }
+
+    /**
+     * @return the number of recorded runs
+     */
+    int size() {
+        return commands.size / 4;
+    }
+
+    int layer(int command) {
+        return commands.items[command * 4];
+    }
+
+    int state(int command) {
+        return commands.items[command * 4 + 1];
+    }
+
+    @Nullable Texture texture(int state) {
+        return stateTextures.get(state);
+    }
+
+    @Nullable ShaderProgram shader(int state) {
+        return stateShaders.get(state);
+    }
+
+    @Nullable Matrix4 projection(int state) {
+        return stateProjections.get(state);
+    }
+
+    @Nullable Matrix4 transform(int state) {
+        return stateTransforms.get(state);
+    }
+
+    void clear() {
+        vertices.clear();
+        commands.clear();
+        stateTextures.clear();
+        stateShaders.clear();
+        stateBlending.clear();
+        stateProjections.clear();
+        stateTransforms.clear();
+    }
+}
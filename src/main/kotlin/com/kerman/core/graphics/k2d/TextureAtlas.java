@@ -9,6 +9,7 @@ import com.kerman.core.graphics.Texture.TextureFilter;
 import com.kerman.core.graphics.Texture.TextureWrap;
 import com.kerman.core.utils.KermanArray;
 import com.kerman.core.utils.Disposable;
+import com.kerman.core.utils.IntMap;
 import com.kerman.core.utils.KermanRuntimeException;
 import com.kerman.core.utils.ObjectMap;
 import com.kerman.core.utils.ObjectSet;
@@ -27,6 +28,18 @@ import java.util.Comparator;
 public class TextureAtlas implements Disposable {
     private final ObjectSet<Texture> textures = new ObjectSet<>(4);
     private final KermanArray<AtlasRegion> regions = new KermanArray<>();
+    /**
+     * The regions with each name, in the order of {@link #regions}.
+     */
+    private final ObjectMap<String, KermanArray<AtlasRegion>> regionsByName = new ObjectMap<>();
+    /**
+     * The first region with each index, for the names used by more than one region.
+     */
+    private final ObjectMap<String, IntMap<AtlasRegion>> regionsByIndex = new ObjectMap<>();
+    /**
+     * The regions of the pages whose texture is not loaded yet, see {@link #load(TextureAtlasData, boolean)}.
+     */
+    private final ObjectMap<TextureAtlasData.Page, KermanArray<AtlasRegion>> unloadedPages = new ObjectMap<>();
 
     /**
      * Creates an empty atlas to which regions can be added.
@@ -72,23 +85,40 @@ public class TextureAtlas implements Disposable {
         load(data);
     }
 
+    /**
+     * @param lazyPages see {@link #load(TextureAtlasData, boolean)}
+     */
+    public TextureAtlas(TextureAtlasData data, boolean lazyPages) {
+        load(data, lazyPages);
+    }
+
     /**
      * Adds the textures and regions from the specified texture atlas data.
      */
     public void load(TextureAtlasData data) {
+        load(data, false);
+    }
+
+    /**
+     * Adds the textures and regions from the specified texture atlas data.
+     *
+     * @param lazyPages If true, the texture of a page that isn't loaded yet is only loaded when one of its regions is first
+     *                  returned by a find or create method, so an atlas with many pages doesn't upload them all when it is
+     *                  loaded. Those methods must then be called on the rendering thread. {@link #getRegions()} and
+     *                  {@link #createSprites()} load all pages.
+     */
+    public void load(TextureAtlasData data, boolean lazyPages) {
         textures.ensureCapacity(data.pages.size);
         for (TextureAtlasData.Page page : data.pages) {
-            if (page.texture == null) page.texture = new Texture(page.textureFile, page.format, page.useMipMaps);
-            page.texture.setFilter(page.minFilter, page.magFilter);
-            page.texture.setWrap(page.uWrap, page.vWrap);
-            textures.add(page.texture);
+            if (lazyPages && page.texture == null)
+                unloadedPages.put(page, new KermanArray<>(AtlasRegion[]::new));
+            else
+                loadTexture(page);
         }
 
         regions.ensureCapacity(data.regions.size);
         for (TextureAtlasData.Region region : data.regions) {
-            AtlasRegion atlasRegion = new AtlasRegion(region.page.texture, region.left, region.top, //
-                    region.rotate ? region.height : region.width, //
-                    region.rotate ? region.width : region.height);
+            AtlasRegion atlasRegion = new AtlasRegion();
             atlasRegion.index = region.index;
             atlasRegion.name = region.name;
             atlasRegion.offsetX = region.offsetX;
@@ -99,11 +129,71 @@ public class TextureAtlas implements Disposable {
             atlasRegion.degrees = region.degrees;
             atlasRegion.names = region.names;
             atlasRegion.values = region.values;
-            if (region.flip) atlasRegion.flip(false, true);
+            KermanArray<AtlasRegion> pageRegions = unloadedPages.get(region.page);
+            if (pageRegions != null) {
+                atlasRegion.unloaded = region;
+                pageRegions.add(atlasRegion);
+            } else
+                setRegion(atlasRegion, region);
             regions.add(atlasRegion);
+            index(atlasRegion);
         }
     }
 
+    private void loadTexture(TextureAtlasData.Page page) {
+        if (page.texture == null) page.texture = new Texture(page.textureFile, page.format, page.useMipMaps);
+        page.texture.setFilter(page.minFilter, page.magFilter);
+        page.texture.setWrap(page.uWrap, page.vWrap);
+        textures.add(page.texture);
+    }
+
+    static private void setRegion(AtlasRegion atlasRegion, TextureAtlasData.Region region) {
+        int width = region.rotate ? region.height : region.width;
+        int height = region.rotate ? region.width : region.height;
+        atlasRegion.setTexture(region.page.texture);
+        atlasRegion.setRegion(region.left, region.top, width, height);
+        atlasRegion.packedWidth = width;
+        atlasRegion.packedHeight = height;
+        if (region.flip) atlasRegion.flip(false, true);
+    }
+
+    /**
+     * Loads the texture of the page of the region if it isn't loaded yet.
+     */
+    private AtlasRegion loadPage(AtlasRegion region) {
+        if (region.unloaded == null) return region;
+        TextureAtlasData.Page page = region.unloaded.page;
+        loadTexture(page);
+        for (AtlasRegion pageRegion : unloadedPages.remove(page)) {
+            setRegion(pageRegion, pageRegion.unloaded);
+            pageRegion.unloaded = null;
+        }
+        return region;
+    }
+
+    private void loadPages() {
+        if (unloadedPages.size == 0) return;
+        for (int i = 0, n = regions.size; i < n; i++)
+            loadPage(regions.get(i));
+    }
+
+    private void index(AtlasRegion region) {
+        KermanArray<AtlasRegion> named = regionsByName.get(region.name);
+        if (named == null) {
+            named = new KermanArray<>(true, 1, AtlasRegion[]::new);
+            regionsByName.put(region.name, named);
+        } else {
+            IntMap<AtlasRegion> indexed = regionsByIndex.get(region.name);
+            if (indexed == null) {
+                indexed = new IntMap<>();
+                indexed.put(named.first().index, named.first());
+                regionsByIndex.put(region.name, indexed);
+            }
+            if (!indexed.containsKey(region.index)) indexed.put(region.index, region);
+        }
+        named.add(region);
+    }
+
     /**
      * Adds a region to the atlas. The specified texture will be disposed when the atlas is disposed.
      */
@@ -112,6 +202,7 @@ public class TextureAtlas implements Disposable {
         AtlasRegion region = new AtlasRegion(texture, x, y, width, height);
         region.name = name;
         regions.add(region);
+        index(region);
         return region;
     }
 
@@ -123,61 +214,67 @@ public class TextureAtlas implements Disposable {
         AtlasRegion region = new AtlasRegion(textureRegion);
         region.name = name;
         regions.add(region);
+        index(region);
         return region;
     }
 
     /**
-     * Returns all regions in the atlas.
+     * Returns all regions in the atlas, loading all pages that aren't loaded yet. The regions are indexed by name when they are
+     * added, so changing the array or the name of a region isn't seen by the find and create methods.
      */
     public KermanArray<AtlasRegion> getRegions() {
+        loadPages();
         return regions;
     }
 
     /**
-     * Returns the first region found with the specified name. This method uses string comparison to find the region, so the
-     * result should be cached rather than calling this method multiple times.
+     * Returns the first region found with the specified name. The regions are indexed by name, so this doesn't compare the name
+     * with every region.
      */
     public @Nullable AtlasRegion findRegion(String name) {
-        for (int i = 0, n = regions.size; i < n; i++)
-            if (regions.get(i).name.equals(name)) return regions.get(i);
-        return null;
+        KermanArray<AtlasRegion> named = regionsByName.get(name);
+        return named == null ? null : loadPage(named.first());
     }
 
     /**
-     * Returns the first region found with the specified name and index. This method uses string comparison to find the region, so
-     * the result should be cached rather than calling this method multiple times.
+     * Returns the first region found with the specified name and index. The regions are indexed by name and index, so this doesn't
+     * compare the name with every region.
      */
     public @Nullable AtlasRegion findRegion(String name, int index) {
-        for (int i = 0, n = regions.size; i < n; i++) {
-            AtlasRegion region = regions.get(i);
-            if (!region.name.equals(name)) continue;
-            if (region.index != index) continue;
-            return region;
-        }
-        return null;
+        KermanArray<AtlasRegion> named = regionsByName.get(name);
+        if (named == null) return null;
+        AtlasRegion region;
+        if (named.size == 1) {
+            region = named.first();
+            if (region.index != index) return null;
+        } else {
+            region = regionsByIndex.get(name).get(index);
+            if (region == null) return null;
+        }
+        return loadPage(region);
     }
 
     /**
      * Returns all regions with the specified name, ordered by smallest to largest {@link AtlasRegion#index index}. This method
-     * uses string comparison to find the regions, so the result should be cached rather than calling this method multiple
-     * times.
+     * constructs new regions, so the result should be cached rather than calling this method multiple times.
      */
     public KermanArray<AtlasRegion> findRegions(String name) {
-        KermanArray<AtlasRegion> matched = new KermanArray<>(AtlasRegion[]::new);
-        for (int i = 0, n = regions.size; i < n; i++) {
-            AtlasRegion region = regions.get(i);
-            if (region.name.equals(name)) matched.add(new AtlasRegion(region));
-        }
+        KermanArray<AtlasRegion> named = regionsByName.get(name);
+        if (named == null) return new KermanArray<>(AtlasRegion[]::new);
+        KermanArray<AtlasRegion> matched = new KermanArray<>(true, named.size, AtlasRegion[]::new);
+        for (int i = 0, n = named.size; i < n; i++)
+            matched.add(new AtlasRegion(loadPage(named.get(i))));
         return matched;
     }
 
     /**
-     * Returns all regions in the atlas as sprites. This method creates a new sprite for each region, so the result should be
-     * stored rather than calling this method multiple times.
+     * Returns all regions in the atlas as sprites, loading all pages that aren't loaded yet. This method creates a new sprite for
+     * each region, so the result should be stored rather than calling this method multiple times.
      *
      * @see #createSprite(String)
      */
     public KermanArray<Sprite> createSprites() {
+        loadPages();
         KermanArray<Sprite> sprites = new KermanArray<>(true, regions.size, Sprite[]::new);
         for (int i = 0, n = regions.size; i < n; i++)
             sprites.add(newSprite(regions.get(i)));
@@ -186,45 +283,37 @@ public class TextureAtlas implements Disposable {
 
     /**
      * Returns the first region found with the specified name as a sprite. If whitespace was stripped from the region when it was
-     * packed, the sprite is automatically positioned as if whitespace had not been stripped. This method uses string comparison to
-     * find the region and constructs a new sprite, so the result should be cached rather than calling this method multiple
-     * times.
+     * packed, the sprite is automatically positioned as if whitespace had not been stripped. This method constructs a new sprite,
+     * so the result should be cached rather than calling this method multiple times.
      */
     public @Nullable Sprite createSprite(String name) {
-        for (int i = 0, n = regions.size; i < n; i++)
-            if (regions.get(i).name.equals(name)) return newSprite(regions.get(i));
-        return null;
+        AtlasRegion region = findRegion(name);
+        return region == null ? null : newSprite(region);
     }
 
     /**
-     * Returns the first region found with the specified name and index as a sprite. This method uses string comparison to find
-     * the region and constructs a new sprite, so the result should be cached rather than calling this method multiple times.
+     * Returns the first region found with the specified name and index as a sprite. This method constructs a new sprite, so the
+     * result should be cached rather than calling this method multiple times.
      *
      * @see #createSprite(String)
      */
     public @Nullable Sprite createSprite(String name, int index) {
-        for (int i = 0, n = regions.size; i < n; i++) {
-            AtlasRegion region = regions.get(i);
-            if (region.index != index) continue;
-            if (!region.name.equals(name)) continue;
-            return newSprite(regions.get(i));
-        }
-        return null;
+        AtlasRegion region = findRegion(name, index);
+        return region == null ? null : newSprite(region);
     }
 
     /**
      * Returns all regions with the specified name as sprites, ordered by smallest to largest {@link AtlasRegion#index index}.
-     * This method uses string comparison to find the regions and constructs new sprites, so the result should be cached rather
-     * than calling this method multiple times.
+     * This method constructs new sprites, so the result should be cached rather than calling this method multiple times.
      *
      * @see #createSprite(String)
      */
     public KermanArray<Sprite> createSprites(String name) {
-        KermanArray<Sprite> matched = new KermanArray<>(Sprite[]::new);
-        for (int i = 0, n = regions.size; i < n; i++) {
-            AtlasRegion region = regions.get(i);
-            if (region.name.equals(name)) matched.add(newSprite(region));
-        }
+        KermanArray<AtlasRegion> named = regionsByName.get(name);
+        if (named == null) return new KermanArray<>(Sprite[]::new);
+        KermanArray<Sprite> matched = new KermanArray<>(true, named.size, Sprite[]::new);
+        for (int i = 0, n = named.size; i < n; i++)
+            matched.add(newSprite(loadPage(named.get(i))));
         return matched;
     }
 
@@ -243,26 +332,22 @@ public class TextureAtlas implements Disposable {
 
     /**
      * Returns the first region found with the specified name as a {@link NinePatch}. The region must have been packed with
-     * ninepatch splits. This method uses string comparison to find the region and constructs a new ninepatch, so the result should
-     * be cached rather than calling this method multiple times.
+     * ninepatch splits. This method constructs a new ninepatch, so the result should be cached rather than calling this method
+     * multiple times.
      */
     public @Nullable NinePatch createPatch(String name) {
-        for (int i = 0, n = regions.size; i < n; i++) {
-            AtlasRegion region = regions.get(i);
-            if (region.name.equals(name)) {
-                int[] splits = region.findValue("split");
-                if (splits == null) throw new IllegalArgumentException("Region does not have ninepatch splits: " + name);
-                NinePatch patch = new NinePatch(region, splits[0], splits[1], splits[2], splits[3]);
-                int[] pads = region.findValue("pad");
-                if (pads != null) patch.setPadding(pads[0], pads[1], pads[2], pads[3]);
-                return patch;
-            }
-        }
-        return null;
+        AtlasRegion region = findRegion(name);
+        if (region == null) return null;
+        int[] splits = region.findValue("split");
+        if (splits == null) throw new IllegalArgumentException("Region does not have ninepatch splits: " + name);
+        NinePatch patch = new NinePatch(region, splits[0], splits[1], splits[2], splits[3]);
+        int[] pads = region.findValue("pad");
+        if (pads != null) patch.setPadding(pads[0], pads[1], pads[2], pads[3]);
+        return patch;
     }
 
     /**
-     * @return the textures of the pages, unordered
+     * @return the textures of the loaded pages, unordered
      */
     public ObjectSet<Texture> getTextures() {
         return textures;
@@ -621,6 +706,14 @@ public class TextureAtlas implements Disposable {
          */
         public @Nullable int[][] values;
 
+        /**
+         * The data of the region while the texture of its page is not loaded.
+         */
+        @Nullable TextureAtlasData.Region unloaded;
+
+        AtlasRegion() {
+        }
+
         public AtlasRegion(Texture texture, int x, int y, int width, int height) {
             super(texture, x, y, width, height);
             originalWidth = width;
@@ -22,7 +22,7 @@ import com.kerman.core.utils.KermanShortArray;
  * be able to properly assess the winding (because it uses floats). In that case the vertices should be adjusted, eg by finding
  * the smallest X and Y values and subtracting that from each vertex.
  */
-public class EarClippingTriangulator {
+public class EarClippingTriangulator implements Triangulator {
     static private final int CONCAVE = -1;
     static private final int CONVEX = 1;
 
@@ -93,6 +93,18 @@ public class EarClippingTriangulator {
         return triangles;
     }
 
+    /**
+     * Triangulates like {@link #computeTriangles(float[], int, int)}, copying the triangle indices to the given buffer.
+     */
+    public int computeTriangles(float[] vertices, int offset, int count, short[] triangles, int trianglesOffset) {
+        int maxIndices = Math.max(0, count / 2 - 2) * 3;
+        if (triangles.length - trianglesOffset < maxIndices)
+            throw new IllegalArgumentException("triangles must have room for " + maxIndices + " indices: " + (triangles.length - trianglesOffset));
+        KermanShortArray result = computeTriangles(vertices, offset, count);
+        System.arraycopy(result.items, 0, triangles, trianglesOffset, result.size);
+        return result.size;
+    }
+
     private void triangulate() {
         int[] vertexTypes = this.vertexTypes.items;
 
@@ -165,13 +165,17 @@ public class Matrix4 implements Serializable {
      * @param numVecs the number of vectors
      * @param stride  the stride between vectors in floats
      */
-    public static native void mulVec(float[] mat, float[] vecs, int offset, int numVecs, int stride) /*-{ }-*/; /*
-		float* vecPtr = vecs + offset;
-		for(int i = 0; i < numVecs; i++) {
-			matrix4_mulVec(mat, vecPtr);
-			vecPtr += stride;
-		}
-	*/
+    public static void mulVec(float[] mat, float[] vecs, int offset, int numVecs, int stride) {
+        final float m00 = mat[M00], m01 = mat[M01], m02 = mat[M02], m03 = mat[M03];
+        final float m10 = mat[M10], m11 = mat[M11], m12 = mat[M12], m13 = mat[M13];
+        final float m20 = mat[M20], m21 = mat[M21], m22 = mat[M22], m23 = mat[M23];
+        for (int i = 0, idx = offset; i < numVecs; i++, idx += stride) {
+            final float x = vecs[idx], y = vecs[idx + 1], z = vecs[idx + 2];
+            vecs[idx] = x * m00 + y * m01 + z * m02 + m03;
+            vecs[idx + 1] = x * m10 + y * m11 + z * m12 + m13;
+            vecs[idx + 2] = x * m20 + y * m21 + z * m22 + m23;
+        }
+    }
 
     /**
      * Multiplies the vectors with the given matrix, , performing a division by w. The matrix array is assumed to hold a 4x4 column
@@ -186,13 +190,19 @@ public class Matrix4 implements Serializable {
      * @param numVecs the number of vectors
      * @param stride  the stride between vectors in floats
      */
-    public static native void prj(float[] mat, float[] vecs, int offset, int numVecs, int stride) /*-{ }-*/; /*
-		float* vecPtr = vecs + offset;
-		for(int i = 0; i < numVecs; i++) {
-			matrix4_proj(mat, vecPtr);
-			vecPtr += stride;
-		}
-	*/
+    public static void prj(float[] mat, float[] vecs, int offset, int numVecs, int stride) {
+        final float m00 = mat[M00], m01 = mat[M01], m02 = mat[M02], m03 = mat[M03];
+        final float m10 = mat[M10], m11 = mat[M11], m12 = mat[M12], m13 = mat[M13];
+        final float m20 = mat[M20], m21 = mat[M21], m22 = mat[M22], m23 = mat[M23];
+        final float m30 = mat[M30], m31 = mat[M31], m32 = mat[M32], m33 = mat[M33];
+        for (int i = 0, idx = offset; i < numVecs; i++, idx += stride) {
+            final float x = vecs[idx], y = vecs[idx + 1], z = vecs[idx + 2];
+            final float invW = 1f / (x * m30 + y * m31 + z * m32 + m33);
+            vecs[idx] = (x * m00 + y * m01 + z * m02 + m03) * invW;
+            vecs[idx + 1] = (x * m10 + y * m11 + z * m12 + m13) * invW;
+            vecs[idx + 2] = (x * m20 + y * m21 + z * m22 + m23) * invW;
+        }
+    }
 
     /**
      * Multiplies the vectors with the top most 3x3 sub-matrix of the given matrix. The matrix array is assumed to hold a 4x4
@@ -207,13 +217,17 @@ public class Matrix4 implements Serializable {
      * @param numVecs the number of vectors
      * @param stride  the stride between vectors in floats
      */
-    public static native void rot(float[] mat, float[] vecs, int offset, int numVecs, int stride) /*-{ }-*/; /*
-		float* vecPtr = vecs + offset;
-		for(int i = 0; i < numVecs; i++) {
-			matrix4_rot(mat, vecPtr);
-			vecPtr += stride;
-		}
-	*/
+    public static void rot(float[] mat, float[] vecs, int offset, int numVecs, int stride) {
+        final float m00 = mat[M00], m01 = mat[M01], m02 = mat[M02];
+        final float m10 = mat[M10], m11 = mat[M11], m12 = mat[M12];
+        final float m20 = mat[M20], m21 = mat[M21], m22 = mat[M22];
+        for (int i = 0, idx = offset; i < numVecs; i++, idx += stride) {
+            final float x = vecs[idx], y = vecs[idx + 1], z = vecs[idx + 2];
+            vecs[idx] = x * m00 + y * m01 + z * m02;
+            vecs[idx + 1] = x * m10 + y * m11 + z * m12;
+            vecs[idx + 2] = x * m20 + y * m21 + z * m22;
+        }
+    }
 
     /**
      * Multiplies the matrix mata with matrix matb, storing the result in mata. The arrays are assumed to hold 4x4 column major
@@ -1507,79 +1521,6 @@ public class Matrix4 implements Serializable {
         return rotation.setFromMatrix(this);
     }
 
-    // @off
-	/*JNI
-	#include <memory.h>
-	#include <stdio.h>
-	#include <string.h>
-	
-	#define M00 0
-	#define M01 4
-	#define M02 8
-	#define M03 12
-	#define M10 1
-	#define M11 5
-	#define M12 9
-	#define M13 13
-	#define M20 2
-	#define M21 6
-	#define M22 10
-	#define M23 14
-	#define M30 3
-	#define M31 7
-	#define M32 11
-	#define M33 15
-	
-	static inline void matrix4_mul(float* mata, float* matb) {
-		float tmp[16];
-		tmp[M00] = mata[M00] * matb[M00] + mata[M01] * matb[M10] + mata[M02] * matb[M20] + mata[M03] * matb[M30];
-		tmp[M01] = mata[M00] * matb[M01] + mata[M01] * matb[M11] + mata[M02] * matb[M21] + mata[M03] * matb[M31];
-		tmp[M02] = mata[M00] * matb[M02] + mata[M01] * matb[M12] + mata[M02] * matb[M22] + mata[M03] * matb[M32];
-		tmp[M03] = mata[M00] * matb[M03] + mata[M01] * matb[M13] + mata[M02] * matb[M23] + mata[M03] * matb[M33];
-		tmp[M10] = mata[M10] * matb[M00] + mata[M11] * matb[M10] + mata[M12] * matb[M20] + mata[M13] * matb[M30];
-		tmp[M11] = mata[M10] * matb[M01] + mata[M11] * matb[M11] + mata[M12] * matb[M21] + mata[M13] * matb[M31];
-		tmp[M12] = mata[M10] * matb[M02] + mata[M11] * matb[M12] + mata[M12] * matb[M22] + mata[M13] * matb[M32];
-		tmp[M13] = mata[M10] * matb[M03] + mata[M11] * matb[M13] + mata[M12] * matb[M23] + mata[M13] * matb[M33];
-		tmp[M20] = mata[M20] * matb[M00] + mata[M21] * matb[M10] + mata[M22] * matb[M20] + mata[M23] * matb[M30];
-		tmp[M21] = mata[M20] * matb[M01] + mata[M21] * matb[M11] + mata[M22] * matb[M21] + mata[M23] * matb[M31];
-		tmp[M22] = mata[M20] * matb[M02] + mata[M21] * matb[M12] + mata[M22] * matb[M22] + mata[M23] * matb[M32];
-		tmp[M23] = mata[M20] * matb[M03] + mata[M21] * matb[M13] + mata[M22] * matb[M23] + mata[M23] * matb[M33];
-		tmp[M30] = mata[M30] * matb[M00] + mata[M31] * matb[M10] + mata[M32] * matb[M20] + mata[M33] * matb[M30];
-		tmp[M31] = mata[M30] * matb[M01] + mata[M31] * matb[M11] + mata[M32] * matb[M21] + mata[M33] * matb[M31];
-		tmp[M32] = mata[M30] * matb[M02] + mata[M31] * matb[M12] + mata[M32] * matb[M22] + mata[M33] * matb[M32];
-		tmp[M33] = mata[M30] * matb[M03] + mata[M31] * matb[M13] + mata[M32] * matb[M23] + mata[M33] * matb[M33];
-		memcpy(mata, tmp, sizeof(float) *  16);
-	}
-	
-	static inline void matrix4_mulVec(float* mat, float* vec) {
-		float x = vec[0] * mat[M00] + vec[1] * mat[M01] + vec[2] * mat[M02] + mat[M03];
-		float y = vec[0] * mat[M10] + vec[1] * mat[M11] + vec[2] * mat[M12] + mat[M13];
-		float z = vec[0] * mat[M20] + vec[1] * mat[M21] + vec[2] * mat[M22] + mat[M23];
-		vec[0] = x;
-		vec[1] = y;
-		vec[2] = z;
-	}
-	
-	static inline void matrix4_proj(float* mat, float* vec) {
-		float inv_w = 1.0f / (vec[0] * mat[M30] + vec[1] * mat[M31] + vec[2] * mat[M32] + mat[M33]);
-		float x = (vec[0] * mat[M00] + vec[1] * mat[M01] + vec[2] * mat[M02] + mat[M03]) * inv_w;
-		float y = (vec[0] * mat[M10] + vec[1] * mat[M11] + vec[2] * mat[M12] + mat[M13]) * inv_w; 
-		float z = (vec[0] * mat[M20] + vec[1] * mat[M21] + vec[2] * mat[M22] + mat[M23]) * inv_w;
-		vec[0] = x;
-		vec[1] = y;
-		vec[2] = z;
-	}
-	
-	static inline void matrix4_rot(float* mat, float* vec) {
-		float x = vec[0] * mat[M00] + vec[1] * mat[M01] + vec[2] * mat[M02];
-		float y = vec[0] * mat[M10] + vec[1] * mat[M11] + vec[2] * mat[M12];
-		float z = vec[0] * mat[M20] + vec[1] * mat[M21] + vec[2] * mat[M22];
-		vec[0] = x;
-		vec[1] = y;
-		vec[2] = z;
-	}
-	 */
-
     /**
      * @return the squared scale factor on the X axis
      */
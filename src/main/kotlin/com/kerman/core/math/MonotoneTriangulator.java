@@ -0,0 +1,445 @@
+package com.kerman.core.math;
+
+import com.kerman.core.utils.KermanIntArray;
+import com.kerman.core.utils.KermanShortArray;
+
+import java.util.Arrays;
+
+/**
+ * Triangulates simple polygons without holes by splitting them into y-monotone pieces with a plane sweep and triangulating each
+ * piece in linear time, as described in chapter 3 of "Computational Geometry: Algorithms and Applications" by de Berg et al. It
+ * takes O(n log n) time instead of the O(n^2) of {@link EarClippingTriangulator}, so it is much faster for polygons with thousands
+ * of vertices, but its triangles are often thinner as it doesn't look for ears. The buffers are reused, so once they fit the
+ * largest polygon triangulating doesn't allocate.
+ * <p>
+ * If the input polygon is not simple (self-intersects), there will be output but it is of unspecified quality (garbage in,
+ * garbage out).
+ */
+public class MonotoneTriangulator implements Triangulator {
+    static private final int START = 0;
+    static private final int SPLIT = 1;
+    static private final int END = 2;
+    static private final int MERGE = 3;
+    static private final int REGULAR = 4;
+    static private final int LEFT = 0;
+    static private final int RIGHT = 1;
+
+    private final KermanShortArray triangles = new KermanShortArray();
+    /**
+     * The edges crossing the sweep line with the interior to their right, ordered by x. An edge is the index of its first vertex.
+     */
+    private final KermanIntArray status = new KermanIntArray();
+    /**
+     * Pairs of vertices that split the polygon into monotone pieces.
+     */
+    private final KermanIntArray diagonals = new KermanIntArray();
+    private final KermanIntArray piece = new KermanIntArray();
+    /**
+     * Pairs of a vertex and its chain, for the vertices of a piece in sweep order.
+     */
+    private final KermanIntArray chains = new KermanIntArray();
+    private final KermanIntArray stack = new KermanIntArray();
+    /**
+     * The vertices in counterclockwise order.
+     */
+    private float[] points = new float[0];
+    private int[] order = new int[0], sortBuffer = new int[0], types = new int[0], helpers = new int[0];
+    /**
+     * The neighbours of each vertex, sorted by angle, are in {@link #neighbors} from firstNeighbor[v] to firstNeighbor[v + 1].
+     */
+    private int[] firstNeighbor = new int[1], neighborCounts = new int[0], neighbors = new int[0];
+    private float[] angles = new float[0];
+    private boolean[] visited = new boolean[0];
+    private int vertexCount, vertexOffset;
+    private boolean reversed;
+    private short[] output;
+    private int outputIndex, outputEnd;
+
+    /**
+     * @see #computeTriangles(float[], int, int)
+     */
+    public KermanShortArray computeTriangles(float[] vertices) {
+        return computeTriangles(vertices, 0, vertices.length);
+    }
+
+    public KermanShortArray computeTriangles(float[] vertices, int offset, int count) {
+        KermanShortArray triangles = this.triangles;
+        triangles.clear();
+        triangles.ensureCapacity(Math.max(0, count / 2 - 2) * 3);
+        triangles.size = computeTriangles(vertices, offset, count, triangles.items, 0);
+        return triangles;
+    }
+
+    public int computeTriangles(float[] vertices, int offset, int count, short[] triangles, int trianglesOffset) {
+        int n = count / 2;
+        int maxIndices = Math.max(0, n - 2) * 3;
+        if (triangles.length - trianglesOffset < maxIndices)
+            throw new IllegalArgumentException("triangles must have room for " + maxIndices + " indices: " + (triangles.length - trianglesOffset));
+        if (n < 3) return 0;
+
+        ensureCapacity(n);
+        vertexCount = n;
+        vertexOffset = offset / 2;
+        reversed = GeometryUtils.isClockwise(vertices, offset, count);
+        float[] points = this.points;
+        for (int i = 0; i < n; i++) {
+            int v = offset + (reversed ? n - 1 - i : i) * 2;
+            points[i * 2] = vertices[v];
+            points[i * 2 + 1] = vertices[v + 1];
+        }
+
+        output = triangles;
+        outputIndex = trianglesOffset;
+        outputEnd = trianglesOffset + maxIndices;
+        try {
+            splitMonotone();
+            triangulatePieces();
+        } finally {
+            output = null;
+        }
+        return outputIndex - trianglesOffset;
+    }
+
+    private void ensureCapacity(int n) {
+        if (points.length >= n * 2) return;
+        points = new float[n * 2];
+        order = new int[n];
+        sortBuffer = new int[n];
+        types = new int[n];
+        helpers = new int[n];
+        firstNeighbor = new int[n + 1];
+        neighborCounts = new int[n];
+    }
+
+    /**
+     * Sweeps the vertices from top to bottom, adding diagonals from the split and merge vertices that leave only monotone pieces.
+     */
+    private void splitMonotone() {
+        int n = vertexCount;
+        int[] types = this.types, helpers = this.helpers;
+        for (int v = 0; v < n; v++) {
+            int previous = previous(v), next = next(v);
+            boolean previousBelow = above(v, previous), nextBelow = above(v, next);
+            boolean reflex = cross(previous, v, next) < 0;
+            if (previousBelow && nextBelow)
+                types[v] = reflex ? SPLIT : START;
+            else if (!previousBelow && !nextBelow)
+                types[v] = reflex ? MERGE : END;
+            else
+                types[v] = REGULAR;
+        }
+
+        sortVertices();
+        status.clear();
+        diagonals.clear();
+        int[] order = this.order;
+        for (int i = 0; i < n; i++) {
+            int v = order[i], previous = previous(v);
+            switch (types[v]) {
+                case START:
+                    insertEdge(v);
+                    break;
+                case END:
+                    if (types[helpers[previous]] == MERGE) diagonals.add(v, helpers[previous]);
+                    status.removeValue(previous);
+                    break;
+                case SPLIT: {
+                    int left = leftEdge(v);
+                    if (left != -1) {
+                        diagonals.add(v, helpers[left]);
+                        helpers[left] = v;
+                    }
+                    insertEdge(v);
+                    break;
+                }
+                case MERGE: {
+                    if (types[helpers[previous]] == MERGE) diagonals.add(v, helpers[previous]);
+                    status.removeValue(previous);
+                    int left = leftEdge(v);
+                    if (left != -1) {
+                        if (types[helpers[left]] == MERGE) diagonals.add(v, helpers[left]);
+                        helpers[left] = v;
+                    }
+                    break;
+                }
+                default:
+                    if (above(previous, v)) {
+                        // The interior is to the right, the edge above ends here and the edge below starts here.
+                        if (types[helpers[previous]] == MERGE) diagonals.add(v, helpers[previous]);
+                        status.removeValue(previous);
+                        insertEdge(v);
+                    } else {
+                        int left = leftEdge(v);
+                        if (left != -1) {
+                            if (types[helpers[left]] == MERGE) diagonals.add(v, helpers[left]);
+                            helpers[left] = v;
+                        }
+                    }
+            }
+        }
+    }
+
+    /**
+     * Sorts the vertices from top to bottom with a merge sort, as a comparator would need boxing.
+     */
+    private void sortVertices() {
+        int n = vertexCount;
+        int[] order = this.order, buffer = sortBuffer;
+        for (int i = 0; i < n; i++)
+            order[i] = i;
+        for (int width = 1; width < n; width *= 2) {
+            for (int low = 0; low < n; low += width * 2) {
+                int middle = Math.min(low + width, n), high = Math.min(low + width * 2, n);
+                int i = low, j = middle, k = low;
+                while (i < middle && j < high)
+                    buffer[k++] = above(order[j], order[i]) ? order[j++] : order[i++];
+                while (i < middle)
+                    buffer[k++] = order[i++];
+                while (j < high)
+                    buffer[k++] = order[j++];
+            }
+            int[] temp = order;
+            order = buffer;
+            buffer = temp;
+        }
+        this.order = order;
+        sortBuffer = buffer;
+    }
+
+    /**
+     * Adds the edge starting at the vertex to the status, with the vertex as its helper.
+     */
+    private void insertEdge(int v) {
+        float x = points[v * 2], y = points[v * 2 + 1];
+        int[] edges = status.items;
+        int low = 0, high = status.size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (edgeX(edges[middle], y) <= x)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        status.insert(low, v);
+        helpers[v] = v;
+    }
+
+    /**
+     * @return the edge of the status directly left of the vertex, or -1 if there is none
+     */
+    private int leftEdge(int v) {
+        float x = points[v * 2], y = points[v * 2 + 1];
+        int[] edges = status.items;
+        int low = 0, high = status.size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (edgeX(edges[middle], y) <= x)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low == 0 ? -1 : edges[low - 1];
+    }
+
+    /**
+     * @return the x of the edge at the y of the sweep line
+     */
+    private float edgeX(int edge, float y) {
+        float[] points = this.points;
+        int a = edge * 2, b = next(edge) * 2;
+        float ax = points[a], ay = points[a + 1], bx = points[b], by = points[b + 1];
+        if (ay == by) return Math.min(ax, bx);
+        return ax + (y - ay) * (bx - ax) / (by - ay);
+    }
+
+    /**
+     * Walks the faces formed by the polygon edges and the diagonals, and triangulates each of them.
+     */
+    private void triangulatePieces() {
+        int n = vertexCount;
+        int[] diagonals = this.diagonals.items;
+        int diagonalsSize = this.diagonals.size;
+        int total = n * 2 + diagonalsSize;
+        if (neighbors.length < total) {
+            neighbors = new int[total];
+            angles = new float[total];
+            visited = new boolean[total];
+        }
+        int[] firstNeighbor = this.firstNeighbor, counts = neighborCounts, neighbors = this.neighbors;
+        float[] angles = this.angles, points = this.points;
+
+        Arrays.fill(counts, 0, n, 2);
+        for (int i = 0; i < diagonalsSize; i++)
+            counts[diagonals[i]]++;
+        firstNeighbor[0] = 0;
+        for (int v = 0; v < n; v++) {
+            firstNeighbor[v + 1] = firstNeighbor[v] + counts[v];
+            counts[v] = firstNeighbor[v];
+        }
+        for (int v = 0; v < n; v++) {
+            neighbors[counts[v]++] = previous(v);
+            neighbors[counts[v]++] = next(v);
+        }
+        for (int i = 0; i < diagonalsSize; i += 2) {
+            int a = diagonals[i], b = diagonals[i + 1];
+            neighbors[counts[a]++] = b;
+            neighbors[counts[b]++] = a;
+        }
+
+        // Sort the neighbours of each vertex by angle.
+        for (int v = 0; v < n; v++) {
+            float x = points[v * 2], y = points[v * 2 + 1];
+            for (int s = firstNeighbor[v], end = firstNeighbor[v + 1]; s < end; s++) {
+                int w = neighbors[s];
+                float angle = (float) Math.atan2(points[w * 2 + 1] - y, points[w * 2] - x);
+                int i = s;
+                for (; i > firstNeighbor[v] && angles[i - 1] > angle; i--) {
+                    angles[i] = angles[i - 1];
+                    neighbors[i] = neighbors[i - 1];
+                }
+                angles[i] = angle;
+                neighbors[i] = w;
+            }
+        }
+
+        // Each piece is to the left of its edges. The polygon edges walked clockwise are the outside.
+        boolean[] visited = this.visited;
+        Arrays.fill(visited, 0, total, false);
+        KermanIntArray piece = this.piece;
+        for (int v = 0; v < n; v++) {
+            for (int s = firstNeighbor[v], end = firstNeighbor[v + 1]; s < end; s++) {
+                if (visited[s] || neighbors[s] == previous(v)) continue;
+                piece.clear();
+                int u = v, slot = s;
+                while (!visited[slot]) {
+                    visited[slot] = true;
+                    piece.add(u);
+                    int w = neighbors[slot];
+                    // The next edge is the first clockwise from the edge back to u.
+                    int first = firstNeighbor[w], last = firstNeighbor[w + 1], back = first;
+                    while (back < last - 1 && neighbors[back] != u)
+                        back++;
+                    slot = back == first ? last - 1 : back - 1;
+                    u = w;
+                }
+                triangulateMonotone();
+            }
+        }
+    }
+
+    /**
+     * Triangulates the monotone {@link #piece} in counterclockwise order, by merging its left and right chains into sweep order and
+     * cutting off triangles from a stack of vertices that can't be connected yet.
+     */
+    private void triangulateMonotone() {
+        int[] piece = this.piece.items;
+        int k = this.piece.size;
+        if (k < 3) return;
+        if (k == 3) {
+            addTriangle(piece[0], piece[1], piece[2]);
+            return;
+        }
+
+        int top = 0, bottom = 0;
+        for (int i = 1; i < k; i++) {
+            if (above(piece[i], piece[top])) top = i;
+            if (above(piece[bottom], piece[i])) bottom = i;
+        }
+
+        // Counterclockwise from the top is the left chain, clockwise is the right chain.
+        KermanIntArray chains = this.chains;
+        chains.clear();
+        chains.add(piece[top], LEFT);
+        int left = top == k - 1 ? 0 : top + 1, right = top == 0 ? k - 1 : top - 1;
+        while (left != bottom || right != bottom) {
+            if (right == bottom || (left != bottom && above(piece[left], piece[right]))) {
+                chains.add(piece[left], LEFT);
+                left = left == k - 1 ? 0 : left + 1;
+            } else {
+                chains.add(piece[right], RIGHT);
+                right = right == 0 ? k - 1 : right - 1;
+            }
+        }
+        chains.add(piece[bottom], LEFT);
+
+        int[] sorted = chains.items;
+        int count = chains.size / 2;
+        KermanIntArray stack = this.stack;
+        stack.clear();
+        stack.add(0, 1);
+        for (int i = 2; i < count - 1; i++) {
+            int v = sorted[i * 2], chain = sorted[i * 2 + 1];
+            if (chain != sorted[stack.peek() * 2 + 1]) {
+                // On the other chain, every stacked vertex can be connected.
+                int[] stacked = stack.items;
+                for (int s = stack.size - 1; s > 0; s--)
+                    addTriangle(v, sorted[stacked[s] * 2], sorted[stacked[s - 1] * 2]);
+                stack.clear();
+                stack.add(i - 1, i);
+            } else {
+                int last = stack.pop();
+                while (stack.size > 0) {
+                    int above = sorted[stack.peek() * 2], middle = sorted[last * 2];
+                    float cross = cross(above, middle, v);
+                    if (chain == LEFT ? cross <= 0 : cross >= 0) break;
+                    addTriangle(v, middle, above);
+                    last = stack.pop();
+                }
+                stack.add(last, i);
+            }
+        }
+        int v = sorted[(count - 1) * 2];
+        int[] stacked = stack.items;
+        for (int s = stack.size - 1; s > 0; s--)
+            addTriangle(v, sorted[stacked[s] * 2], sorted[stacked[s - 1] * 2]);
+    }
+
+    /**
+     * Writes the triangle in clockwise order with the indices of the input vertices.
+     */
+    private void addTriangle(int a, int b, int c) {
+        if (outputIndex == outputEnd) return;
+        if (cross(a, b, c) > 0) {
+            int temp = b;
+            b = c;
+            c = temp;
+        }
+        short[] output = this.output;
+        output[outputIndex++] = index(a);
+        output[outputIndex++] = index(b);
+        output[outputIndex++] = index(c);
+    }
+
+    private short index(int v) {
+        return (short) (vertexOffset + (reversed ? vertexCount - 1 - v : v));
+    }
+
+    /**
+     * @return true if vertex a comes before vertex b when sweeping from top to bottom, breaking ties of y by x
+     */
+    private boolean above(int a, int b) {
+        float ay = points[a * 2 + 1], by = points[b * 2 + 1];
+        if (ay != by) return ay > by;
+        float ax = points[a * 2], bx = points[b * 2];
+        return ax < bx || (ax == bx && a < b);
+    }
+
+    /**
+     * @return positive if a, b, c turn left, negative if they turn right
+     */
+    private float cross(int a, int b, int c) {
+        float[] points = this.points;
+        float ax = points[a * 2], ay = points[a * 2 + 1];
+        float bx = points[b * 2], by = points[b * 2 + 1];
+        float cx = points[c * 2], cy = points[c * 2 + 1];
+        return (bx - ax) * (cy - by) - (by - ay) * (cx - bx);
+    }
+
+    private int previous(int v) {
+        return (v == 0 ? vertexCount : v) - 1;
+    }
+
+    private int next(int v) {
+        return v == vertexCount - 1 ? 0 : v + 1;
+    }
+}
@@ -0,0 +1,220 @@
+package com.kerman.core.math;
+
+import com.kerman.core.utils.KermanShortArray;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * A least recently used cache of triangulations, for polygons that are triangulated again with the same vertices, like the pieces
+ * of destructible terrain that didn't change since they were last triangulated. Polygons are looked up by a hash of their vertices
+ * and compared with a copy, so a hit costs hashing and comparing the vertices instead of triangulating. The triangles are cached
+ * relative to the first vertex, so a polygon is found at any offset.
+ * <p>
+ * The least recently used entry is reused for the next triangulation when the cache is full, so once the entries fit the largest
+ * polygon the cache doesn't allocate. Like the triangulators, this class is not thread safe.
+ */
+public class TriangulationCache implements Triangulator {
+    private final Triangulator triangulator;
+    private final int capacity;
+    private final Entry[] table;
+    private final KermanShortArray triangles = new KermanShortArray();
+    private int size;
+    /**
+     * The most and least recently used entries.
+     */
+    private @Nullable Entry head, tail;
+    private long hits, misses;
+
+    /**
+     * Creates a cache of up to 64 triangulations.
+     */
+    public TriangulationCache(Triangulator triangulator) {
+        this(triangulator, 64);
+    }
+
+    /**
+     * @param triangulator computes the triangulations that aren't cached, e.g. a {@link MonotoneTriangulator} for polygons with
+     *                     thousands of vertices
+     * @param capacity     the number of triangulations after which the least recently used one is evicted
+     */
+    public TriangulationCache(Triangulator triangulator, int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be > 0: " + capacity);
+        this.triangulator = triangulator;
+        this.capacity = capacity;
+        table = new Entry[MathUtils.nextPowerOfTwo(capacity * 2)];
+    }
+
+    /**
+     * @see #computeTriangles(float[], int, int)
+     */
+    public KermanShortArray computeTriangles(float[] vertices) {
+        return computeTriangles(vertices, 0, vertices.length);
+    }
+
+    public KermanShortArray computeTriangles(float[] vertices, int offset, int count) {
+        Entry entry = get(vertices, offset, count);
+        KermanShortArray triangles = this.triangles;
+        triangles.clear();
+        copy(entry, offset / 2, triangles.ensureCapacity(entry.triangleCount), 0);
+        triangles.size = entry.triangleCount;
+        return triangles;
+    }
+
+    public int computeTriangles(float[] vertices, int offset, int count, short[] triangles, int trianglesOffset) {
+        int maxIndices = Math.max(0, count / 2 - 2) * 3;
+        if (triangles.length - trianglesOffset < maxIndices)
+            throw new IllegalArgumentException("triangles must have room for " + maxIndices + " indices: " + (triangles.length - trianglesOffset));
+        Entry entry = get(vertices, offset, count);
+        copy(entry, offset / 2, triangles, trianglesOffset);
+        return entry.triangleCount;
+    }
+
+    static private void copy(Entry entry, int vertexOffset, short[] triangles, int trianglesOffset) {
+        short[] cached = entry.triangles;
+        for (int i = 0, n = entry.triangleCount; i < n; i++)
+            triangles[trianglesOffset + i] = (short) (cached[i] + vertexOffset);
+    }
+
+    /**
+     * Returns the entry for the vertices, triangulating them if they aren't cached.
+     */
+    private Entry get(float[] vertices, int offset, int count) {
+        int hash = count;
+        for (int i = offset, n = offset + count; i < n; i++)
+            hash = 31 * hash + Float.floatToIntBits(vertices[i]);
+        hash ^= hash >>> 16;
+
+        int index = hash & (table.length - 1);
+        for (Entry entry = table[index]; entry != null; entry = entry.next) {
+            if (entry.hash == hash && equals(entry, vertices, offset, count)) {
+                hits++;
+                if (entry != head) {
+                    unlink(entry);
+                    link(entry);
+                }
+                return entry;
+            }
+        }
+
+        misses++;
+        Entry entry;
+        if (size == capacity) {
+            entry = tail;
+            remove(entry);
+        } else
+            entry = new Entry();
+        entry.hash = hash;
+        if (entry.vertices.length < count) entry.vertices = new float[count];
+        System.arraycopy(vertices, offset, entry.vertices, 0, count);
+        entry.vertexCount = count;
+        int maxIndices = Math.max(0, count / 2 - 2) * 3;
+        if (entry.triangles.length < maxIndices) entry.triangles = new short[maxIndices];
+        entry.triangleCount = triangulator.computeTriangles(entry.vertices, 0, count, entry.triangles, 0);
+        entry.next = table[index];
+        table[index] = entry;
+        link(entry);
+        size++;
+        return entry;
+    }
+
+    static private boolean equals(Entry entry, float[] vertices, int offset, int count) {
+        if (entry.vertexCount != count) return false;
+        float[] cached = entry.vertices;
+        for (int i = 0; i < count; i++)
+            if (cached[i] != vertices[offset + i]) return false;
+        return true;
+    }
+
+    /**
+     * Adds the entry as the most recently used.
+     */
+    private void link(Entry entry) {
+        entry.previous = null;
+        entry.after = head;
+        if (head != null) head.previous = entry;
+        head = entry;
+        if (tail == null) tail = entry;
+    }
+
+    private void unlink(Entry entry) {
+        if (entry.previous != null)
+            entry.previous.after = entry.after;
+        else
+            head = entry.after;
+        if (entry.after != null)
+            entry.after.previous = entry.previous;
+        else
+            tail = entry.previous;
+    }
+
+    private void remove(Entry entry) {
+        unlink(entry);
+        int index = entry.hash & (table.length - 1);
+        if (table[index] == entry)
+            table[index] = entry.next;
+        else {
+            Entry previous = table[index];
+            while (previous.next != entry)
+                previous = previous.next;
+            previous.next = entry.next;
+        }
+        size--;
+    }
+
+    /**
+     * Removes all triangulations.
+     */
+    public void clear() {
+        Arrays.fill(table, null);
+        head = null;
+        tail = null;
+        size = 0;
+    }
+
+    /**
+     * @return the number of cached triangulations
+     */
+    public int getSize() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the number of lookups that returned a cached triangulation since the counters were reset
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of lookups that triangulated the polygon since the counters were reset
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    public void resetCounters() {
+        hits = 0;
+        misses = 0;
+    }
+
+    static private class Entry {
+        int hash;
+        float[] vertices = new float[0];
+        int vertexCount;
+        short[] triangles = new short[0];
+        int triangleCount;
+        /**
+         * The next entry in the same bucket.
+         */
+        @Nullable Entry next;
+        /**
+         * The neighbours in the order of use.
+         */
+        @Nullable Entry previous, after;
+    }
+}
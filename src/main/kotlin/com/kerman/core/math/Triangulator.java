@@ -0,0 +1,28 @@
+package com.kerman.core.math;
+
+import com.kerman.core.utils.KermanShortArray;
+
+/**
+ * Triangulates simple polygons without holes, given as pairs of x, y coordinates in either clockwise or counterclockwise order.
+ * The triangles are triples of vertex indices in clockwise order. An index is the position of the vertex in the float array, so
+ * the index of the first vertex is {@code offset / 2}.
+ *
+ * @see EarClippingTriangulator
+ * @see MonotoneTriangulator
+ * @see TriangulationCache
+ */
+public interface Triangulator {
+    /**
+     * @return the triangle indices. The returned array is reused for later calls to the same method.
+     */
+    KermanShortArray computeTriangles(float[] vertices, int offset, int count);
+
+    /**
+     * Writes the triangle indices to the given buffer, without allocating once the triangulator's own buffers are large enough.
+     *
+     * @param triangles the buffer, which must have room for {@code (count / 2 - 2) * 3} indices after trianglesOffset
+     * @return the number of indices written
+     * @throws IllegalArgumentException if the buffer is too small
+     */
+    int computeTriangles(float[] vertices, int offset, int count, short[] triangles, int trianglesOffset);
+}
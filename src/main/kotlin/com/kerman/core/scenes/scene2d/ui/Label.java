@@ -5,6 +5,7 @@ import com.kerman.core.graphics.k2d.Batch;
 import com.kerman.core.graphics.k2d.BitmapFont;
 import com.kerman.core.graphics.k2d.BitmapFontCache;
 import com.kerman.core.graphics.k2d.GlyphLayout;
+import com.kerman.core.graphics.k2d.GlyphLayoutCache;
 import com.kerman.core.scenes.scene2d.utils.Drawable;
 import com.kerman.core.utils.Align;
 import com.kerman.core.utils.KermanCharArray;
@@ -20,7 +21,7 @@ import org.jetbrains.annotations.Nullable;
 public class Label extends Widget implements Styleable<Label.LabelStyle> {
     static private final Color tempColor = new Color();
     static private final GlyphLayout prefSizeLayout = new GlyphLayout();
-    private final GlyphLayout layout = new GlyphLayout();
+    private GlyphLayout layout = new GlyphLayout();
     private final KermanCharArray text = new KermanCharArray();
     private LabelStyle style;
     private float prefWidth, prefHeight;
@@ -34,6 +35,7 @@ public class Label extends Widget implements Styleable<Label.LabelStyle> {
     private float fontScaleX = 1, fontScaleY = 1;
     private boolean fontScaleChanged = false;
     private @Nullable String ellipsis;
+    private @Nullable GlyphLayoutCache layoutCache;
 
     public Label(@Nullable CharSequence text, Skin skin) {
         this(text, skin.get(LabelStyle.class));
@@ -154,9 +156,9 @@ public class Label extends Widget implements Styleable<Label.LabelStyle> {
                 width = Math.max(width, style.background.getMinWidth()) - style.background.getLeftWidth()
                         - style.background.getRightWidth();
             }
-            layout.setText(cache.getFont(), text, Color.WHITE, width, Align.left, true);
+            layout = layoutText(layout, cache.getFont(), Color.WHITE, width, Align.left, true, null);
         } else
-            layout.setText(cache.getFont(), text);
+            layout = layoutText(layout, cache.getFont(), cache.getFont().getColor(), 0, Align.left, false, null);
         prefWidth = layout.width;
         prefHeight = layout.height;
     }
@@ -190,7 +192,7 @@ public class Label extends Widget implements Styleable<Label.LabelStyle> {
         float textWidth, textHeight;
         if (wrap || text.indexOf("\n") != -1) {
             // If the text can span multiple lines, determine the text's actual size so it can be aligned within the label.
-            layout.setText(font, text, 0, text.size, Color.WHITE, width, lineAlign, wrap, ellipsis);
+            layout = layoutText(layout, font, Color.WHITE, width, lineAlign, wrap, ellipsis);
             textWidth = layout.width;
             textHeight = layout.height;
 
@@ -216,12 +218,23 @@ public class Label extends Widget implements Styleable<Label.LabelStyle> {
         }
         if (!cache.getFont().isFlipped()) y += textHeight;
 
-        layout.setText(font, text, 0, text.size, Color.WHITE, textWidth, lineAlign, wrap, ellipsis);
+        this.layout = layout = layoutText(layout, font, Color.WHITE, textWidth, lineAlign, wrap, ellipsis);
         cache.setText(layout, x, y);
 
         if (fontScaleChanged) font.getData().setScale(oldScaleX, oldScaleY);
     }
 
+    /**
+     * Sets the text on the layout, or returns the shared layout of the text from the layout cache if one is set.
+     */
+    private GlyphLayout layoutText(GlyphLayout layout, BitmapFont font, Color color, float targetWidth, int halign,
+                                   boolean wrap, @Nullable String truncate) {
+        if (layoutCache != null)
+            return layoutCache.get(font, text, 0, text.size, color, targetWidth, halign, wrap, truncate);
+        layout.setText(font, text, 0, text.size, color, targetWidth, halign, wrap, truncate);
+        return layout;
+    }
+
     public void draw(Batch batch, float parentAlpha) {
         validate();
         Color color = tempColor.set(getColor());
@@ -257,10 +270,29 @@ public class Label extends Widget implements Styleable<Label.LabelStyle> {
         return height;
     }
 
+    /**
+     * @return the layout of the text, which is shared and must not be modified if a layout cache is set
+     */
     public GlyphLayout getGlyphLayout() {
         return layout;
     }
 
+    /**
+     * Sets a cache of layouts, which can be shared by many labels, so setting text that was laid out recently, like frequently
+     * updated HUD values, doesn't lay out the text again. Null lays out the text every time.
+     */
+    public void setLayoutCache(@Nullable GlyphLayoutCache layoutCache) {
+        if (this.layoutCache == layoutCache) return;
+        // The layout may be shared by the previous cache.
+        if (this.layoutCache != null) layout = new GlyphLayout();
+        this.layoutCache = layoutCache;
+        invalidateHierarchy();
+    }
+
+    public @Nullable GlyphLayoutCache getLayoutCache() {
+        return layoutCache;
+    }
+
     public boolean getWrap() {
         return wrap;
     }
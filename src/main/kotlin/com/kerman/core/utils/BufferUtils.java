@@ -23,6 +23,13 @@ public final class BufferUtils {
     static KermanArray<ByteBuffer> unsafeBuffers = new KermanArray<>();
     static int allocatedUnsafe = 0;
 
+    /**
+     * Whether the JNI methods of this class can be used. When the gdx native library can't be loaded on this platform (or
+     * {@link GdxNativesLoader#disableNativesLoading} is set) all methods fall back to the pure Java implementations in
+     * {@link JavaBufferUtils}.
+     */
+    static final boolean nativesAvailable = probeNatives();
+
     private BufferUtils() {
     }
 
@@ -43,7 +50,10 @@ public final class BufferUtils {
             dst.limit(numFloats << 2);
         else if (dst instanceof FloatBuffer) dst.limit(numFloats);
 
-        copyJni(src, dst, numFloats, offset);
+        if (nativesAvailable)
+            copyJni(src, dst, numFloats, offset);
+        else
+            JavaBufferUtils.copy(src, offset, dst, 0, numFloats << 2);
         dst.position(0);
     }
 
@@ -60,7 +70,10 @@ public final class BufferUtils {
      */
     public static void copy(byte[] src, int srcOffset, Buffer dst, int numElements) {
         dst.limit(dst.position() + bytesToElements(dst, numElements));
-        copyJni(src, srcOffset, dst, positionInBytes(dst), numElements);
+        if (nativesAvailable)
+            copyJni(src, srcOffset, dst, positionInBytes(dst), numElements);
+        else
+            JavaBufferUtils.copy(src, srcOffset, dst, positionInBytes(dst), numElements);
     }
 
     /**
@@ -76,7 +89,10 @@ public final class BufferUtils {
      */
     public static void copy(short[] src, int srcOffset, Buffer dst, int numElements) {
         dst.limit(dst.position() + bytesToElements(dst, numElements << 1));
-        copyJni(src, srcOffset, dst, positionInBytes(dst), numElements << 1);
+        if (nativesAvailable)
+            copyJni(src, srcOffset, dst, positionInBytes(dst), numElements << 1);
+        else
+            JavaBufferUtils.copy(src, srcOffset, dst, positionInBytes(dst), numElements << 1);
     }
 
     /**
@@ -90,7 +106,10 @@ public final class BufferUtils {
      * @param dst         the destination Buffer, its position is used as an offset.
      */
     public static void copy(char[] src, int srcOffset, int numElements, Buffer dst) {
-        copyJni(src, srcOffset, dst, positionInBytes(dst), numElements << 1);
+        if (nativesAvailable)
+            copyJni(src, srcOffset, dst, positionInBytes(dst), numElements << 1);
+        else
+            JavaBufferUtils.copy(src, srcOffset, dst, positionInBytes(dst), numElements << 1);
     }
 
     /**
@@ -104,7 +123,10 @@ public final class BufferUtils {
      * @param dst         the destination Buffer, its position is used as an offset.
      */
     public static void copy(int[] src, int srcOffset, int numElements, Buffer dst) {
-        copyJni(src, srcOffset, dst, positionInBytes(dst), numElements << 2);
+        if (nativesAvailable)
+            copyJni(src, srcOffset, dst, positionInBytes(dst), numElements << 2);
+        else
+            JavaBufferUtils.copy(src, srcOffset, dst, positionInBytes(dst), numElements << 2);
     }
 
     /**
@@ -118,7 +140,10 @@ public final class BufferUtils {
      * @param dst         the destination Buffer, its position is used as an offset.
      */
     public static void copy(long[] src, int srcOffset, int numElements, Buffer dst) {
-        copyJni(src, srcOffset, dst, positionInBytes(dst), numElements << 3);
+        if (nativesAvailable)
+            copyJni(src, srcOffset, dst, positionInBytes(dst), numElements << 3);
+        else
+            JavaBufferUtils.copy(src, srcOffset, dst, positionInBytes(dst), numElements << 3);
     }
 
     /**
@@ -132,7 +157,10 @@ public final class BufferUtils {
      * @param dst         the destination Buffer, its position is used as an offset.
      */
     public static void copy(float[] src, int srcOffset, int numElements, Buffer dst) {
-        copyJni(src, srcOffset, dst, positionInBytes(dst), numElements << 2);
+        if (nativesAvailable)
+            copyJni(src, srcOffset, dst, positionInBytes(dst), numElements << 2);
+        else
+            JavaBufferUtils.copy(src, srcOffset, dst, positionInBytes(dst), numElements << 2);
     }
 
     /**
@@ -146,7 +174,10 @@ public final class BufferUtils {
      * @param dst         the destination Buffer, its position is used as an offset.
      */
     public static void copy(double[] src, int srcOffset, int numElements, Buffer dst) {
-        copyJni(src, srcOffset, dst, positionInBytes(dst), numElements << 3);
+        if (nativesAvailable)
+            copyJni(src, srcOffset, dst, positionInBytes(dst), numElements << 3);
+        else
+            JavaBufferUtils.copy(src, srcOffset, dst, positionInBytes(dst), numElements << 3);
     }
 
     /**
@@ -162,7 +193,10 @@ public final class BufferUtils {
      */
     public static void copy(char[] src, int srcOffset, Buffer dst, int numElements) {
         dst.limit(dst.position() + bytesToElements(dst, numElements << 1));
-        copyJni(src, srcOffset, dst, positionInBytes(dst), numElements << 1);
+        if (nativesAvailable)
+            copyJni(src, srcOffset, dst, positionInBytes(dst), numElements << 1);
+        else
+            JavaBufferUtils.copy(src, srcOffset, dst, positionInBytes(dst), numElements << 1);
     }
 
     /**
@@ -178,7 +212,10 @@ public final class BufferUtils {
      */
     public static void copy(int[] src, int srcOffset, Buffer dst, int numElements) {
         dst.limit(dst.position() + bytesToElements(dst, numElements << 2));
-        copyJni(src, srcOffset, dst, positionInBytes(dst), numElements << 2);
+        if (nativesAvailable)
+            copyJni(src, srcOffset, dst, positionInBytes(dst), numElements << 2);
+        else
+            JavaBufferUtils.copy(src, srcOffset, dst, positionInBytes(dst), numElements << 2);
     }
 
     /**
@@ -194,7 +231,10 @@ public final class BufferUtils {
      */
     public static void copy(long[] src, int srcOffset, Buffer dst, int numElements) {
         dst.limit(dst.position() + bytesToElements(dst, numElements << 3));
-        copyJni(src, srcOffset, dst, positionInBytes(dst), numElements << 3);
+        if (nativesAvailable)
+            copyJni(src, srcOffset, dst, positionInBytes(dst), numElements << 3);
+        else
+            JavaBufferUtils.copy(src, srcOffset, dst, positionInBytes(dst), numElements << 3);
     }
 
     /**
@@ -210,7 +250,10 @@ public final class BufferUtils {
      */
     public static void copy(float[] src, int srcOffset, Buffer dst, int numElements) {
         dst.limit(dst.position() + bytesToElements(dst, numElements << 2));
-        copyJni(src, srcOffset, dst, positionInBytes(dst), numElements << 2);
+        if (nativesAvailable)
+            copyJni(src, srcOffset, dst, positionInBytes(dst), numElements << 2);
+        else
+            JavaBufferUtils.copy(src, srcOffset, dst, positionInBytes(dst), numElements << 2);
     }
 
     /**
@@ -226,7 +269,10 @@ public final class BufferUtils {
      */
     public static void copy(double[] src, int srcOffset, Buffer dst, int numElements) {
         dst.limit(dst.position() + bytesToElements(dst, numElements << 3));
-        copyJni(src, srcOffset, dst, positionInBytes(dst), numElements << 3);
+        if (nativesAvailable)
+            copyJni(src, srcOffset, dst, positionInBytes(dst), numElements << 3);
+        else
+            JavaBufferUtils.copy(src, srcOffset, dst, positionInBytes(dst), numElements << 3);
     }
 
     /**
@@ -243,7 +289,10 @@ public final class BufferUtils {
     public static void copy(Buffer src, Buffer dst, int numElements) {
         int numBytes = elementsToBytes(src, numElements);
         dst.limit(dst.position() + bytesToElements(dst, numBytes));
-        copyJni(src, positionInBytes(src), dst, positionInBytes(dst), numBytes);
+        if (nativesAvailable)
+            copyJni(src, positionInBytes(src), dst, positionInBytes(dst), numBytes);
+        else
+            JavaBufferUtils.copy(src, positionInBytes(src), dst, positionInBytes(dst), numBytes);
     }
 
     /**
@@ -288,13 +337,25 @@ public final class BufferUtils {
     public static void transform(Buffer data, int dimensions, int strideInBytes, int count, Matrix4 matrix, int offset) {
         switch (dimensions) {
             case 4:
-                transformV4M4Jni(data, strideInBytes, count, matrix.val, positionInBytes(data) + offset);
+                if (nativesAvailable)
+                    transformV4M4Jni(data, strideInBytes, count, matrix.val, positionInBytes(data) + offset);
+                else
+                    JavaBufferUtils.transformV4M4(JavaBufferUtils.floats(data), strideInBytes / 4, count,
+                            matrix.val, (positionInBytes(data) + offset) / 4);
                 break;
             case 3:
-                transformV3M4Jni(data, strideInBytes, count, matrix.val, positionInBytes(data) + offset);
+                if (nativesAvailable)
+                    transformV3M4Jni(data, strideInBytes, count, matrix.val, positionInBytes(data) + offset);
+                else
+                    JavaBufferUtils.transformV3M4(JavaBufferUtils.floats(data), strideInBytes / 4, count,
+                            matrix.val, (positionInBytes(data) + offset) / 4);
                 break;
             case 2:
-                transformV2M4Jni(data, strideInBytes, count, matrix.val, positionInBytes(data) + offset);
+                if (nativesAvailable)
+                    transformV2M4Jni(data, strideInBytes, count, matrix.val, positionInBytes(data) + offset);
+                else
+                    JavaBufferUtils.transformV2M4(JavaBufferUtils.floats(data), strideInBytes / 4, count,
+                            matrix.val, (positionInBytes(data) + offset) / 4);
                 break;
             default:
                 throw new IllegalArgumentException();
@@ -315,13 +376,22 @@ public final class BufferUtils {
     public static void transform(float[] data, int dimensions, int strideInBytes, int count, Matrix4 matrix, int offset) {
         switch (dimensions) {
             case 4:
-                transformV4M4Jni(data, strideInBytes, count, matrix.val, offset);
+                if (nativesAvailable)
+                    transformV4M4Jni(data, strideInBytes, count, matrix.val, offset);
+                else
+                    JavaBufferUtils.transformV4M4(data, strideInBytes / 4, count, matrix.val, offset / 4);
                 break;
             case 3:
-                transformV3M4Jni(data, strideInBytes, count, matrix.val, offset);
+                if (nativesAvailable)
+                    transformV3M4Jni(data, strideInBytes, count, matrix.val, offset);
+                else
+                    JavaBufferUtils.transformV3M4(data, strideInBytes / 4, count, matrix.val, offset / 4);
                 break;
             case 2:
-                transformV2M4Jni(data, strideInBytes, count, matrix.val, offset);
+                if (nativesAvailable)
+                    transformV2M4Jni(data, strideInBytes, count, matrix.val, offset);
+                else
+                    JavaBufferUtils.transformV2M4(data, strideInBytes / 4, count, matrix.val, offset / 4);
                 break;
             default:
                 throw new IllegalArgumentException();
@@ -370,10 +440,18 @@ public final class BufferUtils {
     public static void transform(Buffer data, int dimensions, int strideInBytes, int count, Matrix3 matrix, int offset) {
         switch (dimensions) {
             case 3:
-                transformV3M3Jni(data, strideInBytes, count, matrix.val, positionInBytes(data) + offset);
+                if (nativesAvailable)
+                    transformV3M3Jni(data, strideInBytes, count, matrix.val, positionInBytes(data) + offset);
+                else
+                    JavaBufferUtils.transformV3M3(JavaBufferUtils.floats(data), strideInBytes / 4, count,
+                            matrix.val, (positionInBytes(data) + offset) / 4);
                 break;
             case 2:
-                transformV2M3Jni(data, strideInBytes, count, matrix.val, positionInBytes(data) + offset);
+                if (nativesAvailable)
+                    transformV2M3Jni(data, strideInBytes, count, matrix.val, positionInBytes(data) + offset);
+                else
+                    JavaBufferUtils.transformV2M3(JavaBufferUtils.floats(data), strideInBytes / 4, count,
+                            matrix.val, (positionInBytes(data) + offset) / 4);
                 break;
             default:
                 throw new IllegalArgumentException();
@@ -394,10 +472,16 @@ public final class BufferUtils {
     public static void transform(float[] data, int dimensions, int strideInBytes, int count, Matrix3 matrix, int offset) {
         switch (dimensions) {
             case 3:
-                transformV3M3Jni(data, strideInBytes, count, matrix.val, offset);
+                if (nativesAvailable)
+                    transformV3M3Jni(data, strideInBytes, count, matrix.val, offset);
+                else
+                    JavaBufferUtils.transformV3M3(data, strideInBytes / 4, count, matrix.val, offset / 4);
                 break;
             case 2:
-                transformV2M3Jni(data, strideInBytes, count, matrix.val, offset);
+                if (nativesAvailable)
+                    transformV2M3Jni(data, strideInBytes, count, matrix.val, offset);
+                else
+                    JavaBufferUtils.transformV2M3(data, strideInBytes / 4, count, matrix.val, offset / 4);
                 break;
             default:
                 throw new IllegalArgumentException();
@@ -405,35 +489,59 @@ public final class BufferUtils {
     }
 
     public static long findFloats(Buffer vertex, int strideInBytes, Buffer vertices, int numVertices) {
-        return find(vertex, positionInBytes(vertex), strideInBytes, vertices, positionInBytes(vertices), numVertices);
+        if (nativesAvailable)
+            return findJni(vertex, positionInBytes(vertex), strideInBytes, vertices, positionInBytes(vertices), numVertices);
+        return JavaBufferUtils.find(JavaBufferUtils.floats(vertex), positionInBytes(vertex) / 4, strideInBytes / 4,
+                JavaBufferUtils.floats(vertices), positionInBytes(vertices) / 4, numVertices);
     }
 
     public static long findFloats(float[] vertex, int strideInBytes, Buffer vertices, int numVertices) {
-        return find(vertex, 0, strideInBytes, vertices, positionInBytes(vertices), numVertices);
+        if (nativesAvailable)
+            return findJni(vertex, 0, strideInBytes, vertices, positionInBytes(vertices), numVertices);
+        return JavaBufferUtils.find(JavaBufferUtils.floats(vertex), 0, strideInBytes / 4,
+                JavaBufferUtils.floats(vertices), positionInBytes(vertices) / 4, numVertices);
     }
 
     public static long findFloats(Buffer vertex, int strideInBytes, float[] vertices, int numVertices) {
-        return find(vertex, positionInBytes(vertex), strideInBytes, vertices, 0, numVertices);
+        if (nativesAvailable)
+            return findJni(vertex, positionInBytes(vertex), strideInBytes, vertices, 0, numVertices);
+        return JavaBufferUtils.find(JavaBufferUtils.floats(vertex), positionInBytes(vertex) / 4, strideInBytes / 4,
+                JavaBufferUtils.floats(vertices), 0, numVertices);
     }
 
     public static long findFloats(float[] vertex, int strideInBytes, float[] vertices, int numVertices) {
-        return find(vertex, 0, strideInBytes, vertices, 0, numVertices);
+        if (nativesAvailable)
+            return findJni(vertex, 0, strideInBytes, vertices, 0, numVertices);
+        return JavaBufferUtils.find(JavaBufferUtils.floats(vertex), 0, strideInBytes / 4,
+                JavaBufferUtils.floats(vertices), 0, numVertices);
     }
 
     public static long findFloats(Buffer vertex, int strideInBytes, Buffer vertices, int numVertices, float epsilon) {
-        return find(vertex, positionInBytes(vertex), strideInBytes, vertices, positionInBytes(vertices), numVertices, epsilon);
+        if (nativesAvailable)
+            return findJni(vertex, positionInBytes(vertex), strideInBytes, vertices, positionInBytes(vertices), numVertices, epsilon);
+        return JavaBufferUtils.find(JavaBufferUtils.floats(vertex), positionInBytes(vertex) / 4, strideInBytes / 4,
+                JavaBufferUtils.floats(vertices), positionInBytes(vertices) / 4, numVertices, epsilon);
     }
 
     public static long findFloats(float[] vertex, int strideInBytes, Buffer vertices, int numVertices, float epsilon) {
-        return find(vertex, 0, strideInBytes, vertices, positionInBytes(vertices), numVertices, epsilon);
+        if (nativesAvailable)
+            return findJni(vertex, 0, strideInBytes, vertices, positionInBytes(vertices), numVertices, epsilon);
+        return JavaBufferUtils.find(JavaBufferUtils.floats(vertex), 0, strideInBytes / 4,
+                JavaBufferUtils.floats(vertices), positionInBytes(vertices) / 4, numVertices, epsilon);
     }
 
     public static long findFloats(Buffer vertex, int strideInBytes, float[] vertices, int numVertices, float epsilon) {
-        return find(vertex, positionInBytes(vertex), strideInBytes, vertices, 0, numVertices, epsilon);
+        if (nativesAvailable)
+            return findJni(vertex, positionInBytes(vertex), strideInBytes, vertices, 0, numVertices, epsilon);
+        return JavaBufferUtils.find(JavaBufferUtils.floats(vertex), positionInBytes(vertex) / 4, strideInBytes / 4,
+                JavaBufferUtils.floats(vertices), 0, numVertices, epsilon);
     }
 
     public static long findFloats(float[] vertex, int strideInBytes, float[] vertices, int numVertices, float epsilon) {
-        return find(vertex, 0, strideInBytes, vertices, 0, numVertices, epsilon);
+        if (nativesAvailable)
+            return findJni(vertex, 0, strideInBytes, vertices, 0, numVertices, epsilon);
+        return JavaBufferUtils.find(JavaBufferUtils.floats(vertex), 0, strideInBytes / 4,
+                JavaBufferUtils.floats(vertices), 0, numVertices, epsilon);
     }
 
     private static int positionInBytes(Buffer dst) {
@@ -493,6 +601,24 @@ public final class BufferUtils {
             throw new KermanRuntimeException("Can't copy to a " + dst.getClass().getName() + " instance");
     }
 
+    private static boolean probeNatives() {
+        if (!GdxNativesLoader.tryLoad()) return false;
+        try {
+            // The library may load but not export the symbols of this class, only a call tells for sure.
+            copyJni(new byte[1], 0, ByteBuffer.allocateDirect(1), 0, 1);
+            return true;
+        } catch (UnsatisfiedLinkError e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return whether the JNI implementations are used, false if the pure Java fallback is active.
+     */
+    public static boolean isNative() {
+        return nativesAvailable;
+    }
+
     public static FloatBuffer newFloatBuffer(int numFloats) {
         ByteBuffer buffer = ByteBuffer.allocateDirect(numFloats * 4);
         buffer.order(ByteOrder.nativeOrder());
@@ -542,7 +668,8 @@ public final class BufferUtils {
                 throw new IllegalArgumentException("buffer not allocated with newUnsafeByteBuffer or already disposed");
         }
         allocatedUnsafe -= size;
-        freeMemory(buffer);
+        // Without natives the buffer came from allocateDirect and is reclaimed by the garbage collector.
+        if (nativesAvailable) freeMemory(buffer);
     }
 
     public static boolean isUnsafeByteBuffer(ByteBuffer buffer) {
@@ -556,7 +683,7 @@ public final class BufferUtils {
      * {@link #disposeUnsafeByteBuffer(ByteBuffer)}.
      */
     public static ByteBuffer newUnsafeByteBuffer(int numBytes) {
-        ByteBuffer buffer = newDisposableByteBuffer(numBytes);
+        ByteBuffer buffer = nativesAvailable ? newDisposableByteBuffer(numBytes) : ByteBuffer.allocateDirect(numBytes);
         buffer.order(ByteOrder.nativeOrder());
         allocatedUnsafe += numBytes;
         synchronized (unsafeBuffers) {
@@ -623,7 +750,14 @@ public final class BufferUtils {
     /**
      * Writes the specified number of zeros to the buffer. This is generally faster than reallocating a new buffer.
      */
-    public static native void clear(ByteBuffer buffer, int numBytes); /*
+    public static void clear(ByteBuffer buffer, int numBytes) {
+        if (nativesAvailable)
+            clearJni(buffer, numBytes);
+        else
+            JavaBufferUtils.clear(buffer, numBytes);
+    }
+
+    private static native void clearJni(ByteBuffer buffer, int numBytes); /*
 		memset(buffer, 0, numBytes);
 	*/
 
@@ -798,35 +932,35 @@ public final class BufferUtils {
 		transform<2, 3>((float*)data, strideInBytes / 4, count, (float*)matrix, offsetInBytes / 4);
 	*/
 
-    private native static long find(Buffer vertex, int vertexOffsetInBytes, int strideInBytes, Buffer vertices, int verticesOffsetInBytes, int numVertices); /*
+    private native static long findJni(Buffer vertex, int vertexOffsetInBytes, int strideInBytes, Buffer vertices, int verticesOffsetInBytes, int numVertices); /*
 		return find((float *)&vertex[vertexOffsetInBytes / 4], (unsigned int)(strideInBytes / 4), (float*)&vertices[verticesOffsetInBytes / 4], (unsigned int)numVertices);
 	*/
 
-    private native static long find(float[] vertex, int vertexOffsetInBytes, int strideInBytes, Buffer vertices, int verticesOffsetInBytes, int numVertices); /*
+    private native static long findJni(float[] vertex, int vertexOffsetInBytes, int strideInBytes, Buffer vertices, int verticesOffsetInBytes, int numVertices); /*
 		return find((float *)&vertex[vertexOffsetInBytes / 4], (unsigned int)(strideInBytes / 4), (float*)&vertices[verticesOffsetInBytes / 4], (unsigned int)numVertices);
 	*/
 
-    private native static long find(Buffer vertex, int vertexOffsetInBytes, int strideInBytes, float[] vertices, int verticesOffsetInBytes, int numVertices); /*
+    private native static long findJni(Buffer vertex, int vertexOffsetInBytes, int strideInBytes, float[] vertices, int verticesOffsetInBytes, int numVertices); /*
 		return find((float *)&vertex[vertexOffsetInBytes / 4], (unsigned int)(strideInBytes / 4), (float*)&vertices[verticesOffsetInBytes / 4], (unsigned int)numVertices);
 	*/
 
-    private native static long find(float[] vertex, int vertexOffsetInBytes, int strideInBytes, float[] vertices, int verticesOffsetInBytes, int numVertices); /*
+    private native static long findJni(float[] vertex, int vertexOffsetInBytes, int strideInBytes, float[] vertices, int verticesOffsetInBytes, int numVertices); /*
 		return find((float *)&vertex[vertexOffsetInBytes / 4], (unsigned int)(strideInBytes / 4), (float*)&vertices[verticesOffsetInBytes / 4], (unsigned int)numVertices);
 	*/
 
-    private native static long find(Buffer vertex, int vertexOffsetInBytes, int strideInBytes, Buffer vertices, int verticesOffsetInBytes, int numVertices, float epsilon); /*
+    private native static long findJni(Buffer vertex, int vertexOffsetInBytes, int strideInBytes, Buffer vertices, int verticesOffsetInBytes, int numVertices, float epsilon); /*
 		return find((float *)&vertex[vertexOffsetInBytes / 4], (unsigned int)(strideInBytes / 4), (float*)&vertices[verticesOffsetInBytes / 4], (unsigned int)numVertices, epsilon);
 	*/
 
-    private native static long find(float[] vertex, int vertexOffsetInBytes, int strideInBytes, Buffer vertices, int verticesOffsetInBytes, int numVertices, float epsilon); /*
+    private native static long findJni(float[] vertex, int vertexOffsetInBytes, int strideInBytes, Buffer vertices, int verticesOffsetInBytes, int numVertices, float epsilon); /*
 		return find((float *)&vertex[vertexOffsetInBytes / 4], (unsigned int)(strideInBytes / 4), (float*)&vertices[verticesOffsetInBytes / 4], (unsigned int)numVertices, epsilon);
 	*/
 
-    private native static long find(Buffer vertex, int vertexOffsetInBytes, int strideInBytes, float[] vertices, int verticesOffsetInBytes, int numVertices, float epsilon); /*
+    private native static long findJni(Buffer vertex, int vertexOffsetInBytes, int strideInBytes, float[] vertices, int verticesOffsetInBytes, int numVertices, float epsilon); /*
 		return find((float *)&vertex[vertexOffsetInBytes / 4], (unsigned int)(strideInBytes / 4), (float*)&vertices[verticesOffsetInBytes / 4], (unsigned int)numVertices, epsilon);
 	*/
 
-    private native static long find(float[] vertex, int vertexOffsetInBytes, int strideInBytes, float[] vertices, int verticesOffsetInBytes, int numVertices, float epsilon); /*
+    private native static long findJni(float[] vertex, int vertexOffsetInBytes, int strideInBytes, float[] vertices, int verticesOffsetInBytes, int numVertices, float epsilon); /*
 		return find((float *)&vertex[vertexOffsetInBytes / 4], (unsigned int)(strideInBytes / 4), (float*)&vertices[verticesOffsetInBytes / 4], (unsigned int)numVertices, epsilon);
 	*/
 }
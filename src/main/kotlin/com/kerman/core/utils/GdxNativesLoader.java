@@ -6,6 +6,7 @@ public class GdxNativesLoader {
     static public boolean disableNativesLoading = false;
 
     static private boolean nativesLoaded;
+    static private boolean loadFailed;
 
     /**
      * Loads the libgdx native libraries if they have not already been loaded.
@@ -18,4 +19,22 @@ public class GdxNativesLoader {
         new SharedLibraryLoader().load("gdx");
         nativesLoaded = true;
     }
+
+    /**
+     * Loads the libgdx native libraries like {@link #load()}, but returns false instead of throwing if they are not available
+     * for the current platform. Callers are expected to fall back to pure Java code in that case.
+     *
+     * @return whether the native libraries are loaded.
+     */
+    static public synchronized boolean tryLoad() {
+        if (nativesLoaded) return true;
+        if (disableNativesLoading || loadFailed) return false;
+
+        try {
+            load();
+        } catch (Throwable t) {
+            loadFailed = true;
+        }
+        return nativesLoaded;
+    }
 }
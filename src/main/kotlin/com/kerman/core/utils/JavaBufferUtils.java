@@ -0,0 +1,390 @@
+package com.kerman.core.utils;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * Pure Java implementations of the native methods of {@link BufferUtils}. These are used whenever the gdx native library is not
+ * available on the running platform.
+ * <p>
+ * All offsets are absolute and given in bytes relative to the start of the buffer's memory (index 0), exactly like the JNI
+ * versions which operate on the buffer address and ignore position and limit. Copies are done with bulk {@code put} calls on
+ * native order views, which the JDK turns into plain memory copies for direct buffers.
+ */
+final class JavaBufferUtils {
+
+    private static final byte[] zeros = new byte[4096];
+
+    private JavaBufferUtils() {
+    }
+
+    static void copy(byte[] src, int srcOffset, Buffer dst, int dstOffsetInBytes, int numBytes) {
+        if (dst instanceof ByteBuffer) {
+            view((ByteBuffer) dst, dstOffsetInBytes, numBytes).put(src, srcOffset, numBytes);
+        } else {
+            put(ByteBuffer.wrap(src, srcOffset, numBytes).slice().order(ByteOrder.nativeOrder()), dst, dstOffsetInBytes);
+        }
+    }
+
+    static void copy(short[] src, int srcOffset, Buffer dst, int dstOffsetInBytes, int numBytes) {
+        int count = numBytes >>> 1;
+        if (dst instanceof ByteBuffer) {
+            view((ByteBuffer) dst, dstOffsetInBytes, numBytes).asShortBuffer().put(src, srcOffset, count);
+        } else if (dst instanceof ShortBuffer) {
+            ((ShortBuffer) at(dst, dstOffsetInBytes >>> 1)).put(src, srcOffset, count);
+        } else {
+            ByteBuffer scratch = scratch(numBytes);
+            scratch.asShortBuffer().put(src, srcOffset, count);
+            put(scratch, dst, dstOffsetInBytes);
+        }
+    }
+
+    static void copy(char[] src, int srcOffset, Buffer dst, int dstOffsetInBytes, int numBytes) {
+        int count = numBytes >>> 1;
+        if (dst instanceof ByteBuffer) {
+            view((ByteBuffer) dst, dstOffsetInBytes, numBytes).asCharBuffer().put(src, srcOffset, count);
+        } else if (dst instanceof CharBuffer) {
+            ((CharBuffer) at(dst, dstOffsetInBytes >>> 1)).put(src, srcOffset, count);
+        } else {
+            ByteBuffer scratch = scratch(numBytes);
+            scratch.asCharBuffer().put(src, srcOffset, count);
+            put(scratch, dst, dstOffsetInBytes);
+        }
+    }
+
+    static void copy(int[] src, int srcOffset, Buffer dst, int dstOffsetInBytes, int numBytes) {
+        int count = numBytes >>> 2;
+        if (dst instanceof ByteBuffer) {
+            view((ByteBuffer) dst, dstOffsetInBytes, numBytes).asIntBuffer().put(src, srcOffset, count);
+        } else if (dst instanceof IntBuffer) {
+            ((IntBuffer) at(dst, dstOffsetInBytes >>> 2)).put(src, srcOffset, count);
+        } else {
+            ByteBuffer scratch = scratch(numBytes);
+            scratch.asIntBuffer().put(src, srcOffset, count);
+            put(scratch, dst, dstOffsetInBytes);
+        }
+    }
+
+    static void copy(long[] src, int srcOffset, Buffer dst, int dstOffsetInBytes, int numBytes) {
+        int count = numBytes >>> 3;
+        if (dst instanceof ByteBuffer) {
+            view((ByteBuffer) dst, dstOffsetInBytes, numBytes).asLongBuffer().put(src, srcOffset, count);
+        } else if (dst instanceof LongBuffer) {
+            ((LongBuffer) at(dst, dstOffsetInBytes >>> 3)).put(src, srcOffset, count);
+        } else {
+            ByteBuffer scratch = scratch(numBytes);
+            scratch.asLongBuffer().put(src, srcOffset, count);
+            put(scratch, dst, dstOffsetInBytes);
+        }
+    }
+
+    static void copy(float[] src, int srcOffset, Buffer dst, int dstOffsetInBytes, int numBytes) {
+        int count = numBytes >>> 2;
+        if (dst instanceof ByteBuffer) {
+            view((ByteBuffer) dst, dstOffsetInBytes, numBytes).asFloatBuffer().put(src, srcOffset, count);
+        } else if (dst instanceof FloatBuffer) {
+            ((FloatBuffer) at(dst, dstOffsetInBytes >>> 2)).put(src, srcOffset, count);
+        } else {
+            ByteBuffer scratch = scratch(numBytes);
+            scratch.asFloatBuffer().put(src, srcOffset, count);
+            put(scratch, dst, dstOffsetInBytes);
+        }
+    }
+
+    static void copy(double[] src, int srcOffset, Buffer dst, int dstOffsetInBytes, int numBytes) {
+        int count = numBytes >>> 3;
+        if (dst instanceof ByteBuffer) {
+            view((ByteBuffer) dst, dstOffsetInBytes, numBytes).asDoubleBuffer().put(src, srcOffset, count);
+        } else if (dst instanceof DoubleBuffer) {
+            ((DoubleBuffer) at(dst, dstOffsetInBytes >>> 3)).put(src, srcOffset, count);
+        } else {
+            ByteBuffer scratch = scratch(numBytes);
+            scratch.asDoubleBuffer().put(src, srcOffset, count);
+            put(scratch, dst, dstOffsetInBytes);
+        }
+    }
+
+    static void copy(Buffer src, int srcOffsetInBytes, Buffer dst, int dstOffsetInBytes, int numBytes) {
+        if (src instanceof ByteBuffer) {
+            put(view((ByteBuffer) src, srcOffsetInBytes, numBytes), dst, dstOffsetInBytes);
+            return;
+        }
+        if (src.getClass() == dst.getClass() || (dst instanceof ByteBuffer)) {
+            put(src, srcOffsetInBytes, numBytes, dst, dstOffsetInBytes);
+            return;
+        }
+        // Differently typed views, reinterpret the bits through a native order scratch buffer.
+        ByteBuffer scratch = scratch(numBytes);
+        put(src, srcOffsetInBytes, numBytes, scratch, 0);
+        put(scratch, dst, dstOffsetInBytes);
+    }
+
+    static void clear(ByteBuffer buffer, int numBytes) {
+        ByteBuffer view = view(buffer, 0, numBytes);
+        while (view.hasRemaining())
+            view.put(zeros, 0, Math.min(zeros.length, view.remaining()));
+    }
+
+    static void transformV4M4(FloatBuffer data, int stride, int count, float[] m, int offset) {
+        for (int i = 0; i < count; i++, offset += stride) {
+            final float x = data.get(offset), y = data.get(offset + 1), z = data.get(offset + 2), w = data.get(offset + 3);
+            data.put(offset, x * m[0] + y * m[4] + z * m[8] + w * m[12]);
+            data.put(offset + 1, x * m[1] + y * m[5] + z * m[9] + w * m[13]);
+            data.put(offset + 2, x * m[2] + y * m[6] + z * m[10] + w * m[14]);
+            data.put(offset + 3, x * m[3] + y * m[7] + z * m[11] + w * m[15]);
+        }
+    }
+
+    static void transformV4M4(float[] data, int stride, int count, float[] m, int offset) {
+        final float m00 = m[0], m01 = m[4], m02 = m[8], m03 = m[12];
+        final float m10 = m[1], m11 = m[5], m12 = m[9], m13 = m[13];
+        final float m20 = m[2], m21 = m[6], m22 = m[10], m23 = m[14];
+        final float m30 = m[3], m31 = m[7], m32 = m[11], m33 = m[15];
+        for (int i = 0; i < count; i++, offset += stride) {
+            final float x = data[offset], y = data[offset + 1], z = data[offset + 2], w = data[offset + 3];
+            data[offset] = x * m00 + y * m01 + z * m02 + w * m03;
+            data[offset + 1] = x * m10 + y * m11 + z * m12 + w * m13;
+            data[offset + 2] = x * m20 + y * m21 + z * m22 + w * m23;
+            data[offset + 3] = x * m30 + y * m31 + z * m32 + w * m33;
+        }
+    }
+
+    static void transformV3M4(FloatBuffer data, int stride, int count, float[] m, int offset) {
+        for (int i = 0; i < count; i++, offset += stride) {
+            final float x = data.get(offset), y = data.get(offset + 1), z = data.get(offset + 2);
+            data.put(offset, x * m[0] + y * m[4] + z * m[8] + m[12]);
+            data.put(offset + 1, x * m[1] + y * m[5] + z * m[9] + m[13]);
+            data.put(offset + 2, x * m[2] + y * m[6] + z * m[10] + m[14]);
+        }
+    }
+
+    static void transformV3M4(float[] data, int stride, int count, float[] m, int offset) {
+        final float m00 = m[0], m01 = m[4], m02 = m[8], m03 = m[12];
+        final float m10 = m[1], m11 = m[5], m12 = m[9], m13 = m[13];
+        final float m20 = m[2], m21 = m[6], m22 = m[10], m23 = m[14];
+        for (int i = 0; i < count; i++, offset += stride) {
+            final float x = data[offset], y = data[offset + 1], z = data[offset + 2];
+            data[offset] = x * m00 + y * m01 + z * m02 + m03;
+            data[offset + 1] = x * m10 + y * m11 + z * m12 + m13;
+            data[offset + 2] = x * m20 + y * m21 + z * m22 + m23;
+        }
+    }
+
+    static void transformV2M4(FloatBuffer data, int stride, int count, float[] m, int offset) {
+        for (int i = 0; i < count; i++, offset += stride) {
+            final float x = data.get(offset), y = data.get(offset + 1);
+            data.put(offset, x * m[0] + y * m[4] + m[12]);
+            data.put(offset + 1, x * m[1] + y * m[5] + m[13]);
+        }
+    }
+
+    static void transformV2M4(float[] data, int stride, int count, float[] m, int offset) {
+        final float m00 = m[0], m01 = m[4], m03 = m[12];
+        final float m10 = m[1], m11 = m[5], m13 = m[13];
+        for (int i = 0; i < count; i++, offset += stride) {
+            final float x = data[offset], y = data[offset + 1];
+            data[offset] = x * m00 + y * m01 + m03;
+            data[offset + 1] = x * m10 + y * m11 + m13;
+        }
+    }
+
+    static void transformV3M3(FloatBuffer data, int stride, int count, float[] m, int offset) {
+        for (int i = 0; i < count; i++, offset += stride) {
+            final float x = data.get(offset), y = data.get(offset + 1), z = data.get(offset + 2);
+            data.put(offset, x * m[0] + y * m[3] + z * m[6]);
+            data.put(offset + 1, x * m[1] + y * m[4] + z * m[7]);
+            data.put(offset + 2, x * m[2] + y * m[5] + z * m[8]);
+        }
+    }
+
+    static void transformV3M3(float[] data, int stride, int count, float[] m, int offset) {
+        final float m00 = m[0], m01 = m[3], m02 = m[6];
+        final float m10 = m[1], m11 = m[4], m12 = m[7];
+        final float m20 = m[2], m21 = m[5], m22 = m[8];
+        for (int i = 0; i < count; i++, offset += stride) {
+            final float x = data[offset], y = data[offset + 1], z = data[offset + 2];
+            data[offset] = x * m00 + y * m01 + z * m02;
+            data[offset + 1] = x * m10 + y * m11 + z * m12;
+            data[offset + 2] = x * m20 + y * m21 + z * m22;
+        }
+    }
+
+    static void transformV2M3(FloatBuffer data, int stride, int count, float[] m, int offset) {
+        for (int i = 0; i < count; i++, offset += stride) {
+            final float x = data.get(offset), y = data.get(offset + 1);
+            data.put(offset, x * m[0] + y * m[3] + m[6]);
+            data.put(offset + 1, x * m[1] + y * m[4] + m[7]);
+        }
+    }
+
+    static void transformV2M3(float[] data, int stride, int count, float[] m, int offset) {
+        final float m00 = m[0], m01 = m[3], m02 = m[6];
+        final float m10 = m[1], m11 = m[4], m12 = m[7];
+        for (int i = 0; i < count; i++, offset += stride) {
+            final float x = data[offset], y = data[offset + 1];
+            data[offset] = x * m00 + y * m01 + m02;
+            data[offset + 1] = x * m10 + y * m11 + m12;
+        }
+    }
+
+    /**
+     * Finds the first vertex in vertices which equals vertex. Components are compared bitwise, with the exception of 0 and -0
+     * which are considered equal, matching the native implementation.
+     *
+     * @param size the number of floats per vertex
+     * @return the index of the vertex, or -1 if not found
+     */
+    static long find(FloatBuffer vertex, int vertexOffset, int size, FloatBuffer vertices, int verticesOffset, int count) {
+        outer:
+        for (int i = 0; i < count; i++) {
+            final int base = verticesOffset + i * size;
+            for (int j = 0; j < size; j++) {
+                final float lhs = vertices.get(base + j), rhs = vertex.get(vertexOffset + j);
+                if (Float.floatToRawIntBits(lhs) != Float.floatToRawIntBits(rhs) && lhs != rhs) continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the first vertex in vertices whose components are all within epsilon of the components of vertex.
+     *
+     * @param size the number of floats per vertex
+     * @return the index of the vertex, or -1 if not found
+     */
+    static long find(FloatBuffer vertex, int vertexOffset, int size, FloatBuffer vertices, int verticesOffset, int count,
+                     float epsilon) {
+        outer:
+        for (int i = 0; i < count; i++) {
+            final int base = verticesOffset + i * size;
+            for (int j = 0; j < size; j++) {
+                final float lhs = vertices.get(base + j), rhs = vertex.get(vertexOffset + j);
+                if (Float.floatToRawIntBits(lhs) != Float.floatToRawIntBits(rhs)
+                        && (lhs > rhs ? lhs - rhs : rhs - lhs) > epsilon) continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    /**
+     * @return a float view of the whole memory of the given buffer, indexed from the start of that memory. Arrays are wrapped
+     * without copying.
+     */
+    static FloatBuffer floats(Buffer data) {
+        if (data instanceof FloatBuffer) return (FloatBuffer) data;
+        if (data instanceof ByteBuffer) {
+            ByteBuffer bytes = ((ByteBuffer) data).duplicate().order(ByteOrder.nativeOrder());
+            bytes.clear();
+            return bytes.asFloatBuffer();
+        }
+        throw new KermanRuntimeException("Can't access floats of a " + data.getClass().getName() + " instance");
+    }
+
+    static FloatBuffer floats(float[] data) {
+        return FloatBuffer.wrap(data);
+    }
+
+    /**
+     * @return a native order duplicate of the buffer covering the given byte range.
+     */
+    private static ByteBuffer view(ByteBuffer buffer, int offset, int length) {
+        ByteBuffer view = buffer.duplicate().order(ByteOrder.nativeOrder());
+        view.clear();
+        view.limit(offset + length);
+        view.position(offset);
+        return view;
+    }
+
+    /**
+     * @return a duplicate of the buffer positioned at the given element index, with its limit at the capacity.
+     */
+    private static Buffer at(Buffer buffer, int index) {
+        Buffer duplicate;
+        if (buffer instanceof ShortBuffer)
+            duplicate = ((ShortBuffer) buffer).duplicate();
+        else if (buffer instanceof CharBuffer)
+            duplicate = ((CharBuffer) buffer).duplicate();
+        else if (buffer instanceof IntBuffer)
+            duplicate = ((IntBuffer) buffer).duplicate();
+        else if (buffer instanceof LongBuffer)
+            duplicate = ((LongBuffer) buffer).duplicate();
+        else if (buffer instanceof FloatBuffer)
+            duplicate = ((FloatBuffer) buffer).duplicate();
+        else if (buffer instanceof DoubleBuffer)
+            duplicate = ((DoubleBuffer) buffer).duplicate();
+        else
+            throw new KermanRuntimeException("Can't copy to a " + buffer.getClass().getName() + " instance");
+        duplicate.clear();
+        duplicate.position(index);
+        return duplicate;
+    }
+
+    private static ByteBuffer scratch(int numBytes) {
+        return ByteBuffer.allocate(numBytes).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Writes the remaining bytes of src, interpreted in native byte order, to dst starting at the given byte offset.
+     */
+    private static void put(ByteBuffer src, Buffer dst, int dstOffsetInBytes) {
+        if (dst instanceof ByteBuffer)
+            view((ByteBuffer) dst, dstOffsetInBytes, src.remaining()).put(src);
+        else if (dst instanceof ShortBuffer)
+            ((ShortBuffer) at(dst, dstOffsetInBytes >>> 1)).put(src.asShortBuffer());
+        else if (dst instanceof CharBuffer)
+            ((CharBuffer) at(dst, dstOffsetInBytes >>> 1)).put(src.asCharBuffer());
+        else if (dst instanceof IntBuffer)
+            ((IntBuffer) at(dst, dstOffsetInBytes >>> 2)).put(src.asIntBuffer());
+        else if (dst instanceof LongBuffer)
+            ((LongBuffer) at(dst, dstOffsetInBytes >>> 3)).put(src.asLongBuffer());
+        else if (dst instanceof FloatBuffer)
+            ((FloatBuffer) at(dst, dstOffsetInBytes >>> 2)).put(src.asFloatBuffer());
+        else if (dst instanceof DoubleBuffer)
+            ((DoubleBuffer) at(dst, dstOffsetInBytes >>> 3)).put(src.asDoubleBuffer());
+        else
+            throw new KermanRuntimeException("Can't copy to a " + dst.getClass().getName() + " instance");
+    }
+
+    /**
+     * Copies numBytes from a typed (non byte) src buffer to dst, which must either be a ByteBuffer or of the same type as src.
+     */
+    private static void put(Buffer src, int srcOffsetInBytes, int numBytes, Buffer dst, int dstOffsetInBytes) {
+        ByteBuffer bytes = dst instanceof ByteBuffer ? view((ByteBuffer) dst, dstOffsetInBytes, numBytes) : null;
+        if (src instanceof ShortBuffer) {
+            ShortBuffer in = (ShortBuffer) at(src, srcOffsetInBytes >>> 1);
+            in.limit(in.position() + (numBytes >>> 1));
+            (bytes != null ? bytes.asShortBuffer() : (ShortBuffer) at(dst, dstOffsetInBytes >>> 1)).put(in);
+        } else if (src instanceof CharBuffer) {
+            CharBuffer in = (CharBuffer) at(src, srcOffsetInBytes >>> 1);
+            in.limit(in.position() + (numBytes >>> 1));
+            (bytes != null ? bytes.asCharBuffer() : (CharBuffer) at(dst, dstOffsetInBytes >>> 1)).put(in);
+        } else if (src instanceof IntBuffer) {
+            IntBuffer in = (IntBuffer) at(src, srcOffsetInBytes >>> 2);
+            in.limit(in.position() + (numBytes >>> 2));
+            (bytes != null ? bytes.asIntBuffer() : (IntBuffer) at(dst, dstOffsetInBytes >>> 2)).put(in);
+        } else if (src instanceof LongBuffer) {
+            LongBuffer in = (LongBuffer) at(src, srcOffsetInBytes >>> 3);
+            in.limit(in.position() + (numBytes >>> 3));
+            (bytes != null ? bytes.asLongBuffer() : (LongBuffer) at(dst, dstOffsetInBytes >>> 3)).put(in);
+        } else if (src instanceof FloatBuffer) {
+            FloatBuffer in = (FloatBuffer) at(src, srcOffsetInBytes >>> 2);
+            in.limit(in.position() + (numBytes >>> 2));
+            (bytes != null ? bytes.asFloatBuffer() : (FloatBuffer) at(dst, dstOffsetInBytes >>> 2)).put(in);
+        } else if (src instanceof DoubleBuffer) {
+            DoubleBuffer in = (DoubleBuffer) at(src, srcOffsetInBytes >>> 3);
+            in.limit(in.position() + (numBytes >>> 3));
+            (bytes != null ? bytes.asDoubleBuffer() : (DoubleBuffer) at(dst, dstOffsetInBytes >>> 3)).put(in);
+        } else {
+            throw new KermanRuntimeException("Can't copy from a " + src.getClass().getName() + " instance");
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.kerman.examples.benchmark
+
+import com.kerman.core.utils.BufferUtils
+import java.nio.FloatBuffer
+
+/**
+ * Compares the copy throughput of vertex-sized float arrays into direct and heap [FloatBuffer]s, once element by element, the
+ * way vertices were copied where the natives of [BufferUtils] were missing, and once through [BufferUtils.copy], which uses the
+ * natives if they are loaded and bulk puts otherwise. The natives only accept direct buffers, so heap buffers are only copied
+ * through [BufferUtils.copy] with the Java fallback. This is CPU only, so it doesn't open a window.
+ */
+class BufferUtilsCopyBenchmark {
+
+    private val vertices = FloatArray(SIZES.last()) { (it % 101) * 0.01f }
+    private val direct = BufferUtils.newFloatBuffer(SIZES.last())
+    private val heap = FloatBuffer.allocate(SIZES.last())
+
+    /**
+     * Blackhole for the results, so the JIT can't remove the loops.
+     */
+    private var sink = 0f
+
+    fun run(): String {
+        val results = StringBuilder("  BufferUtils uses ${if (BufferUtils.isNative()) "the natives" else "the Java fallback"}\n")
+        for (size in SIZES) {
+            for (buffer in arrayOf(direct, heap)) {
+                val bulk = buffer.isDirect || !BufferUtils.isNative()
+                repeat(WARMUP_ROUNDS) {
+                    perElement(buffer, size)
+                    if (bulk) copy(buffer, size)
+                }
+                val perElement = measure(size) { perElement(buffer, size) }
+                results.append(String.format("  %6d floats, %-6s  per element %8.1f MB/s", size,
+                    if (buffer.isDirect) "direct" else "heap", perElement))
+                if (bulk) {
+                    val copy = measure(size) { copy(buffer, size) }
+                    results.append(String.format(", BufferUtils.copy %8.1f MB/s, %.1fx\n", copy, copy / perElement))
+                } else
+                    results.append(", BufferUtils.copy needs a direct buffer with the natives\n")
+            }
+        }
+        return results.append("  (checksum $sink)").toString()
+    }
+
+    private fun perElement(buffer: FloatBuffer, size: Int) {
+        val vertices = vertices
+        buffer.clear()
+        for (i in 0 until size) buffer.put(i, vertices[i])
+        sink += buffer.get(size - 1)
+    }
+
+    private fun copy(buffer: FloatBuffer, size: Int) {
+        buffer.clear()
+        BufferUtils.copy(vertices, 0, buffer, size)
+        sink += buffer.get(size - 1)
+    }
+
+    /**
+     * @return the throughput in megabytes per second, each size copies about [COPIED_FLOATS] floats in total
+     */
+    private inline fun measure(size: Int, round: () -> Unit): Double {
+        val rounds = COPIED_FLOATS / size
+        val start = System.nanoTime()
+        repeat(rounds) { round() }
+        val seconds = (System.nanoTime() - start) / 1e9
+        return rounds.toDouble() * size * 4 / seconds / 1e6
+    }
+
+    companion object {
+        /**
+         * One sprite of a SpriteBatch, a hundred sprites and a full SpriteBatch of 8191 sprites, 20 floats each.
+         */
+        val SIZES = intArrayOf(20, 20 * 100, 20 * 8191)
+        const val COPIED_FLOATS = 200_000_000
+        const val WARMUP_ROUNDS = 2000
+    }
+}
+
+fun main() {
+    val benchmark = BufferUtilsCopyBenchmark()
+    println("BufferUtilsCopyBenchmark\n${benchmark.run()}")
+}
@@ -0,0 +1,133 @@
+package com.kerman.examples.benchmark
+
+import com.kerman.backends.lwjgl3.Lwjgl3Application
+import com.kerman.backends.lwjgl3.Lwjgl3ApplicationConfiguration
+import com.kerman.core.ApplicationListener
+import com.kerman.core.Kerman
+import com.kerman.core.graphics.GLES20
+import com.kerman.core.graphics.Pixmap
+import com.kerman.core.graphics.Texture
+import com.kerman.core.graphics.k2d.GpuParticleEmitter
+import com.kerman.core.graphics.k2d.Sprite
+import com.kerman.core.graphics.k2d.SpriteBatch
+import com.kerman.core.utils.BufferUtils
+import com.kerman.core.utils.KermanArray
+
+/**
+ * Measures the frame time of a [GpuParticleEmitter] of up to [PARTICLES] particles and checks that it draws within a batch: a
+ * sprite is drawn before and after the emitter in the same [SpriteBatch], every frame is checked for GL errors, and at the end the
+ * sprite drawn after the emitter is read back, which is only white if the emitter restored the shader and blending of the batch.
+ * The bounds of the emitter must always be valid.
+ */
+class GpuParticleBenchmark : ApplicationListener {
+
+    private lateinit var texture: Texture
+    private lateinit var batch: SpriteBatch
+    private lateinit var emitter: GpuParticleEmitter
+    private var frame = 0
+    private var startTime = 0L
+    private var liveParticles = 0L
+
+    override fun create() {
+        val pixmap = Pixmap(16, 16, Pixmap.Format.RGBA8888)
+        pixmap.setColor(1f, 1f, 1f, 1f)
+        pixmap.fill()
+        texture = Texture(pixmap)
+        pixmap.dispose()
+        batch = SpriteBatch()
+
+        val sprites = KermanArray<Sprite>()
+        sprites.add(Sprite(texture))
+        emitter = GpuParticleEmitter()
+        emitter.setMaxParticleCount(PARTICLES)
+        emitter.setSprites(sprites)
+        emitter.isContinuous = true
+        emitter.getDuration().setLow(1000f)
+        emitter.emission.setHigh(PARTICLES.toFloat())
+        emitter.life.setHigh(500f, 900f)
+        emitter.xScale.setHigh(2f, 4f)
+        emitter.velocity.isActive = true
+        emitter.velocity.setHigh(50f, 300f)
+        emitter.angle.isActive = true
+        emitter.angle.setHigh(0f, 360f)
+        emitter.gravity.isActive = true
+        emitter.gravity.setHigh(-100f)
+        emitter.tint.setColors(floatArrayOf(1f, 0.5f, 0f))
+        emitter.transparency.setHigh(1f)
+        emitter.transparency.setTimeline(floatArrayOf(0f, 1f))
+        emitter.transparency.setScaling(floatArrayOf(1f, 0f))
+        emitter.isAdditive = true
+        emitter.setPosition(Kerman.graphics.getWidth() / 2f, Kerman.graphics.getHeight() / 2f)
+        emitter.start()
+    }
+
+    override fun render() {
+        Kerman.gl.glClear(GLES20.GL_COLOR_BUFFER_BIT)
+
+        batch.begin()
+        batch.draw(texture, 0f, 0f, SIZE, SIZE)
+        emitter.draw(batch, Kerman.graphics.getDeltaTime())
+        batch.draw(texture, Kerman.graphics.getWidth() - SIZE, 0f, SIZE, SIZE)
+        batch.end()
+        liveParticles += emitter.activeCount
+
+        val error = Kerman.gl.glGetError()
+        if (error != GLES20.GL_NO_ERROR) throw IllegalStateException("GL error $error in frame $frame")
+        if (!emitter.getBoundingBox().isValid())
+            throw IllegalStateException("Invalid bounds: " + emitter.getBoundingBox())
+
+        frame++
+        if (frame == WARMUP_FRAMES) {
+            Kerman.gl.glFinish()
+            startTime = System.nanoTime()
+            liveParticles = 0
+        } else if (frame == WARMUP_FRAMES + MEASURED_FRAMES) {
+            Kerman.gl.glFinish()
+            val frameTime = (System.nanoTime() - startTime) / 1e6 / MEASURED_FRAMES
+            val pixel = BufferUtils.newByteBuffer(4)
+            Kerman.gl.glReadPixels(Kerman.graphics.getBackBufferWidth() - 2, 2, 1, 1, GLES20.GL_RGBA, GLES20.GL_UNSIGNED_BYTE,
+                pixel)
+            val white = (0 until 3).all { pixel.get(it).toInt() and 0xff == 255 }
+            Kerman.app.log("GpuParticleBenchmark", String.format(
+                "up to %d particles, GL: %s\n  %6.2f ms/frame, %d particles, sprite after the emitter %s\n  bounds %s",
+                PARTICLES, Kerman.graphics.getGLVersion().debugVersionString, frameTime, liveParticles / MEASURED_FRAMES,
+                if (white) "drawn" else "NOT drawn", emitter.getBoundingBox()))
+            Kerman.app.exit()
+        }
+    }
+
+    override fun resize(width: Int, height: Int) {
+    }
+
+    override fun pause() {
+    }
+
+    override fun resume() {
+    }
+
+    override fun dispose() {
+        emitter.dispose()
+        batch.dispose()
+        texture.dispose()
+    }
+
+    companion object {
+        const val PARTICLES = 1000000
+        const val SIZE = 32f
+        const val WARMUP_FRAMES = 60
+        const val MEASURED_FRAMES = 300
+    }
+}
+
+/**
+ * Runs the benchmark with an OpenGL 3.2 context, which transform feedback and instanced rendering require.
+ */
+fun main() {
+    val configuration = Lwjgl3ApplicationConfiguration()
+    configuration.setTitle("GpuParticleBenchmark")
+    configuration.setWindowedMode(1280, 720)
+    configuration.useVsync(false)
+    configuration.setForegroundFPS(0)
+    configuration.setOpenGLEmulation(Lwjgl3ApplicationConfiguration.GLEmulation.GL30, 3, 2)
+    Lwjgl3Application(GpuParticleBenchmark(), configuration)
+}
@@ -0,0 +1,153 @@
+package com.kerman.examples.benchmark
+
+import com.kerman.backends.lwjgl3.Lwjgl3Application
+import com.kerman.backends.lwjgl3.Lwjgl3ApplicationConfiguration
+import com.kerman.core.ApplicationListener
+import com.kerman.core.Kerman
+import com.kerman.core.graphics.GLES20
+import com.kerman.core.graphics.Pixmap
+import com.kerman.core.graphics.Texture
+import com.kerman.core.graphics.k2d.InstancedSpriteRenderer
+import com.kerman.core.graphics.k2d.SpriteBatch
+import com.kerman.core.graphics.k2d.TextureRegion
+import com.kerman.core.math.MathUtils
+
+/**
+ * Compares [SpriteBatch] with [InstancedSpriteRenderer] drawing [SPRITES] rotated sprites that move every frame. Besides the
+ * frame time, the time spent on the CPU submitting the sprites, before the final flush, is measured, which is where the renderer
+ * saves the vertex work.
+ */
+class InstancedSpriteBenchmark : ApplicationListener {
+
+    private val x = FloatArray(SPRITES)
+    private val y = FloatArray(SPRITES)
+    private val velocityX = FloatArray(SPRITES)
+    private val velocityY = FloatArray(SPRITES)
+    private val rotation = FloatArray(SPRITES)
+    private val results = StringBuilder()
+    private lateinit var texture: Texture
+    private lateinit var region: TextureRegion
+    private var batch: SpriteBatch? = null
+    private var renderer: InstancedSpriteRenderer? = null
+    private var mode = 0
+    private var frame = 0
+    private var startTime = 0L
+    private var submitTime = 0L
+
+    override fun create() {
+        val pixmap = Pixmap(16, 16, Pixmap.Format.RGBA8888)
+        pixmap.setColor(1f, 1f, 1f, 1f)
+        pixmap.fill()
+        texture = Texture(pixmap)
+        pixmap.dispose()
+        region = TextureRegion(texture)
+
+        for (i in 0 until SPRITES) {
+            x[i] = MathUtils.random(Kerman.graphics.getWidth().toFloat())
+            y[i] = MathUtils.random(Kerman.graphics.getHeight().toFloat())
+            velocityX[i] = MathUtils.random(-100f, 100f)
+            velocityY[i] = MathUtils.random(-100f, 100f)
+            rotation[i] = MathUtils.random(360f)
+        }
+        batch = SpriteBatch(8191)
+    }
+
+    override fun render() {
+        if (mode == 2) return
+        Kerman.gl.glClear(GLES20.GL_COLOR_BUFFER_BIT)
+
+        val delta = 1 / 60f
+        val width = Kerman.graphics.getWidth().toFloat()
+        val height = Kerman.graphics.getHeight().toFloat()
+        for (i in 0 until SPRITES) {
+            x[i] += velocityX[i] * delta
+            y[i] += velocityY[i] * delta
+            if (x[i] < 0 || x[i] > width) velocityX[i] = -velocityX[i]
+            if (y[i] < 0 || y[i] > height) velocityY[i] = -velocityY[i]
+            rotation[i] += 90 * delta
+        }
+
+        val submitStart = System.nanoTime()
+        val batch = batch
+        val renderer = renderer
+        if (batch != null) {
+            batch.begin()
+            for (i in 0 until SPRITES) {
+                batch.draw(region, x[i], y[i], SIZE / 2, SIZE / 2, SIZE, SIZE, 1f, 1f, rotation[i])
+            }
+            submitTime += System.nanoTime() - submitStart
+            batch.end()
+        } else if (renderer != null) {
+            renderer.begin()
+            for (i in 0 until SPRITES) {
+                renderer.draw(region, x[i], y[i], SIZE, SIZE, rotation[i])
+            }
+            submitTime += System.nanoTime() - submitStart
+            renderer.end()
+        }
+
+        frame++
+        if (frame == WARMUP_FRAMES) {
+            Kerman.gl.glFinish()
+            startTime = System.nanoTime()
+            submitTime = 0
+        } else if (frame == WARMUP_FRAMES + MEASURED_FRAMES) {
+            Kerman.gl.glFinish()
+            val frameTime = (System.nanoTime() - startTime) / 1e6 / MEASURED_FRAMES
+            results.append(String.format("  %-24s %6.2f ms/frame, %6.2f ms/frame submitting\n",
+                if (batch != null) "SpriteBatch" else "InstancedSpriteRenderer", frameTime, submitTime / 1e6 / MEASURED_FRAMES))
+            nextMode()
+        }
+    }
+
+    private fun nextMode() {
+        batch?.dispose()
+        batch = null
+        renderer?.dispose()
+        renderer = null
+        frame = 0
+        mode++
+        if (mode == 1) {
+            renderer = InstancedSpriteRenderer()
+        } else {
+            Kerman.app.log("InstancedSpriteBenchmark", "$SPRITES sprites, GL: " + Kerman.graphics.getGLVersion().debugVersionString
+                    + "\n" + results)
+            Kerman.app.exit()
+        }
+    }
+
+    override fun resize(width: Int, height: Int) {
+    }
+
+    override fun pause() {
+    }
+
+    override fun resume() {
+    }
+
+    override fun dispose() {
+        batch?.dispose()
+        renderer?.dispose()
+        texture.dispose()
+    }
+
+    companion object {
+        const val SPRITES = 100000
+        const val SIZE = 6f
+        const val WARMUP_FRAMES = 60
+        const val MEASURED_FRAMES = 300
+    }
+}
+
+/**
+ * Runs the benchmark with an OpenGL 3.2 context, which instanced rendering requires.
+ */
+fun main() {
+    val configuration = Lwjgl3ApplicationConfiguration()
+    configuration.setTitle("InstancedSpriteBenchmark")
+    configuration.setWindowedMode(1280, 720)
+    configuration.useVsync(false)
+    configuration.setForegroundFPS(0)
+    configuration.setOpenGLEmulation(Lwjgl3ApplicationConfiguration.GLEmulation.GL30, 3, 2)
+    Lwjgl3Application(InstancedSpriteBenchmark(), configuration)
+}
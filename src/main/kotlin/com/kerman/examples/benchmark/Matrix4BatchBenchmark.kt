@@ -0,0 +1,108 @@
+package com.kerman.examples.benchmark
+
+import com.kerman.core.math.Matrix4
+import com.kerman.core.math.Vector3
+
+/**
+ * Compares transforming [VECTORS] interleaved vertices of [STRIDE] floats one at a time through [Vector3.mul], [Vector3.prj]
+ * and [Vector3.rot], the way CPU-skinned and pre-transformed geometry was transformed before, with the batched
+ * [Matrix4.mulVec], [Matrix4.prj] and [Matrix4.rot] loops. This is CPU only, so it doesn't open a window.
+ */
+class Matrix4BatchBenchmark {
+
+    private val matrix = Matrix4().setToLookAt(Vector3(1f, 2f, 3f), Vector3(0f, 0f, 0f), Vector3.Y)
+        .mul(Matrix4().setToProjection(0.1f, 100f, 67f, 16f / 9f))
+    private val vertices = FloatArray(VECTORS * STRIDE)
+    private val vector = Vector3()
+
+    /**
+     * Blackhole for the results, so the JIT can't remove the loops.
+     */
+    private var sink = 0f
+
+    init {
+        reset()
+    }
+
+    fun run(): String {
+        val results = StringBuilder()
+        for (operation in arrayOf("mul", "prj", "rot")) {
+            repeat(WARMUP_ROUNDS) {
+                perVector(operation)
+                batched(operation)
+            }
+            val perVector = measure { perVector(operation) }
+            val batched = measure { batched(operation) }
+            results.append(String.format("  %s  per vector %7.3f ms, batched %7.3f ms, %.1fx\n", operation, perVector,
+                batched, perVector / batched))
+        }
+        return results.append("  (checksum $sink)").toString()
+    }
+
+    private fun perVector(operation: String) {
+        val vertices = vertices
+        val vector = vector
+        for (i in 0 until VECTORS) {
+            val offset = i * STRIDE
+            vector.set(vertices[offset], vertices[offset + 1], vertices[offset + 2])
+            when (operation) {
+                "mul" -> vector.mul(matrix)
+                "prj" -> vector.prj(matrix)
+                else -> vector.rot(matrix)
+            }
+            vertices[offset] = vector.x
+            vertices[offset + 1] = vector.y
+            vertices[offset + 2] = vector.z
+        }
+        sink += vertices[STRIDE]
+        reset()
+    }
+
+    private fun batched(operation: String) {
+        when (operation) {
+            "mul" -> Matrix4.mulVec(matrix.`val`, vertices, 0, VECTORS, STRIDE)
+            "prj" -> Matrix4.prj(matrix.`val`, vertices, 0, VECTORS, STRIDE)
+            else -> Matrix4.rot(matrix.`val`, vertices, 0, VECTORS, STRIDE)
+        }
+        sink += vertices[STRIDE]
+        reset()
+    }
+
+    /**
+     * Restores the positions, so repeated transforms don't overflow or denormalize.
+     */
+    private fun reset() {
+        val vertices = vertices
+        for (i in 0 until VECTORS) {
+            val offset = i * STRIDE
+            vertices[offset] = (i % 97) * 0.01f
+            vertices[offset + 1] = (i % 89) * 0.01f
+            vertices[offset + 2] = (i % 83) * 0.01f
+        }
+    }
+
+    /**
+     * @return the average time of a round in milliseconds, including the reset, which is the same for both variants
+     */
+    private inline fun measure(round: () -> Unit): Double {
+        val start = System.nanoTime()
+        repeat(MEASURED_ROUNDS) { round() }
+        return (System.nanoTime() - start) / 1e6 / MEASURED_ROUNDS
+    }
+
+    companion object {
+        const val VECTORS = 100000
+
+        /**
+         * A position, a texture coordinate and a packed color, like the vertices of a sprite mesh.
+         */
+        const val STRIDE = 6
+        const val WARMUP_ROUNDS = 200
+        const val MEASURED_ROUNDS = 500
+    }
+}
+
+fun main() {
+    val benchmark = Matrix4BatchBenchmark()
+    println("Matrix4BatchBenchmark, ${Matrix4BatchBenchmark.VECTORS} vectors\n${benchmark.run()}")
+}
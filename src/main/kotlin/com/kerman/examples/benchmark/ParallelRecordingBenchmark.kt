@@ -0,0 +1,137 @@
+package com.kerman.examples.benchmark
+
+import com.kerman.backends.lwjgl3.Lwjgl3Application
+import com.kerman.backends.lwjgl3.Lwjgl3ApplicationConfiguration
+import com.kerman.core.ApplicationListener
+import com.kerman.core.Kerman
+import com.kerman.core.graphics.GLES20
+import com.kerman.core.graphics.Pixmap
+import com.kerman.core.graphics.Texture
+import com.kerman.core.graphics.k2d.Batch
+import com.kerman.core.graphics.k2d.SpriteBatch
+import com.kerman.core.graphics.k2d.SpriteCommandBuffer
+import com.kerman.core.graphics.k2d.TextureRegion
+import com.kerman.core.utils.async.AsyncExecutor
+import com.kerman.core.utils.async.AsyncResult
+import com.kerman.core.utils.async.AsyncTask
+
+/**
+ * Compares building the vertices of [CHUNKS] chunks of rotated sprites on the render thread with recording every chunk into its
+ * own [SpriteCommandBuffer] on a worker thread and submitting the buffers in order on the render thread.
+ */
+class ParallelRecordingBenchmark : ApplicationListener {
+
+    private val results = StringBuilder()
+    private val threads = Runtime.getRuntime().availableProcessors()
+    private lateinit var executor: AsyncExecutor
+    private lateinit var texture: Texture
+    private lateinit var region: TextureRegion
+    private lateinit var batch: SpriteBatch
+    private val buffers = Array(CHUNKS) { SpriteCommandBuffer() }
+    private val pending = ArrayList<AsyncResult<Unit>>()
+    private var parallel = false
+    private var frame = 0
+    private var startTime = 0L
+
+    override fun create() {
+        val pixmap = Pixmap(16, 16, Pixmap.Format.RGBA8888)
+        pixmap.setColor(1f, 1f, 1f, 1f)
+        pixmap.fill()
+        texture = Texture(pixmap)
+        pixmap.dispose()
+        region = TextureRegion(texture)
+        batch = SpriteBatch(8191)
+        executor = AsyncExecutor(threads, "ParallelRecordingBenchmark")
+    }
+
+    private fun drawChunk(batch: Batch, chunk: Int) {
+        val width = Kerman.graphics.getWidth() - 8f
+        val height = Kerman.graphics.getHeight() - 8f
+        val rotation = frame.toFloat()
+        for (i in 0 until SPRITES_PER_CHUNK) {
+            val n = chunk * SPRITES_PER_CHUNK + i
+            val x = (n * 7919 % 997) / 997f * width
+            val y = (n * 104729 % 991) / 991f * height
+            batch.draw(region, x, y, 4f, 4f, 8f, 8f, 1f, 1f, rotation + i)
+        }
+    }
+
+    override fun render() {
+        Kerman.gl.glClear(GLES20.GL_COLOR_BUFFER_BIT)
+
+        if (parallel) {
+            for (chunk in 0 until CHUNKS) {
+                pending.add(executor.submit(object : AsyncTask<Unit> {
+                    override fun call() {
+                        val buffer = buffers[chunk]
+                        buffer.begin()
+                        drawChunk(buffer, chunk)
+                        buffer.end()
+                    }
+                }))
+            }
+            batch.begin()
+            for (chunk in 0 until CHUNKS) {
+                pending[chunk].get()
+                batch.submit(buffers[chunk])
+            }
+            batch.end()
+            pending.clear()
+        } else {
+            batch.begin()
+            for (chunk in 0 until CHUNKS) drawChunk(batch, chunk)
+            batch.end()
+        }
+
+        frame++
+        if (frame == WARMUP_FRAMES) {
+            Kerman.gl.glFinish()
+            startTime = System.nanoTime()
+        } else if (frame == WARMUP_FRAMES + MEASURED_FRAMES) {
+            Kerman.gl.glFinish()
+            val frameTime = (System.nanoTime() - startTime) / 1e6 / MEASURED_FRAMES
+            results.append(String.format("  %-40s %6.2f ms/frame\n",
+                if (parallel) "$threads threads, SpriteCommandBuffer" else "render thread, SpriteBatch", frameTime))
+            if (parallel) {
+                Kerman.app.log("ParallelRecordingBenchmark", "${CHUNKS * SPRITES_PER_CHUNK} sprites in $CHUNKS chunks\n$results")
+                Kerman.app.exit()
+            }
+            parallel = true
+            frame = 0
+        }
+    }
+
+    override fun resize(width: Int, height: Int) {
+    }
+
+    override fun pause() {
+    }
+
+    override fun resume() {
+    }
+
+    override fun dispose() {
+        executor.dispose()
+        batch.dispose()
+        texture.dispose()
+    }
+
+    companion object {
+        const val CHUNKS = 8
+        const val SPRITES_PER_CHUNK = 12500
+        const val WARMUP_FRAMES = 60
+        const val MEASURED_FRAMES = 300
+    }
+}
+
+/**
+ * Runs the benchmark with one worker thread per processor.
+ */
+fun main() {
+    val configuration = Lwjgl3ApplicationConfiguration()
+    configuration.setTitle("ParallelRecordingBenchmark")
+    configuration.setWindowedMode(1280, 720)
+    configuration.useVsync(false)
+    configuration.setForegroundFPS(0)
+    Lwjgl3Application(ParallelRecordingBenchmark(), configuration)
+}
@@ -0,0 +1,140 @@
+package com.kerman.examples.benchmark
+
+import com.kerman.backends.lwjgl3.Lwjgl3Application
+import com.kerman.backends.lwjgl3.Lwjgl3ApplicationConfiguration
+import com.kerman.core.ApplicationListener
+import com.kerman.core.Kerman
+import com.kerman.core.graphics.GLES20
+import com.kerman.core.graphics.Pixmap
+import com.kerman.core.graphics.Texture
+import com.kerman.core.graphics.k2d.ParticleEmitter
+import com.kerman.core.graphics.k2d.Sprite
+import com.kerman.core.graphics.k2d.SpriteBatch
+import com.kerman.core.utils.KermanArray
+
+/**
+ * Compares the frame time of [EMITTERS] emitters of up to [PARTICLES] particles each, updated and drawn with
+ * [ParticleEmitter.StorageMode.sprites] and then with [ParticleEmitter.StorageMode.arrays].
+ */
+class ParticleStorageBenchmark : ApplicationListener {
+
+    private val results = StringBuilder()
+    private lateinit var texture: Texture
+    private lateinit var batch: SpriteBatch
+    private val emitters = ArrayList<ParticleEmitter>()
+    private var storageMode = ParticleEmitter.StorageMode.sprites
+    private var frame = 0
+    private var startTime = 0L
+    private var liveParticles = 0L
+
+    override fun create() {
+        val pixmap = Pixmap(16, 16, Pixmap.Format.RGBA8888)
+        pixmap.setColor(1f, 1f, 1f, 1f)
+        pixmap.fill()
+        texture = Texture(pixmap)
+        pixmap.dispose()
+        batch = SpriteBatch(8191)
+        createEmitters()
+    }
+
+    private fun createEmitters() {
+        emitters.clear()
+        val sprites = KermanArray<Sprite>()
+        sprites.add(Sprite(texture))
+        val width = Kerman.graphics.getWidth().toFloat()
+        val height = Kerman.graphics.getHeight().toFloat()
+        for (i in 0 until EMITTERS) {
+            val emitter = ParticleEmitter()
+            emitter.setStorageMode(storageMode)
+            emitter.setMaxParticleCount(PARTICLES)
+            emitter.setSprites(sprites)
+            emitter.isContinuous = true
+            emitter.getDuration().setLow(1000f)
+            emitter.emission.setHigh(PARTICLES * 2f)
+            emitter.life.setHigh(400f, 600f)
+            emitter.xScale.setHigh(8f, 16f)
+            emitter.xScale.setTimeline(floatArrayOf(0f, 1f))
+            emitter.xScale.setScaling(floatArrayOf(1f, 0.2f))
+            emitter.velocity.isActive = true
+            emitter.velocity.setHigh(50f, 200f)
+            emitter.angle.isActive = true
+            emitter.angle.setHigh(0f, 360f)
+            emitter.rotation.isActive = true
+            emitter.rotation.setHigh(0f, 720f)
+            emitter.rotation.setTimeline(floatArrayOf(0f, 1f))
+            emitter.rotation.setScaling(floatArrayOf(0f, 1f))
+            emitter.gravity.isActive = true
+            emitter.gravity.setHigh(-100f)
+            emitter.tint.setTimeline(floatArrayOf(0f, 1f))
+            emitter.tint.setColors(floatArrayOf(1f, 0.5f, 0f, 0f, 0.5f, 1f))
+            emitter.transparency.setHigh(1f)
+            emitter.transparency.setTimeline(floatArrayOf(0f, 1f))
+            emitter.transparency.setScaling(floatArrayOf(1f, 0f))
+            emitter.setPosition((i % 10 + 0.5f) / 10 * width, (i / 10 + 0.5f) / (EMITTERS / 10) * height)
+            emitter.start()
+            emitters.add(emitter)
+        }
+    }
+
+    override fun render() {
+        Kerman.gl.glClear(GLES20.GL_COLOR_BUFFER_BIT)
+
+        val delta = Kerman.graphics.getDeltaTime()
+        batch.begin()
+        for (emitter in emitters) emitter.draw(batch, delta)
+        batch.end()
+        for (emitter in emitters) liveParticles += emitter.activeCount
+
+        frame++
+        if (frame == WARMUP_FRAMES) {
+            Kerman.gl.glFinish()
+            startTime = System.nanoTime()
+            liveParticles = 0
+        } else if (frame == WARMUP_FRAMES + MEASURED_FRAMES) {
+            Kerman.gl.glFinish()
+            val frameTime = (System.nanoTime() - startTime) / 1e6 / MEASURED_FRAMES
+            results.append(String.format("  %-10s %6.2f ms/frame, %d particles\n", storageMode, frameTime,
+                liveParticles / MEASURED_FRAMES))
+            if (storageMode == ParticleEmitter.StorageMode.arrays) {
+                Kerman.app.log("ParticleStorageBenchmark", "$EMITTERS emitters of up to $PARTICLES particles\n$results")
+                Kerman.app.exit()
+            }
+            storageMode = ParticleEmitter.StorageMode.arrays
+            createEmitters()
+            frame = 0
+        }
+    }
+
+    override fun resize(width: Int, height: Int) {
+    }
+
+    override fun pause() {
+    }
+
+    override fun resume() {
+    }
+
+    override fun dispose() {
+        batch.dispose()
+        texture.dispose()
+    }
+
+    companion object {
+        const val EMITTERS = 50
+        const val PARTICLES = 2000
+        const val WARMUP_FRAMES = 60
+        const val MEASURED_FRAMES = 300
+    }
+}
+
+/**
+ * Runs the benchmark without vsync, so the frame time is the time to update and draw the particles.
+ */
+fun main() {
+    val configuration = Lwjgl3ApplicationConfiguration()
+    configuration.setTitle("ParticleStorageBenchmark")
+    configuration.setWindowedMode(1280, 720)
+    configuration.useVsync(false)
+    configuration.setForegroundFPS(0)
+    Lwjgl3Application(ParticleStorageBenchmark(), configuration)
+}
@@ -0,0 +1,131 @@
+package com.kerman.examples.benchmark
+
+import com.kerman.backends.lwjgl3.Lwjgl3Application
+import com.kerman.backends.lwjgl3.Lwjgl3ApplicationConfiguration
+import com.kerman.core.ApplicationListener
+import com.kerman.core.Kerman
+import com.kerman.core.graphics.GLES20
+import com.kerman.core.graphics.glutils.ShapeRenderer
+import com.kerman.core.graphics.glutils.ShapeRenderer.ShapeType
+import com.kerman.core.math.MathUtils
+
+/**
+ * Compares the frame time of a debug overlay of [SHAPES] outlined and filled rectangles, circles and lines, drawn in mixed order
+ * with auto shape type, first with non-indexed vertices and then with indexed vertices.
+ */
+class ShapeRendererBenchmark : ApplicationListener {
+
+    private val results = StringBuilder()
+    private val shapes = FloatArray(SHAPES * 4)
+    private lateinit var renderer: ShapeRenderer
+    private var indexed = false
+    private var frame = 0
+    private var startTime = 0L
+
+    override fun create() {
+        val width = Kerman.graphics.getWidth().toFloat()
+        val height = Kerman.graphics.getHeight().toFloat()
+        for (i in 0 until SHAPES) {
+            shapes[i * 4] = MathUtils.random(width)
+            shapes[i * 4 + 1] = MathUtils.random(height)
+            shapes[i * 4 + 2] = MathUtils.random(4f, 24f)
+            shapes[i * 4 + 3] = MathUtils.random(4f, 24f)
+        }
+        createRenderer()
+    }
+
+    private fun createRenderer() {
+        renderer = ShapeRenderer(MAX_VERTICES, null, indexed)
+        renderer.setAutoShapeType(true)
+    }
+
+    override fun render() {
+        Kerman.gl.glClear(GLES20.GL_COLOR_BUFFER_BIT)
+
+        val shapes = shapes
+        renderer.begin(ShapeType.Line)
+        for (i in 0 until SHAPES) {
+            val x = shapes[i * 4]
+            val y = shapes[i * 4 + 1]
+            val w = shapes[i * 4 + 2]
+            val h = shapes[i * 4 + 3]
+            // Like a debug overlay, each shape is a filled background with an outline and a line to a neighbour.
+            when (i % 3) {
+                0 -> {
+                    renderer.setColor(0f, 0.5f, 0f, 1f)
+                    renderer.set(ShapeType.Filled)
+                    renderer.rect(x, y, w, h)
+                    renderer.setColor(0f, 1f, 0f, 1f)
+                    renderer.set(ShapeType.Line)
+                    renderer.rect(x, y, w, h)
+                }
+
+                1 -> {
+                    renderer.setColor(0f, 0f, 0.5f, 1f)
+                    renderer.set(ShapeType.Filled)
+                    renderer.circle(x, y, w * 0.5f, 16)
+                    renderer.setColor(0f, 0f, 1f, 1f)
+                    renderer.set(ShapeType.Line)
+                    renderer.circle(x, y, w * 0.5f, 16)
+                }
+
+                else -> {
+                    renderer.setColor(1f, 0f, 0f, 1f)
+                    renderer.set(ShapeType.Line)
+                    renderer.line(x, y, shapes[(i - 1) * 4], shapes[(i - 1) * 4 + 1])
+                }
+            }
+        }
+        renderer.end()
+
+        frame++
+        if (frame == WARMUP_FRAMES) {
+            Kerman.gl.glFinish()
+            startTime = System.nanoTime()
+        } else if (frame == WARMUP_FRAMES + MEASURED_FRAMES) {
+            Kerman.gl.glFinish()
+            val frameTime = (System.nanoTime() - startTime) / 1e6 / MEASURED_FRAMES
+            results.append(String.format("  %-11s %6.2f ms/frame\n", if (indexed) "indexed" else "non-indexed", frameTime))
+            if (indexed) {
+                Kerman.app.log("ShapeRendererBenchmark", "$SHAPES shapes\n$results")
+                Kerman.app.exit()
+            }
+            renderer.dispose()
+            indexed = true
+            createRenderer()
+            frame = 0
+        }
+    }
+
+    override fun resize(width: Int, height: Int) {
+    }
+
+    override fun pause() {
+    }
+
+    override fun resume() {
+    }
+
+    override fun dispose() {
+        renderer.dispose()
+    }
+
+    companion object {
+        const val SHAPES = 20000
+        const val MAX_VERTICES = 65536
+        const val WARMUP_FRAMES = 60
+        const val MEASURED_FRAMES = 300
+    }
+}
+
+/**
+ * Runs the benchmark without vsync, so the frame time is the time to build and draw the shapes.
+ */
+fun main() {
+    val configuration = Lwjgl3ApplicationConfiguration()
+    configuration.setTitle("ShapeRendererBenchmark")
+    configuration.setWindowedMode(1280, 720)
+    configuration.useVsync(false)
+    configuration.setForegroundFPS(0)
+    Lwjgl3Application(ShapeRendererBenchmark(), configuration)
+}
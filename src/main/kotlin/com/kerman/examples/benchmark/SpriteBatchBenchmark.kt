@@ -0,0 +1,126 @@
+package com.kerman.examples.benchmark
+
+import com.kerman.backends.lwjgl3.Lwjgl3Application
+import com.kerman.backends.lwjgl3.Lwjgl3ApplicationConfiguration
+import com.kerman.core.ApplicationListener
+import com.kerman.core.Kerman
+import com.kerman.core.graphics.GLES20
+import com.kerman.core.graphics.Pixmap
+import com.kerman.core.graphics.Texture
+import com.kerman.core.graphics.k2d.Batch
+import com.kerman.core.graphics.k2d.DeferredSpriteBatch
+import com.kerman.core.graphics.k2d.MultiTextureSpriteBatch
+import com.kerman.core.graphics.k2d.SpriteBatch
+
+/**
+ * Measures how many sprites per second each batch implementation draws. Every frame draws [SPRITES_PER_FRAME] small sprites from
+ * [TEXTURES] textures, switching the texture every [RUN_LENGTH] sprites, so a batch of 1000 sprites flushes at least 50 times per
+ * frame. Each batch is warmed up first and then measured over a number of frames with vsync off, and the results are logged once
+ * all batches were measured.
+ */
+class SpriteBatchBenchmark : ApplicationListener {
+
+    private class Mode(val name: String, val create: () -> Batch)
+
+    private val modes = listOf(
+        Mode("SpriteBatch") { SpriteBatch(1000) },
+        Mode("SpriteBatch, streaming") { SpriteBatch(1000, null, true) },
+        Mode("MultiTextureSpriteBatch") { MultiTextureSpriteBatch() },
+        Mode("DeferredSpriteBatch") { DeferredSpriteBatch() },
+    )
+    private val results = StringBuilder()
+    private val textures = ArrayList<Texture>()
+    private var mode = -1
+    private var batch: Batch? = null
+    private var frame = 0
+    private var startTime = 0L
+
+    override fun create() {
+        for (i in 0 until TEXTURES) {
+            val pixmap = Pixmap(16, 16, Pixmap.Format.RGBA8888)
+            pixmap.setColor(1f, i / (TEXTURES - 1f), 1f - i / (TEXTURES - 1f), 1f)
+            pixmap.fill()
+            textures.add(Texture(pixmap))
+            pixmap.dispose()
+        }
+        nextMode()
+    }
+
+    private fun nextMode() {
+        batch?.dispose()
+        batch = null
+        mode++
+        frame = 0
+        if (mode == modes.size) {
+            Kerman.app.log("SpriteBatchBenchmark", "GL: " + Kerman.graphics.getGLVersion().debugVersionString + "\n" + results)
+            Kerman.app.exit()
+            return
+        }
+        batch = modes[mode].create()
+    }
+
+    override fun render() {
+        val batch = batch ?: return
+        Kerman.gl.glClear(GLES20.GL_COLOR_BUFFER_BIT)
+
+        val width = Kerman.graphics.getWidth() - 8f
+        val height = Kerman.graphics.getHeight() - 8f
+        batch.begin()
+        for (i in 0 until SPRITES_PER_FRAME) {
+            val x = (i * 7919 % 997) / 997f * width
+            val y = (i * 104729 % 991) / 991f * height
+            batch.draw(textures[i / RUN_LENGTH % TEXTURES], x, y, 8f, 8f)
+        }
+        batch.end()
+        val renderCalls = (batch as? SpriteBatch)?.renderCalls ?: 0
+
+        frame++
+        if (frame == WARMUP_FRAMES) {
+            Kerman.gl.glFinish()
+            startTime = System.nanoTime()
+        } else if (frame == WARMUP_FRAMES + MEASURED_FRAMES) {
+            Kerman.gl.glFinish()
+            val seconds = (System.nanoTime() - startTime) / 1e9
+            val spritesPerSecond = SPRITES_PER_FRAME.toLong() * MEASURED_FRAMES / seconds
+            results.append(String.format("  %-28s %8.2f M sprites/s, %6.2f ms/frame, %5d flushes/frame\n", modes[mode].name,
+                spritesPerSecond / 1e6, seconds * 1000 / MEASURED_FRAMES, renderCalls))
+            nextMode()
+        }
+    }
+
+    override fun resize(width: Int, height: Int) {
+    }
+
+    override fun pause() {
+    }
+
+    override fun resume() {
+    }
+
+    override fun dispose() {
+        batch?.dispose()
+        for (texture in textures) texture.dispose()
+    }
+
+    companion object {
+        const val SPRITES_PER_FRAME = 50000
+        const val TEXTURES = 4
+        const val RUN_LENGTH = 8
+        const val WARMUP_FRAMES = 60
+        const val MEASURED_FRAMES = 300
+    }
+}
+
+/**
+ * Runs the benchmark with an OpenGL 3.2 context, or with OpenGL 2.0 if "gl20" is passed, which streams with glBufferSubData
+ * instead of glMapBufferRange.
+ */
+fun main(args: Array<String>) {
+    val configuration = Lwjgl3ApplicationConfiguration()
+    configuration.setTitle("SpriteBatchBenchmark")
+    configuration.setWindowedMode(1280, 720)
+    configuration.useVsync(false)
+    configuration.setForegroundFPS(0)
+    if (!args.contains("gl20")) configuration.setOpenGLEmulation(Lwjgl3ApplicationConfiguration.GLEmulation.GL30, 3, 2)
+    Lwjgl3Application(SpriteBatchBenchmark(), configuration)
+}
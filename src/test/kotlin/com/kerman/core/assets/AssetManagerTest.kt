@@ -0,0 +1,307 @@
+package com.kerman.core.assets
+
+import com.kerman.core.Graphics
+import com.kerman.core.Kerman
+import com.kerman.core.assets.loaders.AsynchronousAssetLoader
+import com.kerman.core.assets.loaders.FileHandleResolver
+import com.kerman.core.assets.loaders.SynchronousAssetLoader
+import com.kerman.core.files.FileHandle
+import com.kerman.core.utils.Disposable
+import com.kerman.core.utils.KermanArray
+import java.lang.reflect.Proxy
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertFalse
+import kotlin.test.assertNotSame
+import kotlin.test.assertSame
+import kotlin.test.assertTrue
+import kotlin.test.fail
+
+/**
+ * Checks that loaders which aren't concurrent can't deadlock the [AssetManager] when tasks in flight depend on assets using
+ * each other's loaders, that blocking loads aren't held up by the upload budget, and that assets retained for the memory
+ * budget are evicted least recently unloaded first and never handed out after they were disposed.
+ */
+class AssetManagerTest {
+
+    private val resolver = object : FileHandleResolver {
+        override fun resolve(fileName: String) = FileHandle(fileName)
+    }
+
+    @Test
+    fun crossedLoaderDependencies() {
+        // a.l waits for d.m while b.m waits for e.l. If a task kept its loader while waiting, neither dependency could start.
+        val dependencies = mapOf("a.l" to "d.m", "b.m" to "e.l")
+        val manager = AssetManager(resolver, false, 2)
+        try {
+            manager.setLoader(Named::class.java, ".l", StatefulLoader(resolver, dependencies))
+            manager.setLoader(Named::class.java, ".m", StatefulLoader(resolver, dependencies))
+            manager.load("a.l", Named::class.java)
+            manager.load("b.m", Named::class.java)
+
+            finish(manager)
+            for (fileName in arrayOf("a.l", "b.m", "d.m", "e.l"))
+                assertEquals(fileName, manager.get(fileName, Named::class.java).fileName)
+            assertEquals(4, manager.getLoadedAssets())
+        } finally {
+            manager.dispose()
+        }
+    }
+
+    @Test
+    fun dependencyWithSameLoader() {
+        // The dependency overwrites the state the loader kept for its parent, so the parent has to resolve it again.
+        val dependencies = mapOf("a.l" to "b.l", "b.l" to "c.l")
+        val manager = AssetManager(resolver, false, 4)
+        try {
+            manager.setLoader(Named::class.java, ".l", StatefulLoader(resolver, dependencies))
+            manager.load("a.l", Named::class.java)
+
+            finish(manager)
+            for (fileName in arrayOf("a.l", "b.l", "c.l"))
+                assertEquals(fileName, manager.get(fileName, Named::class.java).fileName)
+        } finally {
+            manager.dispose()
+        }
+    }
+
+    @Test
+    fun finishLoadingIgnoresUploadBudget() {
+        // The frame never changes while blocking, so an asset larger than the budget of one frame would never be uploaded.
+        val classLoader = Graphics::class.java.classLoader
+        Kerman.graphics = Proxy.newProxyInstance(classLoader, arrayOf(Graphics::class.java)) { _, method, _ ->
+            if (method.name == "getFrameId") 0L else throw UnsupportedOperationException(method.name)
+        } as Graphics
+        val manager = AssetManager(resolver, false, 1)
+        try {
+            manager.setLoader(Named::class.java, ".u", UploadingLoader(resolver, 10))
+            manager.setUploadBudget(4)
+            manager.load("a.u", Named::class.java)
+            manager.load("b.u", Named::class.java)
+
+            val loader = Thread { manager.finishLoading() }
+            loader.isDaemon = true
+            loader.start()
+            loader.join(5000)
+            assertFalse(loader.isAlive, "finishLoading didn't return")
+            assertEquals("a.u", manager.get("a.u", Named::class.java).fileName)
+            assertEquals("b.u", manager.get("b.u", Named::class.java).fileName)
+            assertTrue(manager.getUploadBudget().isLimited())
+        } finally {
+            // so that disposing can't hang if finishLoading did
+            manager.setUploadBudget(0)
+            manager.dispose()
+        }
+    }
+
+    @Test
+    fun evictionOrder() {
+        val manager = ownerManager(emptyMap())
+        try {
+            manager.setMemoryBudget(250)
+            for (fileName in arrayOf("a.t", "b.t", "c.t")) manager.load(fileName, Owner::class.java)
+            finish(manager)
+            val owners = arrayOf("a.t", "b.t", "c.t").map { manager.get(it, Owner::class.java) }
+
+            // the three textures don't fit the budget, so the one unloaded first goes
+            for (fileName in arrayOf("a.t", "b.t", "c.t")) manager.unload(fileName)
+            assertTrue(owners[0].disposed)
+            assertFalse(owners[1].disposed)
+            assertFalse(owners[2].disposed)
+            assertEquals(2, manager.getRetainedAssets())
+            assertEquals(200, manager.getMemoryUsage())
+
+            // loading a retained asset again revives it, unloading makes it the most recently unloaded one
+            manager.load("b.t", Owner::class.java)
+            finish(manager)
+            assertSame(owners[1], manager.get("b.t", Owner::class.java))
+            assertEquals(1, manager.getCacheHits())
+            manager.unload("b.t")
+            manager.load("d.t", Owner::class.java)
+            finish(manager)
+            assertTrue(owners[2].disposed)
+            assertFalse(owners[1].disposed)
+            assertEquals(2, manager.getCacheEvictions())
+
+            // an evicted asset is loaded again
+            manager.load("a.t", Owner::class.java)
+            finish(manager)
+            assertNotSame(owners[0], manager.get("a.t", Owner::class.java))
+            assertEquals(1, manager.getCacheReloads())
+        } finally {
+            manager.dispose()
+        }
+    }
+
+    @Test
+    fun reviveWithDependencies() {
+        val manager = ownerManager(mapOf("a.m" to listOf("b.t")))
+        try {
+            manager.setMemoryBudget(1000)
+            manager.load("a.m", Owner::class.java)
+            finish(manager)
+            val model = manager.get("a.m", Owner::class.java)
+            val texture = manager.get("b.t", Owner::class.java)
+
+            manager.unload("a.m")
+            assertEquals(2, manager.getRetainedAssets())
+            assertFalse(manager.isLoaded("b.t"))
+
+            manager.load("a.m", Owner::class.java)
+            finish(manager)
+            assertSame(model, manager.get("a.m", Owner::class.java))
+            assertSame(texture, manager.get("b.t", Owner::class.java))
+            assertFalse(texture.disposed)
+            assertEquals(0, manager.getRetainedAssets())
+
+            // evicting the model may dispose its texture, so the texture goes with it
+            manager.unload("a.m")
+            manager.setMemoryBudget(120)
+            assertTrue(model.disposed)
+            assertEquals(0, manager.getRetainedAssets())
+            assertEquals(0, manager.getMemoryUsage())
+        } finally {
+            manager.dispose()
+        }
+    }
+
+    @Test
+    fun dependenciesOfDisposedAsset() {
+        // like a TextureAtlas, the atlas has no size estimate and disposes its page textures
+        val manager = ownerManager(mapOf("a.a" to listOf("b.t", "c.t")))
+        try {
+            manager.setMemoryBudget(1000)
+            manager.load("a.a", Owner::class.java)
+            finish(manager)
+            val atlas = manager.get("a.a", Owner::class.java)
+
+            manager.unload("a.a")
+            assertTrue(atlas.disposed)
+            assertEquals(0, manager.getRetainedAssets())
+            assertEquals(0, manager.getMemoryUsage())
+
+            manager.load("b.t", Owner::class.java)
+            manager.load("a.a", Owner::class.java)
+            finish(manager)
+            assertFalse(manager.get("b.t", Owner::class.java).disposed)
+            assertFalse(manager.get("a.a", Owner::class.java).owned.any { it.disposed })
+        } finally {
+            manager.dispose()
+        }
+    }
+
+    /**
+     * @return a manager loading [Owner] assets, textures ending in .t are 100 bytes, models ending in .m 50 bytes and atlases
+     * ending in .a have no size estimate
+     */
+    private fun ownerManager(dependencies: Map<String, List<String>>): AssetManager {
+        val manager = AssetManager(resolver, false, 1)
+        for (extension in arrayOf(".t", ".m", ".a"))
+            manager.setLoader(Owner::class.java, extension, OwnerLoader(resolver, dependencies))
+        manager.setSizeEstimator(Owner::class.java) {
+            when {
+                it.fileName.endsWith(".t") -> 100L
+                it.fileName.endsWith(".m") -> 50L
+                else -> 0L
+            }
+        }
+        return manager
+    }
+
+    private fun finish(manager: AssetManager) {
+        repeat(1000) {
+            if (manager.update()) return
+            Thread.sleep(1)
+        }
+        fail("loading didn't finish")
+    }
+
+    class Named(val fileName: String)
+
+    /**
+     * Keeps the file name from [getDependencies] in a field until [load], like most loaders keep the state of the asset.
+     */
+    class StatefulLoader(resolver: FileHandleResolver, private val dependencies: Map<String, String>) :
+        SynchronousAssetLoader<Named, AssetLoaderParameters<Named>>(resolver) {
+
+        private var current: String? = null
+
+        override fun getDependencies(
+            fileName: String, file: FileHandle, parameter: AssetLoaderParameters<Named>?,
+        ): KermanArray<AssetDescriptor<*>>? {
+            current = fileName
+            val dependency = dependencies[fileName] ?: return null
+            val descriptors = KermanArray<AssetDescriptor<*>>()
+            descriptors.add(AssetDescriptor(dependency, Named::class.java))
+            return descriptors
+        }
+
+        override fun load(
+            assetManager: AssetManager, fileName: String, file: FileHandle, parameter: AssetLoaderParameters<Named>?,
+        ): Named {
+            if (current != fileName) throw IllegalStateException("loading $fileName with the state of $current")
+            current = null
+            return Named(fileName)
+        }
+    }
+
+    /**
+     * Disposes the assets it depends on along with itself.
+     */
+    class Owner(val fileName: String, val owned: List<Owner>) : Disposable {
+        var disposed = false
+
+        override fun dispose() {
+            disposed = true
+            for (owner in owned) owner.dispose()
+        }
+    }
+
+    class OwnerLoader(resolver: FileHandleResolver, private val dependencies: Map<String, List<String>>) :
+        SynchronousAssetLoader<Owner, AssetLoaderParameters<Owner>>(resolver) {
+
+        override fun getDependencies(
+            fileName: String, file: FileHandle, parameter: AssetLoaderParameters<Owner>?,
+        ): KermanArray<AssetDescriptor<*>>? {
+            val names = dependencies[fileName] ?: return null
+            val descriptors = KermanArray<AssetDescriptor<*>>()
+            for (name in names) descriptors.add(AssetDescriptor(name, Owner::class.java))
+            return descriptors
+        }
+
+        override fun load(
+            assetManager: AssetManager, fileName: String, file: FileHandle, parameter: AssetLoaderParameters<Owner>?,
+        ): Owner = Owner(fileName, dependencies[fileName].orEmpty().map { assetManager.get(it, Owner::class.java) })
+    }
+
+    /**
+     * Uploads [units] bytes per asset within the upload budget of the manager, like the texture and model loaders.
+     */
+    class UploadingLoader(resolver: FileHandleResolver, private val units: Int) :
+        AsynchronousAssetLoader<Named, AssetLoaderParameters<Named>>(resolver) {
+
+        private val uploaded = HashMap<String, Int>()
+
+        override fun getDependencies(
+            fileName: String, file: FileHandle, parameter: AssetLoaderParameters<Named>?,
+        ): KermanArray<AssetDescriptor<*>>? = null
+
+        override fun loadAsync(
+            manager: AssetManager, fileName: String, file: FileHandle, parameter: AssetLoaderParameters<Named>?,
+        ) {
+        }
+
+        override fun loadSync(
+            manager: AssetManager, fileName: String, file: FileHandle, parameter: AssetLoaderParameters<Named>?,
+        ): Named? {
+            val done = uploaded.getOrDefault(fileName, 0)
+            val total = done + manager.getUploadBudget().claim(1, units - done)
+            if (total < units) {
+                uploaded[fileName] = total
+                return null
+            }
+            uploaded.remove(fileName)
+            return Named(fileName)
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.kerman.core.graphics.glutils
+
+import java.nio.ByteBuffer
+import kotlin.math.sqrt
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertFalse
+import kotlin.test.assertTrue
+
+/**
+ * Checks the PKM header and ETC1 round trips of [ETC1], which uses the JNI implementations when the gdx natives are loaded and
+ * [JavaETC1] otherwise, against the Java fallback.
+ */
+class ETC1Test {
+
+    @Test
+    fun header() {
+        for ((width, height) in listOf(4 to 4, 7 to 5, 1 to 33)) {
+            val native = ByteBuffer.allocateDirect(ETC1.PKM_HEADER_SIZE)
+            val java = ByteBuffer.allocateDirect(ETC1.PKM_HEADER_SIZE)
+            ETC1.formatHeader(native, 0, width, height)
+            JavaETC1.formatHeader(java, 0, width, height)
+            assertEquals(java, native)
+            assertTrue(ETC1.isValidPKM(java, 0))
+            assertEquals(width, ETC1.getWidthPKM(java, 0))
+            assertEquals(height, ETC1.getHeightPKM(java, 0))
+            assertEquals(JavaETC1.getCompressedDataSize(width, height), ETC1.getCompressedDataSize(width, height))
+        }
+        val invalid = ByteBuffer.allocateDirect(ETC1.PKM_HEADER_SIZE)
+        assertFalse(ETC1.isValidPKM(invalid, 0))
+    }
+
+    @Test
+    fun solidColor() {
+        // 8 bits per channel colors with an exact 4 bit representation survive individual mode without a modifier error.
+        for (pixelSize in intArrayOf(2, 3)) {
+            val image = image(4, 4, pixelSize) { _, _ -> intArrayOf(0x88, 0x44, 0x11) }
+            val decoded = roundTrip(image, 4, 4, pixelSize)
+            val error = rmse(image, decoded, 4, 4, pixelSize)
+            assertTrue(error < 4, "pixel size $pixelSize, error $error")
+        }
+    }
+
+    @Test
+    fun gradient() {
+        // Sizes that aren't a multiple of 4 cover the partial blocks at the right and bottom edges.
+        for ((width, height) in listOf(16 to 16, 33 to 9, 1 to 1)) {
+            for (pixelSize in intArrayOf(2, 3)) {
+                val image = image(width, height, pixelSize) { x, y -> intArrayOf(x * 4, y * 4, (x + y) * 2) }
+                val decoded = roundTrip(image, width, height, pixelSize)
+                val error = rmse(image, decoded, width, height, pixelSize)
+                assertTrue(error < 8, "${width}x$height, pixel size $pixelSize, error $error")
+            }
+        }
+    }
+
+    private fun roundTrip(image: ByteBuffer, width: Int, height: Int, pixelSize: Int): ByteBuffer {
+        val compressed = ByteBuffer.allocateDirect(JavaETC1.getCompressedDataSize(width, height))
+        JavaETC1.encodeImage(image, 0, width, height, pixelSize, compressed, 0)
+        val decoded = ByteBuffer.allocateDirect(width * height * pixelSize)
+        JavaETC1.decodeImage(compressed, 0, decoded, 0, width, height, pixelSize)
+        return decoded
+    }
+
+    private fun image(width: Int, height: Int, pixelSize: Int, color: (Int, Int) -> IntArray): ByteBuffer {
+        val image = ByteBuffer.allocateDirect(width * height * pixelSize)
+        for (y in 0 until height) {
+            for (x in 0 until width) {
+                val (r, g, b) = color(x, y).map { it.coerceIn(0, 255) }
+                val offset = (y * width + x) * pixelSize
+                if (pixelSize == 3) {
+                    image.put(offset, r.toByte())
+                    image.put(offset + 1, g.toByte())
+                    image.put(offset + 2, b.toByte())
+                } else {
+                    val pixel = ((r shr 3) shl 11) or ((g shr 2) shl 5) or (b shr 3)
+                    image.put(offset, pixel.toByte())
+                    image.put(offset + 1, (pixel shr 8).toByte())
+                }
+            }
+        }
+        return image
+    }
+
+    private fun rmse(expected: ByteBuffer, actual: ByteBuffer, width: Int, height: Int, pixelSize: Int): Double {
+        var sum = 0.0
+        for (i in 0 until width * height) {
+            val a = rgb(expected, i, pixelSize)
+            val b = rgb(actual, i, pixelSize)
+            for (c in 0 until 3) sum += (a[c] - b[c]) * (a[c] - b[c])
+        }
+        return sqrt(sum / (width * height * 3))
+    }
+
+    private fun rgb(buffer: ByteBuffer, index: Int, pixelSize: Int): IntArray {
+        if (pixelSize == 3)
+            return IntArray(3) { buffer.get(index * 3 + it).toInt() and 0xff }
+        val pixel = (buffer.get(index * 2).toInt() and 0xff) or ((buffer.get(index * 2 + 1).toInt() and 0xff) shl 8)
+        return intArrayOf((pixel shr 11) shl 3, ((pixel shr 5) and 0x3f) shl 2, (pixel and 0x1f) shl 3)
+    }
+}
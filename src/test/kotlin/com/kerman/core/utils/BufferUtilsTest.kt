@@ -0,0 +1,224 @@
+package com.kerman.core.utils
+
+import com.kerman.core.math.Matrix3
+import com.kerman.core.math.Matrix4
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.nio.FloatBuffer
+import kotlin.random.Random
+import kotlin.test.Test
+import kotlin.test.assertEquals
+
+/**
+ * Checks that [BufferUtils] gives the same results as [JavaBufferUtils] and as plain reference loops. When the gdx natives are
+ * loaded ([BufferUtils.isNative]) this compares the JNI implementations with the pure Java fallback, otherwise it checks the
+ * fallback alone.
+ */
+class BufferUtilsTest {
+
+    private val random = Random(42)
+
+    @Test
+    fun copyFloatArray() {
+        val src = randomFloats(64)
+        val dst = BufferUtils.newFloatBuffer(64)
+        BufferUtils.copy(src, dst, 50, 7)
+        assertEquals(0, dst.position())
+        assertEquals(50, dst.limit())
+
+        val expected = BufferUtils.newFloatBuffer(64)
+        JavaBufferUtils.copy(src, 7, expected, 0, 50 * 4)
+        for (i in 0 until 50) {
+            assertEquals(src[7 + i], dst.get(i))
+            assertEquals(expected.get(i), dst.get(i))
+        }
+    }
+
+    @Test
+    fun copyArrays() {
+        val bytes = ByteArray(40) { it.toByte() }
+        val byteBuffer = BufferUtils.newByteBuffer(40)
+        byteBuffer.position(3)
+        BufferUtils.copy(bytes, 5, byteBuffer, 30)
+        assertEquals(33, byteBuffer.limit())
+        for (i in 0 until 30) assertEquals(bytes[5 + i], byteBuffer.get(3 + i))
+
+        val shorts = ShortArray(40) { (it * 1000).toShort() }
+        val shortBuffer = BufferUtils.newShortBuffer(40)
+        BufferUtils.copy(shorts, 2, shortBuffer, 20)
+        for (i in 0 until 20) assertEquals(shorts[2 + i], shortBuffer.get(i))
+
+        val ints = IntArray(40) { random.nextInt() }
+        val intBuffer = BufferUtils.newIntBuffer(40)
+        BufferUtils.copy(ints, 1, intBuffer, 39)
+        for (i in 0 until 39) assertEquals(ints[1 + i], intBuffer.get(i))
+
+        val floats = randomFloats(40)
+        val floatBytes = BufferUtils.newByteBuffer(40 * 4)
+        BufferUtils.copy(floats, 4, floatBytes, 36)
+        val javaBytes = BufferUtils.newByteBuffer(40 * 4)
+        JavaBufferUtils.copy(floats, 4, javaBytes, 0, 36 * 4)
+        for (i in 0 until 36 * 4) assertEquals(javaBytes.get(i), floatBytes.get(i))
+        for (i in 0 until 36) assertEquals(floats[4 + i], floatBytes.getFloat(i * 4))
+    }
+
+    @Test
+    fun copyBuffer() {
+        val src = BufferUtils.newFloatBuffer(32)
+        for (i in 0 until 32) src.put(i, random.nextFloat())
+        src.position(4)
+        val dst = BufferUtils.newByteBuffer(32 * 4)
+        dst.position(8)
+        BufferUtils.copy(src, dst, 20)
+        assertEquals(8 + 20 * 4, dst.limit())
+        for (i in 0 until 20) assertEquals(src.get(4 + i), dst.getFloat(8 + i * 4))
+    }
+
+    @Test
+    fun clear() {
+        val buffer = BufferUtils.newByteBuffer(100)
+        for (i in 0 until 100) buffer.put(i, (i + 1).toByte())
+        BufferUtils.clear(buffer, 60)
+        for (i in 0 until 100) assertEquals((if (i < 60) 0 else i + 1).toByte(), buffer.get(i), "byte $i")
+    }
+
+    @Test
+    fun transformMatrix4() {
+        val matrix = Matrix4(randomFloats(16))
+        for (dimensions in 2..4) {
+            transform(dimensions, matrix.`val`, 4, { data, stride, count, offset ->
+                BufferUtils.transform(data, dimensions, stride, count, matrix, offset)
+            }, { data, stride, count, offset ->
+                BufferUtils.transform(data, dimensions, stride, count, matrix, offset)
+            }, { data, stride, count, offset ->
+                when (dimensions) {
+                    4 -> JavaBufferUtils.transformV4M4(data, stride, count, matrix.`val`, offset)
+                    3 -> JavaBufferUtils.transformV3M4(data, stride, count, matrix.`val`, offset)
+                    else -> JavaBufferUtils.transformV2M4(data, stride, count, matrix.`val`, offset)
+                }
+            })
+        }
+    }
+
+    @Test
+    fun transformMatrix3() {
+        val matrix = Matrix3(randomFloats(9))
+        for (dimensions in 2..3) {
+            transform(dimensions, matrix.`val`, 3, { data, stride, count, offset ->
+                BufferUtils.transform(data, dimensions, stride, count, matrix, offset)
+            }, { data, stride, count, offset ->
+                BufferUtils.transform(data, dimensions, stride, count, matrix, offset)
+            }, { data, stride, count, offset ->
+                if (dimensions == 3)
+                    JavaBufferUtils.transformV3M3(data, stride, count, matrix.`val`, offset)
+                else
+                    JavaBufferUtils.transformV2M3(data, stride, count, matrix.`val`, offset)
+            })
+        }
+    }
+
+    /**
+     * Transforms 10 vertices with a stride of 6 floats, starting at the second float, through the array and buffer methods
+     * (strides and offsets in bytes) and through the Java fallback (strides and offsets in floats), and compares all of them
+     * with a reference computed here. The components of the vertices after the transformed ones must not change.
+     *
+     * @param size the number of rows and columns of the matrix
+     */
+    private fun transform(
+        dimensions: Int, m: FloatArray, size: Int,
+        array: (FloatArray, Int, Int, Int) -> Unit,
+        buffer: (ByteBuffer, Int, Int, Int) -> Unit,
+        java: (FloatArray, Int, Int, Int) -> Unit,
+    ) {
+        val stride = 6
+        val count = 10
+        val offset = 1
+        val data = randomFloats(offset + stride * count)
+
+        val expected = data.copyOf()
+        for (i in 0 until count) {
+            val base = offset + i * stride
+            for (row in 0 until dimensions) {
+                var sum = 0f
+                for (column in 0 until size) {
+                    // Missing components are 1 for the translation column and 0 otherwise.
+                    val component = if (column < dimensions) data[base + column] else if (column == size - 1) 1f else 0f
+                    sum += m[column * size + row] * component
+                }
+                expected[base + row] = sum
+            }
+        }
+
+        val arrayData = data.copyOf()
+        array(arrayData, stride * 4, count, offset * 4)
+        val bufferData = BufferUtils.newByteBuffer(data.size * 4)
+        bufferData.asFloatBuffer().put(data)
+        buffer(bufferData, stride * 4, count, offset * 4)
+        val javaData = data.copyOf()
+        java(javaData, stride, count, offset)
+
+        for (i in data.indices) {
+            assertEquals(expected[i], arrayData[i], 1e-4f, "array, $dimensions dimensions, float $i")
+            assertEquals(expected[i], bufferData.getFloat(i * 4), 1e-4f, "buffer, $dimensions dimensions, float $i")
+            assertEquals(expected[i], javaData[i], 1e-4f, "Java, $dimensions dimensions, float $i")
+        }
+    }
+
+    @Test
+    fun findFloats() {
+        val size = 3
+        val count = 20
+        val vertices = randomFloats(size * count)
+        vertices[5 * size] = -0f
+        val verticesBuffer = floatBuffer(vertices)
+
+        for (index in intArrayOf(0, 5, 13, count - 1)) {
+            val vertex = vertices.copyOfRange(index * size, index * size + size)
+            if (index == 5) vertex[0] = 0f
+            val vertexBuffer = floatBuffer(vertex)
+            assertFind(index.toLong(), vertex, vertexBuffer, size, vertices, verticesBuffer, count)
+        }
+        val missing = floatArrayOf(2f, 2f, 2f)
+        assertFind(-1L, missing, floatBuffer(missing), size, vertices, verticesBuffer, count)
+    }
+
+    private fun assertFind(
+        expected: Long, vertex: FloatArray, vertexBuffer: FloatBuffer, size: Int, vertices: FloatArray,
+        verticesBuffer: FloatBuffer, count: Int,
+    ) {
+        val stride = size * 4
+        assertEquals(expected, BufferUtils.findFloats(vertex, stride, vertices, count))
+        assertEquals(expected, BufferUtils.findFloats(vertexBuffer, stride, vertices, count))
+        assertEquals(expected, BufferUtils.findFloats(vertex, stride, verticesBuffer, count))
+        assertEquals(expected, BufferUtils.findFloats(vertexBuffer, stride, verticesBuffer, count))
+        assertEquals(expected, JavaBufferUtils.find(vertexBuffer, 0, size, verticesBuffer, 0, count))
+    }
+
+    @Test
+    fun findFloatsEpsilon() {
+        val size = 2
+        val count = 10
+        val vertices = randomFloats(size * count)
+        val verticesBuffer = floatBuffer(vertices)
+        val vertex = floatArrayOf(vertices[6 * size] + 0.001f, vertices[6 * size + 1] - 0.001f)
+        val vertexBuffer = floatBuffer(vertex)
+        val stride = size * 4
+
+        assertEquals(-1L, BufferUtils.findFloats(vertex, stride, vertices, count, 0.0001f))
+        assertEquals(6L, BufferUtils.findFloats(vertex, stride, vertices, count, 0.01f))
+        assertEquals(6L, BufferUtils.findFloats(vertexBuffer, stride, verticesBuffer, count, 0.01f))
+        assertEquals(6L, BufferUtils.findFloats(vertex, stride, verticesBuffer, count, 0.01f))
+        assertEquals(6L, BufferUtils.findFloats(vertexBuffer, stride, vertices, count, 0.01f))
+        assertEquals(6L, JavaBufferUtils.find(vertexBuffer, 0, size, verticesBuffer, 0, count, 0.01f))
+        assertEquals(-1L, JavaBufferUtils.find(vertexBuffer, 0, size, verticesBuffer, 0, count, 0.0001f))
+    }
+
+    private fun randomFloats(count: Int) = FloatArray(count) { random.nextFloat() * 2 - 1 }
+
+    private fun floatBuffer(values: FloatArray): FloatBuffer {
+        val buffer = ByteBuffer.allocateDirect(values.size * 4).order(ByteOrder.nativeOrder()).asFloatBuffer()
+        buffer.put(values)
+        buffer.position(0)
+        return buffer
+    }
+}